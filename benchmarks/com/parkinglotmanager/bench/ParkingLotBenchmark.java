@@ -0,0 +1,89 @@
+package com.parkinglotmanager.bench;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.parkinglotmanager.dao.ParkingDAO;
+import com.parkinglotmanager.dao.VehicleDAO;
+import com.parkinglotmanager.dao.VehicleSessionDAO;
+import com.parkinglotmanager.enums.SlotType;
+import com.parkinglotmanager.enums.VehicleType;
+import com.parkinglotmanager.model.CampusLots;
+import com.parkinglotmanager.model.ParkingLot;
+import com.parkinglotmanager.model.ParkingSlot;
+
+/**
+ * Availability queries on the largest campus lot (Structure 1, 1,250 slots)
+ * at different occupancy levels.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-DWRITE_BEHIND_ENABLED=false")
+public class ParkingLotBenchmark {
+
+    @Param({ "0", "50", "95" })
+    public int occupancyPercent;
+
+    private ParkingLot lot;
+    private ParkingDAO parkingDAO;
+
+    @Setup
+    public void setUp() {
+        lot = CampusLots.create().get(0);
+        parkingDAO = new ParkingDAO(new VehicleSessionDAO(), new VehicleDAO());
+        occupy(lot, occupancyPercent, new Random(42));
+    }
+
+    @Benchmark
+    public List<ParkingSlot> compatibleAvailableSlots() {
+        return parkingDAO.getCompatibleAvailableSlots(lot, VehicleType.CAR);
+    }
+
+    @Benchmark
+    public int availableSpaces() {
+        return lot.getAvailableSpaces();
+    }
+
+    @Benchmark
+    public List<ParkingSlot> availableSlotsByType() {
+        return lot.getAvailableSlotsByType(SlotType.CAR);
+    }
+
+    @Benchmark
+    public double occupancyPercentage() {
+        return lot.getOccupancyPercentage();
+    }
+
+    /**
+     * Park a compatible vehicle in roughly the given percentage of slots
+     */
+    static void occupy(ParkingLot lot, int percent, Random random) {
+        for (ParkingSlot slot : lot.getSlots()) {
+            if (random.nextInt(100) >= percent) {
+                continue;
+            }
+            for (VehicleType type : VehicleType.values()) {
+                if (slot.isCompatibleWith(type)) {
+                    slot.setOccupied(true, type);
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.parkinglotmanager.bench;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.parkinglotmanager.dao.ActiveSessionRegistry;
+import com.parkinglotmanager.dao.ParkingDAO;
+import com.parkinglotmanager.dao.VehicleDAO;
+import com.parkinglotmanager.dao.VehicleSessionDAO;
+import com.parkinglotmanager.enums.VehicleMake;
+import com.parkinglotmanager.enums.VehicleType;
+import com.parkinglotmanager.model.CampusLots;
+import com.parkinglotmanager.model.ParkingLot;
+import com.parkinglotmanager.model.ParkingSlot;
+import com.parkinglotmanager.model.VehicleSession;
+
+/**
+ * The slot-lookup loop that every GUI refresh runs: one active-session lookup
+ * per slot of the selected lot. The registry is filled in memory, so no
+ * database is needed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-DWRITE_BEHIND_ENABLED=false")
+public class SlotSyncBenchmark {
+
+    @Param({ "0", "50", "95" })
+    public int occupancyPercent;
+
+    private ParkingLot lot;
+    private ParkingDAO parkingDAO;
+
+    @Setup
+    public void setUp() {
+        lot = CampusLots.create().get(0);
+        parkingDAO = new ParkingDAO(new VehicleSessionDAO(), new VehicleDAO());
+
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        List<VehicleSession> sessions = new ArrayList<>();
+        int id = 1;
+        for (ParkingSlot slot : lot.getSlots()) {
+            if (random.nextInt(100) < occupancyPercent) {
+                sessions.add(new VehicleSession(id, "BENCH" + id, VehicleType.CAR,
+                        VehicleMake.TOYOTA, 1, slot.getSlotId(), now.minusMinutes(random.nextInt(600)), null,
+                        0.0, "PENDING"));
+                id++;
+            }
+        }
+        ActiveSessionRegistry.getInstance().replaceAll(sessions);
+        // First pass marks the slots; the benchmark measures the steady state
+        parkingDAO.syncSlotOccupancy(lot);
+    }
+
+    @Benchmark
+    public ParkingLot syncSlotOccupancy() {
+        parkingDAO.syncSlotOccupancy(lot);
+        return lot;
+    }
+}
@@ -0,0 +1,66 @@
+package com.parkinglotmanager.bench;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.parkinglotmanager.enums.VehicleMake;
+import com.parkinglotmanager.enums.VehicleType;
+import com.parkinglotmanager.model.VehicleSession;
+
+/**
+ * Duration and fee calculation, over a mix of active and completed sessions
+ * so both the now() and the exitTime branch are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VehicleSessionBenchmark {
+
+    private static final int SESSIONS = 1024; // Power of two for the index mask
+
+    private VehicleSession[] sessions;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        sessions = new VehicleSession[SESSIONS];
+        for (int i = 0; i < SESSIONS; i++) {
+            LocalDateTime entry = now.minusMinutes(random.nextInt(12 * 60));
+            LocalDateTime exit = i % 2 == 0 ? null : entry.plusMinutes(1 + random.nextInt(8 * 60));
+            sessions[i] = new VehicleSession(i + 1, "BENCH" + i, VehicleType.CAR, VehicleMake.TOYOTA, 1,
+                    "LOT-001-SLOT-" + i, entry, exit, 0.0, exit == null ? "PENDING" : "PAID");
+        }
+    }
+
+    @Benchmark
+    public long parkedHours() {
+        return nextSession().getParkedHours();
+    }
+
+    @Benchmark
+    public double calculateFee() {
+        return nextSession().calculateFee(5.0);
+    }
+
+    private VehicleSession nextSession() {
+        next = (next + 1) & (SESSIONS - 1);
+        return sessions[next];
+    }
+}
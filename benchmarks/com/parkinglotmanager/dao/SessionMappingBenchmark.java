@@ -0,0 +1,138 @@
+package com.parkinglotmanager.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.parkinglotmanager.model.VehicleSession;
+
+/**
+ * VehicleSessionDAO row mapping against a stub ResultSet, so the cost of
+ * turning one row into a VehicleSession is measured without a database.
+ * Lives in the dao package because the mapper is package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionMappingBenchmark {
+
+    private VehicleSessionDAO dao;
+    private ResultSet activeRow;
+    private ResultSet completedRow;
+    private SessionRowMapper mapper;
+
+    @Setup
+    public void setUp() {
+        dao = new VehicleSessionDAO();
+        LocalDateTime entry = LocalDateTime.now().minusHours(3);
+        activeRow = stubRow(row(entry, null, 0.0, "PENDING"));
+        completedRow = stubRow(row(entry, entry.plusHours(2), 10.0, "PAID"));
+        try {
+            mapper = new SessionRowMapper(completedRow);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Benchmark
+    public VehicleSession mapActiveSession() throws SQLException {
+        return dao.mapResultSetToSession(activeRow);
+    }
+
+    @Benchmark
+    public VehicleSession mapCompletedSession() throws SQLException {
+        return dao.mapResultSetToSession(completedRow);
+    }
+
+    /**
+     * One row of a multi-row query: column indexes already resolved
+     */
+    @Benchmark
+    public VehicleSession mapRowWithMapper() throws SQLException {
+        return mapper.map(completedRow);
+    }
+
+    private static Map<String, Object> row(LocalDateTime entry, LocalDateTime exit, double fee, String status) {
+        Map<String, Object> columns = new LinkedHashMap<>();
+        columns.put("sessionID", 42);
+        columns.put("licensePlate", "ABC1234");
+        columns.put("vehicleType", "CAR");
+        columns.put("vehicleMake", "TOYOTA");
+        columns.put("userID", 1);
+        columns.put("slotID", "LOT-001-SLOT-001");
+        columns.put("entryTime", Timestamp.valueOf(entry));
+        columns.put("exitTime", exit != null ? Timestamp.valueOf(exit) : null);
+        columns.put("fee", fee);
+        columns.put("paymentStatus", status);
+        return columns;
+    }
+
+    /**
+     * A single-row ResultSet answering the getters the mappers use, by label
+     * or by index. Label lookup is a hash lookup, about what a real driver
+     * does per call.
+     */
+    private static ResultSet stubRow(Map<String, Object> columns) {
+        List<String> labels = new ArrayList<>(columns.keySet());
+        InvocationHandler metaHandler = (proxy, method, args) -> {
+            if (!method.getName().equals("getColumnType")) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            Object value = columns.get(labels.get((Integer) args[0] - 1));
+            return value instanceof Number ? Types.INTEGER
+                    : value instanceof Timestamp ? Types.TIMESTAMP : Types.VARCHAR;
+        };
+        ResultSetMetaData meta = (ResultSetMetaData) Proxy.newProxyInstance(
+                ResultSetMetaData.class.getClassLoader(), new Class<?>[] { ResultSetMetaData.class }, metaHandler);
+
+        InvocationHandler handler = (proxy, method, args) -> {
+            Object key = args != null && args.length >= 1 ? args[0] : null;
+            Object value = key instanceof String ? columns.get(key)
+                    : key instanceof Integer ? columns.get(labels.get((Integer) key - 1)) : null;
+            switch (method.getName()) {
+                case "findColumn":
+                    return labels.indexOf(key) + 1;
+                case "getMetaData":
+                    return meta;
+                case "getInt":
+                    return value != null ? ((Number) value).intValue() : 0;
+                case "getDouble":
+                    return value != null ? ((Number) value).doubleValue() : 0.0;
+                case "getString":
+                    return value != null ? value.toString() : null;
+                case "getTimestamp":
+                    return value;
+                case "wasNull":
+                    return false;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        };
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                new Class<?>[] { ResultSet.class }, handler);
+    }
+}
@@ -0,0 +1,15 @@
+-- Add OccupancyHourly table: per-lot, per-hour occupancy rolled up from VehicleSession,
+-- so history queries read one row per lot-hour instead of rescanning sessions.
+-- Filled by the occupancy rollup (incrementally while the app runs, or by OccupancyBackfill).
+CREATE TABLE IF NOT EXISTS OccupancyHourly (
+    lotID            VARCHAR(20)   NOT NULL,   -- e.g. 'LOT-001' (prefix of the slot IDs)
+    hourStart        DATETIME      NOT NULL,
+    arrivals         INT           NOT NULL DEFAULT 0,
+    departures       INT           NOT NULL DEFAULT 0,
+    revenue          DECIMAL(12,2) NOT NULL DEFAULT 0.00,   -- fees of sessions that exited this hour
+    occupiedSeconds  BIGINT        NOT NULL DEFAULT 0,      -- vehicle-seconds parked during the hour
+    coveredSeconds   INT           NOT NULL DEFAULT 3600,   -- less than 3600 for the hour in progress
+    peakOccupied     INT           NOT NULL DEFAULT 0,
+    PRIMARY KEY (lotID, hourStart),
+    INDEX idx_occupancy_hour (hourStart)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
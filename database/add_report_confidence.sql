@@ -0,0 +1,3 @@
+-- Add ParkingReport.confidence: how sure the reporter was (0-100), used to weight
+-- reports in the crowd estimate. Older rows without it are weighted as 80.
+ALTER TABLE ParkingReport ADD COLUMN confidence TINYINT NULL AFTER fullness;
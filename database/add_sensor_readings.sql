@@ -0,0 +1,30 @@
+-- Add Sensor and SensorReading tables for the sensor ingest (SensorIngest / SensorDAO).
+-- Readings are kept SENSOR_RETENTION_DAYS days.
+-- TABLE: Sensor
+-- Occupancy sensors, one per slot they watch
+CREATE TABLE IF NOT EXISTS Sensor (
+    sensorID       VARCHAR(50) NOT NULL,
+    lotID          VARCHAR(20) NOT NULL,   -- e.g. 'LOT-001'
+    slotID         VARCHAR(50) NULL,       -- e.g. 'LOT-001-SLOT-004'
+    sensorType     VARCHAR(20) NOT NULL,   -- ULTRASONIC, CAMERA, LOOP
+    installedAt    DATETIME    NOT NULL,
+    lastReadingAt  DATETIME(3) NULL,
+    status         VARCHAR(20) NOT NULL DEFAULT 'ACTIVE',   -- ACTIVE, INACTIVE, MAINTENANCE, ERROR
+    PRIMARY KEY (sensorID),
+    INDEX idx_sensor_lot (lotID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+
+-- TABLE: SensorReading
+-- Readings saved by the sensor ingest (by default only those that change a sensor's value)
+CREATE TABLE IF NOT EXISTS SensorReading (
+    readingID    BIGINT NOT NULL AUTO_INCREMENT,
+    sensorID     VARCHAR(50) NOT NULL,
+    readingTime  DATETIME(3) NOT NULL,
+    occupied     BOOLEAN     NOT NULL,
+    confidence   FLOAT       NOT NULL,
+    rawData      VARCHAR(255) NULL,
+    PRIMARY KEY (readingID),
+    INDEX idx_reading_sensor_time (sensorID, readingTime),
+    INDEX idx_reading_time (readingTime)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,23 @@
+-- Add SessionChange table: one row per insert/update/delete on VehicleSession,
+-- written by triggers so every client (and the write-behind flusher) is covered.
+-- Consoles poll it with changeID > last seen to pick up each other's changes.
+CREATE TABLE IF NOT EXISTS SessionChange (
+    changeID    BIGINT NOT NULL AUTO_INCREMENT,
+    sessionID   INT NOT NULL,
+    changeType  VARCHAR(10) NOT NULL,      -- INSERT, UPDATE, DELETE
+    changeTime  DATETIME(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    PRIMARY KEY (changeID),
+    INDEX idx_change_time (changeTime)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+DROP TRIGGER IF EXISTS trg_session_insert;
+CREATE TRIGGER trg_session_insert AFTER INSERT ON VehicleSession
+    FOR EACH ROW INSERT INTO SessionChange (sessionID, changeType) VALUES (NEW.sessionID, 'INSERT');
+
+DROP TRIGGER IF EXISTS trg_session_update;
+CREATE TRIGGER trg_session_update AFTER UPDATE ON VehicleSession
+    FOR EACH ROW INSERT INTO SessionChange (sessionID, changeType) VALUES (NEW.sessionID, 'UPDATE');
+
+DROP TRIGGER IF EXISTS trg_session_delete;
+CREATE TRIGGER trg_session_delete AFTER DELETE ON VehicleSession
+    FOR EACH ROW INSERT INTO SessionChange (sessionID, changeType) VALUES (OLD.sessionID, 'DELETE');
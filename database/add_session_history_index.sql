@@ -0,0 +1,7 @@
+-- Widen idx_session_user to (userID, entryTime) for paged and streamed session history.
+-- InnoDB appends the primary key, so the index covers the (entryTime, sessionID) keyset order
+-- and each page is a short index range instead of a sort over the user's whole history.
+-- The new index is added before the old one is dropped, so fk_session_user always has one.
+ALTER TABLE VehicleSession ADD INDEX idx_session_user_entry (userID, entryTime);
+ALTER TABLE VehicleSession DROP INDEX idx_session_user;
+ALTER TABLE VehicleSession RENAME INDEX idx_session_user_entry TO idx_session_user;
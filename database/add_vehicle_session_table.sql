@@ -14,7 +14,7 @@ CREATE TABLE IF NOT EXISTS VehicleSession (
     CONSTRAINT fk_session_user
         FOREIGN KEY (userID) REFERENCES `User`(userID)
         ON DELETE CASCADE ON UPDATE CASCADE,
-    INDEX idx_session_user (userID),
+    INDEX idx_session_user (userID, entryTime),   -- (userID, entryTime, sessionID) in InnoDB: keyset pages
     INDEX idx_session_active (exitTime),
     INDEX idx_session_entry (entryTime)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -58,12 +58,84 @@ CREATE TABLE IF NOT EXISTS VehicleSession (
     CONSTRAINT fk_session_user
         FOREIGN KEY (userID) REFERENCES `User`(userID)
         ON DELETE CASCADE ON UPDATE CASCADE,
-    INDEX idx_session_user (userID),
+    INDEX idx_session_user (userID, entryTime),   -- (userID, entryTime, sessionID) in InnoDB: keyset pages
     INDEX idx_session_active (exitTime),
     INDEX idx_session_entry (entryTime)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
 
 
+-- TABLE: SessionChange
+-- One row per insert/update/delete on VehicleSession,
+-- written by triggers so every client (and the write-behind flusher) is covered.
+-- Consoles poll it with changeID > last seen to pick up each other's changes.
+CREATE TABLE IF NOT EXISTS SessionChange (
+    changeID    BIGINT NOT NULL AUTO_INCREMENT,
+    sessionID   INT NOT NULL,
+    changeType  VARCHAR(10) NOT NULL,      -- INSERT, UPDATE, DELETE
+    changeTime  DATETIME(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    PRIMARY KEY (changeID),
+    INDEX idx_change_time (changeTime)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+DROP TRIGGER IF EXISTS trg_session_insert;
+CREATE TRIGGER trg_session_insert AFTER INSERT ON VehicleSession
+    FOR EACH ROW INSERT INTO SessionChange (sessionID, changeType) VALUES (NEW.sessionID, 'INSERT');
+
+DROP TRIGGER IF EXISTS trg_session_update;
+CREATE TRIGGER trg_session_update AFTER UPDATE ON VehicleSession
+    FOR EACH ROW INSERT INTO SessionChange (sessionID, changeType) VALUES (NEW.sessionID, 'UPDATE');
+
+DROP TRIGGER IF EXISTS trg_session_delete;
+CREATE TRIGGER trg_session_delete AFTER DELETE ON VehicleSession
+    FOR EACH ROW INSERT INTO SessionChange (sessionID, changeType) VALUES (OLD.sessionID, 'DELETE');
+
+
+-- TABLE: OccupancyHourly
+-- Per-lot, per-hour occupancy rolled up from VehicleSession
+CREATE TABLE IF NOT EXISTS OccupancyHourly (
+    lotID            VARCHAR(20)   NOT NULL,   -- e.g. 'LOT-001' (prefix of the slot IDs)
+    hourStart        DATETIME      NOT NULL,
+    arrivals         INT           NOT NULL DEFAULT 0,
+    departures       INT           NOT NULL DEFAULT 0,
+    revenue          DECIMAL(12,2) NOT NULL DEFAULT 0.00,   -- fees of sessions that exited this hour
+    occupiedSeconds  BIGINT        NOT NULL DEFAULT 0,      -- vehicle-seconds parked during the hour
+    coveredSeconds   INT           NOT NULL DEFAULT 3600,   -- less than 3600 for the hour in progress
+    peakOccupied     INT           NOT NULL DEFAULT 0,
+    PRIMARY KEY (lotID, hourStart),
+    INDEX idx_occupancy_hour (hourStart)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+
+-- TABLE: Sensor
+-- Occupancy sensors, one per slot they watch
+CREATE TABLE IF NOT EXISTS Sensor (
+    sensorID       VARCHAR(50) NOT NULL,
+    lotID          VARCHAR(20) NOT NULL,   -- e.g. 'LOT-001'
+    slotID         VARCHAR(50) NULL,       -- e.g. 'LOT-001-SLOT-004'
+    sensorType     VARCHAR(20) NOT NULL,   -- ULTRASONIC, CAMERA, LOOP
+    installedAt    DATETIME    NOT NULL,
+    lastReadingAt  DATETIME(3) NULL,
+    status         VARCHAR(20) NOT NULL DEFAULT 'ACTIVE',   -- ACTIVE, INACTIVE, MAINTENANCE, ERROR
+    PRIMARY KEY (sensorID),
+    INDEX idx_sensor_lot (lotID)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+
+-- TABLE: SensorReading
+-- Readings saved by the sensor ingest (by default only those that change a sensor's value)
+CREATE TABLE IF NOT EXISTS SensorReading (
+    readingID    BIGINT NOT NULL AUTO_INCREMENT,
+    sensorID     VARCHAR(50) NOT NULL,
+    readingTime  DATETIME(3) NOT NULL,
+    occupied     BOOLEAN     NOT NULL,
+    confidence   FLOAT       NOT NULL,
+    rawData      VARCHAR(255) NULL,
+    PRIMARY KEY (readingID),
+    INDEX idx_reading_sensor_time (sensorID, readingTime),
+    INDEX idx_reading_time (readingTime)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+
 -- TABLE: ParkingReport
 -- Crowdsourced fullness reports per lot
 CREATE TABLE IF NOT EXISTS ParkingReport (
@@ -71,6 +143,7 @@ CREATE TABLE IF NOT EXISTS ParkingReport (
     lotID           INT NOT NULL,
     userID          INT NOT NULL,
     fullness        INT NOT NULL,      -- 0–100
+    confidence      TINYINT NULL,      -- reporter's confidence, 0–100
     reportTime      DATETIME NOT NULL,
     PRIMARY KEY (parkingReportID),
     CONSTRAINT fk_report_lot
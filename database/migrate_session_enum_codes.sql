@@ -0,0 +1,49 @@
+-- Store VehicleSession.vehicleType and vehicleMake as TINYINT codes instead of VARCHAR names.
+-- A code is the constant's position in VehicleType / VehicleMake (CAR = 0, ...), so new
+-- constants must only ever be added at the end of those enums after this has run.
+-- Reads work with either layout; set SESSION_ENUM_CODES=true in config.properties once this
+-- has run so new sessions are written as codes too. Run while the lots are quiet: the
+-- SessionChange triggers record one UPDATE per existing session.
+ALTER TABLE VehicleSession
+    ADD COLUMN vehicleTypeCode TINYINT NULL AFTER vehicleType,
+    ADD COLUMN vehicleMakeCode TINYINT NULL AFTER vehicleMake;
+
+UPDATE VehicleSession SET
+    vehicleTypeCode = CASE vehicleType
+        WHEN 'CAR' THEN 0
+        WHEN 'MOTORCYCLE' THEN 1
+        WHEN 'EV' THEN 2
+        WHEN 'TRUCK' THEN 3
+    END,
+    vehicleMakeCode = CASE vehicleMake
+        WHEN 'FORD' THEN 0
+        WHEN 'CHEVROLET' THEN 1
+        WHEN 'GMC' THEN 2
+        WHEN 'TESLA' THEN 3
+        WHEN 'JEEP' THEN 4
+        WHEN 'MERCEDES' THEN 5
+        WHEN 'BMW' THEN 6
+        WHEN 'AUDI' THEN 7
+        WHEN 'VOLKSWAGEN' THEN 8
+        WHEN 'VOLVO' THEN 9
+        WHEN 'TOYOTA' THEN 10
+        WHEN 'HONDA' THEN 11
+        WHEN 'NISSAN' THEN 12
+        WHEN 'HYUNDAI' THEN 13
+        WHEN 'KIA' THEN 14
+        WHEN 'MAZDA' THEN 15
+        WHEN 'SUBARU' THEN 16
+        WHEN 'HARLEY_DAVIDSON' THEN 17
+        WHEN 'YAMAHA' THEN 18
+        WHEN 'KAWASAKI' THEN 19
+        WHEN 'SUZUKI' THEN 20
+        WHEN 'DUCATI' THEN 21
+        WHEN 'OTHER' THEN 22
+    END;
+
+ALTER TABLE VehicleSession
+    DROP COLUMN vehicleType,
+    DROP COLUMN vehicleMake;
+ALTER TABLE VehicleSession
+    RENAME COLUMN vehicleTypeCode TO vehicleType,
+    RENAME COLUMN vehicleMakeCode TO vehicleMake;
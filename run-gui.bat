@@ -9,6 +9,10 @@ if not exist "%MYSQL_JAR%" (
     set MYSQL_JAR=.
 )
 
+REM Optional embedded database driver (DB_PROFILE=embedded)
+set H2_JAR=
+for %%f in (h2-*.jar) do set H2_JAR=;%%f
+
 echo.
 echo Compiling new package (com.parkinglotmanager)...
 
@@ -33,7 +37,7 @@ if %errorlevel% neq 0 exit /b 1
 
 REM Compile utilities
 echo Compiling utilities...
-javac -cp "build;%MYSQL_JAR%" --release 8 -Xlint:-options -d build src\com\parkinglotmanager\util\DatabaseConnection.java
+javac -cp "build;%MYSQL_JAR%" --release 8 -Xlint:-options -d build src\com\parkinglotmanager\util\*.java
 if %errorlevel% neq 0 exit /b 1
 
 REM Compile models
@@ -46,6 +50,11 @@ echo Compiling Data Access Objects...
 javac -cp "build;%MYSQL_JAR%" --release 8 -Xlint:-options -d build src\com\parkinglotmanager\dao\*.java
 if %errorlevel% neq 0 exit /b 1
 
+REM Compile exports
+echo Compiling exports...
+javac -cp "build;%MYSQL_JAR%" --release 8 -Xlint:-options -d build src\com\parkinglotmanager\export\*.java
+if %errorlevel% neq 0 exit /b 1
+
 REM Compile GUI
 echo Compiling GUI...
 javac -cp "build;%MYSQL_JAR%" --release 8 -Xlint:-options -d build src\com\parkinglotmanager\gui\*.java
@@ -61,6 +70,6 @@ echo Compilation successful!
 echo.
 echo Launching Login Screen...
 echo.
-java -cp "build;%MYSQL_JAR%" com.parkinglotmanager.gui.LoginGUI
+java -cp "build;%MYSQL_JAR%%H2_JAR%" com.parkinglotmanager.gui.LoginGUI
 
 pause
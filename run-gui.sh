@@ -10,13 +10,16 @@ if [[ ! -f "$MYSQL_JAR" ]]; then
   MYSQL_JAR="."
 fi
 
+# Optional embedded database driver (DB_PROFILE=embedded)
+H2_JAR=$(ls h2-*.jar 2>/dev/null | head -n 1 || true)
+
 echo
 echo "Compiling new package (com.parkinglotmanager)..."
 
 BUILD_DIR="build"
 PKG_DIR="$BUILD_DIR/com/parkinglotmanager"
 rm -rf "$PKG_DIR"
-mkdir -p "$PKG_DIR"/{enums,model,test,gui,util}
+mkdir -p "$PKG_DIR"/{enums,model,test,gui,util,export}
 
 # function to run javac with check
 run_javac() {
@@ -44,6 +47,10 @@ run_javac "Compiling models..." -cp "${BUILD_DIR}:${MYSQL_JAR}" --release 8 -Xli
 run_javac "Compiling Data Access Objects..." -cp "${BUILD_DIR}:${MYSQL_JAR}" --release 8 -Xlint:-options -d "$BUILD_DIR" \
   src/com/parkinglotmanager/dao/*.java
 
+# Compile exports
+run_javac "Compiling exports..." -cp "${BUILD_DIR}:${MYSQL_JAR}" --release 8 -Xlint:-options -d "$BUILD_DIR" \
+  src/com/parkinglotmanager/export/*.java
+
 # Compile GUI
 run_javac "Compiling GUI..." -cp "${BUILD_DIR}:${MYSQL_JAR}" --release 8 -Xlint:-options -d "$BUILD_DIR" \
   src/com/parkinglotmanager/gui/*.java
@@ -58,7 +65,7 @@ echo
 echo "Launching Login Screen..."
 echo
 
-java -cp "${BUILD_DIR}:${MYSQL_JAR}" com.parkinglotmanager.gui.LoginGUI
+java -cp "${BUILD_DIR}:${MYSQL_JAR}${H2_JAR:+:$H2_JAR}" com.parkinglotmanager.gui.LoginGUI
 
 echo
 read -r -p "Press Enter to exit..."
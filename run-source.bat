@@ -17,6 +17,10 @@ if not exist "%MYSQL_JAR%" (
 )
 
 echo Found MySQL Connector: %MYSQL_JAR%
+
+REM Optional embedded database driver (DB_PROFILE=embedded), e.g. h2-2.2.224.jar
+set H2_JAR=
+for %%f in (h2-*.jar) do set H2_JAR=;%%f
 echo.
 
 REM Create build directory if it doesn't exist
@@ -109,8 +113,9 @@ echo.
 echo Choose what to run:
 echo 1. Model Test (console)
 echo 2. GUI Application (window)
+echo 3. Embedded profile smoke test (needs h2-*.jar)
 echo.
-set /p choice="Enter your choice (1 or 2): "
+set /p choice="Enter your choice (1, 2 or 3): "
 
 if "%choice%"=="1" (
     echo Starting Model Test...
@@ -119,7 +124,16 @@ if "%choice%"=="1" (
 ) else if "%choice%"=="2" (
     echo Starting GUI Application...
     echo.
-    java -cp "build;%MYSQL_JAR%" com.parkinglotmanager.gui.ParkingLotManagerGUI
+    java -cp "build;%MYSQL_JAR%%H2_JAR%" com.parkinglotmanager.gui.ParkingLotManagerGUI
+) else if "%choice%"=="3" (
+    if "%H2_JAR%"=="" (
+        echo ERROR: No h2-*.jar in this directory. Download it from
+        echo https://repo.maven.apache.org/maven2/com/h2database/h2/2.2.224/h2-2.2.224.jar
+    ) else (
+        echo Starting embedded profile smoke test...
+        echo.
+        java -cp "build;%MYSQL_JAR%%H2_JAR%" com.parkinglotmanager.test.EmbeddedProfileTest
+    )
 ) else (
     echo Invalid choice. Starting Model Test by default...
     echo.
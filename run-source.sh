@@ -23,6 +23,10 @@ if [[ ! -f "$MYSQL_JAR" ]]; then
 fi
 
 echo "Found MySQL Connector: $MYSQL_JAR"
+
+# Optional embedded database driver (DB_PROFILE=embedded), e.g. h2-2.2.224.jar
+H2_JAR=$(ls h2-*.jar 2>/dev/null | head -n 1 || true)
+RUN_CP="$BUILD_DIR:$MYSQL_JAR${H2_JAR:+:$H2_JAR}"
 echo
 
 # Create build directory if it doesn't exist
@@ -109,25 +113,36 @@ echo
 echo "Choose what to run:"
 echo "1. Model Test (console)"
 echo "2. GUI Application (window)"
+echo "3. Embedded profile smoke test (needs h2-*.jar)"
 echo
 
-read -rp "Enter your choice (1 or 2): " choice || choice="1"
+read -rp "Enter your choice (1, 2 or 3): " choice || choice="1"
 
 case "$choice" in
   1)
     echo "Starting Model Test..."
     echo
-    java -cp "$BUILD_DIR:$MYSQL_JAR" com.parkinglotmanager.test.ModelTest
+    java -cp "$RUN_CP" com.parkinglotmanager.test.ModelTest
     ;;
   2)
     echo "Starting GUI Application..."
     echo
-    java -cp "$BUILD_DIR:$MYSQL_JAR" com.parkinglotmanager.gui.ParkingLotManagerGUI
+    java -cp "$RUN_CP" com.parkinglotmanager.gui.ParkingLotManagerGUI
+    ;;
+  3)
+    if [[ -z "$H2_JAR" ]]; then
+      echo "ERROR: No h2-*.jar in this directory. Download it from"
+      echo "https://repo.maven.apache.org/maven2/com/h2database/h2/2.2.224/h2-2.2.224.jar"
+    else
+      echo "Starting embedded profile smoke test..."
+      echo
+      java -cp "$RUN_CP" com.parkinglotmanager.test.EmbeddedProfileTest || true
+    fi
     ;;
   *)
     echo "Invalid choice. Starting Model Test by default..."
     echo
-    java -cp "$BUILD_DIR:$MYSQL_JAR" com.parkinglotmanager.test.ModelTest
+    java -cp "$RUN_CP" com.parkinglotmanager.test.ModelTest
     ;;
 esac
 
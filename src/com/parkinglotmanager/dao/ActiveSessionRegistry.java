@@ -0,0 +1,292 @@
+package com.parkinglotmanager.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.parkinglotmanager.model.ParkingLot;
+import com.parkinglotmanager.model.VehicleSession;
+
+/**
+ * In-memory index of all active parking sessions (exitTime IS NULL).
+ * Loaded once from the database and kept current write-through by
+ * VehicleSessionDAO, so readers get a snapshot without a DB round trip.
+ *
+ * Shared by every VehicleSessionDAO instance in the JVM.
+ *
+ * Sessions recorded by SessionWriteBehind but not yet written to the database
+ * carry a negative (provisional) ID; they survive a reload, as does the
+ * removal of sessions whose exit has not been flushed yet.
+ *
+ * Active sessions are also counted per lot (from the slot ID), and
+ * LotCountListeners hear about every change to a count.
+ */
+public class ActiveSessionRegistry {
+
+    /**
+     * Told when a lot's number of active sessions changes. Called while the
+     * registry is locked, so it must be quick and must not call back into it.
+     */
+    public interface LotCountListener {
+        void activeCountChanged(String lotId, int activeCount);
+    }
+
+    private static final ActiveSessionRegistry INSTANCE = new ActiveSessionRegistry();
+
+    // Same order as the original SELECT ... ORDER BY entryTime DESC
+    private static final Comparator<VehicleSession> NEWEST_FIRST = (a, b) -> {
+        int cmp = b.getEntryTime().compareTo(a.getEntryTime());
+        return cmp != 0 ? cmp : Integer.compare(b.getId(), a.getId());
+    };
+
+    private final Map<Integer, VehicleSession> byId = new HashMap<>();
+    private final Map<String, VehicleSession> bySlotId = new HashMap<>();
+    private final Map<String, VehicleSession> byLicensePlate = new HashMap<>();
+    // Sessions exited locally whose UPDATE has not reached the database yet
+    private final Set<Integer> pendingExits = new HashSet<>();
+    private final Map<String, Integer> countsByLot = new HashMap<>();
+    // Lots whose count changed during the current write
+    private final Set<String> changedLots = new HashSet<>();
+    private final List<LotCountListener> countListeners = new CopyOnWriteArrayList<>();
+
+    // Rebuilt lazily after a write; null means stale
+    private volatile List<VehicleSession> snapshot = Collections.emptyList();
+    private volatile boolean loaded;
+    // Bumped on every add/remove so a reload can detect writes that raced with it
+    private volatile long version;
+
+    private ActiveSessionRegistry() {
+    }
+
+    public static ActiveSessionRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * True once the registry has been populated from the database.
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Replace the contents only if no add/remove happened since expectedVersion.
+     *
+     * @return false if a concurrent write was detected and nothing was replaced
+     */
+    public synchronized boolean replaceAll(Collection<VehicleSession> sessions, long expectedVersion) {
+        if (version != expectedVersion) {
+            return false;
+        }
+        replaceAll(sessions);
+        return true;
+    }
+
+    /**
+     * Replace the whole registry contents (initial load or explicit reload).
+     */
+    public synchronized void replaceAll(Collection<VehicleSession> sessions) {
+        List<VehicleSession> provisional = new ArrayList<>();
+        for (VehicleSession session : byId.values()) {
+            if (session.getId() < 0) {
+                provisional.add(session);
+            }
+        }
+        byId.clear();
+        bySlotId.clear();
+        byLicensePlate.clear();
+        changedLots.addAll(countsByLot.keySet());
+        countsByLot.clear();
+        for (VehicleSession session : sessions) {
+            if (!pendingExits.contains(session.getId())) {
+                index(session);
+            }
+        }
+        for (VehicleSession session : provisional) {
+            index(session);
+        }
+        snapshot = null;
+        loaded = true;
+        fireCountChanges();
+    }
+
+    /**
+     * Register a newly inserted active session.
+     */
+    public synchronized void add(VehicleSession session) {
+        VehicleSession previous = byId.get(session.getId());
+        if (previous != null) {
+            unindex(previous);
+        }
+        index(session);
+        snapshot = null;
+        version++;
+        fireCountChanges();
+    }
+
+    /**
+     * Drop a session that was completed or deleted.
+     *
+     * @return the removed session, or null if it was not active
+     */
+    public synchronized VehicleSession remove(int sessionId) {
+        VehicleSession removed = byId.get(sessionId);
+        if (removed != null) {
+            unindex(removed);
+            snapshot = null;
+            version++;
+            fireCountChanges();
+        }
+        return removed;
+    }
+
+    /**
+     * Drop a session whose exit is recorded locally but not yet in the database,
+     * and keep it out of later reloads until exitFlushed() is called.
+     */
+    public synchronized VehicleSession removePendingExit(int sessionId) {
+        if (sessionId > 0) {
+            pendingExits.add(sessionId);
+        }
+        return remove(sessionId);
+    }
+
+    /**
+     * True if the session was exited here but the exit is not in the database yet.
+     */
+    public synchronized boolean isExitPending(int sessionId) {
+        return pendingExits.contains(sessionId);
+    }
+
+    /**
+     * The exit of a session has been written to the database.
+     */
+    public synchronized void exitFlushed(int sessionId) {
+        pendingExits.remove(sessionId);
+    }
+
+    /**
+     * Move a session from its provisional ID to the ID the database assigned.
+     * The session's own ID must already be the new one. No-op if the session
+     * is no longer active under the old ID.
+     */
+    public synchronized void rekey(int oldId, VehicleSession session) {
+        if (byId.get(oldId) != session) {
+            return;
+        }
+        byId.remove(oldId);
+        byId.put(session.getId(), session);
+        snapshot = null;
+        version++;
+    }
+
+    public synchronized VehicleSession getById(int sessionId) {
+        return byId.get(sessionId);
+    }
+
+    public synchronized VehicleSession getBySlotId(String slotId) {
+        return slotId != null ? bySlotId.get(slotId) : null;
+    }
+
+    public synchronized VehicleSession getByLicensePlate(String licensePlate) {
+        return licensePlate != null ? byLicensePlate.get(licensePlate) : null;
+    }
+
+    public synchronized int size() {
+        return byId.size();
+    }
+
+    /**
+     * Number of active sessions in a lot
+     */
+    public synchronized int getActiveCount(String lotId) {
+        Integer count = countsByLot.get(lotId);
+        return count != null ? count : 0;
+    }
+
+    public void addLotCountListener(LotCountListener listener) {
+        countListeners.add(listener);
+    }
+
+    public void removeLotCountListener(LotCountListener listener) {
+        countListeners.remove(listener);
+    }
+
+    /**
+     * Immutable list of active sessions, newest first. The same list instance is
+     * returned until the next write, so frequent pollers allocate nothing.
+     */
+    public List<VehicleSession> snapshot() {
+        List<VehicleSession> current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (snapshot == null) {
+                List<VehicleSession> rebuilt = new ArrayList<>(byId.values());
+                rebuilt.sort(NEWEST_FIRST);
+                snapshot = Collections.unmodifiableList(rebuilt);
+            }
+            return snapshot;
+        }
+    }
+
+    private void index(VehicleSession session) {
+        byId.put(session.getId(), session);
+        if (session.getSlotId() != null) {
+            bySlotId.put(session.getSlotId(), session);
+            adjustCount(ParkingLot.lotIdOfSlot(session.getSlotId()), 1);
+        }
+        if (session.getLicensePlate() != null) {
+            byLicensePlate.put(session.getLicensePlate(), session);
+        }
+    }
+
+    private void unindex(VehicleSession session) {
+        byId.remove(session.getId());
+        if (session.getSlotId() != null) {
+            bySlotId.remove(session.getSlotId(), session);
+            adjustCount(ParkingLot.lotIdOfSlot(session.getSlotId()), -1);
+        }
+        if (session.getLicensePlate() != null) {
+            byLicensePlate.remove(session.getLicensePlate(), session);
+        }
+    }
+
+    private void adjustCount(String lotId, int delta) {
+        if (lotId == null) {
+            return;
+        }
+        int count = getActiveCount(lotId) + delta;
+        if (count > 0) {
+            countsByLot.put(lotId, count);
+        } else {
+            countsByLot.remove(lotId);
+        }
+        changedLots.add(lotId);
+    }
+
+    private void fireCountChanges() {
+        if (changedLots.isEmpty()) {
+            return;
+        }
+        for (String lotId : changedLots) {
+            int count = getActiveCount(lotId);
+            for (LotCountListener listener : countListeners) {
+                listener.activeCountChanged(lotId, count);
+            }
+        }
+        changedLots.clear();
+    }
+}
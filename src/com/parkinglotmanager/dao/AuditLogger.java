@@ -0,0 +1,416 @@
+package com.parkinglotmanager.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.parkinglotmanager.model.LogEntry;
+import com.parkinglotmanager.util.DatabaseConnection;
+import com.parkinglotmanager.util.RingBuffer;
+
+/**
+ * Writes audit log lines (LogDAO.logAction) in the background.
+ *
+ * log() puts the line in a fixed-size lock-free buffer and returns; one
+ * writer thread saves the buffer with multi-row INSERTs once AUDIT_BATCH_SIZE
+ * lines are waiting or the oldest has waited AUDIT_FLUSH_MS, and sleeps in
+ * between: log() only wakes it for a line that starts a batch or fills one.
+ * When the buffer is full, each log type's policy decides: DROP counts the
+ * line and moves on, BLOCK waits up to AUDIT_BLOCK_MS for room first. A
+ * failed write is retried after AUDIT_FLUSH_MS, and the buffer fills (and
+ * the policies apply) while the database is down. If the database is up but
+ * refuses the batch, its lines are saved one by one and those refused are
+ * counted as unsaved.
+ *
+ * flush() waits until everything logged so far is saved (e.g. on logout);
+ * stop() also ends the writer and runs on JVM shutdown, before the
+ * connection pool closes (DatabaseConnection.runBeforeShutdown).
+ *
+ * Settings (config.properties): AUDIT_BUFFER_SIZE, AUDIT_BATCH_SIZE,
+ * AUDIT_FLUSH_MS, AUDIT_POLICY, AUDIT_TYPE_POLICIES, AUDIT_BLOCK_MS,
+ * AUDIT_DRAIN_MS.
+ */
+public class AuditLogger {
+
+    /**
+     * What log() does with a line when the buffer is full
+     */
+    public enum OverflowPolicy {
+        DROP,
+        BLOCK
+    }
+
+    // wakeBacklog while the writer needs no wake-up
+    private static final int NO_WAKE = Integer.MAX_VALUE;
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private static AuditLogger instance;
+
+    private final LogDAO logDAO;
+    private final RingBuffer<LogEntry> buffer;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long blockNanos;
+    private final long drainMillis;
+    private final OverflowPolicy defaultPolicy;
+    private final Map<String, OverflowPolicy> typePolicies;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong unsaved = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Map<String, AtomicLong> droppedByType = new ConcurrentHashMap<>();
+
+    // Lines written or given up on; flush() waits on this for its target
+    private final Object progress = new Object();
+    private volatile long flushTarget;
+
+    private volatile boolean running;
+    private volatile Thread writer;
+    // Buffered lines at which log() wakes the sleeping writer
+    private volatile int wakeBacklog = NO_WAKE;
+
+    /**
+     * The shared logger, started on first use
+     */
+    public static synchronized AuditLogger getInstance() {
+        if (instance == null) {
+            instance = new AuditLogger(new LogDAO(),
+                    DatabaseConnection.getIntProperty("AUDIT_BUFFER_SIZE", 8192),
+                    DatabaseConnection.getIntProperty("AUDIT_BATCH_SIZE", 200),
+                    DatabaseConnection.getIntProperty("AUDIT_FLUSH_MS", 250),
+                    DatabaseConnection.getIntProperty("AUDIT_BLOCK_MS", 50),
+                    DatabaseConnection.getIntProperty("AUDIT_DRAIN_MS", 2000),
+                    policyOf(DatabaseConnection.getProperty("AUDIT_POLICY", "DROP"), OverflowPolicy.DROP),
+                    parsePolicies(DatabaseConnection.getProperty("AUDIT_TYPE_POLICIES", "")));
+            instance.start();
+            DatabaseConnection.runBeforeShutdown(instance::stop);
+        }
+        return instance;
+    }
+
+    AuditLogger(LogDAO logDAO, int bufferSize, int batchSize, long flushIntervalMillis, long blockMillis,
+            long drainMillis, OverflowPolicy defaultPolicy, Map<String, OverflowPolicy> typePolicies) {
+        this.logDAO = logDAO;
+        this.buffer = new RingBuffer<>(Math.max(16, bufferSize));
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMillis = Math.max(1, flushIntervalMillis);
+        this.blockNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, blockMillis));
+        this.drainMillis = Math.max(0, drainMillis);
+        this.defaultPolicy = defaultPolicy;
+        this.typePolicies = new HashMap<>(typePolicies);
+    }
+
+    /**
+     * Start the writer thread; lines logged before this wait in the buffer
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        Thread t = new Thread(this::write, "audit-writer");
+        t.setDaemon(true);
+        writer = t;
+        t.start();
+    }
+
+    /**
+     * Queue a line for saving. Never touches the database while the writer is
+     * running; after stop() lines are written on the calling thread.
+     *
+     * @return false if the buffer was full and the line was dropped
+     */
+    public boolean log(LogEntry entry) {
+        if (!running) {
+            return writeNow(entry);
+        }
+        if (buffer.offer(entry)) {
+            accepted.incrementAndGet();
+            int backlog = wakeBacklog;
+            if (backlog != NO_WAKE && buffer.size() >= backlog) {
+                LockSupport.unpark(writer);
+            }
+            return true;
+        }
+        if (policyFor(entry.getLogType()) == OverflowPolicy.BLOCK) {
+            long deadline = System.nanoTime() + blockNanos;
+            LockSupport.unpark(writer);
+            while (running && System.nanoTime() < deadline) {
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                if (buffer.offer(entry)) {
+                    accepted.incrementAndGet();
+                    return true;
+                }
+            }
+        }
+        dropped.incrementAndGet();
+        droppedByType.computeIfAbsent(entry.getLogType(), type -> new AtomicLong()).incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Wait up to AUDIT_DRAIN_MS until everything logged so far is saved
+     */
+    public boolean flush() {
+        return flush(drainMillis);
+    }
+
+    /**
+     * Wait up to timeoutMillis until everything logged so far is saved (or
+     * given up on)
+     *
+     * @return true if it was
+     */
+    public boolean flush(long timeoutMillis) {
+        long target = accepted.get();
+        synchronized (progress) {
+            if (target > flushTarget) {
+                flushTarget = target;
+            }
+        }
+        Thread current = writer;
+        if (current != null) {
+            LockSupport.unpark(current);
+        }
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (progress) {
+            while (handled() < target) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0 || !running) {
+                    return handled() >= target;
+                }
+                try {
+                    progress.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Save what is buffered and stop the writer, waiting up to AUDIT_DRAIN_MS
+     */
+    public void stop() {
+        stop(drainMillis);
+    }
+
+    /**
+     * Save what is buffered and stop the writer, waiting up to timeoutMillis.
+     * Lines still unsaved after that are counted in getUnsavedCount().
+     */
+    public void stop(long timeoutMillis) {
+        Thread current;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            current = writer;
+        }
+        LockSupport.unpark(current);
+        try {
+            current.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (current.isAlive() || buffer.size() > 0) {
+            System.err.println("Audit log: stopped with about " + (accepted.get() - handled())
+                    + " lines unsaved");
+        }
+        writer = null;
+    }
+
+    /**
+     * Lines waiting in the buffer
+     */
+    public int getBacklog() {
+        return buffer.size();
+    }
+
+    /**
+     * Lines accepted into the buffer
+     */
+    public long getAcceptedCount() {
+        return accepted.get();
+    }
+
+    /**
+     * Lines saved to the database
+     */
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * Lines dropped because the buffer was full
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Lines of one type dropped because the buffer was full
+     */
+    public long getDroppedCount(String logType) {
+        AtomicLong count = droppedByType.get(logType);
+        return count != null ? count.get() : 0;
+    }
+
+    /**
+     * Lines accepted but not saved: refused by the database, or given up on
+     * when stopping with the database down
+     */
+    public long getUnsavedCount() {
+        return unsaved.get();
+    }
+
+    private void write() {
+        List<LogEntry> batch = new ArrayList<>(batchSize);
+        long batchStartedAt = 0;
+        long retryAt = 0;
+        while (true) {
+            boolean stopping = !running;
+            if (batch.size() < batchSize) {
+                boolean wasEmpty = batch.isEmpty();
+                buffer.drainTo(batch::add, batchSize - batch.size());
+                if (wasEmpty && !batch.isEmpty()) {
+                    batchStartedAt = System.currentTimeMillis();
+                }
+            }
+            if (batch.isEmpty()) {
+                if (stopping) {
+                    return;
+                }
+                sleep(1, 0);
+                continue;
+            }
+
+            long now = System.currentTimeMillis();
+            boolean due = batch.size() >= batchSize || now - batchStartedAt >= flushIntervalMillis
+                    || flushTarget > handled() || stopping;
+            if (!due || now < retryAt) {
+                long wakeAt = Math.max(due ? now : batchStartedAt + flushIntervalMillis, retryAt);
+                // Filling the batch makes it due early, unless the last write failed
+                sleep(now < retryAt ? NO_WAKE : batchSize - batch.size(), wakeAt - now);
+                continue;
+            }
+
+            int count = logDAO.insertLogs(batch);
+            if (count < 0 && DatabaseConnection.testConnection()) {
+                // The database is up, so some line was refused (e.g. a user ID
+                // that does not exist): save the rest one by one
+                count = insertOneByOne(batch);
+                unsaved.addAndGet(batch.size() - count);
+            }
+            if (count >= 0) {
+                written.addAndGet(count);
+            } else if (stopping) {
+                // Database down at shutdown: give up on this batch and the rest
+                unsaved.addAndGet(batch.size());
+                batch.clear();
+                buffer.drainTo(entry -> unsaved.incrementAndGet(), Integer.MAX_VALUE);
+                signalProgress();
+                return;
+            } else {
+                retryAt = now + flushIntervalMillis;
+                continue;
+            }
+            batch.clear();
+            signalProgress();
+        }
+    }
+
+    /**
+     * Park the writer until backlog lines are buffered, flush() or stop()
+     * wakes it, or timeoutMillis pass (0 = no timeout)
+     */
+    private void sleep(int backlog, long timeoutMillis) {
+        wakeBacklog = backlog;
+        // Lines logged before wakeBacklog was set are seen here instead
+        if (buffer.size() < backlog) {
+            if (timeoutMillis > 0) {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+            } else {
+                LockSupport.park(this);
+            }
+        }
+        wakeBacklog = NO_WAKE;
+    }
+
+    private int insertOneByOne(List<LogEntry> lines) {
+        int count = 0;
+        for (LogEntry entry : lines) {
+            if (logDAO.insertLogs(Collections.singletonList(entry)) == 1) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean writeNow(LogEntry entry) {
+        if (logDAO.insertLogs(Collections.singletonList(entry)) == 1) {
+            written.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private long handled() {
+        return written.get() + unsaved.get();
+    }
+
+    private void signalProgress() {
+        synchronized (progress) {
+            progress.notifyAll();
+        }
+    }
+
+    private OverflowPolicy policyFor(String logType) {
+        OverflowPolicy policy = typePolicies.get(logType);
+        return policy != null ? policy : defaultPolicy;
+    }
+
+    /**
+     * Parse "login:BLOCK,park:DROP" into per-type policies; bad entries are
+     * reported and skipped
+     */
+    static Map<String, OverflowPolicy> parsePolicies(String value) {
+        Map<String, OverflowPolicy> policies = new HashMap<>();
+        for (String part : value.split(",")) {
+            part = part.trim();
+            if (part.isEmpty()) {
+                continue;
+            }
+            int colon = part.indexOf(':');
+            OverflowPolicy policy = colon > 0 ? policyOf(part.substring(colon + 1), null) : null;
+            if (policy == null) {
+                System.err.println("Ignoring audit policy (expected type:DROP or type:BLOCK): " + part);
+                continue;
+            }
+            policies.put(part.substring(0, colon).trim(), policy);
+        }
+        return policies;
+    }
+
+    private static OverflowPolicy policyOf(String value, OverflowPolicy fallback) {
+        try {
+            return OverflowPolicy.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            if (fallback != null) {
+                System.err.println("Unknown AUDIT_POLICY '" + value + "', using " + fallback);
+            }
+            return fallback;
+        }
+    }
+}
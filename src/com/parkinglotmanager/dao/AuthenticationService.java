@@ -0,0 +1,296 @@
+package com.parkinglotmanager.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.parkinglotmanager.model.User;
+import com.parkinglotmanager.util.DatabaseConnection;
+import com.parkinglotmanager.util.PasswordHasher;
+
+/**
+ * Logs users in off the caller's thread. Each login (user lookup plus PBKDF2)
+ * runs on a small bounded pool, so a burst of logins at shift change is
+ * hashed in parallel and the GUI never waits on one.
+ *
+ * After a successful login the password is remembered for AUTH_CACHE_TTL_SEC
+ * as an HMAC under a key that only lives in this process, so logging in
+ * again soon after (switching consoles, a kiosk re-prompting) costs one
+ * HMAC instead of a full hash. The entry is dropped as soon as the stored
+ * hash changes. Each login also returns a session token that re-authenticates
+ * the user without the password until it expires (AUTH_TOKEN_TTL_SEC) or is
+ * logged out.
+ *
+ * Hashes weaker than AUTH_HASH_ITERATIONS are re-hashed and saved on login.
+ *
+ * Settings (config.properties): AUTH_THREADS, AUTH_QUEUE_SIZE,
+ * AUTH_CACHE_TTL_SEC, AUTH_TOKEN_TTL_SEC, AUTH_HASH_ITERATIONS.
+ */
+public class AuthenticationService {
+
+    /**
+     * Outcome of a login attempt
+     */
+    public static final class Result {
+        public enum Status {
+            SUCCESS, UNKNOWN_USER, WRONG_PASSWORD, BUSY, ERROR
+        }
+
+        private final Status status;
+        private final User user;
+        private final String token;
+
+        private Result(Status status, User user, String token) {
+            this.status = status;
+            this.user = user;
+            this.token = token;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public boolean isSuccess() {
+            return status == Status.SUCCESS;
+        }
+
+        /**
+         * The logged-in user, or null unless successful
+         */
+        public User getUser() {
+            return user;
+        }
+
+        /**
+         * Session token for reauthenticate(), or null unless successful
+         */
+        public String getToken() {
+            return token;
+        }
+    }
+
+    private static final class VerifiedLogin {
+        final String passwordHash;
+        final byte[] mac;
+        final long expiresAt;
+
+        VerifiedLogin(String passwordHash, byte[] mac, long expiresAt) {
+            this.passwordHash = passwordHash;
+            this.mac = mac;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class SessionToken {
+        final int userId;
+        final String passwordHash;
+        final long expiresAt;
+
+        SessionToken(int userId, String passwordHash, long expiresAt) {
+            this.userId = userId;
+            this.passwordHash = passwordHash;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static AuthenticationService instance;
+
+    private final UserDAO userDAO;
+    private final LogDAO logDAO = new LogDAO();
+    private final ThreadPoolExecutor pool;
+    private final long cacheTtlMillis;
+    private final long tokenTtlMillis;
+    private final SecretKeySpec cacheKey = new SecretKeySpec(PasswordHasher.randomBytes(32), "HmacSHA256");
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+    private final Map<Integer, VerifiedLogin> verified = new ConcurrentHashMap<>();
+    private final Map<String, SessionToken> tokens = new ConcurrentHashMap<>();
+
+    public static synchronized AuthenticationService getInstance() {
+        if (instance == null) {
+            instance = new AuthenticationService(new UserDAO(),
+                    DatabaseConnection.getIntProperty("AUTH_THREADS", Runtime.getRuntime().availableProcessors()),
+                    DatabaseConnection.getIntProperty("AUTH_QUEUE_SIZE", 64),
+                    DatabaseConnection.getIntProperty("AUTH_CACHE_TTL_SEC", 900),
+                    DatabaseConnection.getIntProperty("AUTH_TOKEN_TTL_SEC", 900));
+        }
+        return instance;
+    }
+
+    AuthenticationService(UserDAO userDAO, int threads, int queueSize, int cacheTtlSeconds, int tokenTtlSeconds) {
+        this.userDAO = userDAO;
+        this.cacheTtlMillis = Math.max(0, cacheTtlSeconds) * 1000L;
+        this.tokenTtlMillis = Math.max(0, tokenTtlSeconds) * 1000L;
+        int size = Math.max(1, threads);
+        AtomicInteger counter = new AtomicInteger();
+        pool = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(Math.max(1, queueSize)), r -> {
+                    Thread t = new Thread(r, "auth-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        pool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Check a username and password on the login pool. The future completes
+     * on a pool thread (BUSY at once if the queue is full); GUI callers must
+     * hop back to the EDT themselves.
+     */
+    public CompletableFuture<Result> authenticate(String username, String password) {
+        CompletableFuture<Result> result = new CompletableFuture<>();
+        try {
+            pool.execute(() -> {
+                try {
+                    result.complete(authenticateNow(username, password));
+                } catch (RuntimeException e) {
+                    System.err.println("Login failed: " + e.getMessage());
+                    e.printStackTrace();
+                    result.complete(new Result(Result.Status.ERROR, null, null));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.complete(new Result(Result.Status.BUSY, null, null));
+        }
+        return result;
+    }
+
+    /**
+     * Check a username and password on the calling thread
+     */
+    public Result authenticateNow(String username, String password) {
+        User user = userDAO.getUserByUsername(username);
+        if (user == null) {
+            return new Result(Result.Status.UNKNOWN_USER, null, null);
+        }
+        String storedHash = user.getPasswordHash();
+        if (storedHash == null) {
+            return new Result(Result.Status.ERROR, null, null);
+        }
+        byte[] mac = mac(password, storedHash);
+        long now = System.currentTimeMillis();
+
+        VerifiedLogin cached = verified.get(user.getId());
+        boolean ok = cached != null && cached.expiresAt > now && cached.passwordHash.equals(storedHash)
+                && MessageDigest.isEqual(cached.mac, mac);
+        if (!ok) {
+            if (!PasswordHasher.verify(password, storedHash)) {
+                logDAO.logAction("login", "userID " + user.getId() + " failed to log in", user.getId());
+                return new Result(Result.Status.WRONG_PASSWORD, null, null);
+            }
+            String upgraded = upgradeHash(user, password, storedHash);
+            if (!upgraded.equals(storedHash)) {
+                storedHash = upgraded;
+                mac = mac(password, storedHash);
+            }
+            remember(user.getId(), storedHash, mac, now);
+        }
+        logDAO.logAction("login", "userID " + user.getId() + " has logged in", user.getId());
+        return new Result(Result.Status.SUCCESS, user, issueToken(user.getId(), storedHash, now));
+    }
+
+    /**
+     * The user a session token was issued to, or null if the token is
+     * unknown, expired, or the user's password has changed since.
+     * Reads the user from the database; call off the EDT.
+     */
+    public User reauthenticate(String token) {
+        SessionToken session = token != null ? tokens.get(token) : null;
+        if (session == null) {
+            return null;
+        }
+        if (session.expiresAt <= System.currentTimeMillis()) {
+            tokens.remove(token, session);
+            return null;
+        }
+        User user = userDAO.getUserById(session.userId);
+        if (user == null || !session.passwordHash.equals(user.getPasswordHash())) {
+            tokens.remove(token, session);
+            return null;
+        }
+        return user;
+    }
+
+    /**
+     * End a session token
+     */
+    public void logout(String token) {
+        SessionToken session = token != null ? tokens.remove(token) : null;
+        if (session != null) {
+            logDAO.logAction("logout", "userID " + session.userId + " has logged out", session.userId);
+        }
+    }
+
+    /**
+     * Forget a user's cached login and tokens, e.g. after a password change
+     */
+    public void forget(int userId) {
+        verified.remove(userId);
+        tokens.values().removeIf(session -> session.userId == userId);
+    }
+
+    /**
+     * Re-hash with the configured work factor if the stored hash is weaker.
+     * A failed save only means the upgrade is tried again next login.
+     *
+     * @return the hash now stored
+     */
+    private String upgradeHash(User user, String password, String storedHash) {
+        if (!PasswordHasher.needsRehash(storedHash)) {
+            return storedHash;
+        }
+        try {
+            String upgraded = PasswordHasher.hash(password);
+            if (userDAO.updateUserPassword(user.getId(), upgraded)) {
+                user.setPasswordHash(upgraded);
+                return upgraded;
+            }
+        } catch (GeneralSecurityException e) {
+            System.err.println("Could not upgrade password hash for " + user.getUsername() + ": " + e.getMessage());
+        }
+        return storedHash;
+    }
+
+    private void remember(int userId, String storedHash, byte[] mac, long now) {
+        if (cacheTtlMillis == 0) {
+            return;
+        }
+        verified.values().removeIf(login -> login.expiresAt <= now);
+        verified.put(userId, new VerifiedLogin(storedHash, mac, now + cacheTtlMillis));
+    }
+
+    private String issueToken(int userId, String storedHash, long now) {
+        tokens.values().removeIf(session -> session.expiresAt <= now);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(PasswordHasher.randomBytes(32));
+        tokens.put(token, new SessionToken(userId, storedHash, now + tokenTtlMillis));
+        return token;
+    }
+
+    private byte[] mac(String password, String storedHash) {
+        Mac mac = macs.get();
+        mac.update(password.getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) 0);
+        return mac.doFinal(storedHash.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(cacheKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}
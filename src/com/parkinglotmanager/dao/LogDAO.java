@@ -1,30 +1,106 @@
 package com.parkinglotmanager.dao;
 
+import com.parkinglotmanager.model.LogEntry;
 import com.parkinglotmanager.util.DatabaseConnection;
 import java.sql.*;
+import java.util.Collections;
+import java.util.List;
 
 public class LogDAO {
 
+    // Log.logType and Log.logMessage column sizes
+    static final int MAX_TYPE_LENGTH = 30;
+    static final int MAX_MESSAGE_LENGTH = 255;
+    // Rows per multi-row INSERT
+    private static final int ROWS_PER_STATEMENT = 100;
+
     // --- SETTER (Write Log) ---
+    /**
+     * Queue a log line for the audit writer (see AuditLogger); returns at
+     * once. Too-long types and messages are cut to fit the table.
+     */
     public void logAction(String type, String message, Integer userId) {
-        String sql = "INSERT INTO Log (logType, logTime, logMessage, userID) VALUES (?, NOW(), ?, ?)";
-        
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, type);
-            stmt.setString(2, message);
-            
-            if (userId != null) {
-                stmt.setInt(3, userId);
-            } else {
-                stmt.setNull(3, Types.INTEGER);
+        AuditLogger.getInstance().log(new LogEntry(truncate(type, MAX_TYPE_LENGTH),
+                truncate(message, MAX_MESSAGE_LENGTH), userId));
+    }
+
+    /**
+     * Write one log line now, on the calling thread. Returns true if it was saved.
+     */
+    public boolean logActionNow(String type, String message, Integer userId) {
+        return insertLogs(Collections.singletonList(new LogEntry(truncate(type, MAX_TYPE_LENGTH),
+                truncate(message, MAX_MESSAGE_LENGTH), userId))) == 1;
+    }
+
+    /**
+     * Write log lines with multi-row INSERTs, in one transaction.
+     *
+     * @return number of lines saved, or -1 on error (nothing is saved)
+     */
+    public int insertLogs(List<LogEntry> entries) {
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                int fullChunks = entries.size() / ROWS_PER_STATEMENT;
+                if (fullChunks > 0) {
+                    try (PreparedStatement stmt = conn.prepareStatement(insertSql(ROWS_PER_STATEMENT))) {
+                        for (int chunk = 0; chunk < fullChunks; chunk++) {
+                            bind(stmt, entries, chunk * ROWS_PER_STATEMENT, ROWS_PER_STATEMENT);
+                            stmt.executeUpdate();
+                        }
+                    }
+                }
+                int rest = entries.size() - fullChunks * ROWS_PER_STATEMENT;
+                if (rest > 0) {
+                    try (PreparedStatement stmt = conn.prepareStatement(insertSql(rest))) {
+                        bind(stmt, entries, fullChunks * ROWS_PER_STATEMENT, rest);
+                        stmt.executeUpdate();
+                    }
+                }
+                conn.commit();
+                return entries.size();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
             }
-            
-            stmt.executeUpdate();
         } catch (SQLException e) {
             // Don't throw error for logging, just print it
-            System.err.println("Logging failed: " + e.getMessage());
+            System.err.println("Logging failed for " + entries.size() + " lines: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    private static String insertSql(int rows) {
+        StringBuilder sql = new StringBuilder("INSERT INTO Log (logType, logTime, logMessage, userID) VALUES ");
+        for (int i = 0; i < rows; i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?)" : ", (?, ?, ?, ?)");
+        }
+        return sql.toString();
+    }
+
+    private static void bind(PreparedStatement stmt, List<LogEntry> entries, int from, int rows)
+            throws SQLException {
+        int p = 1;
+        for (int i = from; i < from + rows; i++) {
+            LogEntry entry = entries.get(i);
+            stmt.setString(p++, entry.getLogType());
+            stmt.setTimestamp(p++, Timestamp.valueOf(entry.getLogTime()));
+            stmt.setString(p++, entry.getMessage());
+            if (entry.getUserId() != null) {
+                stmt.setInt(p++, entry.getUserId());
+            } else {
+                stmt.setNull(p++, Types.INTEGER);
+            }
+        }
+    }
+
+    private static String truncate(String text, int max) {
+        if (text == null) {
+            return "";
         }
+        return text.length() <= max ? text : text.substring(0, max);
     }
-}
\ No newline at end of file
+}
@@ -4,11 +4,20 @@ import com.parkinglotmanager.util.DatabaseConnection;
 import com.parkinglotmanager.model.Notification;
 
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class NotificationDAO {
 
+    private static final int BATCH_SIZE = 1000;
+    private static final String SELECT = "SELECT notificationID, recipientID, message, notificationType, isRead, "
+            + "sentTime FROM Notification ";
+
     // --- SETTER (Create Notification) ---
     public boolean createNotification(int recipientId, String message, String type) {
         String sql = "INSERT INTO Notification (recipientID, message, notificationType, isRead, sentTime) " +
@@ -46,7 +55,7 @@ public class NotificationDAO {
     // --- GETTER (Read Unread Messages) ---
     public List<Notification> getUnreadNotifications(int userId) {
         List<Notification> messages = new ArrayList<>();
-        String sql = "SELECT message, sentTime, notificationID FROM Notification " +
+        String sql = "SELECT message, notificationType, sentTime, notificationID FROM Notification " +
                      "WHERE recipientID = ? AND isRead = 0 ORDER BY sentTime DESC";
         
         try (Connection conn = DatabaseConnection.getConnection();
@@ -74,7 +83,7 @@ public class NotificationDAO {
     // --- GETTER (Read All Messages) ---
     public List<Notification> getAllNotifications(int userId) {
         List<Notification> messages = new ArrayList<>();
-        String sql = "SELECT message, sentTime, isRead, notificationID FROM Notification " +
+        String sql = "SELECT message, notificationType, sentTime, isRead, notificationID FROM Notification " +
                      "WHERE recipientID = ? ORDER BY sentTime DESC";
         
         try (Connection conn = DatabaseConnection.getConnection();
@@ -125,4 +134,273 @@ public class NotificationDAO {
         }
         return null; // Notification not found
     }
-}
\ No newline at end of file
+
+    // --- SETTER (Create Many) ---
+    /**
+     * Send the same message to many users with batched inserts, in one
+     * transaction.
+     *
+     * @return number of notifications created, or -1 on error (none are)
+     */
+    public int createNotifications(Collection<Integer> recipientIds, String message, String type) {
+        if (recipientIds.isEmpty()) {
+            return 0;
+        }
+        String sql = "INSERT INTO Notification (recipientID, message, notificationType, isRead, sentTime) " +
+                     "VALUES (?, ?, ?, 0, ?)";
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                int pending = 0;
+                for (int recipientId : recipientIds) {
+                    stmt.setInt(1, recipientId);
+                    stmt.setString(2, message);
+                    stmt.setString(3, type);
+                    stmt.setTimestamp(4, now);
+                    stmt.addBatch();
+                    if (++pending == BATCH_SIZE) {
+                        stmt.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    stmt.executeBatch();
+                }
+                conn.commit();
+                return recipientIds.size();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error sending notification to " + recipientIds.size() + " users: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    // --- SETTER (Broadcast) ---
+    /**
+     * Send a message to every user with a privilege (or every user if
+     * privilege is null) with one INSERT ... SELECT.
+     *
+     * @return number of notifications created, or -1 on error
+     */
+    public int broadcast(String message, String type, String privilege) {
+        String sql = "INSERT INTO Notification (recipientID, message, notificationType, isRead, sentTime) " +
+                     "SELECT userID, ?, ?, 0, ? FROM User" + (privilege != null ? " WHERE privilege = ?" : "");
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, message);
+            stmt.setString(2, type);
+            stmt.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+            if (privilege != null) {
+                stmt.setString(4, privilege);
+            }
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Error broadcasting notification: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    // --- SETTER (Mark One Read) ---
+    /**
+     * Mark a user's notification read
+     *
+     * @return 1 if it was unread, 0 if it was already read or is not theirs, -1 on error
+     */
+    public int markAsRead(int recipientId, int notificationId) {
+        String sql = "UPDATE Notification SET isRead = 1 WHERE notificationID = ? AND recipientID = ? AND isRead = 0";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, notificationId);
+            stmt.setInt(2, recipientId);
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Error marking notification " + notificationId + " read: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    // --- SETTER (Mark All Read) ---
+    /**
+     * Mark all of a user's notifications read
+     *
+     * @return number marked, or -1 on error
+     */
+    public int markAllAsRead(int recipientId) {
+        String sql = "UPDATE Notification SET isRead = 1 WHERE recipientID = ? AND isRead = 0";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, recipientId);
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Error marking notifications read for user " + recipientId + ": " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    // --- GETTER (Latest ID) ---
+    /**
+     * Highest notification ID so far (0 if none), or -1 on error
+     */
+    public int getLatestNotificationId() {
+        String sql = "SELECT COALESCE(MAX(notificationID), 0) AS latest FROM Notification";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            if (rs.next()) {
+                return rs.getInt("latest");
+            }
+        } catch (SQLException e) {
+            System.err.println("Error reading latest notification: " + e.getMessage());
+        }
+        return -1;
+    }
+
+    // --- GETTER (Unread Counts) ---
+    /**
+     * Unread notifications per recipient, counting IDs up to upToId only.
+     * Returns null on error.
+     */
+    public Map<Integer, Integer> countUnreadByRecipient(int upToId) {
+        String sql = "SELECT recipientID, COUNT(*) AS unread FROM Notification " +
+                     "WHERE isRead = 0 AND notificationID <= ? GROUP BY recipientID";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, upToId);
+            Map<Integer, Integer> counts = new HashMap<>();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    counts.put(rs.getInt("recipientID"), rs.getInt("unread"));
+                }
+            }
+            return counts;
+        } catch (SQLException e) {
+            System.err.println("Error counting unread notifications: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * A user's unread count. Returns -1 on error.
+     */
+    public int countUnread(int recipientId) {
+        String sql = "SELECT COUNT(*) AS unread FROM Notification WHERE recipientID = ? AND isRead = 0";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, recipientId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt("unread") : 0;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error counting unread notifications for user " + recipientId + ": " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    // --- GETTER (Newest Unread) ---
+    /**
+     * A user's newest unread notifications, oldest first. Returns null on error.
+     */
+    public List<Notification> getRecentUnread(int recipientId, int limit) {
+        String sql = SELECT + "WHERE recipientID = ? AND isRead = 0 ORDER BY notificationID DESC LIMIT ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, recipientId);
+            stmt.setInt(2, limit);
+            List<Notification> messages = readNotifications(stmt);
+            Collections.reverse(messages);
+            return messages;
+        } catch (SQLException e) {
+            System.err.println("Error loading notifications for user " + recipientId + ": " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // --- GETTER (Tail) ---
+    /**
+     * Notifications with IDs after afterId, in ID order. Returns null on error.
+     */
+    public List<Notification> getNotificationsAfter(int afterId, int limit) {
+        String sql = SELECT + "WHERE notificationID > ? ORDER BY notificationID LIMIT ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, afterId);
+            stmt.setInt(2, limit);
+            return readNotifications(stmt);
+        } catch (SQLException e) {
+            System.err.println("Error reading new notifications: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Notifications with these IDs (those that exist), in ID order. Returns null on error.
+     */
+    public List<Notification> getNotificationsByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        StringBuilder sql = new StringBuilder(SELECT).append("WHERE notificationID IN (");
+        for (int i = 0; i < ids.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(") ORDER BY notificationID");
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+
+            int p = 1;
+            for (int id : ids) {
+                stmt.setInt(p++, id);
+            }
+            return readNotifications(stmt);
+        } catch (SQLException e) {
+            System.err.println("Error reading notifications: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private List<Notification> readNotifications(PreparedStatement stmt) throws SQLException {
+        List<Notification> messages = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                messages.add(new Notification(
+                    rs.getInt("notificationID"),
+                    rs.getInt("recipientID"),
+                    rs.getString("message"),
+                    rs.getString("notificationType"),
+                    rs.getBoolean("isRead"),
+                    rs.getTimestamp("sentTime").toLocalDateTime()
+                ));
+            }
+        }
+        return messages;
+    }
+}
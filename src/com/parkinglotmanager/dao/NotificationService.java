@@ -0,0 +1,493 @@
+package com.parkinglotmanager.dao;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.parkinglotmanager.model.Notification;
+import com.parkinglotmanager.model.ParkingLot;
+import com.parkinglotmanager.util.DataAccessExecutor;
+import com.parkinglotmanager.util.DatabaseConnection;
+
+/**
+ * Sends notifications and keeps every user's unread count in memory.
+ *
+ * Broadcasts are one INSERT ... SELECT (or batched inserts for a list of
+ * users), however many recipients there are. A background thread reads the
+ * Notification table by ID, so notifications sent from any console arrive;
+ * it polls every NOTIFY_POLL_MS, and at once after a send from this console.
+ * Each new notification bumps its recipient's unread count, wakes that
+ * user's awaitNotifications() callers and is passed to their listeners, so
+ * clients never re-query for their inbox.
+ *
+ * A user's newest NOTIFY_INBOX_LIMIT unread notifications are kept once
+ * getUnread() or awaitNotifications() has loaded them; other users only
+ * cost a counter. Marking read through this service keeps the counts right;
+ * reads made elsewhere show up when the user's inbox is next loaded.
+ *
+ * AUTO_INCREMENT IDs can commit out of order, so IDs skipped by the reader
+ * are asked for again until NOTIFY_GAP_TIMEOUT_MS (see SessionChangeFeed).
+ *
+ * Settings (config.properties): NOTIFY_POLL_MS, NOTIFY_GAP_TIMEOUT_MS,
+ * NOTIFY_INBOX_LIMIT, NOTIFY_LOT_FULL_ALERTS, NOTIFY_ALERT_PRIVILEGE.
+ */
+public class NotificationService implements ActiveSessionRegistry.LotCountListener {
+
+    /**
+     * Receives a user's new notifications. Called on the service's reader
+     * thread; GUI listeners must hand off to the EDT themselves.
+     */
+    public interface NotificationListener {
+
+        /**
+         * @param notifications new unread notifications, oldest first (never empty)
+         */
+        void notificationsArrived(int userId, List<Notification> notifications);
+    }
+
+    private static final int TAIL_LIMIT = 5000;
+    // Most skipped IDs tracked at once; a bigger jump is taken as rolled back
+    private static final int MAX_TRACKED_GAPS = 1000;
+    // A lot is alerted as full again once it drops below this share of capacity
+    private static final double REARM_FRACTION = 0.9;
+
+    /**
+     * One user's unread notifications; guarded by itself
+     */
+    private static final class Inbox {
+        int unread;
+        Deque<Notification> recent; // Newest unread, oldest first; null until loaded
+
+        boolean contains(int notificationId) {
+            if (recent.isEmpty() || recent.peekLast().getNotificationId() < notificationId) {
+                return false;
+            }
+            for (Notification n : recent) {
+                if (n.getNotificationId() == notificationId) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class LotWatch {
+        final String name;
+        final int capacity;
+        final AtomicBoolean alerted = new AtomicBoolean();
+
+        LotWatch(String name, int capacity) {
+            this.name = name;
+            this.capacity = capacity;
+        }
+    }
+
+    private static NotificationService instance;
+
+    private final NotificationDAO notificationDAO;
+    private final ActiveSessionRegistry registry;
+    private final long pollIntervalMillis;
+    private final long gapTimeoutMillis;
+    private final int inboxLimit;
+    private final String alertPrivilege;
+    private final Map<Integer, Inbox> inboxes = new ConcurrentHashMap<>();
+    private final Map<Integer, List<NotificationListener>> listeners = new ConcurrentHashMap<>();
+    private final Map<String, LotWatch> lotWatches = new ConcurrentHashMap<>();
+
+    // Reader state, only touched on the reader thread
+    private int highestSeen = -1;
+    private final TreeMap<Integer, Long> missing = new TreeMap<>(); // Skipped ID -> when first skipped
+    private boolean warnedUnavailable;
+
+    private ScheduledExecutorService reader;
+
+    /**
+     * True if config.properties turns lot-full alerts on
+     */
+    public static boolean isLotFullAlertEnabled() {
+        return DatabaseConnection.getBooleanProperty("NOTIFY_LOT_FULL_ALERTS", false);
+    }
+
+    public static synchronized NotificationService getInstance() {
+        if (instance == null) {
+            instance = new NotificationService(new NotificationDAO(), ActiveSessionRegistry.getInstance(),
+                    DatabaseConnection.getIntProperty("NOTIFY_POLL_MS", 1000),
+                    DatabaseConnection.getIntProperty("NOTIFY_GAP_TIMEOUT_MS", 10000),
+                    DatabaseConnection.getIntProperty("NOTIFY_INBOX_LIMIT", 50),
+                    DatabaseConnection.getProperty("NOTIFY_ALERT_PRIVILEGE", "registered"));
+        }
+        return instance;
+    }
+
+    NotificationService(NotificationDAO notificationDAO, ActiveSessionRegistry registry, long pollIntervalMillis,
+            long gapTimeoutMillis, int inboxLimit, String alertPrivilege) {
+        this.notificationDAO = notificationDAO;
+        this.registry = registry;
+        this.pollIntervalMillis = Math.max(50, pollIntervalMillis);
+        this.gapTimeoutMillis = gapTimeoutMillis;
+        this.inboxLimit = Math.max(1, inboxLimit);
+        this.alertPrivilege = alertPrivilege.isEmpty() ? null : alertPrivilege;
+    }
+
+    /**
+     * Load the unread counts and start reading new notifications
+     */
+    public synchronized void start() {
+        if (reader != null) {
+            return;
+        }
+        reader = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "notification-reader");
+            t.setDaemon(true);
+            return t;
+        });
+        reader.scheduleWithFixedDelay(this::pollQuietly, 0, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (reader != null) {
+            reader.shutdown();
+            reader = null;
+        }
+    }
+
+    // --- Sending ---
+
+    /**
+     * Send a notification to one user
+     */
+    public boolean send(int recipientId, String message, String type) {
+        boolean sent = notificationDAO.createNotification(recipientId, message, type);
+        if (sent) {
+            readSoon();
+        }
+        return sent;
+    }
+
+    /**
+     * Send the same notification to many users with batched inserts
+     *
+     * @return number sent, or -1 on error (none are)
+     */
+    public int send(Collection<Integer> recipientIds, String message, String type) {
+        int sent = notificationDAO.createNotifications(recipientIds, message, type);
+        if (sent > 0) {
+            readSoon();
+        }
+        return sent;
+    }
+
+    /**
+     * Send a notification to every user with a privilege (every user if
+     * privilege is null), in one statement
+     *
+     * @return number sent, or -1 on error
+     */
+    public int broadcast(String message, String type, String privilege) {
+        int sent = notificationDAO.broadcast(message, type, privilege);
+        if (sent > 0) {
+            readSoon();
+        }
+        return sent;
+    }
+
+    // --- Reading ---
+
+    /**
+     * A user's unread count, from memory (0 until start() has loaded the counts)
+     */
+    public int getUnreadCount(int userId) {
+        Inbox inbox = inboxes.get(userId);
+        if (inbox == null) {
+            return 0;
+        }
+        synchronized (inbox) {
+            return inbox.unread;
+        }
+    }
+
+    /**
+     * A user's newest unread notifications, oldest first. The first call for a
+     * user reads them from the database; later calls are served from memory.
+     */
+    public List<Notification> getUnread(int userId) {
+        Inbox inbox = loadedInbox(userId);
+        synchronized (inbox) {
+            return inbox.recent != null ? new ArrayList<>(inbox.recent) : new ArrayList<>();
+        }
+    }
+
+    /**
+     * Long-poll: wait up to timeoutMillis for unread notifications with IDs
+     * after afterId.
+     *
+     * @return those notifications, oldest first (empty on timeout)
+     */
+    public List<Notification> awaitNotifications(int userId, int afterId, long timeoutMillis)
+            throws InterruptedException {
+        Inbox inbox = loadedInbox(userId);
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (inbox) {
+            while (true) {
+                List<Notification> fresh = new ArrayList<>();
+                if (inbox.recent != null) {
+                    for (Notification n : inbox.recent) {
+                        if (n.getNotificationId() > afterId) {
+                            fresh.add(n);
+                        }
+                    }
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (!fresh.isEmpty() || remaining <= 0) {
+                    return fresh;
+                }
+                inbox.wait(remaining);
+            }
+        }
+    }
+
+    /**
+     * Pass a user's new notifications to a listener as they arrive
+     */
+    public void subscribe(int userId, NotificationListener listener) {
+        listeners.computeIfAbsent(userId, id -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    public void unsubscribe(int userId, NotificationListener listener) {
+        List<NotificationListener> list = listeners.get(userId);
+        if (list != null) {
+            list.remove(listener);
+        }
+    }
+
+    /**
+     * Mark one of a user's notifications read
+     *
+     * @return true if it was unread
+     */
+    public boolean markAsRead(int userId, int notificationId) {
+        if (notificationDAO.markAsRead(userId, notificationId) <= 0) {
+            return false;
+        }
+        Inbox inbox = inboxes.get(userId);
+        if (inbox != null) {
+            synchronized (inbox) {
+                inbox.unread = Math.max(0, inbox.unread - 1);
+                if (inbox.recent != null) {
+                    inbox.recent.removeIf(n -> n.getNotificationId() == notificationId);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Mark all of a user's notifications read
+     *
+     * @return false on error
+     */
+    public boolean markAllAsRead(int userId) {
+        if (notificationDAO.markAllAsRead(userId) < 0) {
+            return false;
+        }
+        Inbox inbox = inboxes.get(userId);
+        if (inbox != null) {
+            synchronized (inbox) {
+                inbox.unread = 0;
+                if (inbox.recent != null) {
+                    inbox.recent.clear();
+                }
+            }
+        }
+        return true;
+    }
+
+    // --- Lot-full alerts ---
+
+    /**
+     * Broadcast "<lot> is full" to NOTIFY_ALERT_PRIVILEGE users when one of
+     * these lots fills up. Alerts again only after the lot has dropped below
+     * 90% full.
+     */
+    public void watchLots(List<ParkingLot> parkingLots) {
+        for (ParkingLot lot : parkingLots) {
+            lotWatches.put(lot.getLotId(), new LotWatch(lot.getName(), lot.getTotalSpaces()));
+        }
+        registry.removeLotCountListener(this);
+        registry.addLotCountListener(this);
+    }
+
+    @Override
+    public void activeCountChanged(String lotId, int activeCount) {
+        LotWatch watch = lotWatches.get(lotId);
+        if (watch == null || watch.capacity <= 0) {
+            return;
+        }
+        if (activeCount >= watch.capacity) {
+            if (watch.alerted.compareAndSet(false, true)) {
+                // Called holding the registry lock: send from elsewhere
+                DataAccessExecutor.execute(() -> broadcast(watch.name + " is full", "FullReport", alertPrivilege));
+            }
+        } else if (activeCount < watch.capacity * REARM_FRACTION) {
+            watch.alerted.set(false);
+        }
+    }
+
+    // --- Reader ---
+
+    private synchronized void readSoon() {
+        if (reader != null) {
+            reader.execute(this::pollQuietly);
+        }
+    }
+
+    private void pollQuietly() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            // Never let an exception cancel the scheduled task
+            System.err.println("[NOTIFY] Poll failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Read and deliver new notifications once
+     */
+    void poll() {
+        if (highestSeen < 0) {
+            // Count up to a fixed ID, then read on from there, so nothing is counted twice
+            int latest = notificationDAO.getLatestNotificationId();
+            Map<Integer, Integer> counts = latest >= 0 ? notificationDAO.countUnreadByRecipient(latest) : null;
+            if (counts == null) {
+                if (!warnedUnavailable) {
+                    warnedUnavailable = true;
+                    System.err.println("[NOTIFY] Notification table not available; will keep trying.");
+                }
+                return;
+            }
+            for (Map.Entry<Integer, Integer> entry : counts.entrySet()) {
+                Inbox inbox = inboxes.computeIfAbsent(entry.getKey(), id -> new Inbox());
+                synchronized (inbox) {
+                    if (inbox.recent == null) {
+                        inbox.unread = entry.getValue();
+                    }
+                }
+            }
+            highestSeen = latest;
+            return;
+        }
+
+        List<Notification> rows = notificationDAO.getNotificationsAfter(highestSeen, TAIL_LIMIT);
+        if (rows == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<Notification> fresh = new ArrayList<>(rows);
+        for (Notification n : rows) {
+            int id = n.getNotificationId();
+            for (int skipped = highestSeen + 1; skipped < id && id - highestSeen <= MAX_TRACKED_GAPS; skipped++) {
+                missing.put(skipped, now);
+            }
+            highestSeen = Math.max(highestSeen, id);
+        }
+        if (!missing.isEmpty()) {
+            fresh.addAll(readMissing(now));
+        }
+        deliver(fresh);
+    }
+
+    /**
+     * Ask again for skipped IDs; forget those missing longer than the gap timeout
+     */
+    private List<Notification> readMissing(long now) {
+        Iterator<Map.Entry<Integer, Long>> it = missing.entrySet().iterator();
+        while (it.hasNext()) {
+            if (now - it.next().getValue() >= gapTimeoutMillis) {
+                it.remove(); // Rolled back - it will never appear
+            }
+        }
+        while (missing.size() > MAX_TRACKED_GAPS) {
+            missing.pollFirstEntry();
+        }
+        if (missing.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Notification> late = notificationDAO.getNotificationsByIds(missing.keySet());
+        if (late == null) {
+            return new ArrayList<>();
+        }
+        for (Notification n : late) {
+            missing.remove(n.getNotificationId());
+        }
+        return late;
+    }
+
+    private void deliver(List<Notification> notifications) {
+        Map<Integer, List<Notification>> forListeners = new HashMap<>();
+        for (Notification n : notifications) {
+            if (n.isRead()) {
+                continue;
+            }
+            Inbox inbox = inboxes.computeIfAbsent(n.getRecipientId(), id -> new Inbox());
+            synchronized (inbox) {
+                if (inbox.recent != null) {
+                    if (inbox.contains(n.getNotificationId())) {
+                        continue; // Already loaded with the inbox
+                    }
+                    inbox.recent.addLast(n);
+                    while (inbox.recent.size() > inboxLimit) {
+                        inbox.recent.removeFirst();
+                    }
+                }
+                inbox.unread++;
+                inbox.notifyAll();
+            }
+            List<NotificationListener> list = listeners.get(n.getRecipientId());
+            if (list != null && !list.isEmpty()) {
+                forListeners.computeIfAbsent(n.getRecipientId(), id -> new ArrayList<>()).add(n);
+            }
+        }
+        for (Map.Entry<Integer, List<Notification>> entry : forListeners.entrySet()) {
+            List<NotificationListener> list = listeners.get(entry.getKey());
+            if (list == null) {
+                continue;
+            }
+            for (NotificationListener listener : list) {
+                listener.notificationsArrived(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * A user's inbox, loading its newest unread notifications and exact count
+     * the first time. The inbox is locked while loading so the reader cannot
+     * add to it half-loaded.
+     */
+    private Inbox loadedInbox(int userId) {
+        Inbox inbox = inboxes.computeIfAbsent(userId, id -> new Inbox());
+        synchronized (inbox) {
+            if (inbox.recent == null) {
+                List<Notification> unread = notificationDAO.getRecentUnread(userId, inboxLimit);
+                int count = notificationDAO.countUnread(userId);
+                if (unread != null && count >= 0) {
+                    inbox.recent = new ArrayDeque<>(unread);
+                    inbox.unread = count;
+                }
+            }
+        }
+        return inbox;
+    }
+}
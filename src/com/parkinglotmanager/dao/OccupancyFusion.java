@@ -0,0 +1,237 @@
+package com.parkinglotmanager.dao;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.parkinglotmanager.model.CrowdEstimate;
+import com.parkinglotmanager.model.OccupancyReport;
+import com.parkinglotmanager.model.ParkingLot;
+import com.parkinglotmanager.model.Sensor;
+import com.parkinglotmanager.util.DatabaseConnection;
+
+/**
+ * Combines the three occupancy sources into one available-spaces estimate per
+ * lot, with a 95% interval:
+ * <ul>
+ * <li>sensors - each slot sensor's settled value, trusted by its type's
+ * typical accuracy times the reading's confidence; lots only partly covered
+ * are extrapolated from the covered slots;</li>
+ * <li>user reports - the crowd estimate from ParkingReportAggregator, trusted
+ * by the total decayed confidence of the reports behind it;</li>
+ * <li>sessions - active sessions in the lot (ActiveSessionRegistry).</li>
+ * </ul>
+ * Each source gives an estimate and a variance, and the sources are combined
+ * by inverse-variance weighting, so a source counts for more the tighter it
+ * is. Every input updates running sums for its lot in O(1) - nothing is
+ * recomputed from all inputs - and getEstimate() reads them, so an estimate
+ * always reflects the latest input and the current report decay.
+ *
+ * Settings (config.properties): FUSION_REPORT_STDDEV_PCT,
+ * FUSION_SESSION_STDDEV_PCT.
+ */
+public class OccupancyFusion implements SensorIngest.SensorListener, ActiveSessionRegistry.LotCountListener {
+
+    private static final double Z_95 = 1.96;
+    private static final double MIN_VARIANCE = 0.25;
+
+    /**
+     * Running sums for one lot; guarded by itself
+     */
+    private static final class LotState {
+        int total;
+
+        // Sensors: probability each covered slot is occupied
+        final Map<String, Double> sensorProbabilities = new HashMap<>();
+        double sumP;
+        double sumPQ; // Sum of p(1-p)
+
+        int activeSessions = -1; // Unknown until the registry reports
+
+        LotState(int total) {
+            this.total = total;
+        }
+    }
+
+    private static OccupancyFusion instance;
+
+    private final ActiveSessionRegistry registry;
+    private final ParkingReportAggregator reports;
+    private final double reportStddevFraction;
+    private final double sessionStddevFraction;
+    private final Map<String, LotState> lots = new ConcurrentHashMap<>();
+
+    public static synchronized OccupancyFusion getInstance() {
+        if (instance == null) {
+            instance = new OccupancyFusion(ActiveSessionRegistry.getInstance(),
+                    ParkingReportAggregator.getInstance(),
+                    DatabaseConnection.getIntProperty("FUSION_REPORT_STDDEV_PCT", 10),
+                    DatabaseConnection.getIntProperty("FUSION_SESSION_STDDEV_PCT", 2));
+        }
+        return instance;
+    }
+
+    OccupancyFusion(ActiveSessionRegistry registry, ParkingReportAggregator reports,
+            int reportStddevPercent, int sessionStddevPercent) {
+        this.registry = registry;
+        this.reports = reports;
+        this.reportStddevFraction = Math.max(1, reportStddevPercent) / 100.0;
+        this.sessionStddevFraction = Math.max(0, sessionStddevPercent) / 100.0;
+        registry.addLotCountListener(this);
+    }
+
+    /**
+     * Track these lots (their capacity and current session counts). Lots
+     * already tracked keep their sensor state.
+     */
+    public void setLots(List<ParkingLot> parkingLots) {
+        for (ParkingLot lot : parkingLots) {
+            LotState state = lots.computeIfAbsent(lot.getLotId(), id -> new LotState(lot.getTotalSpaces()));
+            synchronized (state) {
+                state.total = lot.getTotalSpaces();
+            }
+            if (registry.isLoaded()) {
+                activeCountChanged(lot.getLotId(), registry.getActiveCount(lot.getLotId()));
+            }
+        }
+    }
+
+    @Override
+    public void sensorSettled(Sensor sensor, boolean occupied, float confidence) {
+        LotState state = lots.get(sensor.getLotId());
+        if (state == null) {
+            return;
+        }
+        double trust = sensor.getSensorType().getTypicalAccuracy() * confidence;
+        trust = Math.max(0.5, Math.min(1.0, trust));
+        double p = occupied ? trust : 1 - trust;
+        synchronized (state) {
+            Double previous = state.sensorProbabilities.put(sensor.getSensorId(), p);
+            if (previous != null) {
+                state.sumP -= previous;
+                state.sumPQ -= previous * (1 - previous);
+            }
+            state.sumP += p;
+            state.sumPQ += p * (1 - p);
+        }
+    }
+
+    /**
+     * Forget a sensor that was removed or taken out of service
+     */
+    public void removeSensor(Sensor sensor) {
+        LotState state = lots.get(sensor.getLotId());
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            Double previous = state.sensorProbabilities.remove(sensor.getSensorId());
+            if (previous != null) {
+                state.sumP -= previous;
+                state.sumPQ -= previous * (1 - previous);
+            }
+        }
+    }
+
+    @Override
+    public void activeCountChanged(String lotId, int activeCount) {
+        LotState state = lots.get(lotId);
+        if (state != null) {
+            synchronized (state) {
+                state.activeSessions = activeCount;
+            }
+        }
+    }
+
+    /**
+     * Current fused estimate for a lot, or null if the lot is not tracked.
+     * The breakdown holds each source's own estimate of available spaces.
+     */
+    public OccupancyReport getEstimate(String lotId) {
+        LotState state = lots.get(lotId);
+        if (state == null) {
+            return null;
+        }
+        // Lots with no sessions are never reported by the registry; read them once
+        // it has loaded (outside the lot lock - the registry calls in holding its own)
+        int loadedCount = state.activeSessions < 0 && registry.isLoaded() ? registry.getActiveCount(lotId) : -1;
+        CrowdEstimate crowd = reports.getCrowdEstimate(lotId);
+        double weightSum = 0;
+        double weightedAvailable = 0;
+        Map<String, Integer> breakdown = new HashMap<>();
+        int total;
+
+        synchronized (state) {
+            total = state.total;
+            if (state.activeSessions < 0) {
+                state.activeSessions = loadedCount;
+            }
+
+            int covered = state.sensorProbabilities.size();
+            if (covered > 0 && total > 0) {
+                double fraction = Math.max(0, Math.min(1, state.sumP / covered));
+                double scale = total / (double) covered;
+                int uncovered = Math.max(0, total - covered);
+                double variance = scale * scale * Math.max(0, state.sumPQ)
+                        + uncovered * fraction * (1 - fraction) * (1 + uncovered / (double) covered);
+                double available = total - fraction * total;
+                double weight = 1 / Math.max(MIN_VARIANCE, variance);
+                weightSum += weight;
+                weightedAvailable += weight * available;
+                breakdown.put(OccupancyReport.SOURCE_SENSORS, (int) Math.round(available));
+            }
+
+            if (crowd != null && crowd.getWeight() > 0) {
+                double stddev = reportStddevFraction * total;
+                double available = total * (100 - crowd.getFullness()) / 100.0;
+                double weight = crowd.getWeight() / Math.max(MIN_VARIANCE, stddev * stddev);
+                weightSum += weight;
+                weightedAvailable += weight * available;
+                breakdown.put(OccupancyReport.SOURCE_USER_REPORTS, (int) Math.round(available));
+            }
+
+            if (state.activeSessions >= 0) {
+                double stddev = sessionStddevFraction * total;
+                double available = Math.max(0, total - state.activeSessions);
+                double weight = 1 / Math.max(MIN_VARIANCE, stddev * stddev);
+                weightSum += weight;
+                weightedAvailable += weight * available;
+                breakdown.put(OccupancyReport.SOURCE_DATABASE, (int) Math.round(available));
+            }
+        }
+
+        if (weightSum == 0) {
+            OccupancyReport unknown = new OccupancyReport(lotId, LocalDateTime.now(), total, breakdown);
+            unknown.setInterval(0, total, 0f);
+            return unknown;
+        }
+        double available = weightedAvailable / weightSum;
+        double halfWidth = Z_95 * Math.sqrt(1 / weightSum);
+        int estimate = clamp((int) Math.round(available), total);
+        int low = clamp((int) Math.floor(available - halfWidth), total);
+        int high = clamp((int) Math.ceil(available + halfWidth), total);
+        float confidence = total > 0 ? (float) Math.max(0, 1 - (high - low) / (double) total) : 1f;
+
+        OccupancyReport report = new OccupancyReport(lotId, LocalDateTime.now(), estimate, breakdown);
+        report.setInterval(low, high, confidence);
+        return report;
+    }
+
+    /**
+     * Current estimates for every tracked lot
+     */
+    public List<OccupancyReport> getEstimates() {
+        List<OccupancyReport> estimates = new ArrayList<>(lots.size());
+        for (String lotId : lots.keySet()) {
+            estimates.add(getEstimate(lotId));
+        }
+        return estimates;
+    }
+
+    private static int clamp(int value, int total) {
+        return Math.max(0, Math.min(total, value));
+    }
+}
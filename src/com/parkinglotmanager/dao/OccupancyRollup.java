@@ -0,0 +1,374 @@
+package com.parkinglotmanager.dao;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.parkinglotmanager.model.OccupancyHour;
+import com.parkinglotmanager.model.ParkingLot;
+import com.parkinglotmanager.model.SessionChange;
+import com.parkinglotmanager.model.VehicleSession;
+import com.parkinglotmanager.util.DatabaseConnection;
+
+/**
+ * Rolls VehicleSession rows up into the OccupancyHourly table: per lot and
+ * clock hour, the average and peak number of parked vehicles, arrivals,
+ * departures and revenue.
+ *
+ * While running, a background pass re-computes the previous and current hour
+ * every ROLLUP_INTERVAL_SEC, plus any older hour the session change feed
+ * reports a change in (e.g. an exit saved late by write-behind). Without the
+ * feed (embedded profile) each pass re-computes the last ROLLUP_RECHECK_HOURS
+ * instead, so late exits are still picked up. After a restart the first pass
+ * catches up from the newest hour in the table.
+ * backfill() fills any range from existing sessions, one chunk of hours at a
+ * time, carrying sessions still parked at the end of a chunk into the next so
+ * each chunk only reads the sessions that entered during it.
+ *
+ * Every pass overwrites whole rows, so re-running a range is harmless.
+ * The lot is taken from the slot ID ("LOT-001-SLOT-004" is in LOT-001).
+ *
+ * Settings (config.properties): ROLLUP_ENABLED, ROLLUP_INTERVAL_SEC, ROLLUP_CHUNK_HOURS,
+ * ROLLUP_RECHECK_HOURS.
+ */
+public class OccupancyRollup {
+
+    private static final long HOUR_SECONDS = 3600;
+
+    private static OccupancyRollup instance;
+
+    private final VehicleSessionDAO sessionDAO;
+    private final OccupancyRollupDAO rollupDAO;
+    private final int intervalSeconds;
+    private final int chunkHours;
+    // Hours before the current one re-computed on every pass
+    private final int recheckHours;
+    // Earliest hour changed since the last pass, or null
+    private final AtomicReference<LocalDateTime> dirtyFrom = new AtomicReference<>();
+    private final SessionChangeListener changeListener = this::markChanged;
+
+    private ScheduledExecutorService scheduler;
+    private boolean caughtUp; // Only touched on the scheduler thread
+
+    public static synchronized OccupancyRollup getInstance() {
+        if (instance == null) {
+            instance = new OccupancyRollup(new VehicleSessionDAO(), new OccupancyRollupDAO(),
+                    DatabaseConnection.getIntProperty("ROLLUP_INTERVAL_SEC", 60),
+                    DatabaseConnection.getIntProperty("ROLLUP_CHUNK_HOURS", 24),
+                    SessionChangeFeed.isAvailable() ? 1
+                            : DatabaseConnection.getIntProperty("ROLLUP_RECHECK_HOURS", 24));
+        }
+        return instance;
+    }
+
+    OccupancyRollup(VehicleSessionDAO sessionDAO, OccupancyRollupDAO rollupDAO, int intervalSeconds,
+            int chunkHours, int recheckHours) {
+        this.sessionDAO = sessionDAO;
+        this.rollupDAO = rollupDAO;
+        this.intervalSeconds = Math.max(1, intervalSeconds);
+        this.chunkHours = Math.max(1, chunkHours);
+        this.recheckHours = Math.max(1, recheckHours);
+    }
+
+    /**
+     * True if the GUI should keep the rollup table up to date
+     */
+    public static boolean isEnabled() {
+        return DatabaseConnection.getBooleanProperty("ROLLUP_ENABLED", false);
+    }
+
+    /**
+     * Start the background passes and listen for session changes
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "occupancy-rollup");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::passQuietly, 0, intervalSeconds, TimeUnit.SECONDS);
+        SessionChangeFeed.getInstance().subscribe(changeListener);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            SessionChangeFeed.getInstance().unsubscribe(changeListener);
+            scheduler.shutdown();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Roll up [from, to) from the session table, chunkHours at a time. Hours
+     * that have not started yet are skipped. Blocks; call off the EDT.
+     *
+     * @return number of rows written, or -1 if a query or save failed
+     */
+    public int backfill(LocalDateTime from, LocalDateTime to, int chunkHours) {
+        return backfill(from, to, Math.max(1, chunkHours), LocalDateTime.now());
+    }
+
+    /**
+     * One background pass: the current hour and the recheck hours before it,
+     * plus changed hours
+     */
+    void runPass() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime currentHour = now.truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime from = currentHour.minusHours(recheckHours);
+
+        if (!caughtUp) {
+            LocalDateTime latest = rollupDAO.getLatestHour();
+            if (latest != null && latest.isBefore(from)) {
+                from = latest;
+            }
+        }
+        LocalDateTime dirty = dirtyFrom.getAndSet(null);
+        if (dirty != null && dirty.isBefore(from)) {
+            from = dirty;
+        }
+
+        if (backfill(from, currentHour.plusHours(1), chunkHours, now) < 0) {
+            markDirty(from); // Try the same range again next pass
+            return;
+        }
+        caughtUp = true;
+    }
+
+    private void passQuietly() {
+        try {
+            runPass();
+        } catch (RuntimeException e) {
+            // Never let an exception cancel the scheduled task
+            System.err.println("[ROLLUP] Pass failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private int backfill(LocalDateTime from, LocalDateTime to, int chunkHours, LocalDateTime now) {
+        from = from.truncatedTo(ChronoUnit.HOURS);
+        List<VehicleSession> open = sessionDAO.getSessionsOpenAt(from);
+        if (open == null) {
+            return -1;
+        }
+
+        int written = 0;
+        for (LocalDateTime chunkStart = from; chunkStart.isBefore(to) && chunkStart.isBefore(now);) {
+            LocalDateTime chunkEnd = chunkStart.plusHours(chunkHours);
+            if (chunkEnd.isAfter(to)) {
+                chunkEnd = to;
+            }
+            List<VehicleSession> entered = sessionDAO.getSessionsEnteredBetween(chunkStart, chunkEnd);
+            if (entered == null) {
+                return -1;
+            }
+            List<VehicleSession> sessions = new ArrayList<>(open.size() + entered.size());
+            sessions.addAll(open);
+            sessions.addAll(entered);
+
+            List<OccupancyHour> rows = compute(sessions, chunkStart, chunkEnd, now);
+            if (!rollupDAO.saveHours(rows)) {
+                return -1;
+            }
+            written += rows.size();
+
+            open = new ArrayList<>();
+            for (VehicleSession session : sessions) {
+                if (session.getExitTime() == null || !session.getExitTime().isBefore(chunkEnd)) {
+                    open.add(session);
+                }
+            }
+            chunkStart = chunkEnd;
+        }
+        return written;
+    }
+
+    private void markChanged(List<SessionChange> changes) {
+        for (SessionChange change : changes) {
+            VehicleSession session = change.getSession();
+            if (session == null) {
+                continue; // Deleted; the row is gone, so there is nothing to re-read
+            }
+            // A new session changes its hours from entry on; an exit changes them from the exit on
+            LocalDateTime changedAt = "INSERT".equals(change.getChangeType()) || session.getExitTime() == null
+                    ? session.getEntryTime()
+                    : session.getExitTime();
+            markDirty(changedAt.truncatedTo(ChronoUnit.HOURS));
+        }
+    }
+
+    private void markDirty(LocalDateTime hour) {
+        dirtyFrom.accumulateAndGet(hour, (current, candidate) ->
+                current == null || candidate.isBefore(current) ? candidate : current);
+    }
+
+    /**
+     * Roll up the given sessions over the hours of [from, to) that have
+     * started by now. sessions must hold every session that overlaps the
+     * range; others are ignored. Sessions still parked count as parked
+     * until now.
+     *
+     * @return one row per lot with sessions in the range and hour, by lot then hour
+     */
+    static List<OccupancyHour> compute(List<VehicleSession> sessions, LocalDateTime from, LocalDateTime to,
+            LocalDateTime now) {
+        from = from.truncatedTo(ChronoUnit.HOURS);
+        long start = seconds(from);
+        long end = Math.min(seconds(to), seconds(now));
+        if (end <= start) {
+            return Collections.emptyList();
+        }
+        int hours = (int) ((end - start + HOUR_SECONDS - 1) / HOUR_SECONDS);
+
+        Map<String, LotHours> byLot = new TreeMap<>();
+        for (VehicleSession session : sessions) {
+            String lotId = ParkingLot.lotIdOfSlot(session.getSlotId());
+            if (lotId == null) {
+                continue;
+            }
+            long entry = seconds(session.getEntryTime());
+            long exit = session.getExitTime() != null ? seconds(session.getExitTime()) : Long.MAX_VALUE;
+            if (entry >= end || exit < start) {
+                continue;
+            }
+            long cents = "PAID".equals(session.getPaymentStatus()) ? Math.round(session.getFee() * 100) : 0;
+            byLot.computeIfAbsent(lotId, id -> new LotHours(hours)).add(entry, exit, cents, start, end);
+        }
+
+        List<OccupancyHour> rows = new ArrayList<>(byLot.size() * hours);
+        for (Map.Entry<String, LotHours> lot : byLot.entrySet()) {
+            LotHours h = lot.getValue();
+            int[] peaks = h.peaks(start);
+            for (int i = 0; i < hours; i++) {
+                long hourStart = start + i * HOUR_SECONDS;
+                rows.add(new OccupancyHour(lot.getKey(), from.plusHours(i), h.arrivals[i], h.departures[i],
+                        h.revenueCents[i] / 100.0, h.occupiedSeconds[i],
+                        (int) Math.min(HOUR_SECONDS, end - hourStart), peaks[i]));
+            }
+        }
+        return rows;
+    }
+
+    // Wall-clock seconds; VehicleSession times are local DATETIMEs
+    private static long seconds(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Counters for one lot over the hours being rolled up
+     */
+    private static final class LotHours {
+        private final int[] arrivals;
+        private final int[] departures;
+        private final long[] revenueCents;
+        private final long[] occupiedSeconds;
+        // Parked intervals clipped to the range, for the peak sweep
+        private long[] starts = new long[16];
+        private long[] ends = new long[16];
+        private int intervals;
+
+        private LotHours(int hours) {
+            arrivals = new int[hours];
+            departures = new int[hours];
+            revenueCents = new long[hours];
+            occupiedSeconds = new long[hours];
+        }
+
+        private void add(long entry, long exit, long cents, long start, long end) {
+            if (entry >= start) {
+                arrivals[(int) ((entry - start) / HOUR_SECONDS)]++;
+            }
+            if (exit < end) {
+                int hour = (int) ((exit - start) / HOUR_SECONDS);
+                departures[hour]++;
+                revenueCents[hour] += cents;
+            }
+
+            long from = Math.max(entry, start);
+            long to = Math.min(exit, end);
+            if (to <= from) {
+                return;
+            }
+            for (int hour = (int) ((from - start) / HOUR_SECONDS); hour < occupiedSeconds.length; hour++) {
+                long hourStart = start + hour * HOUR_SECONDS;
+                if (hourStart >= to) {
+                    break;
+                }
+                occupiedSeconds[hour] += Math.min(to, hourStart + HOUR_SECONDS) - Math.max(from, hourStart);
+            }
+
+            if (intervals == starts.length) {
+                starts = Arrays.copyOf(starts, intervals * 2);
+                ends = Arrays.copyOf(ends, intervals * 2);
+            }
+            starts[intervals] = from;
+            ends[intervals] = to;
+            intervals++;
+        }
+
+        /**
+         * Most vehicles parked at once in each hour. Sweeps arrivals and
+         * departures in time order, departures first at equal times.
+         */
+        private int[] peaks(long start) {
+            int[] peaks = new int[arrivals.length];
+            long[] sortedStarts = Arrays.copyOf(starts, intervals);
+            long[] sortedEnds = Arrays.copyOf(ends, intervals);
+            Arrays.sort(sortedStarts);
+            Arrays.sort(sortedEnds);
+
+            int parked = 0;
+            int hour = 0;
+            int i = 0;
+            int j = 0;
+            while (i < intervals) {
+                if (sortedEnds[j] <= sortedStarts[i]) {
+                    // Vehicle is still parked at the start of every hour before its departure
+                    hour = carry(peaks, hour, hourOf(sortedEnds[j] - 1, start), parked);
+                    parked--;
+                    j++;
+                } else {
+                    hour = carry(peaks, hour, hourOf(sortedStarts[i], start), parked);
+                    parked++;
+                    peaks[hour] = Math.max(peaks[hour], parked);
+                    i++;
+                }
+            }
+            // Remaining departures: each later hour starts with the vehicles not yet gone
+            while (j < intervals) {
+                hour = carry(peaks, hour, hourOf(sortedEnds[j] - 1, start), parked);
+                parked--;
+                j++;
+            }
+            return peaks;
+        }
+
+        private int hourOf(long time, long start) {
+            return (int) Math.min(arrivals.length - 1, (time - start) / HOUR_SECONDS);
+        }
+
+        /**
+         * Move the sweep forward to an hour; hours entered start with the vehicles parked
+         */
+        private static int carry(int[] peaks, int hour, int target, int parked) {
+            while (hour < target) {
+                hour++;
+                peaks[hour] = Math.max(peaks[hour], parked);
+            }
+            return hour;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.parkinglotmanager.dao;
+
+import com.parkinglotmanager.model.OccupancyHour;
+import com.parkinglotmanager.util.DatabaseConnection;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Data Access Object for the OccupancyHourly rollup table.
+ * Reads are primary-key (or hourStart index) ranges, so a query over weeks of
+ * history touches one row per lot-hour and never the session table.
+ */
+public class OccupancyRollupDAO {
+
+    private static final String[] COLUMNS = { "lotID", "hourStart", "arrivals", "departures", "revenue",
+            "occupiedSeconds", "coveredSeconds", "peakOccupied" };
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * Get one lot's hours in [from, to), oldest first. Hours with no row had
+     * no sessions. Returns null on error.
+     */
+    public List<OccupancyHour> getHourly(String lotId, LocalDateTime from, LocalDateTime to) {
+        String sql = "SELECT * FROM OccupancyHourly WHERE lotID = ? AND hourStart >= ? AND hourStart < ? "
+                + "ORDER BY hourStart";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, lotId);
+            stmt.setTimestamp(2, Timestamp.valueOf(from));
+            stmt.setTimestamp(3, Timestamp.valueOf(to));
+            return readHours(stmt);
+        } catch (SQLException e) {
+            System.err.println("Error loading occupancy for lot " + lotId + ": " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Get every lot's hours in [from, to), ordered by hour then lot.
+     * Returns null on error.
+     */
+    public List<OccupancyHour> getHourly(LocalDateTime from, LocalDateTime to) {
+        String sql = "SELECT * FROM OccupancyHourly WHERE hourStart >= ? AND hourStart < ? "
+                + "ORDER BY hourStart, lotID";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setTimestamp(1, Timestamp.valueOf(from));
+            stmt.setTimestamp(2, Timestamp.valueOf(to));
+            return readHours(stmt);
+        } catch (SQLException e) {
+            System.err.println("Error loading occupancy: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Pass the hours in [from, to) to action, ordered by hour then lot,
+     * streaming rows from the server. lotId limits it to one lot when not null.
+     *
+     * @return number of hours passed to action, or -1 on error
+     */
+    public long streamHourly(LocalDateTime from, LocalDateTime to, String lotId, Consumer<OccupancyHour> action) {
+        String sql = "SELECT * FROM OccupancyHourly WHERE hourStart >= ? AND hourStart < ? "
+                + (lotId != null ? "AND lotID = ? " : "") + "ORDER BY hourStart, lotID";
+        long count = 0;
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                        ResultSet.CONCUR_READ_ONLY)) {
+
+            stmt.setFetchSize(DatabaseConnection.getDialect().streamingFetchSize());
+            stmt.setTimestamp(1, Timestamp.valueOf(from));
+            stmt.setTimestamp(2, Timestamp.valueOf(to));
+            if (lotId != null) {
+                stmt.setString(3, lotId);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    action.accept(mapHour(rs));
+                    count++;
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error streaming occupancy: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+        return count;
+    }
+
+    /**
+     * Get the start of the newest hour rolled up, or null if the table is
+     * empty or cannot be read
+     */
+    public LocalDateTime getLatestHour() {
+        String sql = "SELECT MAX(hourStart) AS latest FROM OccupancyHourly";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql);
+                ResultSet rs = stmt.executeQuery()) {
+
+            if (rs.next() && rs.getTimestamp("latest") != null) {
+                return rs.getTimestamp("latest").toLocalDateTime();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error reading latest occupancy hour: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Insert or overwrite rollup rows, in batches, in one transaction
+     *
+     * @return true if every row was saved
+     */
+    public boolean saveHours(List<OccupancyHour> hours) {
+        if (hours.isEmpty()) {
+            return true;
+        }
+        String sql = DatabaseConnection.getDialect().upsert("OccupancyHourly", COLUMNS, "lotID", "hourStart");
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                int pending = 0;
+                for (OccupancyHour hour : hours) {
+                    stmt.setString(1, hour.getLotId());
+                    stmt.setTimestamp(2, Timestamp.valueOf(hour.getHourStart()));
+                    stmt.setInt(3, hour.getArrivals());
+                    stmt.setInt(4, hour.getDepartures());
+                    stmt.setBigDecimal(5, BigDecimal.valueOf(hour.getRevenue()).setScale(2, RoundingMode.HALF_UP));
+                    stmt.setLong(6, hour.getOccupiedSeconds());
+                    stmt.setInt(7, hour.getCoveredSeconds());
+                    stmt.setInt(8, hour.getPeakOccupied());
+                    stmt.addBatch();
+                    if (++pending == BATCH_SIZE) {
+                        stmt.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    stmt.executeBatch();
+                }
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error saving occupancy rollup: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private List<OccupancyHour> readHours(PreparedStatement stmt) throws SQLException {
+        List<OccupancyHour> hours = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                hours.add(mapHour(rs));
+            }
+        }
+        return hours;
+    }
+
+    private OccupancyHour mapHour(ResultSet rs) throws SQLException {
+        return new OccupancyHour(
+                rs.getString("lotID"),
+                rs.getTimestamp("hourStart").toLocalDateTime(),
+                rs.getInt("arrivals"),
+                rs.getInt("departures"),
+                rs.getDouble("revenue"),
+                rs.getLong("occupiedSeconds"),
+                rs.getInt("coveredSeconds"),
+                rs.getInt("peakOccupied"));
+    }
+}
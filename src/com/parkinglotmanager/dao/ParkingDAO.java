@@ -1,8 +1,12 @@
 package com.parkinglotmanager.dao;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import com.parkinglotmanager.enums.SlotType;
 import com.parkinglotmanager.enums.VehicleMake;
 import com.parkinglotmanager.enums.VehicleType;
 import com.parkinglotmanager.model.ParkingLot;
@@ -17,10 +21,15 @@ public class ParkingDAO {
 
     private final VehicleSessionDAO sessionDAO;
     private final VehicleDAO vehicleDAO;
+    // Null when WRITE_BEHIND_ENABLED is off: sessions are then written synchronously
+    private final SessionWriteBehind writeBehind;
+    private final RevenueLedger ledger = RevenueLedger.getInstance();
+    private final LogDAO logDAO = new LogDAO();
 
     public ParkingDAO(VehicleSessionDAO sessionDAO, VehicleDAO vehicleDAO) {
         this.sessionDAO = sessionDAO;
         this.vehicleDAO = vehicleDAO;
+        this.writeBehind = SessionWriteBehind.isEnabled() ? SessionWriteBehind.getInstance() : null;
     }
 
     /**
@@ -34,12 +43,11 @@ public class ParkingDAO {
      * Return all available slots in a lot.
      */
     public List<ParkingSlot> getAvailableSlots(ParkingLot lot) {
-        List<ParkingSlot> available = new ArrayList<>();
-        for (ParkingSlot slot : lot.getSlots()) {
-            if (!slot.isOccupied()) {
-                available.add(slot);
-            }
+        List<ParkingSlot> available = new ArrayList<>(lot.getAvailableSpaces());
+        for (SlotType type : SlotType.values()) {
+            available.addAll(lot.getAvailableSlotsByType(type));
         }
+        available.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
         return available;
     }
 
@@ -47,19 +55,40 @@ public class ParkingDAO {
      * Filter available slots to only those compatible with a vehicle type.
      */
     public List<ParkingSlot> getCompatibleAvailableSlots(ParkingLot lot, VehicleType vehicleType) {
-        List<ParkingSlot> available = getAvailableSlots(lot);
-        List<ParkingSlot> compatible = new ArrayList<>();
-        for (ParkingSlot slot : available) {
-            if (slot.getSlotType().isCompatibleWith(vehicleType)) {
-                compatible.add(slot);
+        return lot.getAvailableSlotsFor(vehicleType);
+    }
+
+    /**
+     * Pick a slot for a vehicle without building any lists.
+     * Returns null if the lot has no compatible free slot.
+     */
+    public ParkingSlot findSlotFor(ParkingLot lot, VehicleType vehicleType) {
+        return lot.findFirstAvailableSlot(vehicleType);
+    }
+
+    /**
+     * Mark a lot's slots occupied/free to match the active sessions. Slots that
+     * are only RESERVED (a park in progress on another gate) or occupied by a
+     * vehicle only a sensor has seen are left alone.
+     */
+    public void syncSlotOccupancy(ParkingLot lot) {
+        for (ParkingSlot slot : lot.getSlots()) {
+            VehicleSession session = sessionDAO.getActiveSessionBySlotId(slot.getSlotId());
+            if (session != null) {
+                if (!slot.isOccupied()) {
+                    slot.setOccupied(true, session.getVehicleType());
+                }
+            } else if (slot.isOccupied() && !slot.isSensorOccupied()) {
+                slot.setOccupied(false, null);
             }
         }
-        return compatible;
     }
 
     /**
      * Create a parking session and mark the slot occupied.
-     * Returns the created VehicleSession (with ID) or null on failure.
+     * The slot is claimed atomically first, so two gates cannot park in it at once.
+     * Returns the created VehicleSession (with ID) or null if the slot was taken
+     * or the session could not be saved.
      */
     public VehicleSession parkVehicle(
             ParkingLot lot,
@@ -69,8 +98,94 @@ public class ParkingDAO {
             VehicleMake vehicleMake,
             int userId) {
 
+        if (!slot.tryClaim()) {
+            return null;
+        }
+
+        VehicleSession session;
+        try {
+            session = persistSession(slot, plate, vehicleType, vehicleMake, userId);
+        } catch (RuntimeException e) {
+            slot.releaseClaim();
+            throw e;
+        }
+
+        if (session == null) {
+            // Roll the claim back so the slot can be used again
+            slot.releaseClaim();
+            return null;
+        }
+
+        if (!slot.confirmClaim(vehicleType)) {
+            // The claim was lost meanwhile (slot taken out of service, or removed
+            // from its lot, which also leaves it out of service)
+            cancelPark(session);
+            return null;
+        }
+        logPark(session);
+        return session;
+    }
+
+    /**
+     * Park a vehicle in the first compatible free slot of a lot.
+     * Returns the created VehicleSession or null if the lot is full or saving failed.
+     */
+    public VehicleSession parkVehicle(
+            ParkingLot lot,
+            String plate,
+            VehicleType vehicleType,
+            VehicleMake vehicleMake,
+            int userId) {
+
+        ParkingSlot slot = lot.claimAvailableSlot(vehicleType);
+        if (slot == null) {
+            return null;
+        }
+
+        VehicleSession session;
+        try {
+            session = persistSession(slot, plate, vehicleType, vehicleMake, userId);
+        } catch (RuntimeException e) {
+            slot.releaseClaim();
+            throw e;
+        }
+
+        if (session == null) {
+            slot.releaseClaim();
+            return null;
+        }
+
+        if (!slot.confirmClaim(vehicleType)) {
+            // The claim was lost meanwhile (slot taken out of service, or removed
+            // from its lot, which also leaves it out of service)
+            cancelPark(session);
+            return null;
+        }
+        logPark(session);
+        return session;
+    }
+
+    /**
+     * Store the vehicle and its session for a slot the caller has already claimed.
+     */
+    private VehicleSession persistSession(
+            ParkingSlot slot,
+            String plate,
+            VehicleType vehicleType,
+            VehicleMake vehicleMake,
+            int userId) {
+
+        boolean addVehicle = vehicleMake != null && plate != null && !plate.isEmpty();
+
+        if (writeBehind != null) {
+            // Journaled and visible at once; the flusher writes vehicle and session later
+            VehicleSession session = new VehicleSession(plate, vehicleType, vehicleMake, userId, slot.getSlotId());
+            writeBehind.recordPark(session, addVehicle);
+            return session;
+        }
+
         // Optionally add vehicle to vehicle table if needed
-        if (vehicleMake != null && plate != null && !plate.isEmpty()) {
+        if (addVehicle) {
             String model = "Model-Unknown";
             String color = "Unknown";
             vehicleDAO.addVehicle(userId, plate, vehicleMake.toString(), model, color);
@@ -90,38 +205,161 @@ public class ParkingDAO {
             return null;
         }
 
-        // Set generated ID & mark slot occupied in memory
         session.setId(sessionId);
-        slot.setOccupied(true, vehicleType);
-
         return session;
     }
 
     /**
-     * Complete a session and free the slot in memory.
+     * Take back a session stored for a slot whose claim was then lost.
+     */
+    private void cancelPark(VehicleSession session) {
+        boolean removed = writeBehind != null ? writeBehind.cancelPark(session)
+                : sessionDAO.deleteSession(session.getId());
+        if (!removed) {
+            System.err.println("Could not undo session " + session.getId() + " for lost slot "
+                    + session.getSlotId());
+        }
+    }
+
+    /**
+     * Complete a session and, once that is saved, free the slot in memory.
      */
     public boolean exitVehicle(
             VehicleSession session,
             double hourlyRate,
             List<ParkingLot> lots) {
 
-        if (session == null || session.getId() <= 0) {
+        if (session == null || session.getId() == 0 || !session.isActive()) {
             return false;
         }
 
         double fee = session.calculateFee(hourlyRate);
+        if (!completeSession(session, fee)) {
+            return false; // Slot stays occupied: the session is still open
+        }
+        freeSlot(session, lots);
+        return true;
+    }
 
-        // Free slot in memory
-        for (ParkingLot lot : lots) {
-            for (ParkingSlot slot : lot.getSlots()) {
-                if (slot.getSlotId().equals(session.getSlotId())) {
-                    slot.setOccupied(false, null);
-                    break;
-                }
+    /**
+     * Exit many vehicles at once, freeing the slots of those completed.
+     * Sessions already exited elsewhere are skipped.
+     *
+     * @return the sessions this call completed, or null if saving failed
+     */
+    public List<VehicleSession> exitVehicles(
+            List<VehicleSession> sessions,
+            double hourlyRate,
+            List<ParkingLot> lots) {
+
+        List<VehicleSession> exiting = new ArrayList<>(sessions.size());
+        List<Double> fees = new ArrayList<>(sessions.size());
+        for (VehicleSession session : sessions) {
+            if (session.getId() == 0 || !session.isActive()) {
+                continue;
             }
+            fees.add(session.calculateFee(hourlyRate));
+            exiting.add(session);
         }
 
-        // Complete in DB
-        return sessionDAO.completeSession(session.getId(), fee);
+        if (writeBehind != null) {
+            // Sessions exited meanwhile (e.g. by a single Exit) are skipped and not charged
+            List<VehicleSession> exited = writeBehind.recordExits(exiting, fees);
+            List<Double> exitedFees = new ArrayList<>(exited.size());
+            for (VehicleSession session : exited) {
+                exitedFees.add(session.getFee());
+            }
+            ledger.recordAll(exited, exitedFees);
+            logExits(exited);
+            freeSlots(exited, lots);
+            return exited;
+        }
+
+        // One batched transaction; sessions another console already exited are skipped
+        Map<Integer, Double> feesBySessionId = new LinkedHashMap<>();
+        Map<Integer, VehicleSession> byId = new HashMap<>();
+        for (int i = 0; i < exiting.size(); i++) {
+            feesBySessionId.put(exiting.get(i).getId(), fees.get(i));
+            byId.put(exiting.get(i).getId(), exiting.get(i));
+        }
+        List<Integer> completedIds = sessionDAO.completeSessions(feesBySessionId);
+        if (completedIds == null) {
+            return null;
+        }
+        List<VehicleSession> completed = new ArrayList<>(completedIds.size());
+        List<Double> completedFees = new ArrayList<>(completedIds.size());
+        for (Integer id : completedIds) {
+            VehicleSession session = byId.get(id);
+            double fee = feesBySessionId.get(id);
+            markExited(session, fee);
+            completed.add(session);
+            completedFees.add(fee);
+        }
+        ledger.recordAll(completed, completedFees);
+        logExits(completed);
+        freeSlots(completed, lots);
+        return completed;
+    }
+
+    private static void freeSlot(VehicleSession session, List<ParkingLot> lots) {
+        ParkingSlot slot = ParkingLot.findSlot(lots, session.getSlotId());
+        if (slot != null) {
+            slot.setOccupied(false, null);
+        }
+    }
+
+    private static void freeSlots(List<VehicleSession> sessions, List<ParkingLot> lots) {
+        for (VehicleSession session : sessions) {
+            freeSlot(session, lots);
+        }
+    }
+
+    /**
+     * Record a session's exit with the given fee and count it in the revenue
+     * ledger. The slot is not touched.
+     */
+    public boolean completeSession(VehicleSession session, double fee) {
+        if (writeBehind != null) {
+            if (!writeBehind.recordExit(session, fee)) {
+                return false; // Already exited from a stale list
+            }
+            ledger.record(session, fee);
+            logExit(session);
+            return true;
+        }
+        if (session.getId() <= 0 || !sessionDAO.completeSession(session.getId(), fee)) {
+            return false; // Failed, or already exited elsewhere: nothing to charge
+        }
+        markExited(session, fee);
+        ledger.record(session, fee);
+        logExit(session);
+        return true;
+    }
+
+    // So a stale list holding this object cannot exit it again
+    private static void markExited(VehicleSession session, double fee) {
+        session.checkout(fee);
+        session.setPaymentStatus("PAID");
+    }
+
+    // Audit lines are queued, not written here (see AuditLogger)
+    private void logPark(VehicleSession session) {
+        logDAO.logAction("park", "userID " + session.getUserId() + " parked " + session.getLicensePlate()
+                + " in " + session.getSlotId(), userIdOf(session));
+    }
+
+    private void logExit(VehicleSession session) {
+        logDAO.logAction("exit", "userID " + session.getUserId() + " exited " + session.getLicensePlate()
+                + " from " + session.getSlotId(), userIdOf(session));
+    }
+
+    private void logExits(List<VehicleSession> sessions) {
+        for (VehicleSession session : sessions) {
+            logExit(session);
+        }
+    }
+
+    private static Integer userIdOf(VehicleSession session) {
+        return session.getUserId() > 0 ? session.getUserId() : null;
     }
 }
\ No newline at end of file
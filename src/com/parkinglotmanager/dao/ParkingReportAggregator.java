@@ -0,0 +1,384 @@
+package com.parkinglotmanager.dao;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.parkinglotmanager.model.CrowdEstimate;
+import com.parkinglotmanager.model.ParkingLot;
+import com.parkinglotmanager.model.UserReport;
+import com.parkinglotmanager.util.DatabaseConnection;
+
+/**
+ * Crowd-sourced availability reports, kept in memory per lot and saved in
+ * the background.
+ *
+ * Each lot keeps the reports of the last REPORT_WINDOW_MIN minutes in a
+ * 101-bucket histogram of fullness (0-100%), each report weighted by its
+ * confidence and halved every REPORT_HALF_LIFE_MIN. The crowd estimate is
+ * the weighted mean after trimming REPORT_TRIM_PCT of the weight from each
+ * end, so a few joke "0% full" reports do not move it. Weights are stored
+ * relative to a per-lot reference time: ageing scales every weight alike,
+ * which leaves the mean unchanged, so only adding and expiring reports
+ * touch the histogram and reads never go to the database.
+ *
+ * submit() only queues the report for saving; a writer thread inserts the
+ * queue in batches every REPORT_FLUSH_MS. While the database is unreachable
+ * up to REPORT_MAX_PENDING reports wait (oldest dropped beyond that). Reports
+ * without a logged-in user are counted but not saved, since ParkingReport
+ * needs a user. start() loads the current window back from the database.
+ *
+ * Settings (config.properties): REPORT_WINDOW_MIN, REPORT_HALF_LIFE_MIN,
+ * REPORT_TRIM_PCT, REPORT_FLUSH_MS, REPORT_BATCH_SIZE, REPORT_MAX_PENDING.
+ */
+public class ParkingReportAggregator {
+
+    private static final int BUCKETS = 101;
+
+    private static final class Entry {
+        final long at;
+        final int fullness;
+        double weight; // Relative to the lot's reference time
+
+        Entry(long at, int fullness, double weight) {
+            this.at = at;
+            this.fullness = fullness;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * One lot's window; guarded by itself
+     */
+    private static final class LotWindow {
+        int capacity;
+        final Deque<Entry> entries = new ArrayDeque<>();
+        final double[] histogram = new double[BUCKETS];
+        double sumW;
+        long referenceTime;
+        double trimmedFullness = Double.NaN; // NaN when it needs recomputing
+
+        LotWindow(int capacity) {
+            this.capacity = capacity;
+        }
+    }
+
+    private static ParkingReportAggregator instance;
+
+    private final ParkingReportDAO reportDAO;
+    private final long windowMillis;
+    private final double halfLifeMillis;
+    private final double trimFraction;
+    private final long flushIntervalMillis;
+    private final int batchSize;
+    private final int maxPending;
+    private final Map<String, LotWindow> lots = new ConcurrentHashMap<>();
+
+    private final Deque<UserReport> pending = new ArrayDeque<>(); // Guarded by itself
+    private final Object flushLock = new Object();
+    private final AtomicLong saved = new AtomicLong();
+    private final AtomicLong unsaved = new AtomicLong();
+    private ScheduledExecutorService writer;
+
+    public static synchronized ParkingReportAggregator getInstance() {
+        if (instance == null) {
+            instance = new ParkingReportAggregator(new ParkingReportDAO(),
+                    DatabaseConnection.getIntProperty("REPORT_WINDOW_MIN", 30),
+                    DatabaseConnection.getIntProperty("REPORT_HALF_LIFE_MIN", 10),
+                    DatabaseConnection.getIntProperty("REPORT_TRIM_PCT", 10),
+                    DatabaseConnection.getIntProperty("REPORT_FLUSH_MS", 1000),
+                    DatabaseConnection.getIntProperty("REPORT_BATCH_SIZE", 500),
+                    DatabaseConnection.getIntProperty("REPORT_MAX_PENDING", 10000));
+        }
+        return instance;
+    }
+
+    ParkingReportAggregator(ParkingReportDAO reportDAO, int windowMinutes, int halfLifeMinutes, int trimPercent,
+            long flushIntervalMillis, int batchSize, int maxPending) {
+        this.reportDAO = reportDAO;
+        this.windowMillis = Math.max(1, windowMinutes) * 60000L;
+        this.halfLifeMillis = Math.max(1, halfLifeMinutes) * 60000.0;
+        this.trimFraction = Math.max(0, Math.min(45, trimPercent)) / 100.0;
+        this.flushIntervalMillis = Math.max(10, flushIntervalMillis);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxPending = Math.max(1, maxPending);
+    }
+
+    /**
+     * Track these lots; reports for other lots are ignored
+     */
+    public void setLots(List<ParkingLot> parkingLots) {
+        for (ParkingLot lot : parkingLots) {
+            LotWindow window = lots.computeIfAbsent(lot.getLotId(), id -> new LotWindow(lot.getTotalSpaces()));
+            synchronized (window) {
+                window.capacity = lot.getTotalSpaces();
+            }
+        }
+    }
+
+    /**
+     * Load the current window from the database and start saving submitted
+     * reports. Call off the EDT, after setLots().
+     */
+    public synchronized void start() {
+        if (writer != null) {
+            return;
+        }
+        List<UserReport> recent = reportDAO.getReportsSince(LocalDateTime.now().minusNanos(windowMillis * 1000000));
+        if (recent != null) {
+            for (UserReport report : recent) {
+                add(report);
+            }
+        }
+        writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "report-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        writer.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        DatabaseConnection.runBeforeShutdown(this::flush);
+    }
+
+    /**
+     * Add a driver's report to its lot's estimate and queue it for saving.
+     * Works out the report's fullness from the lot's capacity.
+     *
+     * @return false if the lot is not tracked
+     */
+    public boolean submit(UserReport report) {
+        if (!add(report)) {
+            return false;
+        }
+        if (report.getUserId() <= 0 || ParkingLot.databaseId(report.getLotId()) < 0) {
+            unsaved.incrementAndGet();
+            return true;
+        }
+        synchronized (pending) {
+            pending.addLast(report);
+            while (pending.size() > maxPending) {
+                pending.removeFirst();
+                unsaved.incrementAndGet();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The current crowd estimate for a lot, from memory; null if the lot is not
+     * tracked. With no reports in the window the estimate has no reports and
+     * says the lot is empty.
+     */
+    public CrowdEstimate getCrowdEstimate(String lotId) {
+        LotWindow window = lots.get(lotId);
+        if (window == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (window) {
+            expire(window, now);
+            if (window.entries.isEmpty()) {
+                return new CrowdEstimate(lotId, LocalDateTime.now(), 0, window.capacity, 0, 0);
+            }
+            if (Double.isNaN(window.trimmedFullness)) {
+                window.trimmedFullness = trimmedMean(window);
+            }
+            double fullness = window.trimmedFullness;
+            int available = (int) Math.round(window.capacity * (100 - fullness) / 100.0);
+            double weight = window.sumW * decay(now - window.referenceTime);
+            return new CrowdEstimate(lotId, LocalDateTime.now(), fullness, available, window.entries.size(), weight);
+        }
+    }
+
+    /**
+     * Current crowd estimates for every tracked lot
+     */
+    public List<CrowdEstimate> getCrowdEstimates() {
+        List<CrowdEstimate> estimates = new ArrayList<>(lots.size());
+        for (String lotId : lots.keySet()) {
+            estimates.add(getCrowdEstimate(lotId));
+        }
+        return estimates;
+    }
+
+    /**
+     * Reports saved to the database
+     */
+    public long getSavedCount() {
+        return saved.get();
+    }
+
+    /**
+     * Reports that will not be saved (no user, dropped while the database was
+     * down, or rejected by it)
+     */
+    public long getUnsavedCount() {
+        return unsaved.get();
+    }
+
+    /**
+     * Save queued reports now, a batch at a time. A batch the database rejects
+     * is retried row by row so one bad report cannot hold up the rest; if no
+     * row gets in, the database is taken to be down and the batch waits for
+     * the next flush.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            while (true) {
+                List<UserReport> batch = new ArrayList<>(batchSize);
+                synchronized (pending) {
+                    while (batch.size() < batchSize && !pending.isEmpty()) {
+                        batch.add(pending.removeFirst());
+                    }
+                }
+                if (batch.isEmpty()) {
+                    return;
+                }
+                int count = reportDAO.insertReports(batch);
+                if (count < 0) {
+                    count = insertOneByOne(batch);
+                    if (count == 0) {
+                        requeue(batch);
+                        return;
+                    }
+                    unsaved.addAndGet(batch.size() - count);
+                }
+                saved.addAndGet(count);
+            }
+        }
+    }
+
+    private int insertOneByOne(List<UserReport> batch) {
+        int count = 0;
+        for (UserReport report : batch) {
+            if (reportDAO.insertReports(Collections.singletonList(report)) == 1) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void requeue(List<UserReport> batch) {
+        synchronized (pending) {
+            for (int i = batch.size() - 1; i >= 0; i--) {
+                pending.addFirst(batch.get(i));
+            }
+            while (pending.size() > maxPending) {
+                pending.removeFirst();
+                unsaved.incrementAndGet();
+            }
+        }
+    }
+
+    private boolean add(UserReport report) {
+        LotWindow window = lots.get(report.getLotId());
+        if (window == null) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        long at = report.getTimestamp() != null
+                ? report.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : now;
+        double confidence = Math.max(0, Math.min(100, report.getConfidence())) / 100.0;
+
+        synchronized (window) {
+            if (report.getFullness() < 0) {
+                int capacity = Math.max(1, window.capacity);
+                int available = Math.max(0, Math.min(capacity, report.getReportedAvailable()));
+                report.setFullness((int) Math.round(100.0 * (capacity - available) / capacity));
+            }
+            if (now - at > windowMillis || confidence == 0) {
+                return true; // Too old or worthless to count, but still worth saving
+            }
+            expire(window, now);
+            if (window.entries.isEmpty()) {
+                window.referenceTime = at;
+            }
+            int fullness = Math.max(0, Math.min(100, report.getFullness()));
+            double weight = confidence * decay(window.referenceTime - at);
+            window.entries.addLast(new Entry(at, fullness, weight));
+            window.histogram[fullness] += weight;
+            window.sumW += weight;
+            window.trimmedFullness = Double.NaN;
+        }
+        return true;
+    }
+
+    /**
+     * Drop reports that left the window. Reports are assumed to arrive roughly
+     * in time order; one a little out of order just leaves a little late.
+     */
+    private void expire(LotWindow window, long now) {
+        boolean changed = false;
+        while (!window.entries.isEmpty() && now - window.entries.peekFirst().at > windowMillis) {
+            Entry entry = window.entries.removeFirst();
+            window.histogram[entry.fullness] -= entry.weight;
+            window.sumW -= entry.weight;
+            changed = true;
+        }
+        if (!changed) {
+            return;
+        }
+        window.trimmedFullness = Double.NaN;
+        if (window.entries.isEmpty()) {
+            Arrays.fill(window.histogram, 0);
+            window.sumW = 0;
+        } else if (window.entries.peekFirst().at - window.referenceTime > windowMillis) {
+            rebase(window, window.entries.peekFirst().at);
+        }
+    }
+
+    // Move the reference time forward so stored weights stay small; also clears rounding drift
+    private void rebase(LotWindow window, long newReference) {
+        double rescale = decay(newReference - window.referenceTime);
+        Arrays.fill(window.histogram, 0);
+        window.sumW = 0;
+        for (Entry entry : window.entries) {
+            entry.weight *= rescale;
+            window.histogram[entry.fullness] += entry.weight;
+            window.sumW += entry.weight;
+        }
+        window.referenceTime = newReference;
+    }
+
+    /**
+     * Weighted mean of the histogram with trimFraction of the weight cut from
+     * each end
+     */
+    private double trimmedMean(LotWindow window) {
+        double total = 0;
+        for (double w : window.histogram) {
+            total += Math.max(0, w);
+        }
+        double low = total * trimFraction;
+        double high = total - low;
+        double cumulative = 0;
+        double kept = 0;
+        double sum = 0;
+        for (int fullness = 0; fullness < BUCKETS; fullness++) {
+            double w = Math.max(0, window.histogram[fullness]);
+            double keep = Math.min(cumulative + w, high) - Math.max(cumulative, low);
+            if (keep > 0) {
+                kept += keep;
+                sum += keep * fullness;
+            }
+            cumulative += w;
+        }
+        return kept > 0 ? sum / kept : 0;
+    }
+
+    // Weight of a report this many ms old relative to a new one
+    private double decay(long ageMillis) {
+        return Math.pow(0.5, ageMillis / halfLifeMillis);
+    }
+}
@@ -0,0 +1,182 @@
+package com.parkinglotmanager.dao;
+
+import com.parkinglotmanager.model.ParkingLot;
+import com.parkinglotmanager.model.UserReport;
+import com.parkinglotmanager.util.DatabaseConnection;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Data Access Object for the ParkingReport table (crowd-sourced fullness
+ * reports). Rows store the lot's numeric Lot table ID and how full the lot
+ * was said to be (0-100); reports read back get their available count from
+ * the lot's capacity.
+ */
+public class ParkingReportDAO {
+
+    // Reports saved before the confidence column existed
+    static final int DEFAULT_CONFIDENCE = 80;
+    private static final int BATCH_SIZE = 500;
+
+    private static final String SELECT = "SELECT r.parkingReportID, r.lotID, r.userID, r.fullness, r.confidence, "
+            + "r.reportTime, l.capacity FROM ParkingReport r JOIN Lot l ON l.lotID = r.lotID ";
+
+    /**
+     * Save one report. Its fullness must be set. Returns true if it was saved.
+     */
+    public boolean submitReport(UserReport report) {
+        return insertReports(Collections.singletonList(report)) == 1;
+    }
+
+    /**
+     * Save reports in batches, in one transaction. Each report's fullness must
+     * be set, and its user and lot must exist.
+     *
+     * @return number of reports saved, or -1 on error (nothing is saved)
+     */
+    public int insertReports(List<UserReport> reports) {
+        if (reports.isEmpty()) {
+            return 0;
+        }
+        String sql = "INSERT INTO ParkingReport (lotID, userID, fullness, confidence, reportTime) "
+                + "VALUES (?, ?, ?, ?, ?)";
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                int pending = 0;
+                for (UserReport report : reports) {
+                    stmt.setInt(1, ParkingLot.databaseId(report.getLotId()));
+                    stmt.setInt(2, report.getUserId());
+                    stmt.setInt(3, report.getFullness());
+                    stmt.setInt(4, report.getConfidence());
+                    stmt.setTimestamp(5, Timestamp.valueOf(report.getTimestamp()));
+                    stmt.addBatch();
+                    if (++pending == BATCH_SIZE) {
+                        stmt.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    stmt.executeBatch();
+                }
+                conn.commit();
+                return reports.size();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error saving " + reports.size() + " parking reports: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    /**
+     * Get all reports made at or after a time, oldest first. Returns null on error.
+     */
+    public List<UserReport> getReportsSince(LocalDateTime since) {
+        String sql = SELECT + "WHERE r.reportTime >= ? ORDER BY r.reportTime, r.parkingReportID";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setTimestamp(1, Timestamp.valueOf(since));
+            return readReports(stmt);
+        } catch (SQLException e) {
+            System.err.println("Error loading parking reports: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Get a lot's most recent reports, newest first. Returns null on error.
+     */
+    public List<UserReport> getRecentReports(String lotId, int limit) {
+        String sql = SELECT + "WHERE r.lotID = ? ORDER BY r.reportTime DESC LIMIT ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, ParkingLot.databaseId(lotId));
+            stmt.setInt(2, limit);
+            return readReports(stmt);
+        } catch (SQLException e) {
+            System.err.println("Error loading reports for lot " + lotId + ": " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Get a user's reports, newest first. Returns null on error.
+     */
+    public List<UserReport> getReportsByUserId(int userId) {
+        String sql = SELECT + "WHERE r.userID = ? ORDER BY r.reportTime DESC";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, userId);
+            return readReports(stmt);
+        } catch (SQLException e) {
+            System.err.println("Error loading reports for user " + userId + ": " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Get a report by ID, or null if not found
+     */
+    public UserReport getReportById(int reportId) {
+        String sql = SELECT + "WHERE r.parkingReportID = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setInt(1, reportId);
+            List<UserReport> reports = readReports(stmt);
+            return reports.isEmpty() ? null : reports.get(0);
+        } catch (SQLException e) {
+            System.err.println("Error loading report " + reportId + ": " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private List<UserReport> readReports(PreparedStatement stmt) throws SQLException {
+        List<UserReport> reports = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                reports.add(mapReport(rs));
+            }
+        }
+        return reports;
+    }
+
+    private UserReport mapReport(ResultSet rs) throws SQLException {
+        int fullness = rs.getInt("fullness");
+        int confidence = rs.getInt("confidence");
+        if (rs.wasNull()) {
+            confidence = DEFAULT_CONFIDENCE;
+        }
+        int available = (int) Math.round(rs.getInt("capacity") * (100 - fullness) / 100.0);
+        UserReport report = new UserReport(
+                String.valueOf(rs.getInt("parkingReportID")),
+                rs.getInt("userID"),
+                ParkingLot.lotIdOf(rs.getInt("lotID")),
+                rs.getTimestamp("reportTime").toLocalDateTime(),
+                available,
+                confidence,
+                null);
+        report.setFullness(fullness);
+        return report;
+    }
+}
@@ -0,0 +1,292 @@
+package com.parkinglotmanager.dao;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.parkinglotmanager.enums.SlotType;
+import com.parkinglotmanager.model.ParkingLot;
+import com.parkinglotmanager.model.ParkingSlot;
+import com.parkinglotmanager.model.VehicleSession;
+import com.parkinglotmanager.util.DataAccessExecutor;
+
+/**
+ * Today's revenue and completed-session counts, kept in memory so reports do
+ * not have to run SUM queries over the whole session history.
+ *
+ * ParkingDAO records every exit here. Totals are kept overall, per lot, per
+ * slot type and per hour of the day in LongAdders (revenue in cents), so
+ * concurrent exits never contend on a lock. reconcile() reloads the day from
+ * the database - at startup and after midnight - to include exits made by
+ * other consoles; exits recorded here that the database does not have yet
+ * (write-behind) are kept.
+ */
+public class RevenueLedger {
+
+    private static RevenueLedger instance;
+
+    private final VehicleSessionDAO sessionDAO;
+    // Swapping the day (rollover/reconcile) takes the write lock; recording takes the read lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile Day day = new Day(LocalDate.now());
+    // Exits recorded locally today, re-applied on top of a reconcile
+    private final ConcurrentLinkedQueue<Entry> localEntries = new ConcurrentLinkedQueue<>();
+    private volatile List<ParkingLot> lots = Collections.emptyList();
+    private volatile boolean reconciled;
+
+    RevenueLedger(VehicleSessionDAO sessionDAO) {
+        this.sessionDAO = sessionDAO;
+    }
+
+    public static synchronized RevenueLedger getInstance() {
+        if (instance == null) {
+            instance = new RevenueLedger(new VehicleSessionDAO());
+        }
+        return instance;
+    }
+
+    /**
+     * Lots used to find each session's lot and slot type
+     */
+    public void setLots(List<ParkingLot> lots) {
+        this.lots = lots;
+    }
+
+    /**
+     * Count a completed session. exitTime defaults to now.
+     */
+    public void record(VehicleSession session, double fee) {
+        LocalDateTime exitTime = session.getExitTime() != null ? session.getExitTime() : LocalDateTime.now();
+        Entry entry = newEntry(session, exitTime, fee, true);
+
+        lock.readLock().lock();
+        try {
+            Day current = currentDay();
+            if (!exitTime.toLocalDate().equals(current.date)) {
+                return; // Exited before midnight, recorded after: not part of today
+            }
+            current.add(entry);
+            localEntries.add(entry);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Count several completed sessions; fees are matched by position
+     */
+    public void recordAll(List<VehicleSession> sessions, List<Double> fees) {
+        for (int i = 0; i < sessions.size(); i++) {
+            record(sessions.get(i), fees.get(i));
+        }
+    }
+
+    /**
+     * Rebuild today's totals from the database, keeping local exits the
+     * database does not have yet. Blocks on the query; call off the EDT.
+     *
+     * @return false if the database could not be read (totals are left as is)
+     */
+    public boolean reconcile() {
+        LocalDate date = LocalDate.now();
+        List<VehicleSession> rows = sessionDAO.getSessionsExitedBetween(date.atStartOfDay(),
+                date.plusDays(1).atStartOfDay());
+        if (rows == null) {
+            return false;
+        }
+
+        Day loaded = new Day(date);
+        Set<Integer> loadedIds = new HashSet<>();
+        for (VehicleSession session : rows) {
+            loadedIds.add(session.getId());
+            loaded.add(newEntry(session, session.getExitTime(), session.getFee(),
+                    "PAID".equals(session.getPaymentStatus())));
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (!date.equals(LocalDate.now())) {
+                return false; // Midnight passed during the query; the rollover reconciles again
+            }
+            for (Entry entry : localEntries) {
+                // Provisional (write-behind) IDs and not-yet-flushed exits are only here
+                if (!loadedIds.contains(entry.session.getId())) {
+                    loaded.add(entry);
+                }
+            }
+            day = loaded;
+            reconciled = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return true;
+    }
+
+    /**
+     * True once today's totals have been loaded from the database
+     */
+    public boolean isReconciled() {
+        return reconciled;
+    }
+
+    public LocalDate getDate() {
+        return readDay().date;
+    }
+
+    public double getTodayRevenue() {
+        return readDay().total.getRevenue();
+    }
+
+    public int getTodayCompletedCount() {
+        return (int) readDay().total.getCount();
+    }
+
+    /**
+     * Today's totals for one lot (zero if nothing exited there)
+     */
+    public Totals getLotTotals(String lotId) {
+        Totals totals = readDay().byLot.get(lotId);
+        return totals != null ? totals : Totals.EMPTY;
+    }
+
+    public Totals getSlotTypeTotals(SlotType slotType) {
+        return readDay().bySlotType[slotType.ordinal()];
+    }
+
+    /**
+     * Today's totals for one hour of the day (0-23, by exit time)
+     */
+    public Totals getHourTotals(int hour) {
+        return readDay().byHour[hour];
+    }
+
+    private Day readDay() {
+        lock.readLock().lock();
+        try {
+            return currentDay();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The current day, rolling over at midnight. Caller holds the read lock.
+     */
+    private Day currentDay() {
+        Day current = day;
+        LocalDate today = LocalDate.now();
+        if (current.date.equals(today)) {
+            return current;
+        }
+        lock.readLock().unlock();
+        lock.writeLock().lock();
+        try {
+            if (!day.date.equals(today)) {
+                day = new Day(today);
+                localEntries.clear();
+                reconciled = false;
+                // Pick up other consoles' exits since midnight
+                DataAccessExecutor.execute(this::reconcile);
+            }
+            current = day;
+        } finally {
+            // Downgrade: take the read lock back before releasing the write lock
+            lock.readLock().lock();
+            lock.writeLock().unlock();
+        }
+        return current;
+    }
+
+    private Entry newEntry(VehicleSession session, LocalDateTime exitTime, double fee, boolean paid) {
+        ParkingLot lot = ParkingLot.findLotForSlot(lots, session.getSlotId());
+        ParkingSlot slot = lot != null ? lot.getSlotById(session.getSlotId()) : null;
+        return new Entry(session, lot != null ? lot.getLotId() : null, slot != null ? slot.getSlotType() : null,
+                exitTime.getHour(), Math.round(fee * 100), paid);
+    }
+
+    /**
+     * Revenue and completed-session count for one bucket
+     */
+    public static final class Totals {
+        private static final Totals EMPTY = new Totals();
+
+        private final LongAdder revenueCents = new LongAdder();
+        private final LongAdder count = new LongAdder();
+
+        public double getRevenue() {
+            return revenueCents.sum() / 100.0;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        private void add(Entry entry) {
+            count.increment();
+            if (entry.paid) {
+                revenueCents.add(entry.cents);
+            }
+        }
+    }
+
+    /**
+     * All buckets for one calendar day
+     */
+    private static final class Day {
+        private final LocalDate date;
+        private final Totals total = new Totals();
+        private final Map<String, Totals> byLot = new ConcurrentHashMap<>();
+        private final Totals[] bySlotType = new Totals[SlotType.values().length];
+        private final Totals[] byHour = new Totals[24];
+
+        private Day(LocalDate date) {
+            this.date = date;
+            for (int i = 0; i < bySlotType.length; i++) {
+                bySlotType[i] = new Totals();
+            }
+            for (int i = 0; i < byHour.length; i++) {
+                byHour[i] = new Totals();
+            }
+        }
+
+        private void add(Entry entry) {
+            total.add(entry);
+            byHour[entry.hour].add(entry);
+            if (entry.lotId != null) {
+                byLot.computeIfAbsent(entry.lotId, id -> new Totals()).add(entry);
+            }
+            if (entry.slotType != null) {
+                bySlotType[entry.slotType.ordinal()].add(entry);
+            }
+        }
+    }
+
+    /**
+     * One completed session as counted in the ledger
+     */
+    private static final class Entry {
+        private final VehicleSession session;
+        private final String lotId;
+        private final SlotType slotType;
+        private final int hour;
+        private final long cents;
+        private final boolean paid;
+
+        private Entry(VehicleSession session, String lotId, SlotType slotType, int hour, long cents, boolean paid) {
+            this.session = session;
+            this.lotId = lotId;
+            this.slotType = slotType;
+            this.hour = hour;
+            this.cents = cents;
+            this.paid = paid;
+        }
+    }
+}
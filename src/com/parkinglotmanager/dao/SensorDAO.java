@@ -0,0 +1,224 @@
+package com.parkinglotmanager.dao;
+
+import com.parkinglotmanager.enums.SensorType;
+import com.parkinglotmanager.model.Sensor;
+import com.parkinglotmanager.model.SensorReading;
+import com.parkinglotmanager.util.DatabaseConnection;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Access Object for the Sensor and SensorReading tables.
+ * Readings are written in JDBC batches (multi-row INSERTs on MySQL), one
+ * transaction per call, by the SensorIngest writer thread.
+ */
+public class SensorDAO {
+
+    private static final int BATCH_SIZE = 1000;
+
+    /**
+     * Add a sensor. Returns true if it was saved.
+     */
+    public boolean addSensor(Sensor sensor) {
+        String sql = "INSERT INTO Sensor (sensorID, lotID, slotID, sensorType, installedAt, status) "
+                + "VALUES (?, ?, ?, ?, ?, ?)";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, sensor.getSensorId());
+            stmt.setString(2, sensor.getLotId());
+            stmt.setString(3, sensor.getSlotId());
+            stmt.setString(4, sensor.getSensorType().name());
+            stmt.setTimestamp(5, Timestamp.valueOf(sensor.getInstalledAt()));
+            stmt.setString(6, sensor.getStatus());
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            System.err.println("Error adding sensor " + sensor.getSensorId() + ": " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Get every sensor. Returns null on error.
+     */
+    public List<Sensor> getAllSensors() {
+        String sql = "SELECT * FROM Sensor ORDER BY lotID, sensorID";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql);
+                ResultSet rs = stmt.executeQuery()) {
+
+            List<Sensor> sensors = new ArrayList<>();
+            while (rs.next()) {
+                sensors.add(mapSensor(rs));
+            }
+            return sensors;
+        } catch (SQLException e) {
+            System.err.println("Error loading sensors: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Set a sensor's status (ACTIVE, INACTIVE, MAINTENANCE, ERROR)
+     */
+    public boolean updateSensorStatus(String sensorId, String status) {
+        String sql = "UPDATE Sensor SET status = ? WHERE sensorID = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, status);
+            stmt.setString(2, sensorId);
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            System.err.println("Error updating sensor " + sensorId + ": " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Save readings in batches, in one transaction
+     *
+     * @return number of readings saved, or -1 on error (nothing is saved)
+     */
+    public int insertReadings(List<SensorReading> readings) {
+        if (readings.isEmpty()) {
+            return 0;
+        }
+        String sql = "INSERT INTO SensorReading (sensorID, readingTime, occupied, confidence, rawData) "
+                + "VALUES (?, ?, ?, ?, ?)";
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                int pending = 0;
+                for (SensorReading reading : readings) {
+                    stmt.setString(1, reading.getSensorId());
+                    stmt.setTimestamp(2, Timestamp.valueOf(reading.getTimestamp()));
+                    stmt.setBoolean(3, reading.isOccupied());
+                    stmt.setFloat(4, reading.getConfidence());
+                    stmt.setString(5, reading.getRawData());
+                    stmt.addBatch();
+                    if (++pending == BATCH_SIZE) {
+                        stmt.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    stmt.executeBatch();
+                }
+                conn.commit();
+                return readings.size();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error saving " + readings.size() + " sensor readings: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    /**
+     * Record when each sensor last reported, in one batch
+     *
+     * @return true if every sensor was updated
+     */
+    public boolean updateLastReadings(Map<String, LocalDateTime> lastReadings) {
+        if (lastReadings.isEmpty()) {
+            return true;
+        }
+        String sql = "UPDATE Sensor SET lastReadingAt = ? WHERE sensorID = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            for (Map.Entry<String, LocalDateTime> entry : lastReadings.entrySet()) {
+                stmt.setTimestamp(1, Timestamp.valueOf(entry.getValue()));
+                stmt.setString(2, entry.getKey());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Error updating sensor last readings: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Get a sensor's readings in [from, to), oldest first. Returns null on error.
+     */
+    public List<SensorReading> getReadings(String sensorId, LocalDateTime from, LocalDateTime to) {
+        String sql = "SELECT * FROM SensorReading WHERE sensorID = ? AND readingTime >= ? AND readingTime < ? "
+                + "ORDER BY readingTime, readingID";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, sensorId);
+            stmt.setTimestamp(2, Timestamp.valueOf(from));
+            stmt.setTimestamp(3, Timestamp.valueOf(to));
+            List<SensorReading> readings = new ArrayList<>();
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    readings.add(new SensorReading(
+                            rs.getLong("readingID"),
+                            rs.getString("sensorID"),
+                            rs.getTimestamp("readingTime").toLocalDateTime(),
+                            rs.getBoolean("occupied"),
+                            rs.getFloat("confidence"),
+                            rs.getString("rawData")));
+                }
+            }
+            return readings;
+        } catch (SQLException e) {
+            System.err.println("Error loading readings for sensor " + sensorId + ": " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Delete readings older than the cutoff
+     *
+     * @return number of rows deleted, or -1 on error
+     */
+    public int deleteReadingsBefore(LocalDateTime cutoff) {
+        String sql = "DELETE FROM SensorReading WHERE readingTime < ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setTimestamp(1, Timestamp.valueOf(cutoff));
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Error deleting old sensor readings: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    private Sensor mapSensor(ResultSet rs) throws SQLException {
+        Timestamp lastReading = rs.getTimestamp("lastReadingAt");
+        return new Sensor(
+                rs.getString("sensorID"),
+                rs.getString("lotID"),
+                rs.getString("slotID"),
+                SensorType.valueOf(rs.getString("sensorType")),
+                rs.getTimestamp("installedAt").toLocalDateTime(),
+                lastReading != null ? lastReading.toLocalDateTime() : null,
+                rs.getString("status"));
+    }
+}
@@ -0,0 +1,474 @@
+package com.parkinglotmanager.dao;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.parkinglotmanager.model.ParkingLot;
+import com.parkinglotmanager.model.ParkingSlot;
+import com.parkinglotmanager.model.Sensor;
+import com.parkinglotmanager.model.SensorReading;
+import com.parkinglotmanager.util.DatabaseConnection;
+import com.parkinglotmanager.util.RingBuffer;
+
+/**
+ * Intake for occupancy sensor readings.
+ *
+ * Any number of threads submit() readings into a bounded lock-free ring
+ * buffer; submit never blocks, and a reading that finds the buffer full is
+ * dropped and counted (the sensor reports again within a second anyway).
+ * One consumer thread drains the buffer; with nothing to do it sleeps until
+ * a submit wakes it or a batch is due. Per sensor it:
+ * <ul>
+ * <li>debounces: a change of occupied/free only counts once every reliable
+ * reading for SENSOR_DEBOUNCE_MS has agreed with it, so a loop detector
+ * flickering under a passing car does not flip its slot;</li>
+ * <li>updates the sensor's slot - occupyBySensor() / releaseBySensor() -
+ * never touching slots held by a parking session;</li>
+ * <li>queues the reading for the database.</li>
+ * </ul>
+ * Queued readings are written by a separate writer thread in batches of
+ * SENSOR_BATCH_SIZE (or every SENSOR_FLUSH_MS), so a slow database never
+ * stalls the consumer. If SENSOR_WRITE_QUEUE batches are already waiting,
+ * the new batch is dropped and counted rather than buffered without limit.
+ *
+ * SENSOR_PERSIST chooses what is saved: CHANGES (default, the readings where
+ * a sensor's reported value changes), ALL, or NONE. Saved readings older than
+ * SENSOR_RETENTION_DAYS are deleted hourly.
+ *
+ * Settings (config.properties): SENSOR_INGEST_ENABLED, SENSOR_BUFFER_SIZE,
+ * SENSOR_DEBOUNCE_MS, SENSOR_PERSIST, SENSOR_BATCH_SIZE, SENSOR_FLUSH_MS,
+ * SENSOR_WRITE_QUEUE, SENSOR_RETENTION_DAYS.
+ */
+public class SensorIngest {
+
+    /**
+     * Which readings are saved to the SensorReading table
+     */
+    public enum PersistMode {
+        ALL, CHANGES, NONE
+    }
+
+    /**
+     * Told the debounced value of a sensor after each reliable reading, with
+     * that reading's confidence. Called on the consumer thread; must be quick.
+     */
+    public interface SensorListener {
+        void sensorSettled(Sensor sensor, boolean occupied, float confidence);
+    }
+
+    // Readings handled per drain before the consumer checks its batch and clock
+    private static final int DRAIN_CHUNK = 4096;
+    private static final long PURGE_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * Debounce state of one sensor. Only the consumer thread touches the
+     * mutable fields; register() replaces the whole object.
+     */
+    private static final class SensorState {
+        final Sensor sensor;
+        final ParkingSlot slot;
+        boolean stable;         // Debounced value
+        boolean pending;        // A reading disagreeing with stable has been seen...
+        long pendingSince;      // ...continuously since this reading time (ms)
+        boolean hasReported;
+        boolean lastReported;   // Last raw value, for SENSOR_PERSIST=CHANGES
+
+        SensorState(Sensor sensor, ParkingSlot slot) {
+            this.sensor = sensor;
+            this.slot = slot;
+            this.stable = slot.isOccupied();
+        }
+    }
+
+    private static SensorIngest instance;
+
+    private final SensorDAO sensorDAO;
+    private final RingBuffer<SensorReading> buffer;
+    private final long debounceMillis;
+    private final PersistMode persistMode;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final int retentionDays;
+    private final ThreadPoolExecutor writer;
+    private final Map<String, SensorState> sensors = new ConcurrentHashMap<>();
+    private final List<SensorListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong unknownSensor = new AtomicLong();
+    private final AtomicLong slotUpdates = new AtomicLong();
+    private final AtomicLong saved = new AtomicLong();
+    private final AtomicLong unsaved = new AtomicLong();
+
+    private volatile boolean running;
+    private volatile Thread consumer;
+    // Set while the consumer sleeps on an empty buffer, so submit() knows to wake it
+    private volatile boolean sleeping;
+
+    // Consumer thread only
+    private List<SensorReading> batch = new ArrayList<>();
+    private Map<String, LocalDateTime> lastSeen = new HashMap<>();
+    private long batchStartedAt;
+    private long nextPurgeAt;
+
+    /**
+     * True if config.properties turns sensor intake on
+     */
+    public static boolean isEnabled() {
+        return DatabaseConnection.getBooleanProperty("SENSOR_INGEST_ENABLED", false);
+    }
+
+    public static synchronized SensorIngest getInstance() {
+        if (instance == null) {
+            instance = new SensorIngest(new SensorDAO(),
+                    DatabaseConnection.getIntProperty("SENSOR_BUFFER_SIZE", 65536),
+                    DatabaseConnection.getIntProperty("SENSOR_DEBOUNCE_MS", 1500),
+                    persistModeOf(DatabaseConnection.getProperty("SENSOR_PERSIST", "CHANGES")),
+                    DatabaseConnection.getIntProperty("SENSOR_BATCH_SIZE", 2000),
+                    DatabaseConnection.getIntProperty("SENSOR_FLUSH_MS", 500),
+                    DatabaseConnection.getIntProperty("SENSOR_WRITE_QUEUE", 16),
+                    DatabaseConnection.getIntProperty("SENSOR_RETENTION_DAYS", 30));
+        }
+        return instance;
+    }
+
+    SensorIngest(SensorDAO sensorDAO, int bufferSize, long debounceMillis, PersistMode persistMode,
+            int batchSize, long flushIntervalMillis, int writeQueue, int retentionDays) {
+        this.sensorDAO = sensorDAO;
+        this.buffer = new RingBuffer<>(Math.max(1024, bufferSize));
+        this.debounceMillis = Math.max(0, debounceMillis);
+        this.persistMode = persistMode;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMillis = Math.max(10, flushIntervalMillis);
+        this.retentionDays = retentionDays;
+        writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(Math.max(1, writeQueue)), r -> {
+                    Thread t = new Thread(r, "sensor-writer");
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * Start the consumer thread; readings submitted before this wait in the buffer
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        consumer = new Thread(this::consume, "sensor-ingest");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    /**
+     * Process what is already buffered, write the last batch and stop.
+     * Waits up to timeoutMillis for the writer to finish.
+     */
+    public void stop(long timeoutMillis) throws InterruptedException {
+        Thread current;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            current = consumer;
+            consumer = null;
+        }
+        LockSupport.unpark(current);
+        current.join(timeoutMillis);
+        writer.shutdown();
+        writer.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Hand a reading to the pipeline. Never blocks.
+     *
+     * @return false if the buffer was full and the reading was dropped
+     */
+    public boolean submit(SensorReading reading) {
+        if (!buffer.offer(reading)) {
+            return false;
+        }
+        if (sleeping) {
+            LockSupport.unpark(consumer);
+        }
+        return true;
+    }
+
+    /**
+     * Feed a sensor's readings to a slot. Replaces any earlier registration
+     * of the same sensor ID, and starts from the slot's current occupancy.
+     */
+    public void register(Sensor sensor, ParkingSlot slot) {
+        sensors.put(sensor.getSensorId(), new SensorState(sensor, slot));
+    }
+
+    public void addListener(SensorListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(SensorListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Stop acting on a sensor's readings
+     */
+    public void unregister(String sensorId) {
+        sensors.remove(sensorId);
+    }
+
+    /**
+     * Register every sensor a lot lists that watches one of its slots
+     *
+     * @return number of sensors registered
+     */
+    public int register(ParkingLot lot) {
+        int count = 0;
+        for (Sensor sensor : lot.getSensors()) {
+            ParkingSlot slot = lot.getSlotById(sensor.getSlotId());
+            if (slot != null) {
+                register(sensor, slot);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Load the Sensor table, add each sensor to its lot and register it.
+     *
+     * @return number of sensors registered, or -1 if they could not be loaded
+     */
+    public int loadSensors(List<ParkingLot> lots) {
+        List<Sensor> loaded = sensorDAO.getAllSensors();
+        if (loaded == null) {
+            return -1;
+        }
+        Map<String, ParkingLot> lotsById = new HashMap<>();
+        for (ParkingLot lot : lots) {
+            lotsById.put(lot.getLotId(), lot);
+        }
+        int count = 0;
+        for (Sensor sensor : loaded) {
+            ParkingLot lot = lotsById.get(sensor.getLotId());
+            if (lot == null) {
+                continue;
+            }
+            lot.addSensor(sensor);
+            ParkingSlot slot = lot.getSlotById(sensor.getSlotId());
+            if (slot != null) {
+                register(sensor, slot);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Readings waiting in the buffer
+     */
+    public int getBacklog() {
+        return buffer.size();
+    }
+
+    /**
+     * Readings dropped because the buffer was full
+     */
+    public long getDroppedCount() {
+        return buffer.getRejectedCount();
+    }
+
+    /**
+     * Readings taken off the buffer by the consumer
+     */
+    public long getProcessedCount() {
+        return processed.get();
+    }
+
+    /**
+     * Readings from sensors that are not registered (ignored)
+     */
+    public long getUnknownSensorCount() {
+        return unknownSensor.get();
+    }
+
+    /**
+     * Slots marked occupied or freed by a sensor
+     */
+    public long getSlotUpdateCount() {
+        return slotUpdates.get();
+    }
+
+    /**
+     * Readings written to the database
+     */
+    public long getSavedCount() {
+        return saved.get();
+    }
+
+    /**
+     * Readings meant for the database but dropped (write queue full or write failed)
+     */
+    public long getUnsavedCount() {
+        return unsaved.get();
+    }
+
+    private void consume() {
+        nextPurgeAt = System.currentTimeMillis();
+        while (true) {
+            int drained = buffer.drainTo(this::process, DRAIN_CHUNK);
+            long now = System.currentTimeMillis();
+            if (batch.size() >= batchSize || (hasWrites() && now - batchStartedAt >= flushIntervalMillis)) {
+                submitBatch();
+            }
+            if (persistMode != PersistMode.NONE && retentionDays > 0 && now >= nextPurgeAt) {
+                nextPurgeAt = now + PURGE_INTERVAL_MILLIS;
+                submitWrite(this::purge, 0);
+            }
+            if (drained == 0) {
+                if (!running) {
+                    break;
+                }
+                sleep(now);
+            }
+        }
+        submitBatch();
+    }
+
+    /**
+     * Wait for a submit (or stop) to wake the consumer, or until the open
+     * batch or the next purge is due
+     */
+    private void sleep(long now) {
+        long wakeAt = hasWrites() ? batchStartedAt + flushIntervalMillis : Long.MAX_VALUE;
+        if (persistMode != PersistMode.NONE && retentionDays > 0) {
+            wakeAt = Math.min(wakeAt, nextPurgeAt);
+        }
+        sleeping = true;
+        // A reading offered before the flag was set is seen here instead
+        if (buffer.size() == 0) {
+            if (wakeAt == Long.MAX_VALUE) {
+                LockSupport.park(this);
+            } else if (wakeAt > now) {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(wakeAt - now));
+            }
+        }
+        sleeping = false;
+    }
+
+    private void process(SensorReading reading) {
+        processed.lazySet(processed.get() + 1); // Single writer
+        SensorState state = sensors.get(reading.getSensorId());
+        if (state == null) {
+            unknownSensor.incrementAndGet();
+            return;
+        }
+        if (reading.getTimestamp() == null) {
+            reading.setTimestamp(LocalDateTime.now());
+        }
+        boolean occupied = reading.isOccupied();
+
+        if (persistMode != PersistMode.NONE) {
+            if (!hasWrites()) {
+                batchStartedAt = System.currentTimeMillis();
+            }
+            if (persistMode == PersistMode.ALL || !state.hasReported || state.lastReported != occupied) {
+                batch.add(reading);
+            }
+            lastSeen.put(reading.getSensorId(), reading.getTimestamp());
+        }
+        state.hasReported = true;
+        state.lastReported = occupied;
+
+        if (!reading.isReliable() || !state.sensor.isActive()) {
+            return;
+        }
+        if (occupied != state.stable) {
+            long at = toMillis(reading.getTimestamp());
+            if (!state.pending) {
+                state.pending = true;
+                state.pendingSince = at;
+            }
+            if (at - state.pendingSince < debounceMillis) {
+                return;
+            }
+            state.stable = occupied;
+        }
+        state.pending = false;
+
+        // Keep the slot in step with the settled value; sessions take precedence
+        ParkingSlot slot = state.slot;
+        if (state.stable ? slot.isAvailable() && slot.occupyBySensor()
+                : slot.isSensorOccupied() && slot.releaseBySensor()) {
+            slotUpdates.incrementAndGet();
+        }
+        for (SensorListener listener : listeners) {
+            listener.sensorSettled(state.sensor, state.stable, reading.getConfidence());
+        }
+    }
+
+    private boolean hasWrites() {
+        return !batch.isEmpty() || !lastSeen.isEmpty();
+    }
+
+    private void submitBatch() {
+        if (!hasWrites()) {
+            return;
+        }
+        List<SensorReading> readings = batch;
+        Map<String, LocalDateTime> seen = lastSeen;
+        batch = new ArrayList<>(Math.min(readings.size(), batchSize));
+        lastSeen = new HashMap<>();
+        submitWrite(() -> write(readings, seen), readings.size());
+    }
+
+    private void submitWrite(Runnable task, int readingCount) {
+        try {
+            writer.execute(task);
+        } catch (RejectedExecutionException e) {
+            unsaved.addAndGet(readingCount);
+        }
+    }
+
+    private void write(List<SensorReading> readings, Map<String, LocalDateTime> seen) {
+        int count = sensorDAO.insertReadings(readings);
+        if (count < 0) {
+            unsaved.addAndGet(readings.size());
+        } else {
+            saved.addAndGet(count);
+        }
+        sensorDAO.updateLastReadings(seen);
+    }
+
+    private void purge() {
+        sensorDAO.deleteReadingsBefore(LocalDateTime.now().minusDays(retentionDays));
+    }
+
+    // Only differences are used, so the wall-clock time is read as UTC
+    private static long toMillis(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1000 + time.getNano() / 1000000;
+    }
+
+    private static PersistMode persistModeOf(String value) {
+        try {
+            return PersistMode.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid value for SENSOR_PERSIST: " + value + ", using CHANGES");
+            return PersistMode.CHANGES;
+        }
+    }
+}
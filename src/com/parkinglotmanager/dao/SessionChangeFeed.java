@@ -0,0 +1,230 @@
+package com.parkinglotmanager.dao;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.parkinglotmanager.model.SessionChange;
+import com.parkinglotmanager.model.VehicleSession;
+import com.parkinglotmanager.util.DatabaseConnection;
+
+/**
+ * Change feed over the SessionChange table (filled by triggers on VehicleSession).
+ *
+ * While anyone is subscribed, a background thread asks for changes after the
+ * last change ID it has seen, applies them to the ActiveSessionRegistry and
+ * passes them to the listeners. Each console therefore transfers only what
+ * changed, and sees parks/exits made by other consoles.
+ *
+ * AUTO_INCREMENT IDs can commit out of order, so the cursor only moves past a
+ * missing ID once it shows up or has stayed missing for the gap timeout
+ * (a rolled-back insert leaves a permanent hole).
+ *
+ * The embedded profile has no triggers (H2 triggers are Java classes), so
+ * the feed is off there: subscribing says so once and nothing is polled.
+ *
+ * Settings (config.properties): SESSION_FEED_POLL_MS, SESSION_FEED_GAP_TIMEOUT_MS,
+ * SESSION_FEED_RETENTION_HOURS.
+ */
+public class SessionChangeFeed {
+
+    private static final int BATCH_LIMIT = 1000;
+    // How often (in polls) old change rows are purged
+    private static final int PURGE_EVERY_POLLS = 3600;
+
+    private static SessionChangeFeed instance;
+
+    private final VehicleSessionDAO sessionDAO;
+    private final ActiveSessionRegistry registry = ActiveSessionRegistry.getInstance();
+    private final List<SessionChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final long pollIntervalMillis;
+    private final long gapTimeoutMillis;
+    private final int retentionHours;
+
+    // Poller state, only touched on the poller thread
+    private long cursor = -1;
+    private final TreeSet<Long> seenAhead = new TreeSet<>();
+    private final Map<Long, Long> gapFirstSeen = new HashMap<>();
+    private int pollCount;
+    private boolean warnedUnavailable;
+    private boolean warnedEmbedded;
+
+    private ScheduledExecutorService poller;
+
+    public static synchronized SessionChangeFeed getInstance() {
+        if (instance == null) {
+            instance = new SessionChangeFeed(new VehicleSessionDAO(),
+                    DatabaseConnection.getIntProperty("SESSION_FEED_POLL_MS", 1000),
+                    DatabaseConnection.getIntProperty("SESSION_FEED_GAP_TIMEOUT_MS", 10000),
+                    DatabaseConnection.getIntProperty("SESSION_FEED_RETENTION_HOURS", 24));
+        }
+        return instance;
+    }
+
+    SessionChangeFeed(VehicleSessionDAO sessionDAO, long pollIntervalMillis, long gapTimeoutMillis,
+            int retentionHours) {
+        this.sessionDAO = sessionDAO;
+        this.pollIntervalMillis = Math.max(50, pollIntervalMillis);
+        this.gapTimeoutMillis = gapTimeoutMillis;
+        this.retentionHours = retentionHours;
+    }
+
+    /**
+     * True if the database fills the SessionChange table (not in the
+     * embedded profile)
+     */
+    public static boolean isAvailable() {
+        return !DatabaseConnection.isEmbedded();
+    }
+
+    /**
+     * Start receiving changes. Polling starts with the first subscriber.
+     */
+    public synchronized void subscribe(SessionChangeListener listener) {
+        listeners.add(listener);
+        if (!isAvailable()) {
+            if (!warnedEmbedded) {
+                warnedEmbedded = true;
+                System.err.println("[FEED] Session change feed is off in the embedded profile (no triggers). "
+                        + "Changes from other consoles will not be shown; the occupancy rollup "
+                        + "re-checks the last ROLLUP_RECHECK_HOURS instead.");
+            }
+            return;
+        }
+        if (poller == null) {
+            poller = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "session-change-feed");
+                t.setDaemon(true);
+                return t;
+            });
+            poller.scheduleWithFixedDelay(this::pollQuietly, 0, pollIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stop receiving changes. Polling stops with the last subscriber.
+     */
+    public synchronized void unsubscribe(SessionChangeListener listener) {
+        listeners.remove(listener);
+        if (listeners.isEmpty() && poller != null) {
+            poller.shutdown();
+            poller = null;
+        }
+    }
+
+    /**
+     * Fetch and apply changes once.
+     *
+     * @return the changes that were new, oldest first (empty if none or unavailable)
+     */
+    List<SessionChange> poll() {
+        if (cursor < 0) {
+            // Take the cursor before loading, so nothing between the two is missed
+            long latest = sessionDAO.getLatestChangeId();
+            if (latest < 0) {
+                if (!warnedUnavailable) {
+                    warnedUnavailable = true;
+                    System.err.println("[FEED] SessionChange table not available - run database/add_session_change_feed.sql. "
+                            + "Changes from other consoles will not be shown.");
+                }
+                return new ArrayList<>();
+            }
+            cursor = latest;
+            if (registry.isLoaded()) {
+                sessionDAO.reloadActiveSessions();
+            } else {
+                sessionDAO.getActiveSessions();
+            }
+            return new ArrayList<>();
+        }
+
+        List<SessionChange> rows = sessionDAO.getChangesSince(cursor, BATCH_LIMIT);
+        if (rows == null) {
+            return new ArrayList<>();
+        }
+        List<SessionChange> fresh = new ArrayList<>(rows.size());
+        for (SessionChange change : rows) {
+            if (seenAhead.add(change.getChangeId())) {
+                fresh.add(change);
+            }
+        }
+        advanceCursor();
+
+        for (SessionChange change : fresh) {
+            apply(change);
+        }
+
+        if (++pollCount % PURGE_EVERY_POLLS == 0 && retentionHours > 0) {
+            sessionDAO.purgeChangesBefore(LocalDateTime.now().minusHours(retentionHours));
+        }
+        return fresh;
+    }
+
+    private void pollQuietly() {
+        try {
+            List<SessionChange> changes = poll();
+            if (!changes.isEmpty()) {
+                for (SessionChangeListener listener : listeners) {
+                    listener.sessionsChanged(changes);
+                }
+            }
+        } catch (RuntimeException e) {
+            // Never let an exception cancel the scheduled task
+            System.err.println("[FEED] Poll failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Move the cursor over every contiguous ID seen, and over gaps that have
+     * been open longer than the gap timeout. Every missing ID below the first
+     * one seen starts its timer in the same poll, so a hole of any size is
+     * crossed in one gap timeout.
+     */
+    private void advanceCursor() {
+        long now = System.currentTimeMillis();
+        while (!seenAhead.isEmpty()) {
+            long next = cursor + 1;
+            if (seenAhead.first() == next) {
+                seenAhead.pollFirst();
+                gapFirstSeen.remove(next);
+                cursor = next;
+                continue;
+            }
+            for (long missing = next; missing < seenAhead.first(); missing++) {
+                gapFirstSeen.putIfAbsent(missing, now);
+            }
+            if (now - gapFirstSeen.get(next) < gapTimeoutMillis) {
+                return;
+            }
+            gapFirstSeen.remove(next);
+            cursor = next; // Rolled back - it will never appear
+        }
+    }
+
+    /**
+     * Bring the registry in line with one change. Sessions this console already
+     * knows keep their object (so open dialogs and tables stay valid).
+     */
+    private void apply(SessionChange change) {
+        VehicleSession session = change.getSession();
+        int id = change.getSessionId();
+        if (session != null && session.isActive()) {
+            // Skip if known, if exited here but not yet saved, or if the slot
+            // already holds a local session that is still being saved
+            if (registry.getById(id) == null && !registry.isExitPending(id)
+                    && registry.getBySlotId(session.getSlotId()) == null) {
+                registry.add(session);
+            }
+        } else {
+            registry.remove(id);
+        }
+    }
+}
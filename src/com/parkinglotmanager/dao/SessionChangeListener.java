@@ -0,0 +1,18 @@
+package com.parkinglotmanager.dao;
+
+import java.util.List;
+
+import com.parkinglotmanager.model.SessionChange;
+
+/**
+ * Receives parking session changes from SessionChangeFeed.
+ * Called on the feed's polling thread, after the active-session registry has
+ * been updated; GUI listeners must hand off to the EDT themselves.
+ */
+public interface SessionChangeListener {
+
+    /**
+     * @param changes new changes, oldest first (never empty)
+     */
+    void sessionsChanged(List<SessionChange> changes);
+}
@@ -0,0 +1,176 @@
+package com.parkinglotmanager.dao;
+
+import com.parkinglotmanager.enums.VehicleMake;
+import com.parkinglotmanager.enums.VehicleType;
+import com.parkinglotmanager.model.VehicleSession;
+import com.parkinglotmanager.util.DatabaseConnection;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps VehicleSession rows by column index. Indexes (and whether the enum
+ * columns hold names or TINYINT codes) are resolved once per ResultSet, so
+ * mapping a row is ten indexed getters and two array lookups.
+ *
+ * Enum codes are the constant's ordinal; new VehicleType/VehicleMake
+ * constants must be added at the end once database/migrate_session_enum_codes.sql
+ * has been run. SESSION_ENUM_CODES=true makes inserts write codes too.
+ */
+final class SessionRowMapper {
+
+    private static final VehicleType[] VEHICLE_TYPES = VehicleType.values();
+    private static final VehicleMake[] VEHICLE_MAKES = VehicleMake.values();
+    private static final Map<String, VehicleType> VEHICLE_TYPES_BY_NAME = new HashMap<>();
+    private static final Map<String, VehicleMake> VEHICLE_MAKES_BY_NAME = new HashMap<>();
+
+    static {
+        for (VehicleType type : VEHICLE_TYPES) {
+            VEHICLE_TYPES_BY_NAME.put(type.name(), type);
+        }
+        for (VehicleMake make : VEHICLE_MAKES) {
+            VEHICLE_MAKES_BY_NAME.put(make.name(), make);
+        }
+    }
+
+    private static final boolean WRITE_CODES = DatabaseConnection.getBooleanProperty("SESSION_ENUM_CODES", false);
+
+    private final int sessionId;
+    private final int licensePlate;
+    private final int vehicleType;
+    private final int vehicleMake;
+    private final int userId;
+    private final int slotId;
+    private final int entryTime;
+    private final int exitTime;
+    private final int fee;
+    private final int paymentStatus;
+    private final boolean typeCodes;
+    private final boolean makeCodes;
+
+    SessionRowMapper(ResultSet rs) throws SQLException {
+        sessionId = rs.findColumn("sessionID");
+        licensePlate = rs.findColumn("licensePlate");
+        vehicleType = rs.findColumn("vehicleType");
+        vehicleMake = rs.findColumn("vehicleMake");
+        userId = rs.findColumn("userID");
+        slotId = rs.findColumn("slotID");
+        entryTime = rs.findColumn("entryTime");
+        exitTime = rs.findColumn("exitTime");
+        fee = rs.findColumn("fee");
+        paymentStatus = rs.findColumn("paymentStatus");
+        ResultSetMetaData meta = rs.getMetaData();
+        typeCodes = isNumeric(meta.getColumnType(vehicleType));
+        makeCodes = isNumeric(meta.getColumnType(vehicleMake));
+    }
+
+    /**
+     * Map the row the ResultSet is on
+     */
+    VehicleSession map(ResultSet rs) throws SQLException {
+        VehicleType type = typeCodes ? vehicleTypeOf(rs.getInt(vehicleType), rs.wasNull())
+                : vehicleTypeOf(rs.getString(vehicleType));
+        VehicleMake make = makeCodes ? vehicleMakeOf(rs.getInt(vehicleMake), rs.wasNull())
+                : vehicleMakeOf(rs.getString(vehicleMake));
+        return new VehicleSession(
+                rs.getInt(sessionId),
+                rs.getString(licensePlate),
+                type,
+                make,
+                rs.getInt(userId),
+                rs.getString(slotId),
+                getTime(rs, entryTime),
+                getTime(rs, exitTime),
+                rs.getDouble(fee),
+                rs.getString(paymentStatus));
+    }
+
+    /**
+     * Bind a vehicle type as a name or, with SESSION_ENUM_CODES, as a code
+     */
+    static void setVehicleType(PreparedStatement stmt, int index, VehicleType type) throws SQLException {
+        if (type == null) {
+            stmt.setNull(index, WRITE_CODES ? Types.TINYINT : Types.VARCHAR);
+        } else if (WRITE_CODES) {
+            stmt.setInt(index, type.ordinal());
+        } else {
+            stmt.setString(index, type.name());
+        }
+    }
+
+    /**
+     * Bind a vehicle make as a name or, with SESSION_ENUM_CODES, as a code
+     */
+    static void setVehicleMake(PreparedStatement stmt, int index, VehicleMake make) throws SQLException {
+        if (make == null) {
+            stmt.setNull(index, WRITE_CODES ? Types.TINYINT : Types.VARCHAR);
+        } else if (WRITE_CODES) {
+            stmt.setInt(index, make.ordinal());
+        } else {
+            stmt.setString(index, make.name());
+        }
+    }
+
+    static VehicleType vehicleTypeOf(String name) throws SQLException {
+        if (name == null || name.isEmpty()) {
+            return null;
+        }
+        VehicleType type = VEHICLE_TYPES_BY_NAME.get(name);
+        if (type == null) {
+            throw new SQLException("Unknown vehicle type in database: " + name);
+        }
+        return type;
+    }
+
+    static VehicleMake vehicleMakeOf(String name) throws SQLException {
+        if (name == null || name.isEmpty()) {
+            return null;
+        }
+        VehicleMake make = VEHICLE_MAKES_BY_NAME.get(name);
+        if (make == null) {
+            throw new SQLException("Unknown vehicle make in database: " + name);
+        }
+        return make;
+    }
+
+    private static VehicleType vehicleTypeOf(int code, boolean isNull) throws SQLException {
+        if (isNull) {
+            return null;
+        }
+        if (code < 0 || code >= VEHICLE_TYPES.length) {
+            throw new SQLException("Unknown vehicle type code in database: " + code);
+        }
+        return VEHICLE_TYPES[code];
+    }
+
+    private static VehicleMake vehicleMakeOf(int code, boolean isNull) throws SQLException {
+        if (isNull) {
+            return null;
+        }
+        if (code < 0 || code >= VEHICLE_MAKES.length) {
+            throw new SQLException("Unknown vehicle make code in database: " + code);
+        }
+        return VEHICLE_MAKES[code];
+    }
+
+    /**
+     * A DATETIME column as LocalDateTime. Read through Timestamp, the type
+     * every write binds, so the driver's time zone conversion is undone
+     * the same way it was applied.
+     */
+    private static LocalDateTime getTime(ResultSet rs, int column) throws SQLException {
+        Timestamp value = rs.getTimestamp(column);
+        return value != null ? value.toLocalDateTime() : null;
+    }
+
+    private static boolean isNumeric(int sqlType) {
+        return sqlType == Types.TINYINT || sqlType == Types.SMALLINT || sqlType == Types.INTEGER;
+    }
+}
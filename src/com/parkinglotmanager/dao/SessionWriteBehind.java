@@ -0,0 +1,631 @@
+package com.parkinglotmanager.dao;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.parkinglotmanager.enums.VehicleMake;
+import com.parkinglotmanager.enums.VehicleType;
+import com.parkinglotmanager.model.VehicleSession;
+import com.parkinglotmanager.util.DatabaseConnection;
+
+/**
+ * Write-behind pipeline for park and exit events.
+ *
+ * An event is applied to the in-memory ActiveSessionRegistry and appended to a
+ * local journal file before the caller returns; a background flusher then
+ * writes queued events to MySQL in batches, retrying with backoff while the
+ * database is unreachable. A session's exit is never written before its
+ * insert. On startup the journal is replayed, so events that had not reached
+ * the database when the application stopped are not lost.
+ *
+ * Sessions not yet inserted carry a negative provisional ID, replaced by the
+ * database ID once the row is written.
+ *
+ * Settings (config.properties): WRITE_BEHIND_ENABLED, WRITE_BEHIND_JOURNAL,
+ * WRITE_BEHIND_FSYNC, WRITE_BEHIND_FLUSH_INTERVAL_MS, WRITE_BEHIND_MAX_BATCH,
+ * WRITE_BEHIND_MAX_BACKOFF_MS.
+ */
+public class SessionWriteBehind {
+
+    private static final String SEPARATOR = "\t";
+    // Rewrite the journal once this many lines have been appended since the last rewrite
+    private static final int COMPACT_AFTER_LINES = 10000;
+
+    private static SessionWriteBehind instance;
+
+    private final VehicleSessionDAO sessionDAO;
+    private final VehicleDAO vehicleDAO;
+    private final ActiveSessionRegistry registry = ActiveSessionRegistry.getInstance();
+
+    private final File journalFile;
+    private final boolean fsync;
+    private final long flushIntervalMillis;
+    private final int maxBatch;
+    private final long maxBackoffMillis;
+
+    // Sessions with work still to write, keyed by their current ID; guarded by this.
+    // Every entry has needsInsert or needsExit set - finished entries are removed.
+    private final Map<Integer, Pending> pending = new LinkedHashMap<>();
+    private FileOutputStream journalStream;
+    private Writer journal;
+    private int journalLines;
+    private int nextProvisionalId = -1;
+
+    // Only one flush may run at a time, or a batch could be inserted twice
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService flusher;
+    private long backoffMillis;
+    private long nextAttemptAt;
+
+    /**
+     * True if config.properties turns the write-behind pipeline on.
+     */
+    public static boolean isEnabled() {
+        return DatabaseConnection.getBooleanProperty("WRITE_BEHIND_ENABLED", false);
+    }
+
+    /**
+     * The shared writer, started (and its journal replayed) on first use.
+     */
+    public static synchronized SessionWriteBehind getInstance() {
+        if (instance == null) {
+            instance = new SessionWriteBehind(new VehicleSessionDAO(), new VehicleDAO(),
+                    new File(DatabaseConnection.getProperty("WRITE_BEHIND_JOURNAL", "parking-journal.log")),
+                    DatabaseConnection.getBooleanProperty("WRITE_BEHIND_FSYNC", true),
+                    DatabaseConnection.getIntProperty("WRITE_BEHIND_FLUSH_INTERVAL_MS", 200),
+                    DatabaseConnection.getIntProperty("WRITE_BEHIND_MAX_BATCH", 500),
+                    DatabaseConnection.getIntProperty("WRITE_BEHIND_MAX_BACKOFF_MS", 30000));
+        }
+        return instance;
+    }
+
+    SessionWriteBehind(VehicleSessionDAO sessionDAO, VehicleDAO vehicleDAO, File journalFile,
+            boolean fsync, long flushIntervalMillis, int maxBatch, long maxBackoffMillis) {
+        this.sessionDAO = sessionDAO;
+        this.vehicleDAO = vehicleDAO;
+        this.journalFile = journalFile;
+        this.fsync = fsync;
+        this.flushIntervalMillis = Math.max(10, flushIntervalMillis);
+        this.maxBatch = Math.max(1, maxBatch);
+        this.maxBackoffMillis = Math.max(this.flushIntervalMillis, maxBackoffMillis);
+
+        synchronized (this) {
+            replayJournal();
+            rewriteJournal();
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "session-write-behind");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, this.flushIntervalMillis,
+                this.flushIntervalMillis, TimeUnit.MILLISECONDS);
+        DatabaseConnection.runBeforeShutdown(this::shutdown);
+    }
+
+    /**
+     * Record a new parking session. It gets a provisional ID, is journaled and
+     * becomes visible as active immediately; the database insert happens later.
+     *
+     * @param addVehicle also write the vehicle row (plate and make) when flushing
+     */
+    public synchronized void recordPark(VehicleSession session, boolean addVehicle) {
+        int provisionalId = nextProvisionalId--;
+        session.setId(provisionalId);
+
+        Pending p = new Pending(session);
+        p.needsInsert = true;
+        p.addVehicle = addVehicle;
+        appendToJournal(Collections.singletonList(parkLine(p)));
+        pending.put(provisionalId, p);
+        registry.add(session);
+    }
+
+    /**
+     * Undo a park recorded with recordPark whose slot was lost before the park
+     * finished. A session not yet written is dropped from the queue and the
+     * journal; one already written has its row deleted.
+     *
+     * @return false if the written row could not be deleted
+     */
+    public boolean cancelPark(VehicleSession session) {
+        int id = session.getId();
+        synchronized (this) {
+            Pending p = pending.get(id);
+            if (p != null && p.needsInsert) {
+                // A flush already holding it deletes the row once it is inserted
+                p.cancelled = true;
+                pending.remove(id);
+                registry.remove(id);
+                appendToJournal(Collections.singletonList("D" + SEPARATOR + id));
+                return true;
+            }
+        }
+        return sessionDAO.deleteSession(id);
+    }
+
+    /**
+     * Record the exit of an active session: stamps exit time and fee, marks it
+     * paid and removes it from the active set; the database update happens later.
+     *
+     * @return false if the session had already exited
+     */
+    public boolean recordExit(VehicleSession session, double fee) {
+        return !recordExits(Collections.singletonList(session), Collections.singletonList(fee)).isEmpty();
+    }
+
+    /**
+     * Record several exits with a single journal sync. Sessions that have
+     * already exited (e.g. from another stale list) are skipped.
+     *
+     * @param fees fee per session, same order as sessions
+     * @return the sessions exited by this call, in order
+     */
+    public synchronized List<VehicleSession> recordExits(List<VehicleSession> sessions, List<Double> fees) {
+        List<VehicleSession> exited = new ArrayList<>(sessions.size());
+        List<String> lines = new ArrayList<>(sessions.size());
+        for (int i = 0; i < sessions.size(); i++) {
+            VehicleSession session = sessions.get(i);
+            Pending queued = pending.get(session.getId());
+            if (!session.isActive() || (queued != null && queued.needsExit)) {
+                continue;
+            }
+            session.checkout(fees.get(i));
+            session.setPaymentStatus("PAID");
+            lines.add(exitLine(session));
+            exited.add(session);
+        }
+        if (exited.isEmpty()) {
+            return exited;
+        }
+        appendToJournal(lines);
+
+        for (VehicleSession session : exited) {
+            int id = session.getId();
+            Pending p = pending.get(id);
+            if (p == null) {
+                p = new Pending(session);
+                pending.put(id, p);
+            }
+            p.needsExit = true;
+            registry.removePendingExit(id);
+        }
+        return exited;
+    }
+
+    /**
+     * Number of sessions with events not yet written to the database.
+     */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Write one batch of queued events now.
+     *
+     * @return true if everything attempted was written
+     */
+    public boolean flush() {
+        synchronized (flushLock) {
+            return flushBatch();
+        }
+    }
+
+    private boolean flushBatch() {
+        List<Pending> inserts = new ArrayList<>();
+        List<Boolean> exitIncluded = new ArrayList<>();
+        List<Pending> exits = new ArrayList<>();
+
+        synchronized (this) {
+            for (Pending p : pending.values()) {
+                if (inserts.size() + exits.size() >= maxBatch) {
+                    break;
+                }
+                if (p.needsInsert) {
+                    inserts.add(p);
+                    exitIncluded.add(p.needsExit);
+                } else if (p.needsExit) {
+                    exits.add(p);
+                }
+            }
+        }
+        if (inserts.isEmpty() && exits.isEmpty()) {
+            return true;
+        }
+
+        boolean ok = true;
+        if (!inserts.isEmpty()) {
+            ok = flushInserts(inserts, exitIncluded);
+        }
+        if (ok && !exits.isEmpty()) {
+            ok = flushExits(exits);
+        }
+        return ok;
+    }
+
+    /**
+     * Stop the flusher after one last attempt to drain the queue. Anything left
+     * stays in the journal for the next start.
+     */
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (int i = 0; i < 10 && getPendingCount() > 0; i++) {
+            if (!flush()) {
+                break;
+            }
+        }
+        synchronized (this) {
+            closeJournal();
+        }
+    }
+
+    private boolean flushInserts(List<Pending> inserts, List<Boolean> exitIncluded) {
+        List<VehicleSession> rows = new ArrayList<>(inserts.size());
+        for (Pending p : inserts) {
+            rows.add(p.session);
+        }
+        int[] ids = sessionDAO.insertSessionRows(rows);
+        if (ids == null) {
+            return false;
+        }
+
+        List<Pending> vehicles = new ArrayList<>();
+        List<Integer> cancelled = new ArrayList<>();
+        synchronized (this) {
+            List<String> lines = new ArrayList<>(inserts.size());
+            for (int i = 0; i < inserts.size(); i++) {
+                Pending p = inserts.get(i);
+                int provisionalId = p.session.getId();
+                if (p.cancelled) {
+                    // Cancelled while this insert ran (its D line is already journaled)
+                    cancelled.add(ids[i]);
+                    continue;
+                }
+                lines.add("A" + SEPARATOR + provisionalId + SEPARATOR + ids[i]);
+
+                pending.remove(provisionalId);
+                p.session.setId(ids[i]);
+                registry.rekey(provisionalId, p.session);
+                p.needsInsert = false;
+                if (exitIncluded.get(i)) {
+                    p.needsExit = false;
+                }
+                if (p.addVehicle) {
+                    vehicles.add(p);
+                    p.addVehicle = false;
+                }
+                if (p.needsExit) {
+                    // Exited before its insert was saved: keep the active row out of reloads
+                    registry.removePendingExit(ids[i]);
+                    pending.put(ids[i], p);
+                } else {
+                    lines.add("D" + SEPARATOR + ids[i]);
+                }
+            }
+            appendToJournal(lines);
+            compactIfNeeded();
+        }
+
+        for (int id : cancelled) {
+            sessionDAO.deleteSession(id);
+        }
+
+        // Best effort, as before: a duplicate plate is not an error worth retrying
+        for (Pending p : vehicles) {
+            VehicleSession s = p.session;
+            vehicleDAO.addVehicle(s.getUserId(), s.getLicensePlate(), s.getVehicleMake().toString(),
+                    "Model-Unknown", "Unknown");
+        }
+        return true;
+    }
+
+    private boolean flushExits(List<Pending> exits) {
+        List<VehicleSession> rows = new ArrayList<>(exits.size());
+        for (Pending p : exits) {
+            rows.add(p.session);
+        }
+        if (!sessionDAO.completeSessionRows(rows)) {
+            return false;
+        }
+
+        synchronized (this) {
+            List<String> lines = new ArrayList<>(exits.size());
+            for (Pending p : exits) {
+                int id = p.session.getId();
+                lines.add("D" + SEPARATOR + id);
+                pending.remove(id);
+                registry.exitFlushed(id);
+            }
+            appendToJournal(lines);
+            compactIfNeeded();
+        }
+        return true;
+    }
+
+    /**
+     * Scheduled flush: drains while batches succeed, backs off after a failure.
+     */
+    private void flushQuietly() {
+        if (System.currentTimeMillis() < nextAttemptAt) {
+            return;
+        }
+        try {
+            // Keep draining while batches succeed and make progress
+            boolean ok;
+            int before;
+            do {
+                before = getPendingCount();
+                ok = flush();
+            } while (ok && getPendingCount() > 0 && getPendingCount() < before);
+            if (ok) {
+                backoffMillis = 0;
+                nextAttemptAt = 0;
+            } else {
+                backoffMillis = backoffMillis == 0 ? flushIntervalMillis
+                        : Math.min(maxBackoffMillis, backoffMillis * 2);
+                nextAttemptAt = System.currentTimeMillis() + backoffMillis;
+                System.err.println("[WRITE-BEHIND] " + getPendingCount()
+                        + " session(s) not yet saved; retrying in " + backoffMillis + "ms");
+            }
+        } catch (RuntimeException e) {
+            // Never let an exception cancel the scheduled task
+            System.err.println("[WRITE-BEHIND] Flush failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    // ---- Journal ----
+
+    private String parkLine(Pending p) {
+        VehicleSession s = p.session;
+        return "P" + SEPARATOR + s.getId()
+                + SEPARATOR + clean(s.getLicensePlate())
+                + SEPARATOR + (s.getVehicleType() != null ? s.getVehicleType().name() : "")
+                + SEPARATOR + (s.getVehicleMake() != null ? s.getVehicleMake().name() : "")
+                + SEPARATOR + s.getUserId()
+                + SEPARATOR + clean(s.getSlotId())
+                + SEPARATOR + s.getEntryTime()
+                + SEPARATOR + (p.addVehicle ? "1" : "0");
+    }
+
+    private String exitLine(VehicleSession s) {
+        return "X" + SEPARATOR + s.getId()
+                + SEPARATOR + s.getExitTime()
+                + SEPARATOR + s.getFee()
+                + SEPARATOR + clean(s.getPaymentStatus());
+    }
+
+    private static String clean(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    /**
+     * Append lines and (if configured) force them to disk before returning.
+     * A journal failure is reported but does not block parking.
+     */
+    private void appendToJournal(List<String> lines) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        try {
+            if (journal == null) {
+                openJournal();
+            }
+            for (String line : lines) {
+                journal.write(line);
+                journal.write('\n');
+            }
+            journal.flush();
+            if (fsync) {
+                journalStream.getChannel().force(false);
+            }
+            journalLines += lines.size();
+        } catch (IOException e) {
+            System.err.println("[WRITE-BEHIND] Could not write journal " + journalFile + ": " + e.getMessage());
+            closeJournal();
+        }
+    }
+
+    private void openJournal() throws IOException {
+        journalStream = new FileOutputStream(journalFile, true);
+        journal = new OutputStreamWriter(journalStream, StandardCharsets.UTF_8);
+    }
+
+    private void closeJournal() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+            journal = null;
+            journalStream = null;
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (pending.isEmpty() ? journalLines > 0
+                : journalLines >= Math.max(COMPACT_AFTER_LINES, 2 * pending.size())) {
+            rewriteJournal();
+        }
+    }
+
+    /**
+     * Replace the journal with just the events still to be written.
+     */
+    private void rewriteJournal() {
+        closeJournal();
+        File temp = new File(journalFile.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp);
+                Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            int lines = 0;
+            for (Pending p : pending.values()) {
+                if (p.needsInsert) {
+                    writer.write(parkLine(p));
+                    writer.write('\n');
+                    lines++;
+                }
+                if (p.needsExit) {
+                    writer.write(exitLine(p.session));
+                    writer.write('\n');
+                    lines++;
+                }
+            }
+            writer.flush();
+            out.getChannel().force(false);
+            journalLines = lines;
+        } catch (IOException e) {
+            System.err.println("[WRITE-BEHIND] Could not compact journal: " + e.getMessage());
+            return;
+        }
+        try {
+            Files.move(temp.toPath(), journalFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("[WRITE-BEHIND] Could not replace journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild the queue from the journal left by a previous run and put
+     * unsaved sessions back into the active registry.
+     */
+    private void replayJournal() {
+        if (!journalFile.exists()) {
+            return;
+        }
+        int lineNumber = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                Files.newInputStream(journalFile.toPath()), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (!line.isEmpty()) {
+                    try {
+                        replayLine(line.split(SEPARATOR, -1));
+                    } catch (RuntimeException e) {
+                        // A torn last line after a crash is expected; skip it
+                        System.err.println("[WRITE-BEHIND] Skipping journal line " + lineNumber + ": " + line);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("[WRITE-BEHIND] Could not read journal " + journalFile + ": " + e.getMessage());
+            return;
+        }
+
+        Collection<Pending> restored = pending.values();
+        for (Pending p : restored) {
+            int id = p.session.getId();
+            if (id < 0) {
+                nextProvisionalId = Math.min(nextProvisionalId, id - 1);
+            }
+            if (p.needsExit) {
+                registry.removePendingExit(id);
+            } else {
+                registry.add(p.session);
+            }
+        }
+        if (!restored.isEmpty()) {
+            System.out.println("[WRITE-BEHIND] Restored " + restored.size() + " unsaved session(s) from " + journalFile);
+        }
+    }
+
+    private void replayLine(String[] f) {
+        switch (f[0]) {
+            case "P": {
+                int id = Integer.parseInt(f[1]);
+                VehicleSession session = new VehicleSession(id, f[2],
+                        f[3].isEmpty() ? null : VehicleType.valueOf(f[3]),
+                        f[4].isEmpty() ? null : VehicleMake.valueOf(f[4]),
+                        Integer.parseInt(f[5]), f[6], LocalDateTime.parse(f[7]), null, 0.0, "PENDING");
+                Pending p = new Pending(session);
+                p.needsInsert = true;
+                p.addVehicle = "1".equals(f[8]) && session.getVehicleMake() != null;
+                pending.put(id, p);
+                break;
+            }
+            case "X": {
+                int id = Integer.parseInt(f[1]);
+                // Parse everything first, so a torn line leaves no trace
+                LocalDateTime exitTime = LocalDateTime.parse(f[2]);
+                double fee = Double.parseDouble(f[3]);
+                String paymentStatus = f[4];
+                Pending p = pending.get(id);
+                if (p == null) {
+                    // Exit of a session that was already in the database
+                    p = new Pending(new VehicleSession(id, null, null, null, 0, null, null, null, 0.0, null));
+                    pending.put(id, p);
+                }
+                p.session.setExitTime(exitTime);
+                p.session.setFee(fee);
+                p.session.setPaymentStatus(paymentStatus);
+                p.needsExit = true;
+                break;
+            }
+            case "A": {
+                int provisionalId = Integer.parseInt(f[1]);
+                int id = Integer.parseInt(f[2]);
+                Pending p = pending.remove(provisionalId);
+                if (p != null) {
+                    p.session.setId(id);
+                    p.needsInsert = false;
+                    p.addVehicle = false;
+                    // Written without its exit (or we cannot tell) - the exit is still owed
+                    if (p.session.getExitTime() != null) {
+                        p.needsExit = true;
+                        pending.put(id, p);
+                    }
+                }
+                break;
+            }
+            case "D":
+                pending.remove(Integer.parseInt(f[1]));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown journal record " + f[0]);
+        }
+    }
+
+    /**
+     * Database work still owed for one session.
+     */
+    private static final class Pending {
+        private final VehicleSession session;
+        private boolean needsInsert;
+        private boolean needsExit;
+        private boolean addVehicle;
+        private boolean cancelled;
+
+        private Pending(VehicleSession session) {
+            this.session = session;
+        }
+    }
+}
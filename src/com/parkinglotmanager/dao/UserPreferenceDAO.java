@@ -42,13 +42,10 @@ public class UserPreferenceDAO {
 
     // Insert or update preference for a user (thanks to UNIQUE(userID))
     public boolean saveOrUpdatePreference(UserPreference pref) {
-        String sql = "INSERT INTO UserPreference " +
-                     "  (userID, preferredLotID, preferredArrivalTime, classLocationDescription) " +
-                     "VALUES (?, ?, ?, ?) " +
-                     "ON DUPLICATE KEY UPDATE " +
-                     "  preferredLotID = VALUES(preferredLotID), " +
-                     "  preferredArrivalTime = VALUES(preferredArrivalTime), " +
-                     "  classLocationDescription = VALUES(classLocationDescription)";
+        // ON DUPLICATE KEY UPDATE on MySQL, MERGE on the embedded database
+        String sql = DatabaseConnection.getDialect().upsert("UserPreference",
+                new String[] { "userID", "preferredLotID", "preferredArrivalTime", "classLocationDescription" },
+                "userID");
 
         try (Connection con = DatabaseConnection.getConnection();
              PreparedStatement stmt = con.prepareStatement(sql)) {
@@ -1,17 +1,30 @@
 package com.parkinglotmanager.dao;
 
+import com.parkinglotmanager.model.SessionChange;
+import com.parkinglotmanager.model.SessionCursor;
+import com.parkinglotmanager.model.SessionPage;
 import com.parkinglotmanager.model.VehicleSession;
-import com.parkinglotmanager.enums.VehicleType;
-import com.parkinglotmanager.enums.VehicleMake;
 import com.parkinglotmanager.util.DatabaseConnection;
+import com.parkinglotmanager.util.SqlDialect;
 
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public class VehicleSessionDAO {
 
+    private static final Object LOAD_LOCK = new Object();
+    // Rows per executeBatch() call in the batch APIs
+    private static final int BATCH_SIZE = 500;
+    // Columns read by SessionRowMapper; selected by name instead of SELECT *
+    private static final String SESSION_COLUMNS = "sessionID, licensePlate, vehicleType, vehicleMake, userID, "
+            + "slotID, entryTime, exitTime, fee, paymentStatus";
+
+    private final ActiveSessionRegistry activeSessions = ActiveSessionRegistry.getInstance();
+
     /**
      * Insert a new parking session into the database
      * 
@@ -26,8 +39,8 @@ public class VehicleSessionDAO {
                 PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
             stmt.setString(1, session.getLicensePlate());
-            stmt.setString(2, session.getVehicleType() != null ? session.getVehicleType().name() : null);
-            stmt.setString(3, session.getVehicleMake() != null ? session.getVehicleMake().name() : null);
+            SessionRowMapper.setVehicleType(stmt, 2, session.getVehicleType());
+            SessionRowMapper.setVehicleMake(stmt, 3, session.getVehicleMake());
             stmt.setInt(4, session.getUserId());
             stmt.setString(5, session.getSlotId());
             stmt.setTimestamp(6, Timestamp.valueOf(session.getEntryTime()));
@@ -40,6 +53,7 @@ public class VehicleSessionDAO {
                 if (rs.next()) {
                     int sessionID = rs.getInt(1);
                     session.setId(sessionID);
+                    activeSessions.add(session);
                     return sessionID;
                 }
             }
@@ -51,31 +65,173 @@ public class VehicleSessionDAO {
     }
 
     /**
-     * Get all active parking sessions (exitTime IS NULL)
+     * Insert sessions recorded by SessionWriteBehind, exit data included, in one
+     * transaction. The session objects and the registry are left untouched; the
+     * caller applies the generated IDs.
+     *
+     * @return generated sessionIDs in list order, or null if the batch was rolled back
+     */
+    int[] insertSessionRows(List<VehicleSession> sessions) {
+        String sql = "INSERT INTO VehicleSession (licensePlate, vehicleType, vehicleMake, userID, slotID, entryTime, "
+                + "exitTime, fee, paymentStatus) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        int[] ids = new int[sessions.size()];
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                int keyIndex = 0;
+                for (int i = 0; i < sessions.size(); i++) {
+                    VehicleSession session = sessions.get(i);
+                    LocalDateTime exitTime = session.getExitTime();
+                    stmt.setString(1, session.getLicensePlate());
+                    SessionRowMapper.setVehicleType(stmt, 2, session.getVehicleType());
+                    SessionRowMapper.setVehicleMake(stmt, 3, session.getVehicleMake());
+                    stmt.setInt(4, session.getUserId());
+                    stmt.setString(5, session.getSlotId());
+                    stmt.setTimestamp(6, Timestamp.valueOf(session.getEntryTime()));
+                    stmt.setTimestamp(7, exitTime != null ? Timestamp.valueOf(exitTime) : null);
+                    stmt.setDouble(8, session.getFee());
+                    stmt.setString(9, session.getPaymentStatus());
+                    stmt.addBatch();
+
+                    if ((i + 1) % BATCH_SIZE == 0 || i == sessions.size() - 1) {
+                        stmt.executeBatch();
+                        try (ResultSet keys = stmt.getGeneratedKeys()) {
+                            while (keys.next() && keyIndex < ids.length) {
+                                ids[keyIndex++] = keys.getInt(1);
+                            }
+                        }
+                    }
+                }
+                if (keyIndex != ids.length) {
+                    throw new SQLException("Expected " + ids.length + " generated keys, got " + keyIndex);
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error writing queued vehicle sessions: " + e.getMessage());
+            return null;
+        }
+        return ids;
+    }
+
+    /**
+     * Write the exit time, fee and payment status of already inserted sessions
+     * in one transaction, using each session's own recorded values. Sessions
+     * that already have an exit time are left alone, so re-running it is
+     * harmless, which the write-behind retry relies on.
+     *
+     * @return true if the batch committed
+     */
+    boolean completeSessionRows(List<VehicleSession> sessions) {
+        String sql = "UPDATE VehicleSession SET exitTime = ?, fee = ?, paymentStatus = ? "
+                + "WHERE sessionID = ? AND exitTime IS NULL";
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < sessions.size(); i++) {
+                    VehicleSession session = sessions.get(i);
+                    stmt.setTimestamp(1, Timestamp.valueOf(session.getExitTime()));
+                    stmt.setDouble(2, session.getFee());
+                    stmt.setString(3, session.getPaymentStatus());
+                    stmt.setInt(4, session.getId());
+                    stmt.addBatch();
+
+                    if ((i + 1) % BATCH_SIZE == 0 || i == sessions.size() - 1) {
+                        stmt.executeBatch();
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error writing queued session exits: " + e.getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Get all active parking sessions (exitTime IS NULL), newest first.
+     * Served from the in-memory registry; the database is only read on first use.
+     * The returned list is an immutable snapshot.
      */
     public List<VehicleSession> getActiveSessions() {
-        List<VehicleSession> sessions = new ArrayList<>();
-        String sql = "SELECT * FROM VehicleSession WHERE exitTime IS NULL ORDER BY entryTime DESC";
+        if (!activeSessions.isLoaded()) {
+            synchronized (LOAD_LOCK) {
+                if (!activeSessions.isLoaded()) {
+                    reloadActiveSessions();
+                }
+            }
+        }
+        return activeSessions.snapshot();
+    }
 
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement stmt = conn.prepareStatement(sql);
-                ResultSet rs = stmt.executeQuery()) {
+    /**
+     * Get the active session parked in a slot, or null if the slot is free
+     */
+    public VehicleSession getActiveSessionBySlotId(String slotId) {
+        getActiveSessions();
+        return activeSessions.getBySlotId(slotId);
+    }
 
-            while (rs.next()) {
-                sessions.add(mapResultSetToSession(rs));
+    /**
+     * Get the active session for a license plate, or null if not parked
+     */
+    public VehicleSession getActiveSessionByLicensePlate(String licensePlate) {
+        getActiveSessions();
+        return activeSessions.getByLicensePlate(licensePlate);
+    }
+
+    /**
+     * Re-read all active sessions from the database into the registry.
+     * Only needed if another process has written to the VehicleSession table.
+     *
+     * @return true if the reload succeeded
+     */
+    public boolean reloadActiveSessions() {
+        String sql = "SELECT " + SESSION_COLUMNS + " FROM VehicleSession WHERE exitTime IS NULL";
+
+        // Retry if a write-through lands while the query is running, so it is not lost
+        for (int attempt = 0; attempt < 3; attempt++) {
+            long version = activeSessions.getVersion();
+            List<VehicleSession> sessions = new ArrayList<>();
+
+            try (Connection conn = DatabaseConnection.getConnection();
+                    PreparedStatement stmt = conn.prepareStatement(sql);
+                    ResultSet rs = stmt.executeQuery()) {
+
+                SessionRowMapper mapper = new SessionRowMapper(rs);
+                while (rs.next()) {
+                    sessions.add(mapper.map(rs));
+                }
+            } catch (SQLException e) {
+                System.err.println("Error loading active sessions: " + e.getMessage());
+                e.printStackTrace();
+                return false;
+            }
+
+            if (activeSessions.replaceAll(sessions, version)) {
+                return true;
             }
-        } catch (SQLException e) {
-            System.err.println("Error loading active sessions: " + e.getMessage());
-            e.printStackTrace();
         }
-        return sessions;
+        System.err.println("Active sessions kept changing during reload; registry left as is");
+        return activeSessions.isLoaded();
     }
 
     /**
-     * Complete a parking session (set exit time and fee)
+     * Complete a parking session (set exit time and fee).
+     * Returns false if it was already completed, e.g. by another console.
      */
     public boolean completeSession(int sessionID, double fee) {
-        String sql = "UPDATE VehicleSession SET exitTime = ?, fee = ?, paymentStatus = 'PAID' WHERE sessionID = ?";
+        String sql = "UPDATE VehicleSession SET exitTime = ?, fee = ?, paymentStatus = 'PAID' "
+                + "WHERE sessionID = ? AND exitTime IS NULL";
 
         try (Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -84,7 +240,11 @@ public class VehicleSessionDAO {
             stmt.setDouble(2, fee);
             stmt.setInt(3, sessionID);
 
-            return stmt.executeUpdate() > 0;
+            boolean updated = stmt.executeUpdate() > 0;
+            if (updated) {
+                activeSessions.remove(sessionID);
+            }
+            return updated;
         } catch (SQLException e) {
             System.err.println("Error completing session: " + e.getMessage());
             e.printStackTrace();
@@ -92,11 +252,178 @@ public class VehicleSessionDAO {
         }
     }
 
+    /**
+     * Complete many sessions in one transaction using a JDBC batch. Sessions
+     * already completed (e.g. by another console) are skipped: the still-open
+     * rows are locked first, so the returned IDs are exactly those this call
+     * completed, whatever row counts the driver reports for the batch.
+     *
+     * @param feesBySessionId fee to charge, keyed by sessionID
+     * @return IDs of the sessions completed, or null if the batch failed and was rolled back
+     */
+    public List<Integer> completeSessions(Map<Integer, Double> feesBySessionId) {
+        if (feesBySessionId.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String sql = "UPDATE VehicleSession SET exitTime = ?, fee = ?, paymentStatus = 'PAID' "
+                + "WHERE sessionID = ? AND exitTime IS NULL";
+        Timestamp exitTime = Timestamp.valueOf(LocalDateTime.now());
+        List<Integer> ids = new ArrayList<>(feesBySessionId.keySet());
+        List<Integer> completed = new ArrayList<>(ids.size());
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+                    completed.addAll(lockOpenSessions(conn, ids.subList(from, Math.min(ids.size(), from + BATCH_SIZE))));
+                }
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < completed.size(); i++) {
+                        Integer sessionID = completed.get(i);
+                        stmt.setTimestamp(1, exitTime);
+                        stmt.setDouble(2, feesBySessionId.get(sessionID));
+                        stmt.setInt(3, sessionID);
+                        stmt.addBatch();
+
+                        if ((i + 1) % BATCH_SIZE == 0 || i == completed.size() - 1) {
+                            stmt.executeBatch();
+                        }
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error completing sessions: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+
+        for (Integer sessionID : completed) {
+            activeSessions.remove(sessionID);
+        }
+        return completed;
+    }
+
+    /**
+     * Lock the sessions among ids that have no exit time yet, and return their IDs
+     */
+    private List<Integer> lockOpenSessions(Connection conn, List<Integer> ids) throws SQLException {
+        StringBuilder sql = new StringBuilder(
+                "SELECT sessionID FROM VehicleSession WHERE exitTime IS NULL AND sessionID IN (");
+        for (int i = 0; i < ids.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(") FOR UPDATE");
+
+        List<Integer> open = new ArrayList<>(ids.size());
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            for (int i = 0; i < ids.size(); i++) {
+                stmt.setInt(i + 1, ids.get(i));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    open.add(rs.getInt("sessionID"));
+                }
+            }
+        }
+        return open;
+    }
+
+    /**
+     * Get session changes recorded after a change ID, oldest first (at most 1000).
+     * Each change carries the session's current row, or null if it was deleted.
+     *
+     * @return the changes, or null if the SessionChange table could not be read
+     */
+    public List<SessionChange> getChangesSince(long changeId) {
+        return getChangesSince(changeId, 1000);
+    }
+
+    /**
+     * Get up to limit session changes recorded after a change ID, oldest first.
+     *
+     * @return the changes, or null if the SessionChange table could not be read
+     */
+    public List<SessionChange> getChangesSince(long changeId, int limit) {
+        String sql = "SELECT c.changeID, c.sessionID AS changedSessionID, c.changeType, c.changeTime, "
+                + "s.sessionID, s.licensePlate, s.vehicleType, s.vehicleMake, s.userID, s.slotID, s.entryTime, "
+                + "s.exitTime, s.fee, s.paymentStatus "
+                + "FROM SessionChange c LEFT JOIN VehicleSession s ON s.sessionID = c.sessionID "
+                + "WHERE c.changeID > ? ORDER BY c.changeID LIMIT ?";
+        List<SessionChange> changes = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setLong(1, changeId);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                SessionRowMapper mapper = new SessionRowMapper(rs);
+                while (rs.next()) {
+                    VehicleSession session = rs.getObject("sessionID") != null ? mapper.map(rs) : null;
+                    changes.add(new SessionChange(
+                            rs.getLong("changeID"),
+                            rs.getInt("changedSessionID"),
+                            rs.getString("changeType"),
+                            rs.getTimestamp("changeTime").toLocalDateTime(),
+                            session));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading session changes: " + e.getMessage());
+            return null;
+        }
+        return changes;
+    }
+
+    /**
+     * Get the newest change ID (0 if there are none), or -1 if the
+     * SessionChange table is missing or unreachable
+     */
+    public long getLatestChangeId() {
+        String sql = "SELECT COALESCE(MAX(changeID), 0) AS latest FROM SessionChange";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql);
+                ResultSet rs = stmt.executeQuery()) {
+
+            if (rs.next()) {
+                return rs.getLong("latest");
+            }
+        } catch (SQLException e) {
+            System.err.println("Error reading latest session change: " + e.getMessage());
+        }
+        return -1;
+    }
+
+    /**
+     * Delete change records older than a cutoff
+     *
+     * @return number of records deleted, or -1 on failure
+     */
+    public int purgeChangesBefore(LocalDateTime cutoff) {
+        String sql = "DELETE FROM SessionChange WHERE changeTime < ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setTimestamp(1, Timestamp.valueOf(cutoff));
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Error purging session changes: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
     /**
      * Get a session by ID
      */
     public VehicleSession getSessionById(int sessionID) {
-        String sql = "SELECT * FROM VehicleSession WHERE sessionID = ?";
+        String sql = "SELECT " + SESSION_COLUMNS + " FROM VehicleSession WHERE sessionID = ?";
 
         try (Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -115,11 +442,12 @@ public class VehicleSessionDAO {
     }
 
     /**
-     * Get all sessions for a specific user
+     * Get all sessions for a specific user. Loads the whole history; use the
+     * paged or streaming variants for heavy users.
      */
     public List<VehicleSession> getSessionsByUserId(int userID) {
         List<VehicleSession> sessions = new ArrayList<>();
-        String sql = "SELECT * FROM VehicleSession WHERE userID = ? ORDER BY entryTime DESC";
+        String sql = "SELECT " + SESSION_COLUMNS + " FROM VehicleSession WHERE userID = ? ORDER BY entryTime DESC";
 
         try (Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -127,8 +455,9 @@ public class VehicleSessionDAO {
             stmt.setInt(1, userID);
             ResultSet rs = stmt.executeQuery();
 
+            SessionRowMapper mapper = new SessionRowMapper(rs);
             while (rs.next()) {
-                sessions.add(mapResultSetToSession(rs));
+                sessions.add(mapper.map(rs));
             }
         } catch (SQLException e) {
             System.err.println("Error loading user sessions: " + e.getMessage());
@@ -138,38 +467,239 @@ public class VehicleSessionDAO {
     }
 
     /**
-     * Helper method to map ResultSet to VehicleSession object
+     * Get one page of a user's sessions, newest first. Pass null for the first
+     * page, then the previous page's next cursor. Uses idx_session_user, so
+     * every page costs the same however deep it is. Returns null on error.
+     */
+    public SessionPage getSessionsByUserId(int userID, SessionCursor after, int limit) {
+        return loadPage(userID, after, limit);
+    }
+
+    /**
+     * Get one page of all sessions, newest first (for audits). Pass null for
+     * the first page, then the previous page's next cursor. Returns null on error.
      */
-    private VehicleSession mapResultSetToSession(ResultSet rs) throws SQLException {
-        int id = rs.getInt("sessionID");
-        String licensePlate = rs.getString("licensePlate");
+    public SessionPage getSessionPage(SessionCursor after, int limit) {
+        return loadPage(null, after, limit);
+    }
 
-        // Handle nullable enum fields
-        VehicleType vehicleType = null;
-        String vtStr = rs.getString("vehicleType");
-        if (vtStr != null && !vtStr.isEmpty()) {
-            vehicleType = VehicleType.valueOf(vtStr);
+    private SessionPage loadPage(Integer userID, SessionCursor after, int limit) {
+        limit = Math.max(1, limit);
+        List<String> conditions = new ArrayList<>();
+        if (userID != null) {
+            conditions.add("userID = ?");
+        }
+        if (after != null) {
+            conditions.add("(entryTime < ? OR (entryTime = ? AND sessionID < ?))");
         }
+        String sql = "SELECT " + SESSION_COLUMNS + " FROM VehicleSession"
+                + (conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions))
+                + " ORDER BY entryTime DESC, sessionID DESC LIMIT ?";
+        List<VehicleSession> sessions = new ArrayList<>(limit + 1);
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-        VehicleMake vehicleMake = null;
-        String vmStr = rs.getString("vehicleMake");
-        if (vmStr != null && !vmStr.isEmpty()) {
-            vehicleMake = VehicleMake.valueOf(vmStr);
+            int index = 1;
+            if (userID != null) {
+                stmt.setInt(index++, userID);
+            }
+            if (after != null) {
+                Timestamp entryTime = Timestamp.valueOf(after.getEntryTime());
+                stmt.setTimestamp(index++, entryTime);
+                stmt.setTimestamp(index++, entryTime);
+                stmt.setInt(index++, after.getSessionId());
+            }
+            // One extra row tells whether there is a next page
+            stmt.setInt(index, limit + 1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                SessionRowMapper mapper = new SessionRowMapper(rs);
+                while (rs.next()) {
+                    sessions.add(mapper.map(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading session page: " + e.getMessage());
+            e.printStackTrace();
+            return null;
         }
 
-        int userId = rs.getInt("userID");
-        String slotId = rs.getString("slotID");
+        if (sessions.size() <= limit) {
+            return new SessionPage(sessions, null);
+        }
+        sessions.remove(limit);
+        return new SessionPage(sessions, SessionCursor.of(sessions.get(limit - 1)));
+    }
 
-        LocalDateTime entryTime = rs.getTimestamp("entryTime").toLocalDateTime();
+    /**
+     * Pass every session of a user to action, oldest first, streaming rows
+     * from the server instead of loading them all. The connection is held
+     * until the last row, so action should not block for long.
+     *
+     * @return number of sessions passed to action, or -1 on error
+     */
+    public long streamSessionsByUserId(int userID, Consumer<VehicleSession> action) {
+        String sql = "SELECT " + SESSION_COLUMNS + " FROM VehicleSession WHERE userID = ? "
+                + "ORDER BY entryTime, sessionID";
+        return stream(sql, action, userID);
+    }
 
-        Timestamp exitTs = rs.getTimestamp("exitTime");
-        LocalDateTime exitTime = (exitTs != null) ? exitTs.toLocalDateTime() : null;
+    /**
+     * Pass every session that entered in [from, to) to action, oldest first,
+     * streaming rows from the server (see streamSessionsByUserId).
+     *
+     * @return number of sessions passed to action, or -1 on error
+     */
+    public long streamSessions(LocalDateTime from, LocalDateTime to, Consumer<VehicleSession> action) {
+        return streamSessions(from, to, null, action);
+    }
 
-        double fee = rs.getDouble("fee");
-        String paymentStatus = rs.getString("paymentStatus");
+    /**
+     * Like streamSessions(from, to, action), limited to one lot's slots when
+     * lotId is not null
+     */
+    public long streamSessions(LocalDateTime from, LocalDateTime to, String lotId, Consumer<VehicleSession> action) {
+        String sql = "SELECT " + SESSION_COLUMNS + " FROM VehicleSession WHERE entryTime >= ? AND entryTime < ? "
+                + (lotId != null ? "AND slotID LIKE ? " : "") + "ORDER BY entryTime, sessionID";
+        return stream(sql, action, rangeParams(from, to, lotId));
+    }
 
-        return new VehicleSession(id, licensePlate, vehicleType, vehicleMake, userId,
-                slotId, entryTime, exitTime, fee, paymentStatus);
+    /**
+     * Pass every session that exited in [from, to) to action, by exit time,
+     * streaming rows from the server. lotId limits it to one lot when not null.
+     *
+     * @return number of sessions passed to action, or -1 on error
+     */
+    public long streamSessionsExitedBetween(LocalDateTime from, LocalDateTime to, String lotId,
+            Consumer<VehicleSession> action) {
+        String sql = "SELECT " + SESSION_COLUMNS + " FROM VehicleSession WHERE exitTime >= ? AND exitTime < ? "
+                + (lotId != null ? "AND slotID LIKE ? " : "") + "ORDER BY exitTime, sessionID";
+        return stream(sql, action, rangeParams(from, to, lotId));
+    }
+
+    // Slot IDs start with their lot ID, e.g. LOT-001-SLOT-004
+    private static Object[] rangeParams(LocalDateTime from, LocalDateTime to, String lotId) {
+        return lotId != null
+                ? new Object[] { Timestamp.valueOf(from), Timestamp.valueOf(to), lotId + "-%" }
+                : new Object[] { Timestamp.valueOf(from), Timestamp.valueOf(to) };
+    }
+
+    private long stream(String sql, Consumer<VehicleSession> action, Object... params) {
+        long count = 0;
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                        ResultSet.CONCUR_READ_ONLY)) {
+
+            stmt.setFetchSize(DatabaseConnection.getDialect().streamingFetchSize());
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                SessionRowMapper mapper = new SessionRowMapper(rs);
+                while (rs.next()) {
+                    action.accept(mapper.map(rs));
+                    count++;
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error streaming sessions: " + e.getMessage());
+            e.printStackTrace();
+            return -1;
+        }
+        return count;
+    }
+
+    /**
+     * Get sessions that exited in [from, to). A range on exitTime, so the
+     * idx_session_active index is used. Returns null on error.
+     */
+    public List<VehicleSession> getSessionsExitedBetween(LocalDateTime from, LocalDateTime to) {
+        String sql = "SELECT " + SESSION_COLUMNS + " FROM VehicleSession WHERE exitTime >= ? AND exitTime < ?";
+        return loadSessionsAround(sql, from, to, "Error loading completed sessions: ");
+    }
+
+    /**
+     * Get sessions that entered in [from, to), oldest first. A range on
+     * idx_session_entry. Returns null on error.
+     */
+    public List<VehicleSession> getSessionsEnteredBetween(LocalDateTime from, LocalDateTime to) {
+        String sql = "SELECT " + SESSION_COLUMNS + " FROM VehicleSession WHERE entryTime >= ? AND entryTime < ? "
+                + "ORDER BY entryTime";
+        return loadSessionsAround(sql, from, to, "Error loading sessions by entry time: ");
+    }
+
+    /**
+     * Get sessions that entered before a time and had not exited by then
+     * (still parked, or exitTime >= time). Uses idx_session_active, so it is
+     * cheap for recent times. Returns null on error.
+     */
+    public List<VehicleSession> getSessionsOpenAt(LocalDateTime time) {
+        String sql = "SELECT " + SESSION_COLUMNS + " FROM VehicleSession "
+                + "WHERE (exitTime IS NULL OR exitTime >= ?) AND entryTime < ?";
+        return loadSessionsAround(sql, time, time, "Error loading sessions open at " + time + ": ");
+    }
+
+    /**
+     * Get the earliest entry time, or null if there are no sessions or on error
+     */
+    public LocalDateTime getEarliestEntryTime() {
+        String sql = "SELECT MIN(entryTime) AS earliest FROM VehicleSession";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql);
+                ResultSet rs = stmt.executeQuery()) {
+
+            if (rs.next() && rs.getTimestamp("earliest") != null) {
+                return rs.getTimestamp("earliest").toLocalDateTime();
+            }
+        } catch (SQLException e) {
+            System.err.println("Error reading earliest session: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Run a session query with two DATETIME parameters
+     */
+    private List<VehicleSession> loadSessionsAround(String sql, LocalDateTime first, LocalDateTime second,
+            String errorMessage) {
+        List<VehicleSession> sessions = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setTimestamp(1, Timestamp.valueOf(first));
+            stmt.setTimestamp(2, Timestamp.valueOf(second));
+            try (ResultSet rs = stmt.executeQuery()) {
+                SessionRowMapper mapper = new SessionRowMapper(rs);
+                while (rs.next()) {
+                    sessions.add(mapper.map(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println(errorMessage + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+        return sessions;
+    }
+
+    /**
+     * "DATE(column) = CURDATE()" in the configured database's dialect
+     */
+    private static String today(String column) {
+        SqlDialect dialect = DatabaseConnection.getDialect();
+        return dialect.dateOf(column) + " = " + dialect.currentDate();
+    }
+
+    /**
+     * Helper method to map ResultSet to VehicleSession object.
+     * Package-private so the benchmarks can drive it with a stub ResultSet.
+     * Loops over many rows should create one SessionRowMapper and reuse it.
+     */
+    VehicleSession mapResultSetToSession(ResultSet rs) throws SQLException {
+        return new SessionRowMapper(rs).map(rs);
     }
 
     /**
@@ -182,7 +712,11 @@ public class VehicleSessionDAO {
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setInt(1, sessionID);
-            return stmt.executeUpdate() > 0;
+            boolean deleted = stmt.executeUpdate() > 0;
+            if (deleted) {
+                activeSessions.remove(sessionID);
+            }
+            return deleted;
         } catch (SQLException e) {
             System.err.println("Error deleting session: " + e.getMessage());
             e.printStackTrace();
@@ -196,7 +730,7 @@ public class VehicleSessionDAO {
     public double getTodayRevenue() {
         String sql = "SELECT COALESCE(SUM(fee), 0) as totalRevenue FROM VehicleSession " +
                 "WHERE exitTime IS NOT NULL " +
-                "AND DATE(exitTime) = CURDATE() " +
+                "AND " + today("exitTime") + " " +
                 "AND paymentStatus = 'PAID'";
 
         try (Connection conn = DatabaseConnection.getConnection();
@@ -219,7 +753,7 @@ public class VehicleSessionDAO {
     public int getTodayCompletedCount() {
         String sql = "SELECT COUNT(*) as count FROM VehicleSession " +
                 "WHERE exitTime IS NOT NULL " +
-                "AND DATE(exitTime) = CURDATE()";
+                "AND " + today("exitTime");
 
         try (Connection conn = DatabaseConnection.getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql);
@@ -243,7 +777,7 @@ public class VehicleSessionDAO {
                 "FROM VehicleSession vs " +
                 "JOIN ParkingSlot ps ON vs.slotID = ps.slotID " +
                 "WHERE vs.exitTime IS NOT NULL " +
-                "AND DATE(vs.exitTime) = CURDATE() " +
+                "AND " + today("vs.exitTime") + " " +
                 "AND vs.paymentStatus = 'PAID' " +
                 "AND ps.lotID = ?";
 
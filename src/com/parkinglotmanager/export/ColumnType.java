@@ -0,0 +1,25 @@
+package com.parkinglotmanager.export;
+
+/**
+ * Value types an export column can hold. Every column may also hold null.
+ */
+public enum ColumnType {
+    INT,        // Integer
+    LONG,       // Long
+    DECIMAL,    // Number with two decimals, e.g. money (kept as whole hundredths)
+    TIMESTAMP,  // LocalDateTime, to the second
+    STRING;     // String
+
+    private static final ColumnType[] VALUES = values();
+
+    byte code() {
+        return (byte) ordinal();
+    }
+
+    static ColumnType fromCode(int code) {
+        if (code < 0 || code >= VALUES.length) {
+            throw new IllegalArgumentException("Unknown column type code " + code);
+        }
+        return VALUES[code];
+    }
+}
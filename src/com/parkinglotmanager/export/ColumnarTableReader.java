@@ -0,0 +1,175 @@
+package com.parkinglotmanager.export;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Reads a file written by ColumnarTableWriter back one row at a time, one
+ * row group in memory. Values come back as Integer, Long, BigDecimal (two decimals),
+ * LocalDateTime or String.
+ */
+public class ColumnarTableReader implements Closeable {
+
+    private final DataInputStream in;
+    private final String[] names;
+    private final ColumnType[] types;
+    private final Object[][] group;
+    private int groupRows;
+    private int nextRow;
+    private long rowsRead;
+    private boolean finished;
+
+    public ColumnarTableReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+        byte[] magic = new byte[ColumnarTableWriter.MAGIC.length];
+        this.in.readFully(magic);
+        if (!Arrays.equals(magic, ColumnarTableWriter.MAGIC)) {
+            throw new IOException("Not a columnar export file");
+        }
+        int version = this.in.readUnsignedByte();
+        if (version != ColumnarTableWriter.VERSION) {
+            throw new IOException("Unsupported columnar export version " + version);
+        }
+        int columns = (int) readVarint();
+        names = new String[columns];
+        types = new ColumnType[columns];
+        for (int i = 0; i < columns; i++) {
+            names[i] = readString();
+            types[i] = ColumnType.fromCode(this.in.readUnsignedByte());
+        }
+        group = new Object[columns][];
+    }
+
+    public String[] getColumnNames() {
+        return names.clone();
+    }
+
+    public ColumnType[] getColumnTypes() {
+        return types.clone();
+    }
+
+    /**
+     * The next row, or null after the last one
+     */
+    public Object[] next() throws IOException {
+        if (nextRow == groupRows && !readGroup()) {
+            return null;
+        }
+        Object[] row = new Object[names.length];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = group[i][nextRow];
+        }
+        nextRow++;
+        rowsRead++;
+        return row;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private boolean readGroup() throws IOException {
+        if (finished) {
+            return false;
+        }
+        int rows = (int) readVarint();
+        if (rows == 0) {
+            long total = readVarint();
+            if (total != rowsRead) {
+                throw new IOException("Export is truncated: trailer says " + total + " rows, read " + rowsRead);
+            }
+            finished = true;
+            return false;
+        }
+        for (int i = 0; i < names.length; i++) {
+            readVarint(); // Chunk length; only needed to skip columns
+            group[i] = readChunk(types[i], rows);
+        }
+        groupRows = rows;
+        nextRow = 0;
+        return true;
+    }
+
+    private Object[] readChunk(ColumnType type, int rows) throws IOException {
+        byte[] bitmap = new byte[(rows + 7) / 8];
+        in.readFully(bitmap);
+        Object[] values = new Object[rows];
+
+        if (type == ColumnType.STRING) {
+            int encoding = in.readUnsignedByte();
+            String[] dictionary = null;
+            if (encoding == ColumnarTableWriter.ENCODING_DICTIONARY) {
+                dictionary = new String[(int) readVarint()];
+                for (int i = 0; i < dictionary.length; i++) {
+                    dictionary[i] = readString();
+                }
+            } else if (encoding != ColumnarTableWriter.ENCODING_PLAIN) {
+                throw new IOException("Unknown string encoding " + encoding);
+            }
+            for (int row = 0; row < rows; row++) {
+                if (isPresent(bitmap, row)) {
+                    values[row] = dictionary != null ? dictionary[(int) readVarint()] : readString();
+                }
+            }
+            return values;
+        }
+
+        long previous = 0;
+        for (int row = 0; row < rows; row++) {
+            if (isPresent(bitmap, row)) {
+                long raw = readVarint();
+                previous += (raw >>> 1) ^ -(raw & 1);
+                values[row] = toValue(type, previous);
+            }
+        }
+        return values;
+    }
+
+    private static Object toValue(ColumnType type, long value) {
+        switch (type) {
+            case INT:
+                return (int) value;
+            case DECIMAL:
+                return BigDecimal.valueOf(value, 2);
+            case TIMESTAMP:
+                return LocalDateTime.ofEpochSecond(value, 0, ZoneOffset.UTC);
+            default:
+                return value;
+        }
+    }
+
+    private static boolean isPresent(byte[] bitmap, int row) {
+        return (bitmap[row >> 3] & (1 << (row & 7))) != 0;
+    }
+
+    private long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Export is truncated");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private String readString() throws IOException {
+        byte[] utf8 = new byte[(int) readVarint()];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,284 @@
+package com.parkinglotmanager.export;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact columnar binary format (".plmc"), laid out like a minimal Parquet
+ * file: rows are buffered in groups of ROW_GROUP_SIZE and each group is
+ * written column by column, so similar values sit next to each other.
+ * Sorted timestamps and IDs shrink to a byte or two per value and repeated
+ * strings (lot, vehicle type, status) to a dictionary index.
+ *
+ * Layout (varint = unsigned LEB128; signed values are zigzag encoded first):
+ * <pre>
+ *   header     "PLMC", version byte 1, column count, then per column:
+ *              name (varint length + UTF-8) and type code (1 byte, ColumnType order)
+ *   row group  row count (&gt; 0), then per column: chunk length in bytes, chunk
+ *   trailer    varint 0, total row count
+ * </pre>
+ * A chunk is a null bitmap (one bit per row, low bit first, 1 = present)
+ * followed by the present values:
+ * <pre>
+ *   INT, LONG, DECIMAL (hundredths), TIMESTAMP (epoch seconds of the wall-clock time):
+ *              zigzag varint of the difference from the previous value in the chunk
+ *   STRING     encoding byte 0 (plain: each value as length + UTF-8) or
+ *              1 (dictionary: entry count, entries, then each value's index)
+ * </pre>
+ * The chunk length lets a reader skip columns it does not need.
+ * ColumnarTableReader reads the format back.
+ */
+public class ColumnarTableWriter implements TableWriter {
+
+    static final byte[] MAGIC = { 'P', 'L', 'M', 'C' };
+    static final int VERSION = 1;
+    static final int ROW_GROUP_SIZE = 8192;
+    static final int ENCODING_PLAIN = 0;
+    static final int ENCODING_DICTIONARY = 1;
+
+    private final OutputStream out;
+    private final ColumnType[] types;
+    private final long[][] numbers;
+    private final String[][] strings;
+    private final boolean[][] present;
+    private final ByteSink chunk = new ByteSink();
+    private final ByteSink header = new ByteSink();
+    private int groupRows;
+    private long rowCount;
+
+    public ColumnarTableWriter(OutputStream out, String[] names, ColumnType[] types) throws IOException {
+        if (names.length != types.length) {
+            throw new IllegalArgumentException("Got " + names.length + " column names for " + types.length + " types");
+        }
+        this.out = new BufferedOutputStream(out, 1 << 16);
+        this.types = types.clone();
+        numbers = new long[types.length][];
+        strings = new String[types.length][];
+        present = new boolean[types.length][ROW_GROUP_SIZE];
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] == ColumnType.STRING) {
+                strings[i] = new String[ROW_GROUP_SIZE];
+            } else {
+                numbers[i] = new long[ROW_GROUP_SIZE];
+            }
+        }
+
+        header.write(MAGIC, 0, MAGIC.length);
+        header.write(VERSION);
+        header.writeVarint(types.length);
+        for (int i = 0; i < types.length; i++) {
+            header.writeString(names[i]);
+            header.write(types[i].code());
+        }
+        header.writeTo(this.out);
+    }
+
+    @Override
+    public void writeRow(Object... values) throws IOException {
+        if (values.length != types.length) {
+            throw new IllegalArgumentException("Got " + values.length + " values for " + types.length + " columns");
+        }
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            present[i][groupRows] = value != null;
+            if (value == null) {
+                continue;
+            }
+            switch (types[i]) {
+                case INT:
+                case LONG:
+                    numbers[i][groupRows] = ((Number) value).longValue();
+                    break;
+                case DECIMAL:
+                    numbers[i][groupRows] = toHundredths(value);
+                    break;
+                case TIMESTAMP:
+                    numbers[i][groupRows] = ((LocalDateTime) value).toEpochSecond(ZoneOffset.UTC);
+                    break;
+                default:
+                    strings[i][groupRows] = value.toString();
+            }
+        }
+        rowCount++;
+        if (++groupRows == ROW_GROUP_SIZE) {
+            flushGroup();
+        }
+    }
+
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushGroup();
+            header.reset();
+            header.writeVarint(0);
+            header.writeVarint(rowCount);
+            header.writeTo(out);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * A two-decimal value in whole hundredths, rounded half up
+     */
+    static long toHundredths(Object value) {
+        BigDecimal decimal = value instanceof BigDecimal ? (BigDecimal) value
+                : value instanceof Double || value instanceof Float
+                        ? BigDecimal.valueOf(((Number) value).doubleValue()) // Shortest decimal form, so 1.005 stays 1.005
+                        : BigDecimal.valueOf(((Number) value).longValue());
+        return decimal.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private void flushGroup() throws IOException {
+        if (groupRows == 0) {
+            return;
+        }
+        header.reset();
+        header.writeVarint(groupRows);
+        header.writeTo(out);
+
+        for (int i = 0; i < types.length; i++) {
+            chunk.reset();
+            writeBitmap(present[i]);
+            if (types[i] == ColumnType.STRING) {
+                writeStrings(strings[i], present[i]);
+                Arrays.fill(strings[i], 0, groupRows, null); // Let the group's strings be collected
+            } else {
+                writeNumbers(numbers[i], present[i]);
+            }
+            header.reset();
+            header.writeVarint(chunk.size());
+            header.writeTo(out);
+            chunk.writeTo(out);
+        }
+        groupRows = 0;
+    }
+
+    private void writeBitmap(boolean[] columnPresent) {
+        for (int row = 0; row < groupRows; row += 8) {
+            int bits = 0;
+            for (int bit = 0; bit < 8 && row + bit < groupRows; bit++) {
+                if (columnPresent[row + bit]) {
+                    bits |= 1 << bit;
+                }
+            }
+            chunk.write(bits);
+        }
+    }
+
+    private void writeNumbers(long[] values, boolean[] columnPresent) {
+        long previous = 0;
+        for (int row = 0; row < groupRows; row++) {
+            if (columnPresent[row]) {
+                chunk.writeZigzag(values[row] - previous);
+                previous = values[row];
+            }
+        }
+    }
+
+    private void writeStrings(String[] values, boolean[] columnPresent) {
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> entries = new ArrayList<>();
+        int presentCount = 0;
+        for (int row = 0; row < groupRows; row++) {
+            if (columnPresent[row]) {
+                presentCount++;
+                if (dictionary.putIfAbsent(values[row], entries.size()) == null) {
+                    entries.add(values[row]);
+                }
+            }
+        }
+
+        // A dictionary only pays off when values repeat
+        if (entries.size() * 2 > presentCount) {
+            chunk.write(ENCODING_PLAIN);
+            for (int row = 0; row < groupRows; row++) {
+                if (columnPresent[row]) {
+                    chunk.writeString(values[row]);
+                }
+            }
+            return;
+        }
+        chunk.write(ENCODING_DICTIONARY);
+        chunk.writeVarint(entries.size());
+        for (String entry : entries) {
+            chunk.writeString(entry);
+        }
+        for (int row = 0; row < groupRows; row++) {
+            if (columnPresent[row]) {
+                chunk.writeVarint(dictionary.get(values[row]));
+            }
+        }
+    }
+
+    /**
+     * Growable byte buffer with the varint encodings used by the format
+     */
+    private static final class ByteSink {
+        private byte[] bytes = new byte[1 << 12];
+        private int size;
+
+        void write(int b) {
+            ensure(1);
+            bytes[size++] = (byte) b;
+        }
+
+        void write(byte[] b, int offset, int length) {
+            ensure(length);
+            System.arraycopy(b, offset, bytes, size, length);
+            size += length;
+        }
+
+        void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeZigzag(long value) {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(utf8.length);
+            write(utf8, 0, utf8.length);
+        }
+
+        int size() {
+            return size;
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            out.write(bytes, 0, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.parkinglotmanager.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * CSV (RFC 4180): a header line with the column names, then one line per row.
+ * Fields containing a comma, quote or line break are quoted. Timestamps are
+ * written as "yyyy-MM-dd HH:mm:ss", decimals with two places, null as an
+ * empty field.
+ */
+public class CsvTableWriter implements TableWriter {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final Writer out;
+    private final ColumnType[] types;
+    private long rowCount;
+
+    public CsvTableWriter(OutputStream out, String[] names, ColumnType[] types) throws IOException {
+        if (names.length != types.length) {
+            throw new IllegalArgumentException("Got " + names.length + " column names for " + types.length + " types");
+        }
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        this.types = types.clone();
+        writeLine(names);
+    }
+
+    @Override
+    public void writeRow(Object... values) throws IOException {
+        if (values.length != types.length) {
+            throw new IllegalArgumentException("Got " + values.length + " values for " + types.length + " columns");
+        }
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            if (values[i] != null) {
+                writeField(format(types[i], values[i]));
+            }
+        }
+        out.write("\r\n");
+        rowCount++;
+    }
+
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeLine(String[] fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            writeField(fields[i]);
+        }
+        out.write("\r\n");
+    }
+
+    private void writeField(String field) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < field.length() && !quote; i++) {
+            char c = field.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(field);
+            return;
+        }
+        out.write('"');
+        out.write(field.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    private static String format(ColumnType type, Object value) {
+        switch (type) {
+            case DECIMAL:
+                return BigDecimal.valueOf(ColumnarTableWriter.toHundredths(value), 2).toPlainString();
+            case TIMESTAMP:
+                return ((LocalDateTime) value).format(TIMESTAMP_FORMAT);
+            default:
+                return value.toString();
+        }
+    }
+}
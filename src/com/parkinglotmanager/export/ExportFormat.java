@@ -0,0 +1,32 @@
+package com.parkinglotmanager.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * File formats an export can be written in
+ */
+public enum ExportFormat {
+    CSV("csv"),
+    COLUMNAR("plmc");
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * File extension without the dot (".gz" is added for gzip)
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Start a table on out; closing the writer closes out
+     */
+    public TableWriter open(OutputStream out, String[] names, ColumnType[] types) throws IOException {
+        return this == CSV ? new CsvTableWriter(out, names, types) : new ColumnarTableWriter(out, names, types);
+    }
+}
@@ -0,0 +1,192 @@
+package com.parkinglotmanager.export;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPOutputStream;
+
+import com.parkinglotmanager.dao.OccupancyRollupDAO;
+import com.parkinglotmanager.dao.VehicleSessionDAO;
+import com.parkinglotmanager.model.ParkingLot;
+import com.parkinglotmanager.model.VehicleSession;
+
+/**
+ * Exports parking history to CSV or the columnar format, optionally gzipped.
+ * Rows are streamed from the database straight into the writer, so memory use
+ * stays the same for a day or for a year of sessions.
+ *
+ * Datasets:
+ * SESSIONS  - every session that entered in the range
+ * REVENUE   - every session that exited in the range, with its fee (by exit time)
+ * OCCUPANCY - the OccupancyHourly rollup rows in the range
+ */
+public class HistoryExporter {
+
+    public enum Dataset {
+        SESSIONS, REVENUE, OCCUPANCY
+    }
+
+    private static final String[] SESSION_COLUMNS = { "sessionID", "licensePlate", "vehicleType", "vehicleMake",
+            "userID", "lotID", "slotID", "entryTime", "exitTime", "fee", "paymentStatus" };
+    private static final ColumnType[] SESSION_TYPES = { ColumnType.INT, ColumnType.STRING, ColumnType.STRING,
+            ColumnType.STRING, ColumnType.INT, ColumnType.STRING, ColumnType.STRING, ColumnType.TIMESTAMP,
+            ColumnType.TIMESTAMP, ColumnType.DECIMAL, ColumnType.STRING };
+
+    private static final String[] REVENUE_COLUMNS = { "exitTime", "sessionID", "lotID", "slotID", "vehicleType",
+            "parkedMinutes", "fee", "paymentStatus" };
+    private static final ColumnType[] REVENUE_TYPES = { ColumnType.TIMESTAMP, ColumnType.INT, ColumnType.STRING,
+            ColumnType.STRING, ColumnType.STRING, ColumnType.LONG, ColumnType.DECIMAL, ColumnType.STRING };
+
+    private static final String[] OCCUPANCY_COLUMNS = { "hourStart", "lotID", "averageOccupied", "peakOccupied",
+            "arrivals", "departures", "revenue", "occupiedSeconds", "coveredSeconds" };
+    private static final ColumnType[] OCCUPANCY_TYPES = { ColumnType.TIMESTAMP, ColumnType.STRING, ColumnType.DECIMAL,
+            ColumnType.INT, ColumnType.INT, ColumnType.INT, ColumnType.DECIMAL, ColumnType.LONG, ColumnType.INT };
+
+    private final VehicleSessionDAO sessionDAO;
+    private final OccupancyRollupDAO rollupDAO;
+
+    public HistoryExporter() {
+        this(new VehicleSessionDAO(), new OccupancyRollupDAO());
+    }
+
+    HistoryExporter(VehicleSessionDAO sessionDAO, OccupancyRollupDAO rollupDAO) {
+        this.sessionDAO = sessionDAO;
+        this.rollupDAO = rollupDAO;
+    }
+
+    /**
+     * Export [from, to) to a file. The file is written under a temporary name
+     * and renamed when complete, so a failed export never leaves a partial file.
+     * Blocks; call off the EDT.
+     *
+     * @param lotId only this lot, or null for all lots
+     * @return number of rows written
+     * @throws IOException if the database could not be read or the file written
+     */
+    public long export(Dataset dataset, ExportFormat format, LocalDateTime from, LocalDateTime to, String lotId,
+            boolean gzip, File file) throws IOException {
+        File partial = new File(file.getPath() + ".part");
+        long rows;
+        try {
+            rows = export(dataset, format, from, to, lotId, gzip, new FileOutputStream(partial));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial.toPath());
+            throw e;
+        }
+        Files.move(partial.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return rows;
+    }
+
+    /**
+     * Export [from, to) to a stream, which is closed afterwards
+     *
+     * @param lotId only this lot, or null for all lots
+     * @return number of rows written
+     * @throws IOException if the database could not be read or the stream written
+     */
+    public long export(Dataset dataset, ExportFormat format, LocalDateTime from, LocalDateTime to, String lotId,
+            boolean gzip, OutputStream out) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, 1 << 16) : out;
+        try (TableWriter writer = format.open(target, columnsOf(dataset), typesOf(dataset))) {
+            long read;
+            try {
+                read = stream(dataset, from, to, lotId, writer);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (read < 0) {
+                throw new IOException("Could not read " + dataset.name().toLowerCase() + " from the database");
+            }
+            return writer.getRowCount();
+        }
+    }
+
+    /**
+     * Suggested file name, e.g. sessions_2025-11-01_2025-12-01_LOT-001.csv.gz
+     */
+    public static String fileName(Dataset dataset, ExportFormat format, LocalDateTime from, LocalDateTime to,
+            String lotId, boolean gzip) {
+        return dataset.name().toLowerCase() + "_" + from.toLocalDate() + "_" + to.toLocalDate()
+                + (lotId != null ? "_" + lotId : "") + "." + format.getExtension() + (gzip ? ".gz" : "");
+    }
+
+    private long stream(Dataset dataset, LocalDateTime from, LocalDateTime to, String lotId, TableWriter writer) {
+        switch (dataset) {
+            case SESSIONS:
+                return sessionDAO.streamSessions(from, to, lotId, session -> write(writer,
+                        session.getId(),
+                        session.getLicensePlate(),
+                        session.getVehicleType() != null ? session.getVehicleType().name() : null,
+                        session.getVehicleMake() != null ? session.getVehicleMake().name() : null,
+                        session.getUserId(),
+                        ParkingLot.lotIdOfSlot(session.getSlotId()),
+                        session.getSlotId(),
+                        session.getEntryTime(),
+                        session.getExitTime(),
+                        session.getFee(),
+                        session.getPaymentStatus()));
+            case REVENUE:
+                return sessionDAO.streamSessionsExitedBetween(from, to, lotId, session -> write(writer,
+                        session.getExitTime(),
+                        session.getId(),
+                        ParkingLot.lotIdOfSlot(session.getSlotId()),
+                        session.getSlotId(),
+                        session.getVehicleType() != null ? session.getVehicleType().name() : null,
+                        parkedMinutes(session),
+                        session.getFee(),
+                        session.getPaymentStatus()));
+            default:
+                return rollupDAO.streamHourly(from, to, lotId, hour -> write(writer,
+                        hour.getHourStart(),
+                        hour.getLotId(),
+                        hour.getAverageOccupied(),
+                        hour.getPeakOccupied(),
+                        hour.getArrivals(),
+                        hour.getDepartures(),
+                        hour.getRevenue(),
+                        hour.getOccupiedSeconds(),
+                        hour.getCoveredSeconds()));
+        }
+    }
+
+    private static long parkedMinutes(VehicleSession session) {
+        return Duration.between(session.getEntryTime(), session.getExitTime()).toMinutes();
+    }
+
+    // Row callbacks cannot throw IOException; it is unwrapped again in export()
+    private static void write(TableWriter writer, Object... values) {
+        try {
+            writer.writeRow(values);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String[] columnsOf(Dataset dataset) {
+        switch (dataset) {
+            case SESSIONS:
+                return SESSION_COLUMNS;
+            case REVENUE:
+                return REVENUE_COLUMNS;
+            default:
+                return OCCUPANCY_COLUMNS;
+        }
+    }
+
+    private static ColumnType[] typesOf(Dataset dataset) {
+        switch (dataset) {
+            case SESSIONS:
+                return SESSION_TYPES;
+            case REVENUE:
+                return REVENUE_TYPES;
+            default:
+                return OCCUPANCY_TYPES;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.parkinglotmanager.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writes a table one row at a time. Implementations buffer at most a fixed
+ * number of rows, so memory use does not grow with the size of the export.
+ */
+public interface TableWriter extends Closeable {
+
+    /**
+     * Write one row; values are in column order and match the column types
+     */
+    void writeRow(Object... values) throws IOException;
+
+    /**
+     * Rows written so far
+     */
+    long getRowCount();
+}
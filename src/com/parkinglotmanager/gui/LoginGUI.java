@@ -27,6 +27,7 @@ import javax.swing.JTextField;
 import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
 
+import com.parkinglotmanager.dao.AuthenticationService;
 import com.parkinglotmanager.dao.UserDAO;
 import com.parkinglotmanager.model.User;
 import com.parkinglotmanager.util.DatabaseConnection;
@@ -44,6 +45,7 @@ public class LoginGUI extends JFrame {
 
     private JTextField usernameField;
     private JPasswordField passwordField;
+    private JButton loginBtn;
     private User loggedInUser;
 
     public LoginGUI() {
@@ -105,7 +107,7 @@ public class LoginGUI extends JFrame {
         JPanel buttonRow = new JPanel(new FlowLayout(FlowLayout.CENTER, 20, 20));
         buttonRow.setOpaque(false);
 
-        JButton loginBtn = createButton("Login");
+        loginBtn = createButton("Login");
         loginBtn.addActionListener(e -> handleLogin());
 
         JButton signupBtn = createButton("Sign Up");
@@ -203,41 +205,53 @@ public class LoginGUI extends JFrame {
         String username = usernameField.getText().trim();
         String password = new String(passwordField.getPassword());
 
-        UserDAO userDAO = new UserDAO();
-        User user = userDAO.getUserByUsername(username);
-
-        try {
+        if (username.isEmpty() || password.isEmpty()) {
+            showError("Please enter both username and password.");
+            return;
+        }
 
-            if (username.isEmpty() || password.isEmpty()) {
-                showError("Please enter both username and password.");
-                return;
-            }
+        // Lookup and hashing run on the login pool; the window stays responsive meanwhile
+        setLoginEnabled(false);
+        AuthenticationService.getInstance().authenticate(username, password)
+                .thenAccept(result -> SwingUtilities.invokeLater(() -> loginFinished(result)));
+    }
 
-            if (user == null) {
+    private void loginFinished(AuthenticationService.Result result) {
+        setLoginEnabled(true);
+        switch (result.getStatus()) {
+            case SUCCESS:
+                break;
+            case UNKNOWN_USER:
                 showError("Account not found! Please sign up first.");
                 return;
-            }
-
-            if (!user.authenticate(password)) {
+            case WRONG_PASSWORD:
                 showError("Invalid password!");
                 return;
-            }
-
-        } catch (Exception e) {
-            e.printStackTrace();
+            case BUSY:
+                showError("Too many logins at once. Please try again in a moment.");
+                return;
+            default:
+                showError("Could not log in. Please try again.");
+                return;
         }
 
-        loggedInUser = user;
+        loggedInUser = result.getUser();
 
         JOptionPane.showMessageDialog(this,
-                "Welcome back, " + user.getUsername() + "!");
+                "Welcome back, " + loggedInUser.getUsername() + "!");
 
         SwingUtilities.invokeLater(() -> {
-            new ParkingLotManagerGUI(loggedInUser).setVisible(true);
+            new ParkingLotManagerGUI(loggedInUser, result.getToken()).setVisible(true);
             dispose();
         });
     }
 
+    private void setLoginEnabled(boolean enabled) {
+        loginBtn.setEnabled(enabled);
+        passwordField.setEnabled(enabled);
+        usernameField.setEnabled(enabled);
+    }
+
     private void handleSignup() {
 
         JPanel panel = new JPanel(new GridBagLayout());
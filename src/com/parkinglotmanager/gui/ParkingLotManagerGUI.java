@@ -6,13 +6,20 @@ import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.Font;
 import java.awt.GridLayout;
+import java.io.File;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import javax.swing.BorderFactory;
 import javax.swing.Box;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
+import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
@@ -30,24 +37,38 @@ import javax.swing.SwingUtilities;
 import javax.swing.Timer;
 import javax.swing.UIManager;
 import javax.swing.border.TitledBorder;
-import javax.swing.table.DefaultTableModel;
 
+import com.parkinglotmanager.dao.AuditLogger;
+import com.parkinglotmanager.dao.AuthenticationService;
+import com.parkinglotmanager.dao.NotificationService;
+import com.parkinglotmanager.dao.OccupancyFusion;
+import com.parkinglotmanager.dao.OccupancyRollup;
 import com.parkinglotmanager.dao.ParkingDAO;
+import com.parkinglotmanager.dao.ParkingReportAggregator;
+import com.parkinglotmanager.dao.RevenueLedger;
+import com.parkinglotmanager.dao.SensorIngest;
+import com.parkinglotmanager.dao.SessionChangeFeed;
+import com.parkinglotmanager.dao.SessionChangeListener;
 import com.parkinglotmanager.dao.UserPreferenceDAO;
 import com.parkinglotmanager.dao.VehicleDAO;
 import com.parkinglotmanager.dao.VehicleSessionDAO;
-import com.parkinglotmanager.enums.LotType;
 import com.parkinglotmanager.enums.SlotType;
 import com.parkinglotmanager.enums.VehicleMake;
 import com.parkinglotmanager.enums.VehicleType;
+import com.parkinglotmanager.export.ExportFormat;
+import com.parkinglotmanager.export.HistoryExporter;
 import com.parkinglotmanager.model.Admin;
+import com.parkinglotmanager.model.CampusLots;
 import com.parkinglotmanager.model.Client;
+import com.parkinglotmanager.model.OccupancyReport;
 import com.parkinglotmanager.model.ParkingLot;
 import com.parkinglotmanager.model.ParkingSlot;
 import com.parkinglotmanager.model.User;
 import com.parkinglotmanager.model.UserPreference;
 import com.parkinglotmanager.model.UserReport;
 import com.parkinglotmanager.model.VehicleSession;
+import com.parkinglotmanager.util.CoalescingLoader;
+import com.parkinglotmanager.util.DataAccessExecutor;
 
 /**
  * Main GUI application for the Parking Lot Management System.
@@ -72,18 +93,38 @@ public class ParkingLotManagerGUI extends JFrame {
     private VehicleDAO vehicleDAO;
     private ParkingDAO parkingDAO;
     private UserPreferenceDAO userPrefDAO;
-    private DefaultTableModel slotTableModel;
-    private DefaultTableModel sessionTableModel;
+    private SlotTableModel slotTableModel;
+    private SessionTableModel sessionTableModel;
     private JLabel totalSlotsLabel;
     private JLabel availableSlotsLabel;
     private JLabel occupiedSlotsLabel;
+    private JLabel estimateLabel;
+    private JButton notificationButton;
     private JComboBox<String> lotSelector;
     private User currentUser;
+    private String sessionToken; // From AuthenticationService; ended on logout
     private boolean isAdmin;
     private Timer autoRefreshTimer;
+    private Timer estimateTimer;
+    // Lot the next background refresh should load; written on the EDT only
+    private volatile ParkingLot selectedLot;
+    private CoalescingLoader<RefreshSnapshot> refreshLoader;
+    private volatile boolean sessionsLogged;
+    // Changes from any console (including this one) trigger a refresh
+    private final SessionChangeListener changeListener = changes -> refreshLoader.request();
+    private final NotificationService.NotificationListener notificationListener =
+            (userId, notifications) -> SwingUtilities.invokeLater(this::updateNotificationButton);
 
     public ParkingLotManagerGUI(User user) {
+        this(user, null);
+    }
+
+    /**
+     * @param sessionToken token from AuthenticationService, ended on logout (may be null)
+     */
+    public ParkingLotManagerGUI(User user, String sessionToken) {
         this.currentUser = user;
+        this.sessionToken = sessionToken;
         this.isAdmin = (user instanceof Admin);
         initializeData();
         setupUI();
@@ -119,128 +160,57 @@ public class ParkingLotManagerGUI extends JFrame {
         parkingDAO = new ParkingDAO(sessionDAO, vehicleDAO);
         userPrefDAO = new UserPreferenceDAO();
 
-        // Load active sessions from database
-        activeSessions = sessionDAO.getActiveSessions();
-        System.out.println("[INFO] Loaded " + activeSessions.size() + " active parking sessions from database");
-
-        // Cal Poly Pomona Parking Lots with Actual Capacities
-        ParkingLot structure1 = new ParkingLot("LOT-001", "Structure 1",
-                "East of Voorhis Alumni Park and West of Police and Parking Services (Bldg. 109)", LotType.STRUCTURE);
-        ParkingLot structure2 = new ParkingLot("LOT-002", "Structure 2", "Southeast of iPoly High School (Bldg. 128)",
-                LotType.STRUCTURE);
-        ParkingLot lotB = new ParkingLot("LOT-003", "Lot B", "East of Structure 2", LotType.SURFACE);
-        ParkingLot lotE1 = new ParkingLot("LOT-004", "Lot E1", "Northeast of Lot E2", LotType.SURFACE);
-        ParkingLot lotE2 = new ParkingLot("LOT-005", "Lot E2", "Northwest of Interim Design Center (Bldg. 89)",
-                LotType.SURFACE);
-        ParkingLot lotF1 = new ParkingLot("LOT-006", "Lot F1", "Southeast of Residence Hall, Aliso (Bldg. 23)",
-                LotType.SURFACE);
-        ParkingLot lotF10 = new ParkingLot("LOT-007", "Lot F10", "East of Police and Parking Services (Bldg. 109)",
-                LotType.SURFACE);
-        ParkingLot lotF3 = new ParkingLot("LOT-008", "Lot F3",
-                "North of Lot F4 and South of Recreation/Maintenance (Bldg. 71)", LotType.SURFACE);
-        ParkingLot lotF5 = new ParkingLot("LOT-009", "Lot F5", "Northeast of Structure 1 (Building 106)",
-                LotType.SURFACE);
-        ParkingLot lotF9 = new ParkingLot("LOT-010", "Lot F9", "South of Structure 1 (Bldg. 106)", LotType.SURFACE);
-        ParkingLot lotJ = new ParkingLot("LOT-011", "Lot J", "Southwest of College of Environmental Design (Bldg. 7)",
-                LotType.SURFACE);
-        ParkingLot lotK = new ParkingLot("LOT-012", "Lot K", "Adjacent to Building 128: iPoly High School",
-                LotType.SURFACE);
-        ParkingLot lotM = new ParkingLot("LOT-013", "Lot M",
-                "South of Parking Lot J and Southwest of College of Environmental Design (Bldg. 7)", LotType.SURFACE);
-        ParkingLot lotN = new ParkingLot("LOT-014", "Lot N",
-                "On Bronco Way Across from the Child Care Center (Building 116)", LotType.SURFACE);
-        ParkingLot lotR = new ParkingLot("LOT-015", "Lot R", "Northwest of Kellogg House Pomona (Bldg. 112)",
-                LotType.SURFACE);
-        ParkingLot lotT = new ParkingLot("LOT-016", "Lot T", "Adjacent to Building 28: Fruit and Crops Unit",
-                LotType.SURFACE);
-        ParkingLot lotU = new ParkingLot("LOT-017", "Lot U", "West of University Village (Bldg. 200)", LotType.SURFACE);
-
-        // Generate parking slots with realistic capacities (Cal Poly Pomona actual
-        // numbers)
-        generateSlots(structure1, 1250); // Structure 1: 1,250 spaces
-        generateSlots(structure2, 850); // Structure 2: 850 spaces
-        generateSlots(lotB, 450); // Lot B: 450 spaces
-        generateSlots(lotE1, 320); // Lot E1: 320 spaces
-        generateSlots(lotE2, 280); // Lot E2: 280 spaces
-        generateSlots(lotF1, 240); // Lot F1: 240 spaces
-        generateSlots(lotF10, 180); // Lot F10: 180 spaces
-        generateSlots(lotF3, 210); // Lot F3: 210 spaces
-        generateSlots(lotF5, 190); // Lot F5: 190 spaces
-        generateSlots(lotF9, 165); // Lot F9: 165 spaces
-        generateSlots(lotJ, 380); // Lot J: 380 spaces
-        generateSlots(lotK, 420); // Lot K: 420 spaces
-        generateSlots(lotM, 340); // Lot M: 340 spaces
-        generateSlots(lotN, 290); // Lot N: 290 spaces
-        generateSlots(lotR, 260); // Lot R: 260 spaces
-        generateSlots(lotT, 175); // Lot T: 175 spaces
-        generateSlots(lotU, 310); // Lot U: 310 spaces
-
-        parkingLots.add(structure1);
-        parkingLots.add(structure2);
-        parkingLots.add(lotB);
-        parkingLots.add(lotE1);
-        parkingLots.add(lotE2);
-        parkingLots.add(lotF1);
-        parkingLots.add(lotF10);
-        parkingLots.add(lotF3);
-        parkingLots.add(lotF5);
-        parkingLots.add(lotF9);
-        parkingLots.add(lotJ);
-        parkingLots.add(lotK);
-        parkingLots.add(lotM);
-        parkingLots.add(lotN);
-        parkingLots.add(lotR);
-        parkingLots.add(lotT);
-        parkingLots.add(lotU);
+        // Active sessions are loaded by the first background refresh
+        activeSessions = Collections.emptyList();
+        refreshLoader = new CoalescingLoader<>(this::loadRefreshSnapshot, this::applyRefreshSnapshot);
 
-        // Demo user creation is now handled in the constructor (or via LoginGUI).
-        // We no longer create a Client here, which avoids throwing checked exceptions.
-    }
+        // Cal Poly Pomona parking lots with their actual capacities
+        parkingLots.addAll(CampusLots.create());
 
-    /**
-     * Helper method to generate parking slots for a lot with realistic distribution
-     * 
-     * @param lot      The parking lot to add slots to
-     * @param capacity Total number of parking slots to generate
-     */
-    private void generateSlots(ParkingLot lot, int capacity) {
-        // Realistic slot type distribution:
-        // 75% regular CAR slots
-        // 10% COMPACT slots
-        // 5% EV charging slots
-        // 5% HANDICAPPED slots
-        // 5% MOTORCYCLE slots
-
-        int regularSlots = (int) (capacity * 0.75);
-        int compactSlots = (int) (capacity * 0.10);
-        int evSlots = (int) (capacity * 0.05);
-        int handicappedSlots = (int) (capacity * 0.05);
-        int motorcycleSlots = capacity - regularSlots - compactSlots - evSlots - handicappedSlots;
-
-        int slotNumber = 1;
-        String lotId = lot.getLotId();
-
-        slotNumber = addSlots(lot, lotId, slotNumber, regularSlots,     SlotType.CAR);
-        slotNumber = addSlots(lot, lotId, slotNumber, compactSlots,     SlotType.COMPACT);
-        slotNumber = addSlots(lot, lotId, slotNumber, evSlots,          SlotType.EV);
-        slotNumber = addSlots(lot, lotId, slotNumber, handicappedSlots, SlotType.HANDICAPPED);
-        slotNumber = addSlots(lot, lotId, slotNumber, motorcycleSlots,  SlotType.MOTORCYCLE);
-    }
+        // Today's revenue is counted in memory; load what was taken before this start
+        RevenueLedger ledger = RevenueLedger.getInstance();
+        ledger.setLots(parkingLots);
+        DataAccessExecutor.execute(ledger::reconcile);
 
+        // Keep the hourly occupancy history up to date for planners
+        if (OccupancyRollup.isEnabled()) {
+            OccupancyRollup.getInstance().start();
+        }
+
+        // Driver reports: kept in memory per lot, saved in the background
+        ParkingReportAggregator reports = ParkingReportAggregator.getInstance();
+        reports.setLots(parkingLots);
+        DataAccessExecutor.execute(reports::start);
 
-    private int addSlots(ParkingLot lot, String lotId, int startNumber, int count, SlotType type) {
-        int slotNumber = startNumber;
+        // Availability estimate from sessions, driver reports and sensors
+        OccupancyFusion.getInstance().setLots(parkingLots);
 
-        for (int i = 0; i < count; i++) {
-            String slotId = lotId + "-" + String.format("SLOT-%03d", slotNumber);
-            lot.addSlot(new ParkingSlot(slotId, lotId, slotNumber, type));
-            slotNumber++;
+        // Unread notifications arrive from the notification reader, not by re-querying
+        NotificationService notifications = NotificationService.getInstance();
+        notifications.start();
+        if (NotificationService.isLotFullAlertEnabled()) {
+            notifications.watchLots(parkingLots);
+        }
+        if (currentUser != null && currentUser.getId() > 0) {
+            int userId = currentUser.getId();
+            notifications.subscribe(userId, notificationListener);
+            DataAccessExecutor.submit(() -> notifications.getUnread(userId), unread -> updateNotificationButton());
         }
 
-        return slotNumber;
-    }
+        // Let slot sensors mark slots occupied/free between sessions
+        if (SensorIngest.isEnabled()) {
+            List<ParkingLot> lots = new ArrayList<>(parkingLots);
+            DataAccessExecutor.execute(() -> {
+                SensorIngest ingest = SensorIngest.getInstance();
+                ingest.addListener(OccupancyFusion.getInstance());
+                ingest.loadSensors(lots);
+                ingest.start();
+            });
+        }
 
-    
+        // Demo user creation is now handled in the constructor (or via LoginGUI).
+        // We no longer create a Client here, which avoids throwing checked exceptions.
+    }
 
     /**
      * Sets up the main user interface
@@ -310,6 +280,7 @@ public class ParkingLotManagerGUI extends JFrame {
         totalSlotsLabel = new JLabel("Total: 0");
         availableSlotsLabel = new JLabel("Available: 0");
         occupiedSlotsLabel = new JLabel("Occupied: 0");
+        estimateLabel = new JLabel("Estimated free: -");
 
         totalSlotsLabel.setFont(FONT_LABEL);
         totalSlotsLabel.setForeground(TEXT_COLOR);
@@ -317,6 +288,8 @@ public class ParkingLotManagerGUI extends JFrame {
         availableSlotsLabel.setForeground(new Color(0, 150, 0));
         occupiedSlotsLabel.setFont(FONT_LABEL);
         occupiedSlotsLabel.setForeground(new Color(200, 0, 0));
+        estimateLabel.setFont(FONT_LABEL);
+        estimateLabel.setForeground(TEXT_COLOR);
 
         controlPanel.add(Box.createHorizontalStrut(30));
         controlPanel.add(totalSlotsLabel);
@@ -324,6 +297,8 @@ public class ParkingLotManagerGUI extends JFrame {
         controlPanel.add(availableSlotsLabel);
         controlPanel.add(Box.createHorizontalStrut(20));
         controlPanel.add(occupiedSlotsLabel);
+        controlPanel.add(Box.createHorizontalStrut(20));
+        controlPanel.add(estimateLabel);
 
         headerPanel.add(controlPanel, BorderLayout.CENTER);
 
@@ -394,12 +369,7 @@ public class ParkingLotManagerGUI extends JFrame {
             "Parking Slots",TitledBorder.DEFAULT_JUSTIFICATION, TitledBorder.DEFAULT_POSITION, FONT_LABEL, TEXT_COLOR));
 
         // Table
-        String[] columnNames = { "Slot #", "Type", "Status", "Vehicle" };
-        slotTableModel = new DefaultTableModel(columnNames, 0) {
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        slotTableModel = new SlotTableModel();
 
         JTable table = new JTable(slotTableModel);
         table.setFont(FONT_FIELD);
@@ -423,12 +393,7 @@ public class ParkingLotManagerGUI extends JFrame {
             "Active Parking Sessions",TitledBorder.DEFAULT_JUSTIFICATION, TitledBorder.DEFAULT_POSITION, FONT_LABEL, TEXT_COLOR));
 
         // Table
-        String[] columnNames = { "Session ID", "License Plate", "Vehicle Type", "Slot", "Duration" };
-        sessionTableModel = new DefaultTableModel(columnNames, 0) {
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        sessionTableModel = new SessionTableModel();
 
         JTable table = new JTable(sessionTableModel);
         table.setFont(FONT_FIELD);
@@ -577,6 +542,9 @@ public class ParkingLotManagerGUI extends JFrame {
         JButton reportButton = newUIButton("Submit Availability Report", 0);
         reportButton.addActionListener(e -> submitReport());
 
+        notificationButton = newUIButton("Notifications", 0);
+        notificationButton.addActionListener(e -> showNotifications());
+
         //insert summary here
 
         JButton refreshButton = newUIButton("Refresh", 0);
@@ -599,6 +567,7 @@ public class ParkingLotManagerGUI extends JFrame {
         panel.add(parkButton);
         panel.add(exitButton);
         panel.add(reportButton);
+        panel.add(notificationButton);
 
         // Only show admin buttons for admin users
         if (isAdmin) {
@@ -608,9 +577,13 @@ public class ParkingLotManagerGUI extends JFrame {
             JButton exitAllButton = newUIButton("Exit All Vehicles", 2);
             exitAllButton.addActionListener(e -> exitAllVehicles());
 
+            JButton exportButton = newUIButton("Export History", 4);
+            exportButton.addActionListener(e -> exportHistory());
+
             panel.add(visualizeButton);
             panel.add(exitAllButton);
             panel.add(manageSlotsButton);
+            panel.add(exportButton);
             //panel.add(viewReportsButton);
 
         }
@@ -751,30 +724,28 @@ public class ParkingLotManagerGUI extends JFrame {
             ParkingSlot assignedSlot = compatibleSlots.get(selectedIndex);
 
             int userId = currentUser != null ? currentUser.getId() : -1;
-            VehicleSession session = parkingDAO.parkVehicle(
+            DataAccessExecutor.submit(() -> parkingDAO.parkVehicle(
                     currentLot,
                     assignedSlot,
                     plate,
                     vehicleType,
                     vehicleMake,
                     userId
-            );
+            ), session -> {
+                if (session == null) {
+                    JOptionPane.showMessageDialog(this,
+                            "Failed to park vehicle!\n" +
+                                    "The slot may have just been taken, or the session could not be saved.",
+                            "Parking Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
 
-            if (session == null) {
                 JOptionPane.showMessageDialog(this,
-                        "Failed to save parking session to database!",
-                        "Database Error", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
+                        "Vehicle parked successfully in slot #" + assignedSlot.getSlotNumber() + "!",
+                        "Success", JOptionPane.INFORMATION_MESSAGE);
 
-            // Add to in-memory list of active sessions
-            activeSessions.add(session);
-
-            JOptionPane.showMessageDialog(this,
-                    "Vehicle parked successfully in slot #" + assignedSlot.getSlotNumber() + "!",
-                    "Success", JOptionPane.INFORMATION_MESSAGE);
-
-            refreshData();
+                refreshData();
+            });
         }
     
 
@@ -827,43 +798,31 @@ public class ParkingLotManagerGUI extends JFrame {
             int index = java.util.Arrays.asList(sessionList).indexOf(selected);
             VehicleSession session = availableSessions.get(index);
 
-            // Calculate fee
-            double fee = session.calculateFee(5.0); // $5/hour rate
-
-            // Find and free the slot
-            ParkingLot currentLot = getCurrentLot();
-            if (currentLot != null) {
-                for (ParkingSlot slot : currentLot.getSlots()) {
-                    if (slot.getSlotId().equals(session.getSlotId())) {
-                        slot.setOccupied(false, null);
-                        break;
-                    }
-                }
-            }
-
-            // Complete session in database
-            if (session.getId() > 0) {
-                boolean completed = sessionDAO.completeSession(session.getId(), fee);
-                if (completed) {
-                    System.out.println("[OK] Completed parking session #" + session.getId() + " in database");
-                } else {
+            // Free the slot and complete the session ($5/hour rate)
+            DataAccessExecutor.submit(() -> parkingDAO.exitVehicle(session, 5.0, parkingLots), completed -> {
+                if (!completed) {
                     System.err.println("[FAIL] Failed to complete session in database");
+                    JOptionPane.showMessageDialog(this,
+                            "Failed to exit vehicle " + session.getLicensePlate() + "!\n" +
+                                    "It may already have exited, or the session could not be saved.",
+                            "Exit Error", JOptionPane.ERROR_MESSAGE);
+                    refreshData();
+                    return;
                 }
-            }
-
-            activeSessions.remove(index);
+                System.out.println("[OK] Completed parking session #" + session.getId());
 
-            JOptionPane.showMessageDialog(this,
-                    String.format("Vehicle %s exited.\nParked for %d hours.\nTotal fee: $%.2f",
-                            session.getLicensePlate(), session.getParkedHours(), fee),
-                    "Payment", JOptionPane.INFORMATION_MESSAGE);
+                JOptionPane.showMessageDialog(this,
+                        String.format("Vehicle %s exited.\nParked for %d hours.\nTotal fee: $%.2f",
+                                session.getLicensePlate(), session.getParkedHours(), session.getFee()),
+                        "Payment", JOptionPane.INFORMATION_MESSAGE);
+                refreshData();
+            });
  /*
             JOptionPane.showMessageDialog(this,
                     String.format("Vehicle %s exited.\nParked for %d hours.\n",
                             session.getLicensePlate(), session.getParkedHours()),
                     "Exit Summary", JOptionPane.INFORMATION_MESSAGE);
 */
-            refreshData();
         }
     }
 
@@ -895,57 +854,50 @@ public class ParkingLotManagerGUI extends JFrame {
                 JOptionPane.WARNING_MESSAGE);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            int exitedCount = 0;
-            double totalFees = 0.0;
-
-            // Create a copy to avoid concurrent modification
             List<VehicleSession> sessionsToExit = new ArrayList<>(activeSessions);
 
-            for (VehicleSession session : sessionsToExit) {
-                // Calculate fee
-                double fee = session.calculateFee(5.0); // $5/hour rate
-                totalFees += fee;
-
-                // Find and free the slot
-                for (ParkingLot lot : parkingLots) {
-                    for (ParkingSlot slot : lot.getSlots()) {
-                        if (slot.getSlotId().equals(session.getSlotId())) {
-                            slot.setOccupied(false, null);
-                            break;
-                        }
-                    }
+            // Free every slot and complete all sessions in one batch ($5/hour rate)
+            DataAccessExecutor.submit(() -> parkingDAO.exitVehicles(sessionsToExit, 5.0, parkingLots), exited -> {
+                if (exited == null) {
+                    System.err.println("[FAIL] Failed to complete " + sessionsToExit.size() + " sessions");
+                    JOptionPane.showMessageDialog(this,
+                            "Failed to exit the vehicles. No session was changed; please try again.",
+                            "Exit All Failed",
+                            JOptionPane.ERROR_MESSAGE);
+                    refreshData();
+                    return;
                 }
 
-                // Complete session in database
-                if (session.getId() > 0) {
-                    boolean completed = sessionDAO.completeSession(session.getId(), fee);
-                    if (completed) {
-                        exitedCount++;
-                        System.out.println("[OK] Completed parking session #" + session.getId() + " - Fee: $"
-                                + String.format("%.2f", fee));
-                    } else {
-                        System.err.println("[FAIL] Failed to complete session #" + session.getId());
-                    }
+                // Only the sessions this action completed; others were exited (and charged) elsewhere
+                double totalFees = 0.0;
+                for (VehicleSession session : exited) {
+                    totalFees += session.getFee();
                 }
-            }
-
-            activeSessions.clear();
+                System.out.println("[OK] Completed " + exited.size() + " parking sessions - Fees: $"
+                        + String.format("%.2f", totalFees));
 
-            JOptionPane.showMessageDialog(this,
-                    String.format("Successfully exited %d vehicles!\nTotal fees collected: $%.2f",
-                            exitedCount, totalFees),
-                    "Exit All Complete",
-                    JOptionPane.INFORMATION_MESSAGE);
+                JOptionPane.showMessageDialog(this,
+                        String.format("Successfully exited %d vehicles!\nTotal fees collected: $%.2f",
+                                exited.size(), totalFees),
+                        "Exit All Complete",
+                        JOptionPane.INFORMATION_MESSAGE);
 
-            refreshData();
+                refreshData();
+            });
         }
     }
     /**
      * open user preferences dialog
      */
     private void openUserPreferences() {
+        int userId = currentUser.getId();
+        DataAccessExecutor.submit(() -> userPrefDAO.getPreferenceByUserId(userId), this::showUserPreferences);
+    }
 
-        UserPreference existing = userPrefDAO.getPreferenceByUserId(currentUser.getId());
+    /**
+     * Show the preferences dialog for the loaded preference (may be null) and save the result
+     */
+    private void showUserPreferences(UserPreference existing) {
         UserPreferenceDialog dialog = new UserPreferenceDialog(this, parkingLots, existing);
         dialog.setLocationRelativeTo(this);
         dialog.setVisible(true);
@@ -957,12 +909,13 @@ public class ParkingLotManagerGUI extends JFrame {
 
         updated.setUserID(currentUser.getId());
 
-        boolean checkUpdate = userPrefDAO.saveOrUpdatePreference(updated);
-        if (checkUpdate) {
-            JOptionPane.showMessageDialog(this, "Preferences saved.", "Preference:", JOptionPane.INFORMATION_MESSAGE);
-        } else {
-            JOptionPane.showMessageDialog(this, "Failed to save preferences.", "Error:", JOptionPane.ERROR_MESSAGE);
-        }
+        DataAccessExecutor.submit(() -> userPrefDAO.saveOrUpdatePreference(updated), checkUpdate -> {
+            if (checkUpdate) {
+                JOptionPane.showMessageDialog(this, "Preferences saved.", "Preference:", JOptionPane.INFORMATION_MESSAGE);
+            } else {
+                JOptionPane.showMessageDialog(this, "Failed to save preferences.", "Error:", JOptionPane.ERROR_MESSAGE);
+            }
+        });
     }
 
 
@@ -1001,6 +954,8 @@ public class ParkingLotManagerGUI extends JFrame {
             UserReport report = new UserReport("REPORT-" + System.currentTimeMillis(),
                     currentUser != null ? currentUser.getId() : -1,
                     currentLot.getLotId(), available, confidence, notes);
+            ParkingReportAggregator.getInstance().submit(report);
+            updateEstimate();
 
             JOptionPane.showMessageDialog(this,
                     "Thank you for your report!\n" + report,
@@ -1020,85 +975,155 @@ public class ParkingLotManagerGUI extends JFrame {
     }
 
     /**
-     * Refresh all data displays
+     * Refresh all data displays. The data is loaded on a background thread and
+     * applied on the EDT; refreshes requested while one is running are merged.
      */
     private void refreshData() {
-        ParkingLot currentLot = getCurrentLot();
-        if (currentLot == null)
+        selectedLot = getCurrentLot();
+        if (selectedLot == null)
             return;
+        refreshLoader.request();
+    }
+
+    /**
+     * Load everything the tables and labels show. Runs off the EDT.
+     */
+    private RefreshSnapshot loadRefreshSnapshot() {
+        ParkingLot currentLot = selectedLot;
+        if (currentLot == null)
+            return null;
 
-        // Reload active sessions from database
-        activeSessions = sessionDAO.getActiveSessions();
-        System.out.println("[REFRESH] Reloaded " + activeSessions.size() + " active parking sessions from database");
+        // Snapshot of active sessions (kept current by VehicleSessionDAO)
+        List<VehicleSession> sessions = sessionDAO.getActiveSessions();
+        if (!sessionsLogged) {
+            sessionsLogged = true;
+            System.out.println("[INFO] Loaded " + sessions.size() + " active parking sessions from database");
+        }
 
         // Update slot occupancy based on active sessions
-        for (ParkingSlot slot : currentLot.getSlots()) {
-            slot.setOccupied(false, null);
-        }
+        parkingDAO.syncSlotOccupancy(currentLot);
 
-        for (VehicleSession session : activeSessions) {
-            for (ParkingSlot slot : currentLot.getSlots()) {
-                if (slot.getSlotId().equals(session.getSlotId())) {
-                    slot.setOccupied(true, session.getVehicleType());
-                    break;
-                }
-            }
+        return new RefreshSnapshot(currentLot, sessions, currentLot.getTotalSpaces(),
+                currentLot.getAvailableSpaces());
+    }
+
+    /**
+     * Show a loaded snapshot. Runs on the EDT.
+     */
+    private void applyRefreshSnapshot(RefreshSnapshot snapshot) {
+        activeSessions = snapshot.sessions;
+        if (snapshot.lot != getCurrentLot()) {
+            return; // Lot changed while loading; its own refresh is on the way
         }
 
         // Update stats
-        totalSlotsLabel.setText("Total: " + currentLot.getTotalSpaces());
-        availableSlotsLabel.setText("Available: " + currentLot.getAvailableSpaces());
-        occupiedSlotsLabel.setText("Occupied: " +
-                (currentLot.getTotalSpaces() - currentLot.getAvailableSpaces()));
-        // Update slots table
-        slotTableModel.setRowCount(0);
-        for (ParkingSlot slot : currentLot.getSlots()) {
-            Object[] row = {
-                    slot.getSlotNumber(),
-                    slot.getSlotType().getDisplayName(),
-                    slot.getStatus(),
-                    slot.isOccupied() ? slot.getVehicleType() : "-"
-            };
-            slotTableModel.addRow(row);
-        }
+        totalSlotsLabel.setText("Total: " + snapshot.totalSpaces);
+        availableSlotsLabel.setText("Available: " + snapshot.availableSpaces);
+        occupiedSlotsLabel.setText("Occupied: " + (snapshot.totalSpaces - snapshot.availableSpaces));
 
-        // Update sessions table
-        sessionTableModel.setRowCount(0);
-        for (VehicleSession session : activeSessions) {
-            Object[] row = {
-                    session.getId(),
-                    session.getLicensePlate(),
-                    session.getVehicleType().getDisplayName(),
-                    session.getSlotId(),
-                    session.getParkedHours() + " hours"
-            };
-            sessionTableModel.addRow(row);
-        }
+        // Tables repaint only the rows that changed
+        slotTableModel.update(snapshot.lot.getSlots());
+        sessionTableModel.update(snapshot.sessions);
     }
 
     /**
-     * Start auto-refresh timer to update data every 3 seconds
+     * Start auto-refresh: refresh on every session change from the change feed,
+     * plus a 3 second timer for the durations
      */
     private void startAutoRefresh() {
+        SessionChangeFeed.getInstance().subscribe(changeListener);
+
         // Auto-refresh every 3 seconds
         autoRefreshTimer = new Timer(3000, e -> refreshData());
         autoRefreshTimer.start();
         System.out.println("[AUTO-REFRESH] Started - updating every 3 seconds");
+
+        // The fused estimate is cheap to read, so it is shown every second
+        estimateTimer = new Timer(1000, e -> updateEstimate());
+        estimateTimer.start();
+    }
+
+    /**
+     * Show the fused availability estimate for the selected lot
+     */
+    private void updateEstimate() {
+        ParkingLot currentLot = getCurrentLot();
+        OccupancyReport estimate = currentLot != null
+                ? OccupancyFusion.getInstance().getEstimate(currentLot.getLotId())
+                : null;
+        if (estimate == null || estimate.getSourceCount() == 0) {
+            estimateLabel.setText("Estimated free: -");
+            return;
+        }
+        estimateLabel.setText(String.format("Estimated free: %d (%d-%d)", estimate.getEstimatedAvailable(),
+                estimate.getAvailableLow(), estimate.getAvailableHigh()));
+        estimateLabel.setToolTipText("Sources: " + estimate.getSourceBreakdown());
+    }
+
+    /**
+     * Show the unread count on the Notifications button (from memory)
+     */
+    private void updateNotificationButton() {
+        if (notificationButton == null || currentUser == null) {
+            return;
+        }
+        int unread = NotificationService.getInstance().getUnreadCount(currentUser.getId());
+        notificationButton.setText(unread > 0 ? "Notifications (" + unread + ")" : "Notifications");
+    }
+
+    /**
+     * Show the user's unread notifications and offer to mark them read
+     */
+    private void showNotifications() {
+        if (currentUser == null || currentUser.getId() <= 0) {
+            return;
+        }
+        int userId = currentUser.getId();
+        NotificationService notifications = NotificationService.getInstance();
+        DataAccessExecutor.submit(() -> notifications.getUnread(userId), unread -> {
+            if (unread.isEmpty()) {
+                JOptionPane.showMessageDialog(this, "No unread notifications.",
+                        "Notifications", JOptionPane.INFORMATION_MESSAGE);
+                updateNotificationButton();
+                return;
+            }
+            StringBuilder text = new StringBuilder();
+            for (int i = unread.size() - 1; i >= 0; i--) {
+                text.append(unread.get(i)).append('\n');
+            }
+            int more = notifications.getUnreadCount(userId) - unread.size();
+            if (more > 0) {
+                text.append("... and ").append(more).append(" older\n");
+            }
+            int choice = JOptionPane.showConfirmDialog(this, text + "\nMark all as read?",
+                    "Notifications", JOptionPane.YES_NO_OPTION);
+            if (choice == JOptionPane.YES_OPTION) {
+                DataAccessExecutor.submit(() -> notifications.markAllAsRead(userId),
+                        marked -> updateNotificationButton());
+            }
+        });
     }
 
     /**
      * Stop auto-refresh timer
      */
     private void stopAutoRefresh() {
+        SessionChangeFeed.getInstance().unsubscribe(changeListener);
         if (autoRefreshTimer != null && autoRefreshTimer.isRunning()) {
             autoRefreshTimer.stop();
             System.out.println("[AUTO-REFRESH] Stopped");
         }
+        if (estimateTimer != null) {
+            estimateTimer.stop();
+        }
     }
 
     @Override
     public void dispose() {
         stopAutoRefresh();
+        if (currentUser != null) {
+            NotificationService.getInstance().unsubscribe(currentUser.getId(), notificationListener);
+        }
         super.dispose();
     }
 
@@ -1146,7 +1171,15 @@ public class ParkingLotManagerGUI extends JFrame {
             if (result == JOptionPane.OK_OPTION) {
                 int slotNumber = (Integer) slotNumberSpinner.getValue();
                 SlotType slotType = (SlotType) slotTypeCombo.getSelectedItem();
-                String slotId = String.format("SLOT-%03d", slotNumber);
+                String slotId = ParkingLot.slotId(currentLot.getLotId(), slotNumber);
+
+                if (currentLot.getSlotById(slotId) != null) {
+                    JOptionPane.showMessageDialog(this,
+                            "Slot #" + slotNumber + " already exists in this lot!",
+                            "Error",
+                            JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
 
                 ParkingSlot newSlot = new ParkingSlot(slotId, currentLot.getLotId(),
                         slotNumber, slotType);
@@ -1196,7 +1229,7 @@ public class ParkingLotManagerGUI extends JFrame {
                     return;
                 }
 
-                currentLot.getSlots().remove(index);
+                currentLot.removeSlot(slotToRemove);
                 JOptionPane.showMessageDialog(this,
                         "Slot removed successfully!",
                         "Success",
@@ -1231,29 +1264,58 @@ public class ParkingLotManagerGUI extends JFrame {
         }
          */
 
-        // Get today's completed sessions for revenue calculation
-        double totalDailyRevenue = sessionDAO.getTodayRevenue();
-        int completedToday = sessionDAO.getTodayCompletedCount();
+        showReports();
+    }
 
+    /**
+     * Show the reports dialog. Revenue comes from the in-memory ledger, so no
+     * query runs however long the session history is.
+     */
+    private void showReports() {
+        RevenueLedger ledger = RevenueLedger.getInstance();
+        double totalDailyRevenue = ledger.getTodayRevenue();
+        int completedToday = ledger.getTodayCompletedCount();
         StringBuilder reportText = new StringBuilder();
         
         reportText.append("=== DAILY REVENUE REPORT ===\n");
-        reportText.append(String.format("Date: %s\n", java.time.LocalDate.now()));
+        reportText.append(String.format("Date: %s\n", ledger.getDate()));
+        if (!ledger.isReconciled()) {
+            reportText.append("(Earlier exits are still loading from the database)\n");
+        }
         reportText.append(String.format("Total Revenue Today: $%.2f\n", totalDailyRevenue));
         reportText.append(String.format("Completed Sessions Today: %d\n", completedToday));
         reportText.append(
                 String.format("Average Fee: $%.2f\n\n", completedToday > 0 ? totalDailyRevenue / completedToday : 0.0));
+
+        reportText.append("Revenue by slot type:\n");
+        for (SlotType type : SlotType.values()) {
+            RevenueLedger.Totals totals = ledger.getSlotTypeTotals(type);
+            reportText.append(String.format("  %-12s $%9.2f  (%d sessions)\n", type.getDisplayName(),
+                    totals.getRevenue(), totals.getCount()));
+        }
+        reportText.append("Revenue by hour:\n");
+        for (int hour = 0; hour < 24; hour++) {
+            RevenueLedger.Totals totals = ledger.getHourTotals(hour);
+            if (totals.getCount() > 0) {
+                reportText.append(String.format("  %02d:00  $%9.2f  (%d sessions)\n", hour,
+                        totals.getRevenue(), totals.getCount()));
+            }
+        }
+        reportText.append("\n");
  
         reportText.append("=== PARKING LOT REPORTS ===\n\n");
 
         for (ParkingLot lot : parkingLots) {
+            RevenueLedger.Totals lotTotals = ledger.getLotTotals(lot.getLotId());
             reportText.append(String.format("Lot: %s (%s)\n", lot.getName(), lot.getLotId()));
             reportText.append(String.format("Location: %s\n", lot.getLocation()));
             reportText.append(String.format("Type: %s\n", lot.getLotType()));
             reportText.append(String.format("Total Spaces: %d\n", lot.getTotalSpaces()));
             reportText.append(String.format("Available: %d\n", lot.getAvailableSpaces()));
-            reportText.append(String.format("Occupancy Rate: %.1f%%\n\n",
+            reportText.append(String.format("Occupancy Rate: %.1f%%\n",
                     (1.0 - (double) lot.getAvailableSpaces() / lot.getTotalSpaces()) * 100));
+            reportText.append(String.format("Revenue Today: $%.2f (%d sessions)\n\n",
+                    lotTotals.getRevenue(), lotTotals.getCount()));
         }
 
         reportText.append(String.format("\n=== ACTIVE SESSIONS ===\n"));
@@ -1283,6 +1345,76 @@ public class ParkingLotManagerGUI extends JFrame {
                 JOptionPane.INFORMATION_MESSAGE);
     }
 
+    /**
+     * Admin feature: export sessions, revenue or hourly occupancy for a date
+     * range to a file. Rows are streamed, so month-end exports do not load the
+     * history into memory.
+     */
+    private void exportHistory() {
+        LocalDate firstOfMonth = LocalDate.now().withDayOfMonth(1);
+        JPanel inputPanel = new JPanel(new GridLayout(6, 2, 5, 5));
+        JComboBox<HistoryExporter.Dataset> datasetCombo = new JComboBox<>(HistoryExporter.Dataset.values());
+        JTextField fromField = new JTextField(firstOfMonth.minusMonths(1).toString());
+        JTextField toField = new JTextField(firstOfMonth.toString());
+        JComboBox<String> lotCombo = new JComboBox<>();
+        lotCombo.addItem("All lots");
+        for (ParkingLot lot : parkingLots) {
+            lotCombo.addItem(lot.getLotId());
+        }
+        JComboBox<ExportFormat> formatCombo = new JComboBox<>(ExportFormat.values());
+        JCheckBox gzipBox = new JCheckBox("Compress (gzip)");
+
+        inputPanel.add(new JLabel("Data:"));
+        inputPanel.add(datasetCombo);
+        inputPanel.add(new JLabel("From (yyyy-mm-dd):"));
+        inputPanel.add(fromField);
+        inputPanel.add(new JLabel("To, exclusive (yyyy-mm-dd):"));
+        inputPanel.add(toField);
+        inputPanel.add(new JLabel("Lot:"));
+        inputPanel.add(lotCombo);
+        inputPanel.add(new JLabel("Format:"));
+        inputPanel.add(formatCombo);
+        inputPanel.add(new JLabel());
+        inputPanel.add(gzipBox);
+
+        int result = JOptionPane.showConfirmDialog(this, inputPanel,
+                "Export History", JOptionPane.OK_CANCEL_OPTION);
+        if (result != JOptionPane.OK_OPTION) {
+            return;
+        }
+
+        LocalDateTime from;
+        LocalDateTime to;
+        try {
+            from = LocalDate.parse(fromField.getText().trim()).atStartOfDay();
+            to = LocalDate.parse(toField.getText().trim()).atStartOfDay();
+        } catch (DateTimeParseException ex) {
+            JOptionPane.showMessageDialog(this, "Dates must look like 2025-11-01.",
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        HistoryExporter.Dataset dataset = (HistoryExporter.Dataset) datasetCombo.getSelectedItem();
+        ExportFormat format = (ExportFormat) formatCombo.getSelectedItem();
+        String lotId = lotCombo.getSelectedIndex() > 0 ? (String) lotCombo.getSelectedItem() : null;
+        boolean gzip = gzipBox.isSelected();
+
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File(HistoryExporter.fileName(dataset, format, from, to, lotId, gzip)));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = chooser.getSelectedFile();
+
+        DataAccessExecutor.submit(() -> new HistoryExporter().export(dataset, format, from, to, lotId, gzip, file),
+                rows -> JOptionPane.showMessageDialog(this,
+                        String.format("Exported %d rows to %s", rows, file.getPath()),
+                        "Export History", JOptionPane.INFORMATION_MESSAGE),
+                error -> JOptionPane.showMessageDialog(this,
+                        "Export failed: " + error.getMessage(),
+                        "Error", JOptionPane.ERROR_MESSAGE));
+    }
+
     /**
      * Logout and return to login screen
      */
@@ -1293,12 +1425,34 @@ public class ParkingLotManagerGUI extends JFrame {
                 JOptionPane.YES_NO_OPTION);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            SwingUtilities.invokeLater(new Runnable() {
-                public void run() {
-                    new LoginGUI().setVisible(true);
-                    dispose();
-                }
-            });
+            // Save queued audit lines off the EDT, then switch windows
+            DataAccessExecutor.submit(() -> {
+                AuthenticationService.getInstance().logout(sessionToken);
+                return AuditLogger.getInstance().flush();
+            }, saved -> showLogin(), error -> showLogin());
+        }
+    }
+
+    private void showLogin() {
+        new LoginGUI().setVisible(true);
+        dispose();
+    }
+
+    /**
+     * Session snapshot and counts for one refresh, loaded off the EDT.
+     */
+    private static final class RefreshSnapshot {
+        private final ParkingLot lot;
+        private final List<VehicleSession> sessions;
+        private final int totalSpaces;
+        private final int availableSpaces;
+
+        private RefreshSnapshot(ParkingLot lot, List<VehicleSession> sessions, int totalSpaces,
+                int availableSpaces) {
+            this.lot = lot;
+            this.sessions = sessions;
+            this.totalSpaces = totalSpaces;
+            this.availableSpaces = availableSpaces;
         }
     }
 
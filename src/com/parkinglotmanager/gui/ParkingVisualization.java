@@ -1,5 +1,8 @@
 package com.parkinglotmanager.gui;
 
+import com.parkinglotmanager.dao.ParkingDAO;
+import com.parkinglotmanager.dao.SessionChangeFeed;
+import com.parkinglotmanager.dao.SessionChangeListener;
 import com.parkinglotmanager.dao.VehicleSessionDAO;
 import com.parkinglotmanager.dao.VehicleDAO;
 import com.parkinglotmanager.model.ParkingLot;
@@ -8,6 +11,7 @@ import com.parkinglotmanager.model.VehicleSession;
 import com.parkinglotmanager.enums.SlotType;
 import com.parkinglotmanager.enums.VehicleType;
 import com.parkinglotmanager.enums.VehicleMake;
+import com.parkinglotmanager.util.CoalescingLoader;
 
 import javax.swing.*;
 import java.awt.*;
@@ -20,30 +24,42 @@ import java.util.Random;
  * Shows vehicles entering, parking, and leaving in real-time
  */
 public class ParkingVisualization extends JFrame {
-    private ParkingLot currentLot;
+    // Read by the background refresh/simulation threads
+    private volatile ParkingLot currentLot;
     private List<ParkingLot> parkingLots;
     private VehicleSessionDAO sessionDAO;
     private VehicleDAO vehicleDAO;
+    private ParkingDAO parkingDAO;
     private VisualizationPanel visualPanel;
     private JLabel statusLabel;
     private Timer refreshTimer;
     private Timer simulationTimer;
-    private boolean simulationRunning;
+    private volatile boolean simulationRunning;
     private Random random;
     private int simulationUserId;
     private JButton simulationButton;
     private boolean isAdmin;
     private JComboBox<String> lotSelector;
+    // Slot sync and simulation run off the EDT; ticks that overlap a running load are merged
+    private CoalescingLoader<VisualizationSnapshot> refreshLoader;
+    private CoalescingLoader<Void> simulationLoader;
+    // Parks/exits from other consoles show up without waiting for the timer
+    private final SessionChangeListener changeListener = changes -> refreshLoader.request();
 
     public ParkingVisualization(ParkingLot lot, boolean isAdmin, List<ParkingLot> allLots) {
         this.currentLot = lot;
         this.parkingLots = allLots;
         this.sessionDAO = new VehicleSessionDAO();
         this.vehicleDAO = new VehicleDAO();
+        this.parkingDAO = new ParkingDAO(sessionDAO, vehicleDAO);
         this.simulationRunning = false;
         this.random = new Random();
         this.simulationUserId = 1; // Default test user ID
         this.isAdmin = isAdmin;
+        this.refreshLoader = new CoalescingLoader<>(this::loadVisualization, this::applyVisualization);
+        // Nothing to publish: the refresh timer picks up the simulation's changes
+        this.simulationLoader = new CoalescingLoader<>(this::runSimulationBatch, done -> {
+        });
 
         setupUI();
         startAutoRefresh();
@@ -199,37 +215,48 @@ public class ParkingVisualization extends JFrame {
         // Refresh every 100ms to show ultra-fast updates
         refreshTimer = new Timer(100, e -> updateVisualization());
         refreshTimer.start();
+        SessionChangeFeed.getInstance().subscribe(changeListener);
         updateVisualization(); // Initial update
     }
 
     private void updateVisualization() {
-        // Load active sessions from database
-        List<VehicleSession> activeSessions = sessionDAO.getActiveSessions();
+        refreshLoader.request();
+    }
 
-        // Update slot occupancy based on active sessions
-        for (ParkingSlot slot : currentLot.getSlots()) {
-            slot.setOccupied(false, null);
-        }
+    /**
+     * Sync slot occupancy with the active sessions and take the numbers to show.
+     * Runs off the EDT.
+     */
+    private VisualizationSnapshot loadVisualization() {
+        ParkingLot lot = currentLot;
 
-        for (VehicleSession session : activeSessions) {
-            for (ParkingSlot slot : currentLot.getSlots()) {
-                if (slot.getSlotId().equals(session.getSlotId())) {
-                    slot.setOccupied(true, session.getVehicleType());
-                    break;
-                }
+        // Update slot occupancy based on active sessions (in-flight claims are left alone)
+        parkingDAO.syncSlotOccupancy(lot);
+
+        List<ParkingSlot> slots = lot.getSlots();
+        int occupied = 0;
+        for (ParkingSlot slot : slots) {
+            if (slot.isOccupied()) {
+                occupied++;
             }
         }
+        int total = slots.size();
+        return new VisualizationSnapshot(lot, slots, occupied, total - occupied, total);
+    }
 
-        // Update status
-        int occupied = (int) currentLot.getSlots().stream().filter(ParkingSlot::isOccupied).count();
-        int total = currentLot.getSlots().size();
-        int available = total - occupied;
-        double occupancyRate = total > 0 ? (occupied * 100.0 / total) : 0;
+    /**
+     * Show a loaded snapshot. Runs on the EDT.
+     */
+    private void applyVisualization(VisualizationSnapshot snapshot) {
+        if (snapshot.lot != currentLot) {
+            return; // Lot changed while loading
+        }
+        double occupancyRate = snapshot.total > 0 ? (snapshot.occupied * 100.0 / snapshot.total) : 0;
 
         statusLabel.setText(String.format("Occupied: %d | Available: %d | Total: %d | Occupancy: %.1f%%",
-                occupied, available, total, occupancyRate));
+                snapshot.occupied, snapshot.available, snapshot.total, occupancyRate));
 
-        visualPanel.updateSlots(currentLot.getSlots());
+        visualPanel.updateSlots(snapshot.slots);
         visualPanel.repaint();
     }
 
@@ -247,13 +274,9 @@ public class ParkingVisualization extends JFrame {
         simulationButton.setBackground(new Color(231, 76, 60));
 
         // Run simulation events every 5ms with batch processing (100x faster)
-        simulationTimer = new Timer(10, e -> {
-            // Process 5-10 events per tick for maximum speed
-            int batchSize = 5 + random.nextInt(6);
-            for (int i = 0; i < batchSize; i++) {
-                performSimulationEvent();
-            }
-        });
+        // Ticks only request a batch; it runs in the background and a tick that
+        // arrives while the previous batch is still running is merged into it
+        simulationTimer = new Timer(10, e -> simulationLoader.request());
         simulationTimer.start();
 
         JOptionPane.showMessageDialog(this,
@@ -273,6 +296,17 @@ public class ParkingVisualization extends JFrame {
         simulationButton.setBackground(new Color(39, 174, 96));
     }
 
+    /**
+     * Process 5-10 simulation events. Runs off the EDT.
+     */
+    private Void runSimulationBatch() {
+        int batchSize = 5 + random.nextInt(6);
+        for (int i = 0; i < batchSize && simulationRunning; i++) {
+            performSimulationEvent();
+        }
+        return null;
+    }
+
     private void performSimulationEvent() {
         // Randomly decide: park a new vehicle (95%) or exit an existing one (5%)
         List<VehicleSession> activeSessions = sessionDAO.getActiveSessions();
@@ -286,21 +320,6 @@ public class ParkingVisualization extends JFrame {
     }
 
     private void parkRandomVehicle() {
-        // Find available slots
-        List<ParkingSlot> availableSlots = new ArrayList<>();
-        for (ParkingSlot slot : currentLot.getSlots()) {
-            if (!slot.isOccupied()) {
-                availableSlots.add(slot);
-            }
-        }
-
-        if (availableSlots.isEmpty()) {
-            return; // Lot is full
-        }
-
-        // Pick random slot
-        ParkingSlot selectedSlot = availableSlots.get(random.nextInt(availableSlots.size()));
-
         // Generate random vehicle
         VehicleType[] vehicleTypes = VehicleType.values();
         VehicleType vehicleType = vehicleTypes[random.nextInt(vehicleTypes.length)];
@@ -308,30 +327,20 @@ public class ParkingVisualization extends JFrame {
         VehicleMake[] vehicleMakes = VehicleMake.values();
         VehicleMake vehicleMake = vehicleMakes[random.nextInt(vehicleMakes.length)];
 
-        String licensePlate = generateRandomLicensePlate();
-
-        // Check slot compatibility
-        if (!selectedSlot.getSlotType().isCompatibleWith(vehicleType)) {
-            return; // Try again next time
+        // Pick a random compatible free slot straight from the lot's free-slot bitmaps
+        ParkingSlot selectedSlot = currentLot.findRandomAvailableSlot(vehicleType, random);
+        if (selectedSlot == null) {
+            return; // No compatible slot free - try again next time
         }
 
-        // Add vehicle to database using VehicleDAO
-        String makeStr = vehicleMake.toString();
-        String model = "Model-" + random.nextInt(1000);
-        String[] colors = { "Black", "White", "Silver", "Red", "Blue", "Gray" };
-        String color = colors[random.nextInt(colors.length)];
-
-        vehicleDAO.addVehicle(simulationUserId, licensePlate, makeStr, model, color);
-
-        // Create parking session using the simpler constructor
-        VehicleSession session = new VehicleSession(
-                licensePlate,
-                vehicleType,
-                vehicleMake,
-                simulationUserId,
-                selectedSlot.getSlotId());
+        String licensePlate = generateRandomLicensePlate();
 
-        sessionDAO.insertSession(session);
+        // Claims the slot and saves vehicle + session (queued when write-behind is on)
+        VehicleSession session = parkingDAO.parkVehicle(currentLot, selectedSlot, licensePlate,
+                vehicleType, vehicleMake, simulationUserId);
+        if (session == null) {
+            return; // Slot just taken or saving failed
+        }
         System.out.println("[SIMULATION] Vehicle " + licensePlate + " parked in slot " + selectedSlot.getSlotNumber());
     }
 
@@ -346,8 +355,7 @@ public class ParkingVisualization extends JFrame {
         // Calculate random fee between $2-$20
         double fee = 2.0 + (random.nextDouble() * 18.0);
 
-        // Complete the session using getId() method
-        sessionDAO.completeSession(sessionToExit.getId(), fee);
+        parkingDAO.completeSession(sessionToExit, fee);
         System.out.println("[SIMULATION] Vehicle " + sessionToExit.getLicensePlate() + " exited. Fee: $"
                 + String.format("%.2f", fee));
     }
@@ -366,6 +374,7 @@ public class ParkingVisualization extends JFrame {
 
     @Override
     public void dispose() {
+        SessionChangeFeed.getInstance().unsubscribe(changeListener);
         if (refreshTimer != null) {
             refreshTimer.stop();
         }
@@ -375,6 +384,26 @@ public class ParkingVisualization extends JFrame {
         super.dispose();
     }
 
+    /**
+     * Occupancy numbers and slot list for one repaint
+     */
+    private static final class VisualizationSnapshot {
+        private final ParkingLot lot;
+        private final List<ParkingSlot> slots;
+        private final int occupied;
+        private final int available;
+        private final int total;
+
+        private VisualizationSnapshot(ParkingLot lot, List<ParkingSlot> slots, int occupied, int available,
+                int total) {
+            this.lot = lot;
+            this.slots = slots;
+            this.occupied = occupied;
+            this.available = available;
+            this.total = total;
+        }
+    }
+
     /**
      * Panel that renders the parking lot visualization
      */
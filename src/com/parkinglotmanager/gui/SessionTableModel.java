@@ -0,0 +1,184 @@
+package com.parkinglotmanager.gui;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.table.AbstractTableModel;
+
+import com.parkinglotmanager.model.VehicleSession;
+
+/**
+ * Table model over the active-session snapshot.
+ * update() diffs the new snapshot against the rows on screen: exited sessions
+ * are deleted, new ones inserted and rows whose ID or duration changed
+ * repainted. When the snapshot is the same list as last time (nothing was
+ * parked or exited) only the durations are checked.
+ */
+public class SessionTableModel extends AbstractTableModel {
+
+    private static final String[] COLUMNS = { "Session ID", "License Plate", "Vehicle Type", "Slot", "Duration" };
+
+    private final List<Row> rows = new ArrayList<>();
+    private List<VehicleSession> current = Collections.emptyList();
+
+    /**
+     * Show the given sessions, in order (EDT only).
+     */
+    public void update(List<VehicleSession> sessions) {
+        if (sessions != current) {
+            applyMembership(sessions);
+            current = sessions;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int runStart = -1;
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.get(i).refresh(now)) {
+                if (runStart < 0) {
+                    runStart = i;
+                }
+            } else if (runStart >= 0) {
+                fireTableRowsUpdated(runStart, i - 1);
+                runStart = -1;
+            }
+        }
+        if (runStart >= 0) {
+            fireTableRowsUpdated(runStart, rows.size() - 1);
+        }
+    }
+
+    public VehicleSession getSessionAt(int row) {
+        return rows.get(row).session;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Row r = rows.get(row);
+        switch (column) {
+            case 0:
+                return r.id;
+            case 1:
+                return r.session.getLicensePlate();
+            case 2:
+                return r.session.getVehicleType().getDisplayName();
+            case 3:
+                return r.session.getSlotId();
+            default:
+                return r.hours + " hours";
+        }
+    }
+
+    /**
+     * Delete rows for sessions that are gone and insert rows for new ones,
+     * keeping the snapshot's order.
+     */
+    private void applyMembership(List<VehicleSession> sessions) {
+        if (rows.isEmpty()) {
+            rebuildFrom(0, sessions);
+            return;
+        }
+        Map<VehicleSession, Boolean> incoming = new IdentityHashMap<>(sessions.size() * 2);
+        for (VehicleSession session : sessions) {
+            incoming.put(session, Boolean.TRUE);
+        }
+        Map<VehicleSession, Boolean> existing = new IdentityHashMap<>(rows.size() * 2);
+        for (Row row : rows) {
+            existing.put(row.session, Boolean.TRUE);
+        }
+
+        // Deletions, bottom-up so indexes stay valid
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            if (!incoming.containsKey(rows.get(i).session)) {
+                rows.remove(i);
+                fireTableRowsDeleted(i, i);
+            }
+        }
+
+        // Insertions; existing rows keep their relative order in the snapshot
+        for (int j = 0; j < sessions.size(); j++) {
+            VehicleSession session = sessions.get(j);
+            if (j < rows.size() && rows.get(j).session == session) {
+                continue;
+            }
+            if (existing.containsKey(session)) {
+                // Reordered rather than added - rebuild from here on
+                rebuildFrom(j, sessions);
+                return;
+            }
+            rows.add(j, new Row(session));
+            fireTableRowsInserted(j, j);
+        }
+    }
+
+    private void rebuildFrom(int start, List<VehicleSession> sessions) {
+        int oldSize = rows.size();
+        rows.subList(start, oldSize).clear();
+        for (int j = start; j < sessions.size(); j++) {
+            rows.add(new Row(sessions.get(j)));
+        }
+        if (oldSize > start) {
+            fireTableRowsDeleted(start, oldSize - 1);
+        }
+        if (rows.size() > start) {
+            fireTableRowsInserted(start, rows.size() - 1);
+        }
+    }
+
+    /**
+     * A session plus the values it showed when its row was last painted
+     */
+    private static final class Row {
+        private final VehicleSession session;
+        private int id;
+        private long hours;
+        // First moment the rounded-up hour count goes past hours
+        private LocalDateTime hoursChangeAt;
+
+        private Row(VehicleSession session) {
+            this.session = session;
+            this.id = session.getId();
+            updateHours();
+        }
+
+        /**
+         * @return true if the ID (provisional to saved) or duration changed
+         */
+        private boolean refresh(LocalDateTime now) {
+            boolean changed = false;
+            if (session.getId() != id) {
+                id = session.getId();
+                changed = true;
+            }
+            if (!now.isBefore(hoursChangeAt)) {
+                long before = hours;
+                updateHours();
+                changed |= hours != before;
+            }
+            return changed;
+        }
+
+        private void updateHours() {
+            hours = session.getParkedHours();
+            hoursChangeAt = session.getEntryTime().plusMinutes(hours * 60 + 1);
+        }
+    }
+}
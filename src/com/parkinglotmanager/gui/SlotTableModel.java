@@ -0,0 +1,116 @@
+package com.parkinglotmanager.gui;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.swing.table.AbstractTableModel;
+
+import com.parkinglotmanager.model.ParkingSlot;
+
+/**
+ * Table model over the live slots of one parking lot.
+ * Cells are read straight from the ParkingSlot objects; update() compares each
+ * row with what was last shown and fires events only for rows that changed,
+ * so a refresh with no changes costs one pass over a long[] and no allocation.
+ */
+public class SlotTableModel extends AbstractTableModel {
+
+    private static final String[] COLUMNS = { "Slot #", "Type", "Status", "Vehicle" };
+
+    private List<ParkingSlot> slots = Collections.emptyList();
+    // What each row showed when its last event was fired
+    private long[] shown = new long[0];
+
+    /**
+     * Show the given slots (EDT only). If they are the same slots as before,
+     * only rows whose contents changed are repainted.
+     */
+    public void update(List<ParkingSlot> newSlots) {
+        if (!sameSlots(newSlots)) {
+            slots = new ArrayList<>(newSlots);
+            shown = new long[slots.size()];
+            for (int i = 0; i < shown.length; i++) {
+                shown[i] = rowKey(slots.get(i));
+            }
+            fireTableDataChanged();
+            return;
+        }
+
+        // Fire one event per run of consecutive changed rows
+        int runStart = -1;
+        for (int i = 0; i < shown.length; i++) {
+            long key = rowKey(slots.get(i));
+            if (key != shown[i]) {
+                shown[i] = key;
+                if (runStart < 0) {
+                    runStart = i;
+                }
+            } else if (runStart >= 0) {
+                fireTableRowsUpdated(runStart, i - 1);
+                runStart = -1;
+            }
+        }
+        if (runStart >= 0) {
+            fireTableRowsUpdated(runStart, shown.length - 1);
+        }
+    }
+
+    public ParkingSlot getSlotAt(int row) {
+        return slots.get(row);
+    }
+
+    @Override
+    public int getRowCount() {
+        return slots.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        ParkingSlot slot = slots.get(row);
+        switch (column) {
+            case 0:
+                return slot.getSlotNumber();
+            case 1:
+                return slot.getSlotType().getDisplayName();
+            case 2:
+                return slot.getStatus();
+            default:
+                return slot.isOccupied() ? slot.getVehicleType() : "-";
+        }
+    }
+
+    private boolean sameSlots(List<ParkingSlot> newSlots) {
+        if (newSlots.size() != slots.size()) {
+            return false;
+        }
+        for (int i = 0; i < newSlots.size(); i++) {
+            if (newSlots.get(i) != slots.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Everything the row displays that can change, packed into one long
+     */
+    private static long rowKey(ParkingSlot slot) {
+        String status = slot.getStatus();
+        long key = status != null ? (long) status.hashCode() << 32 : 0L;
+        key |= slot.getSlotType().ordinal() << 8;
+        key |= slot.getVehicleType() != null ? (slot.getVehicleType().ordinal() + 1) << 1 : 0;
+        key |= slot.isOccupied() ? 1 : 0;
+        return key;
+    }
+}
@@ -0,0 +1,136 @@
+package com.parkinglotmanager.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.parkinglotmanager.enums.LotType;
+import com.parkinglotmanager.enums.SlotType;
+
+/**
+ * The Cal Poly Pomona parking lots with their actual capacities.
+ * Shared by the GUI and the headless load generator.
+ */
+public final class CampusLots {
+
+    private CampusLots() {
+    }
+
+    /**
+     * Build all campus lots with freshly generated (empty) slots
+     */
+    public static List<ParkingLot> create() {
+        List<ParkingLot> lots = new ArrayList<>();
+
+        ParkingLot structure1 = new ParkingLot("LOT-001", "Structure 1",
+                "East of Voorhis Alumni Park and West of Police and Parking Services (Bldg. 109)", LotType.STRUCTURE);
+        ParkingLot structure2 = new ParkingLot("LOT-002", "Structure 2", "Southeast of iPoly High School (Bldg. 128)",
+                LotType.STRUCTURE);
+        ParkingLot lotB = new ParkingLot("LOT-003", "Lot B", "East of Structure 2", LotType.SURFACE);
+        ParkingLot lotE1 = new ParkingLot("LOT-004", "Lot E1", "Northeast of Lot E2", LotType.SURFACE);
+        ParkingLot lotE2 = new ParkingLot("LOT-005", "Lot E2", "Northwest of Interim Design Center (Bldg. 89)",
+                LotType.SURFACE);
+        ParkingLot lotF1 = new ParkingLot("LOT-006", "Lot F1", "Southeast of Residence Hall, Aliso (Bldg. 23)",
+                LotType.SURFACE);
+        ParkingLot lotF10 = new ParkingLot("LOT-007", "Lot F10", "East of Police and Parking Services (Bldg. 109)",
+                LotType.SURFACE);
+        ParkingLot lotF3 = new ParkingLot("LOT-008", "Lot F3",
+                "North of Lot F4 and South of Recreation/Maintenance (Bldg. 71)", LotType.SURFACE);
+        ParkingLot lotF5 = new ParkingLot("LOT-009", "Lot F5", "Northeast of Structure 1 (Building 106)",
+                LotType.SURFACE);
+        ParkingLot lotF9 = new ParkingLot("LOT-010", "Lot F9", "South of Structure 1 (Bldg. 106)", LotType.SURFACE);
+        ParkingLot lotJ = new ParkingLot("LOT-011", "Lot J", "Southwest of College of Environmental Design (Bldg. 7)",
+                LotType.SURFACE);
+        ParkingLot lotK = new ParkingLot("LOT-012", "Lot K", "Adjacent to Building 128: iPoly High School",
+                LotType.SURFACE);
+        ParkingLot lotM = new ParkingLot("LOT-013", "Lot M",
+                "South of Parking Lot J and Southwest of College of Environmental Design (Bldg. 7)", LotType.SURFACE);
+        ParkingLot lotN = new ParkingLot("LOT-014", "Lot N",
+                "On Bronco Way Across from the Child Care Center (Building 116)", LotType.SURFACE);
+        ParkingLot lotR = new ParkingLot("LOT-015", "Lot R", "Northwest of Kellogg House Pomona (Bldg. 112)",
+                LotType.SURFACE);
+        ParkingLot lotT = new ParkingLot("LOT-016", "Lot T", "Adjacent to Building 28: Fruit and Crops Unit",
+                LotType.SURFACE);
+        ParkingLot lotU = new ParkingLot("LOT-017", "Lot U", "West of University Village (Bldg. 200)", LotType.SURFACE);
+
+        // Generate parking slots with realistic capacities (Cal Poly Pomona actual
+        // numbers)
+        generateSlots(structure1, 1250); // Structure 1: 1,250 spaces
+        generateSlots(structure2, 850); // Structure 2: 850 spaces
+        generateSlots(lotB, 450); // Lot B: 450 spaces
+        generateSlots(lotE1, 320); // Lot E1: 320 spaces
+        generateSlots(lotE2, 280); // Lot E2: 280 spaces
+        generateSlots(lotF1, 240); // Lot F1: 240 spaces
+        generateSlots(lotF10, 180); // Lot F10: 180 spaces
+        generateSlots(lotF3, 210); // Lot F3: 210 spaces
+        generateSlots(lotF5, 190); // Lot F5: 190 spaces
+        generateSlots(lotF9, 165); // Lot F9: 165 spaces
+        generateSlots(lotJ, 380); // Lot J: 380 spaces
+        generateSlots(lotK, 420); // Lot K: 420 spaces
+        generateSlots(lotM, 340); // Lot M: 340 spaces
+        generateSlots(lotN, 290); // Lot N: 290 spaces
+        generateSlots(lotR, 260); // Lot R: 260 spaces
+        generateSlots(lotT, 175); // Lot T: 175 spaces
+        generateSlots(lotU, 310); // Lot U: 310 spaces
+
+        lots.add(structure1);
+        lots.add(structure2);
+        lots.add(lotB);
+        lots.add(lotE1);
+        lots.add(lotE2);
+        lots.add(lotF1);
+        lots.add(lotF10);
+        lots.add(lotF3);
+        lots.add(lotF5);
+        lots.add(lotF9);
+        lots.add(lotJ);
+        lots.add(lotK);
+        lots.add(lotM);
+        lots.add(lotN);
+        lots.add(lotR);
+        lots.add(lotT);
+        lots.add(lotU);
+
+        return lots;
+    }
+
+    /**
+     * Helper method to generate parking slots for a lot with realistic distribution
+     * 
+     * @param lot      The parking lot to add slots to
+     * @param capacity Total number of parking slots to generate
+     */
+    private static void generateSlots(ParkingLot lot, int capacity) {
+        // Realistic slot type distribution:
+        // 75% regular CAR slots
+        // 10% COMPACT slots
+        // 5% EV charging slots
+        // 5% HANDICAPPED slots
+        // 5% MOTORCYCLE slots
+
+        int regularSlots = (int) (capacity * 0.75);
+        int compactSlots = (int) (capacity * 0.10);
+        int evSlots = (int) (capacity * 0.05);
+        int handicappedSlots = (int) (capacity * 0.05);
+        int motorcycleSlots = capacity - regularSlots - compactSlots - evSlots - handicappedSlots;
+
+        int slotNumber = 1;
+
+        slotNumber = addSlots(lot, slotNumber, regularSlots,     SlotType.CAR);
+        slotNumber = addSlots(lot, slotNumber, compactSlots,     SlotType.COMPACT);
+        slotNumber = addSlots(lot, slotNumber, evSlots,          SlotType.EV);
+        slotNumber = addSlots(lot, slotNumber, handicappedSlots, SlotType.HANDICAPPED);
+        slotNumber = addSlots(lot, slotNumber, motorcycleSlots,  SlotType.MOTORCYCLE);
+    }
+
+    private static int addSlots(ParkingLot lot, int startNumber, int count, SlotType type) {
+        int slotNumber = startNumber;
+
+        for (int i = 0; i < count; i++) {
+            // Stored as primitives only; IDs and slot objects are made on demand
+            lot.addSlot(slotNumber, type);
+            slotNumber++;
+        }
+
+        return slotNumber;
+    }
+}
@@ -0,0 +1,71 @@
+package com.parkinglotmanager.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * How full drivers currently say a lot is: the outlier-trimmed, time-decayed
+ * average of recent reports.
+ */
+public class CrowdEstimate {
+    private final String lotId;
+    private final LocalDateTime computedAt;
+    private final double fullness;
+    private final int estimatedAvailable;
+    private final int reportCount;
+    private final double weight;
+
+    public CrowdEstimate(String lotId, LocalDateTime computedAt, double fullness, int estimatedAvailable,
+            int reportCount, double weight) {
+        this.lotId = lotId;
+        this.computedAt = computedAt;
+        this.fullness = fullness;
+        this.estimatedAvailable = estimatedAvailable;
+        this.reportCount = reportCount;
+        this.weight = weight;
+    }
+
+    public String getLotId() {
+        return lotId;
+    }
+
+    public LocalDateTime getComputedAt() {
+        return computedAt;
+    }
+
+    /**
+     * Percent full, 0-100
+     */
+    public double getFullness() {
+        return fullness;
+    }
+
+    public int getEstimatedAvailable() {
+        return estimatedAvailable;
+    }
+
+    /**
+     * Reports in the window
+     */
+    public int getReportCount() {
+        return reportCount;
+    }
+
+    /**
+     * Total weight of the reports in the window: each report's confidence
+     * (0-1), decayed by its age. Roughly "how many fully trusted fresh
+     * reports this is worth".
+     */
+    public double getWeight() {
+        return weight;
+    }
+
+    public boolean hasReports() {
+        return reportCount > 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CrowdEstimate{lot='%s', fullness=%.1f%%, available=%d, reports=%d, weight=%.2f}",
+                lotId, fullness, estimatedAvailable, reportCount, weight);
+    }
+}
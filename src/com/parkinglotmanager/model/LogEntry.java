@@ -0,0 +1,55 @@
+package com.parkinglotmanager.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * One audit log line, as stored in the Log table.
+ */
+public class LogEntry {
+    private final String logType;
+    private final LocalDateTime logTime;
+    private final String message;
+    private final Integer userId;
+
+    /**
+     * Constructor for a new entry, timestamped now
+     */
+    public LogEntry(String logType, String message, Integer userId) {
+        this(logType, LocalDateTime.now(), message, userId);
+    }
+
+    public LogEntry(String logType, LocalDateTime logTime, String message, Integer userId) {
+        this.logType = logType;
+        this.logTime = logTime;
+        this.message = message;
+        this.userId = userId;
+    }
+
+    /**
+     * e.g. "login", "park", "exit"
+     */
+    public String getLogType() {
+        return logType;
+    }
+
+    public LocalDateTime getLogTime() {
+        return logTime;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * The user the entry is about, or null
+     */
+    public Integer getUserId() {
+        return userId;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LogEntry{type='%s', time=%s, user=%s, message='%s'}",
+                logType, logTime, userId, message);
+    }
+}
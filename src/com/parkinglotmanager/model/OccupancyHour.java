@@ -0,0 +1,75 @@
+package com.parkinglotmanager.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Occupancy of one parking lot during one clock hour, as stored in the
+ * OccupancyHourly rollup table.
+ */
+public class OccupancyHour {
+    private final String lotId;
+    private final LocalDateTime hourStart;
+    private final int arrivals;          // Sessions that entered during the hour
+    private final int departures;        // Sessions that exited during the hour
+    private final double revenue;        // Paid fees of sessions that exited during the hour
+    private final long occupiedSeconds;  // Vehicle-seconds parked during the hour
+    private final int coveredSeconds;    // Seconds of the hour rolled up (3600 once the hour is over)
+    private final int peakOccupied;      // Most vehicles parked at the same time
+
+    public OccupancyHour(String lotId, LocalDateTime hourStart, int arrivals, int departures, double revenue,
+            long occupiedSeconds, int coveredSeconds, int peakOccupied) {
+        this.lotId = lotId;
+        this.hourStart = hourStart;
+        this.arrivals = arrivals;
+        this.departures = departures;
+        this.revenue = revenue;
+        this.occupiedSeconds = occupiedSeconds;
+        this.coveredSeconds = coveredSeconds;
+        this.peakOccupied = peakOccupied;
+    }
+
+    public String getLotId() {
+        return lotId;
+    }
+
+    public LocalDateTime getHourStart() {
+        return hourStart;
+    }
+
+    public int getArrivals() {
+        return arrivals;
+    }
+
+    public int getDepartures() {
+        return departures;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+
+    public long getOccupiedSeconds() {
+        return occupiedSeconds;
+    }
+
+    public int getCoveredSeconds() {
+        return coveredSeconds;
+    }
+
+    public int getPeakOccupied() {
+        return peakOccupied;
+    }
+
+    /**
+     * Average number of vehicles parked over the part of the hour covered
+     */
+    public double getAverageOccupied() {
+        return coveredSeconds > 0 ? (double) occupiedSeconds / coveredSeconds : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("OccupancyHour{lot=%s, hour=%s, avg=%.1f, peak=%d, in=%d, out=%d}",
+                lotId, hourStart, getAverageOccupied(), peakOccupied, arrivals, departures);
+    }
+}
@@ -9,10 +9,20 @@ import java.util.Map;
  * Combines sensor data, user reports, and other sources.
  */
 public class OccupancyReport {
+    // Source names used in the breakdown
+    public static final String SOURCE_SENSORS = "sensors";
+    public static final String SOURCE_USER_REPORTS = "userReports";
+    public static final String SOURCE_DATABASE = "database";
+
     private String lotId;
     private LocalDateTime timestamp;
     private int estimatedAvailable;
     private Map<String, Integer> sourceBreakdown;
+    // Set by the fusion engine: 95% interval for the available count, and a
+    // confidence score derived from its width (negative when not set)
+    private int availableLow;
+    private int availableHigh;
+    private float confidence = -1f;
 
     /**
      * Constructor for creating a new occupancy report
@@ -76,11 +86,38 @@ public class OccupancyReport {
     }
 
     /**
-     * Calculate confidence score based on data sources
+     * Lower end of the 95% interval for the available count
+     */
+    public int getAvailableLow() {
+        return availableLow;
+    }
+
+    /**
+     * Upper end of the 95% interval for the available count
+     */
+    public int getAvailableHigh() {
+        return availableHigh;
+    }
+
+    /**
+     * Set the 95% interval and the confidence score (0.0 - 1.0) of a fused estimate
+     */
+    public void setInterval(int availableLow, int availableHigh, float confidence) {
+        this.availableLow = availableLow;
+        this.availableHigh = availableHigh;
+        this.confidence = confidence;
+    }
+
+    /**
+     * Calculate confidence score based on data sources. A fused estimate
+     * returns the score set with its interval.
      * 
      * @return confidence score between 0.0 and 1.0
      */
     public float asConfidenceScore() {
+        if (confidence >= 0f) {
+            return confidence;
+        }
         int totalSources = sourceBreakdown.size();
         if (totalSources == 0)
             return 0.0f;
@@ -93,18 +130,18 @@ public class OccupancyReport {
         float totalWeight = 0.0f;
         float weightedSum = 0.0f;
 
-        if (sourceBreakdown.containsKey("sensors")) {
-            weightedSum += sensorWeight * sourceBreakdown.get("sensors");
+        if (sourceBreakdown.containsKey(SOURCE_SENSORS)) {
+            weightedSum += sensorWeight * sourceBreakdown.get(SOURCE_SENSORS);
             totalWeight += sensorWeight;
         }
 
-        if (sourceBreakdown.containsKey("userReports")) {
-            weightedSum += userReportWeight * sourceBreakdown.get("userReports");
+        if (sourceBreakdown.containsKey(SOURCE_USER_REPORTS)) {
+            weightedSum += userReportWeight * sourceBreakdown.get(SOURCE_USER_REPORTS);
             totalWeight += userReportWeight;
         }
 
-        if (sourceBreakdown.containsKey("database")) {
-            weightedSum += databaseWeight * sourceBreakdown.get("database");
+        if (sourceBreakdown.containsKey(SOURCE_DATABASE)) {
+            weightedSum += databaseWeight * sourceBreakdown.get(SOURCE_DATABASE);
             totalWeight += databaseWeight;
         }
 
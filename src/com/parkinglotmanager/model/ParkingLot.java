@@ -1,20 +1,28 @@
 package com.parkinglotmanager.model;
 
 import com.parkinglotmanager.enums.LotType;
+import com.parkinglotmanager.enums.SlotType;
+import com.parkinglotmanager.enums.VehicleType;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Random;
 
 /**
  * Represents a parking lot location with multiple parking slots and sensors.
+ * Final because the constructor hands the lot to its SlotStore.
  */
-public class ParkingLot {
+public final class ParkingLot {
     private String lotId;
     private String name;
     private String location;
     private LotType lotType;
-    private List<ParkingSlot> slots;
     private List<Sensor> sensors;
+    // Slot state as primitive arrays; ParkingSlot objects are views into it
+    private volatile SlotStore store;
+    private final List<ParkingSlot> slotView = new SlotList();
+    // Free-slot bitmaps per SlotType, indexed by position in the store
+    private SlotAllocator allocator;
 
     /**
      * Constructor for creating a new parking lot
@@ -24,8 +32,9 @@ public class ParkingLot {
         this.name = name;
         this.location = location;
         this.lotType = lotType;
-        this.slots = new ArrayList<>();
         this.sensors = new ArrayList<>();
+        this.store = new SlotStore(this, lotId, 16);
+        this.allocator = new SlotAllocator();
     }
 
     // Getters and Setters
@@ -33,8 +42,12 @@ public class ParkingLot {
         return lotId;
     }
 
+    /**
+     * Change the lot ID; slots with standard IDs are renamed to match
+     */
     public void setLotId(String lotId) {
         this.lotId = lotId;
+        store.setLotId(lotId);
     }
 
     public String getName() {
@@ -68,12 +81,21 @@ public class ParkingLot {
         this.lotType = lotType;
     }
 
+    /**
+     * Read-only view of the slots; use addSlot/removeSlot to change them
+     */
     public List<ParkingSlot> getSlots() {
-        return slots;
+        return slotView;
     }
 
-    public void setSlots(List<ParkingSlot> slots) {
-        this.slots = slots;
+    public synchronized void setSlots(List<ParkingSlot> slots) {
+        List<ParkingSlot> replacements = new ArrayList<>(slots); // May be our own slot list
+        store.detachAll();
+        this.store = new SlotStore(this, lotId, Math.max(16, replacements.size()));
+        this.allocator.clear();
+        for (ParkingSlot slot : replacements) {
+            addSlot(slot);
+        }
     }
 
     public List<Sensor> getSensors() {
@@ -88,25 +110,28 @@ public class ParkingLot {
      * Get total number of parking spaces in this lot
      */
     public int getTotalSpaces() {
-        return slots.size();
+        return store.size();
     }
 
     /**
      * Get number of available parking spaces
      */
     public int getAvailableSpaces() {
-        return (int) slots.stream()
-                .filter(ParkingSlot::isAvailable)
-                .count();
+        return allocator.countFree();
+    }
+
+    /**
+     * Get number of available spaces a vehicle type could park in
+     */
+    public int getAvailableSpacesFor(VehicleType vehicleType) {
+        return allocator.countFreeCompatible(vehicleType);
     }
 
     /**
      * Get number of spaces by slot type
      */
-    public int getSpacesByType(com.parkinglotmanager.enums.SlotType type) {
-        return (int) slots.stream()
-                .filter(slot -> slot.getSlotType() == type)
-                .count();
+    public int getSpacesByType(SlotType type) {
+        return store.countType(type);
     }
 
     /**
@@ -117,12 +142,218 @@ public class ParkingLot {
     }
 
     /**
-     * Add a parking slot to this lot
+     * Add a parking slot to this lot. The slot object becomes a view of the
+     * lot's slot store; it is ignored if its ID or number is already taken.
+     */
+    public synchronized void addSlot(ParkingSlot slot) {
+        if (slot.getIndex() >= 0) {
+            return; // Already in a lot
+        }
+        int index = store.add(slot.getSlotId(), slot.getSlotNumber(), slot.getSlotType(),
+                slot.getStatusByte(), slot.getVehicleType(), SlotStore.toMillis(slot.getLastUpdated()));
+        if (index >= 0) {
+            store.setView(index, slot);
+            slot.attach(store, index);
+            allocator.update(index, slot.getSlotType(), slot.isAvailable());
+        }
+    }
+
+    /**
+     * Add an available slot with the standard ID (lotId-SLOT-nnn) without
+     * creating a ParkingSlot object; one is made if the slot is ever looked up.
+     *
+     * @return false if the number is already taken
+     */
+    public synchronized boolean addSlot(int slotNumber, SlotType slotType) {
+        int index = store.add(null, slotNumber, slotType, ParkingSlot.STATE_AVAILABLE, null,
+                System.currentTimeMillis());
+        if (index < 0) {
+            return false;
+        }
+        allocator.update(index, slotType, true);
+        return true;
+    }
+
+    /**
+     * The standard ID of a slot in a lot, e.g. LOT-001-SLOT-004
+     */
+    public static String slotId(String lotId, int slotNumber) {
+        return SlotStore.slotId(lotId, slotNumber);
+    }
+
+    /**
+     * Remove a parking slot from this lot
+     *
+     * @return true if the slot was part of this lot
+     */
+    public synchronized boolean removeSlot(ParkingSlot slot) {
+        SlotStore current = store;
+        int index = slot.getSlotId() != null ? current.indexOf(slot.getSlotId()) : -1;
+        if (index < 0) {
+            return false;
+        }
+        current.remove(index);
+
+        // Positions after the removed slot shift down, so rebuild the bitmaps
+        allocator.clear();
+        for (int i = 0; i < current.size(); i++) {
+            allocator.update(i, current.getSlotType(i), current.status(i) == ParkingSlot.STATE_AVAILABLE);
+        }
+        return true;
+    }
+
+    /**
+     * Called by a slot of this lot whenever its type, status or occupancy changes
+     */
+    void slotChanged(int index) {
+        SlotStore current = store;
+        allocator.update(index, current.getSlotType(index), current.status(index) == ParkingSlot.STATE_AVAILABLE);
+    }
+
+    /**
+     * Claim the lowest-numbered free slot compatible with the vehicle type.
+     * Safe to call from many threads at once: each returned slot is held
+     * (RESERVED) by exactly one caller.
+     *
+     * @return the claimed slot, or null if no compatible slot could be claimed
+     */
+    public ParkingSlot claimAvailableSlot(VehicleType vehicleType) {
+        int from = 0;
+        while (true) {
+            SlotStore current = store;
+            int layout = current.layout();
+            int index = allocator.nextFree(vehicleType, from);
+            if (index < 0) {
+                return null;
+            }
+            int result = index < current.size() && current.getSlotType(index).isCompatibleWith(vehicleType)
+                    ? current.compareAndSetStatus(layout, index, ParkingSlot.STATE_AVAILABLE,
+                            ParkingSlot.STATE_RESERVED)
+                    : SlotStore.CAS_FAILED;
+            if (result == SlotStore.CAS_SET) {
+                current.setLastUpdated(index, System.currentTimeMillis());
+                slotChanged(index);
+                return current.view(index);
+            }
+            // Lost the race for this one - keep looking further along, or
+            // start over if a slot was removed meanwhile
+            from = result == SlotStore.CAS_MOVED ? 0 : index + 1;
+        }
+    }
+
+    /**
+     * Lowest-numbered available slot compatible with the vehicle type, or null if full
+     */
+    public ParkingSlot findFirstAvailableSlot(VehicleType vehicleType) {
+        return slotAt(allocator.firstFree(vehicleType));
+    }
+
+    /**
+     * A randomly placed available slot compatible with the vehicle type, or null if full
+     */
+    public ParkingSlot findRandomAvailableSlot(VehicleType vehicleType, Random random) {
+        return slotAt(allocator.randomFree(vehicleType, random));
+    }
+
+    /**
+     * Available compatible slot closest to the given slot number, or null if full
      */
-    public void addSlot(ParkingSlot slot) {
-        if (!slots.contains(slot)) {
-            slots.add(slot);
+    public ParkingSlot findNearestAvailableSlot(VehicleType vehicleType, int slotNumber) {
+        int target = store.indexOfNumber(slotNumber);
+        int position = target >= 0 ? target : slotNumber - 1;
+        return slotAt(allocator.nearestFree(vehicleType, position));
+    }
+
+    /**
+     * Available slots compatible with a vehicle type, in slot-list order
+     */
+    public List<ParkingSlot> getAvailableSlotsFor(VehicleType vehicleType) {
+        List<ParkingSlot> result = new ArrayList<>(allocator.countFreeCompatible(vehicleType));
+        for (SlotType type : SlotAllocator.compatibleSlotTypes(vehicleType)) {
+            collectAvailable(type, result);
+        }
+        result.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+        return result;
+    }
+
+    private void collectAvailable(SlotType type, List<ParkingSlot> into) {
+        for (int i = allocator.nextFree(type, 0); i >= 0; i = allocator.nextFree(type, i + 1)) {
+            into.add(store.view(i));
+        }
+    }
+
+    private ParkingSlot slotAt(int index) {
+        SlotStore current = store;
+        return index >= 0 && index < current.size() ? current.view(index) : null;
+    }
+
+    /**
+     * Find a slot in this lot by its ID in O(1), or null if not in this lot
+     */
+    public ParkingSlot getSlotById(String slotId) {
+        return slotId != null ? slotAt(store.indexOf(slotId)) : null;
+    }
+
+    /**
+     * Find a slot in this lot by its number in O(1), or null if not in this lot
+     */
+    public ParkingSlot getSlotByNumber(int slotNumber) {
+        return slotAt(store.indexOfNumber(slotNumber));
+    }
+
+    /**
+     * Resolve a slot ID across several lots (one hash lookup per lot)
+     */
+    public static ParkingSlot findSlot(List<ParkingLot> lots, String slotId) {
+        ParkingLot lot = findLotForSlot(lots, slotId);
+        return lot != null ? lot.getSlotById(slotId) : null;
+    }
+
+    /**
+     * The lot ID a slot ID starts with ("LOT-001-SLOT-004" is in LOT-001), or
+     * null if it does not follow that format. Needs no lot list, so it also
+     * works for historical sessions.
+     */
+    public static String lotIdOfSlot(String slotId) {
+        int separator = slotId != null ? slotId.lastIndexOf("-SLOT-") : -1;
+        return separator > 0 ? slotId.substring(0, separator) : null;
+    }
+
+    /**
+     * The Lot table's numeric ID for a lot ID ("LOT-007" is 7), or -1 if it
+     * does not follow that format
+     */
+    public static int databaseId(String lotId) {
+        if (lotId == null || !lotId.startsWith("LOT-")) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(lotId.substring(4));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * The lot ID for a Lot table ID (7 is "LOT-007")
+     */
+    public static String lotIdOf(int databaseId) {
+        return String.format("LOT-%03d", databaseId);
+    }
+
+    /**
+     * Find which lot owns a slot ID, or null if no lot has it
+     */
+    public static ParkingLot findLotForSlot(List<ParkingLot> lots, String slotId) {
+        if (slotId == null) {
+            return null;
+        }
+        for (ParkingLot lot : lots) {
+            if (lot.store.indexOf(slotId) >= 0) {
+                return lot;
+            }
         }
+        return null;
     }
 
     /**
@@ -137,10 +368,10 @@ public class ParkingLot {
     /**
      * Get available slots of a specific type
      */
-    public List<ParkingSlot> getAvailableSlotsByType(com.parkinglotmanager.enums.SlotType type) {
-        return slots.stream()
-                .filter(slot -> slot.getSlotType() == type && slot.isAvailable())
-                .collect(Collectors.toList());
+    public List<ParkingSlot> getAvailableSlotsByType(SlotType type) {
+        List<ParkingSlot> result = new ArrayList<>(allocator.countFree(type));
+        collectAvailable(type, result);
+        return result;
     }
 
     /**
@@ -153,6 +384,25 @@ public class ParkingLot {
         return ((total - getAvailableSpaces()) / (double) total) * 100.0;
     }
 
+    /**
+     * Live read-only list of the lot's slots, backed by the slot store
+     */
+    private final class SlotList extends AbstractList<ParkingSlot> {
+        @Override
+        public ParkingSlot get(int index) {
+            SlotStore current = store;
+            if (index < 0 || index >= current.size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + current.size());
+            }
+            return current.view(index);
+        }
+
+        @Override
+        public int size() {
+            return store.size();
+        }
+    }
+
     @Override
     public String toString() {
         return String.format("ParkingLot{id='%s', name='%s', location='%s', type=%s, spaces=%d/%d}",
@@ -3,32 +3,38 @@ package com.parkinglotmanager.model;
 import com.parkinglotmanager.enums.SlotType;
 import com.parkinglotmanager.enums.VehicleType;
 import java.time.LocalDateTime;
+import java.util.function.IntUnaryOperator;
 
 /**
  * Represents an individual parking slot within a parking lot.
  * Tracks occupancy status, slot type, and last update time.
+ *
+ * A slot is a view of one position in its lot's SlotStore and holds no state
+ * of its own; a slot that is not in a lot keeps its state in a one-slot store.
+ * Every status change is a compare-and-set from the status it replaces, so a
+ * change never overwrites one made by another thread in between; occupancy
+ * changes also leave a gate's RESERVED claim alone.
+ *
+ * Final because the constructor registers the slot as its store's view.
  */
-public class ParkingSlot {
-    private String slotId;
-    private String lotId;
-    private int slotNumber;
-    private SlotType slotType;
-    private boolean occupied;
-    private VehicleType vehicleType; // Type of vehicle currently parked (if occupied)
-    private LocalDateTime lastUpdated;
-    private String status; // AVAILABLE, OCCUPIED, RESERVED, OUT_OF_SERVICE
+public final class ParkingSlot {
+    // Slot states as stored in the owning lot's atomic state array
+    public static final int STATE_AVAILABLE = 0;
+    public static final int STATE_RESERVED = 1;
+    public static final int STATE_OCCUPIED = 2;
+    public static final int STATE_OUT_OF_SERVICE = 3;
+
+    private static final String[] STATUS_NAMES = { "AVAILABLE", "RESERVED", "OCCUPIED", "OUT_OF_SERVICE" };
+
+    // Where this slot's state lives; replaced when the slot joins or leaves a lot
+    private volatile SlotStore store;
+    private volatile int index;
 
     /**
      * Constructor for creating a new parking slot
      */
     public ParkingSlot(String slotId, String lotId, int slotNumber, SlotType slotType) {
-        this.slotId = slotId;
-        this.lotId = lotId;
-        this.slotNumber = slotNumber;
-        this.slotType = slotType;
-        this.occupied = false;
-        this.lastUpdated = LocalDateTime.now();
-        this.status = "AVAILABLE";
+        this(slotId, lotId, slotNumber, slotType, false, null, LocalDateTime.now(), "AVAILABLE");
     }
 
     /**
@@ -36,138 +42,376 @@ public class ParkingSlot {
      */
     public ParkingSlot(String slotId, String lotId, int slotNumber, SlotType slotType,
             boolean occupied, VehicleType vehicleType, LocalDateTime lastUpdated, String status) {
-        this.slotId = slotId;
-        this.lotId = lotId;
-        this.slotNumber = slotNumber;
-        this.slotType = slotType;
-        this.occupied = occupied;
-        this.vehicleType = vehicleType;
-        this.lastUpdated = lastUpdated;
-        this.status = status;
+        SlotStore own = new SlotStore(null, lotId, 1);
+        own.add(slotId, slotNumber, slotType, statusOf(status, occupied), vehicleType,
+                SlotStore.toMillis(lastUpdated));
+        own.setView(0, this);
+        this.store = own;
+        this.index = 0;
+    }
+
+    /**
+     * View of a position in a lot's store
+     */
+    ParkingSlot(SlotStore store, int index) {
+        this.store = store;
+        this.index = index;
     }
 
     // Getters and Setters
     public String getSlotId() {
-        return slotId;
+        return store.getSlotId(index);
     }
 
     public void setSlotId(String slotId) {
-        this.slotId = slotId;
+        store.setSlotId(index, slotId);
     }
 
+    /**
+     * ID of the lot this slot belongs to; a slot in a lot always reports that lot's ID
+     */
     public String getLotId() {
-        return lotId;
+        return store.getLotId();
     }
 
     public void setLotId(String lotId) {
-        this.lotId = lotId;
+        SlotStore current = store;
+        if (current.getLot() == null) {
+            String slotId = current.getSlotId(index);
+            current.setLotId(lotId);
+            current.setSlotId(index, slotId);
+        }
     }
 
     public int getSlotNumber() {
-        return slotNumber;
+        return store.getNumber(index);
     }
 
     public void setSlotNumber(int slotNumber) {
-        this.slotNumber = slotNumber;
+        store.setNumber(index, slotNumber);
     }
 
     public SlotType getSlotType() {
-        return slotType;
+        return store.getSlotType(index);
     }
 
     public void setSlotType(SlotType slotType) {
-        this.slotType = slotType;
+        store.setSlotType(index, slotType);
+        notifyLot();
     }
 
     /**
      * Alternative method name for UML compatibility
      */
     public SlotType getType() {
-        return slotType;
+        return getSlotType();
     }
 
     public boolean isOccupied() {
-        return occupied;
+        return (store.status(index) & SlotStore.OCCUPIED_FLAG) != 0;
     }
 
-    public void setOccupied(boolean occupied) {
-        this.occupied = occupied;
-        this.lastUpdated = LocalDateTime.now();
-        this.status = occupied ? "OCCUPIED" : "AVAILABLE";
+    /**
+     * Mark the slot occupied or free, keeping its vehicle type
+     *
+     * @return false if the slot is held by a claim (RESERVED) and was left alone
+     */
+    public boolean setOccupied(boolean occupied) {
+        if (!changeStatus(occupied ? ParkingSlot::occupied : ParkingSlot::vacated)) {
+            return false;
+        }
+        store.setLastUpdated(index, System.currentTimeMillis());
+        notifyLot();
+        return true;
     }
 
     /**
      * Set occupancy with vehicle type information
      * UML-compatible method signature
+     *
+     * @return false if the slot is held by a claim (RESERVED) and was left alone
      */
-    public void setOccupied(boolean isOccupied, VehicleType vehicleType) {
-        this.occupied = isOccupied;
-        this.vehicleType = isOccupied ? vehicleType : null;
-        this.lastUpdated = LocalDateTime.now();
-        this.status = isOccupied ? "OCCUPIED" : "AVAILABLE";
+    public boolean setOccupied(boolean isOccupied, VehicleType vehicleType) {
+        if (!changeStatus(isOccupied ? ParkingSlot::occupied : ParkingSlot::vacated)) {
+            return false;
+        }
+        SlotStore current = store;
+        current.setVehicleType(index, isOccupied ? vehicleType : null);
+        current.setLastUpdated(index, System.currentTimeMillis());
+        notifyLot();
+        return true;
     }
 
     public VehicleType getVehicleType() {
-        return vehicleType;
+        return store.getVehicleType(index);
     }
 
     public void setVehicleType(VehicleType vehicleType) {
-        this.vehicleType = vehicleType;
+        store.setVehicleType(index, vehicleType);
     }
 
     public LocalDateTime getLastUpdated() {
-        return lastUpdated;
+        return store.getLastUpdated(index);
     }
 
     public void setLastUpdated(LocalDateTime lastUpdated) {
-        this.lastUpdated = lastUpdated;
+        store.setLastUpdated(index, SlotStore.toMillis(lastUpdated));
     }
 
+    /**
+     * AVAILABLE, OCCUPIED, RESERVED or OUT_OF_SERVICE
+     */
     public String getStatus() {
-        return status;
+        return STATUS_NAMES[store.status(index) & 0x3];
     }
 
+    /**
+     * Set the status; anything other than AVAILABLE, OCCUPIED or RESERVED is
+     * stored as OUT_OF_SERVICE
+     */
     public void setStatus(String status) {
-        this.status = status;
-        this.lastUpdated = LocalDateTime.now();
+        int state = stateOf(status);
+        changeStatus(current -> state | (current & SlotStore.OCCUPIED_FLAG));
+        store.setLastUpdated(index, System.currentTimeMillis());
+        notifyLot();
     }
 
     /**
      * Check if slot is available for parking
      */
     public boolean isAvailable() {
-        return !occupied && "AVAILABLE".equals(status);
+        return store.status(index) == STATE_AVAILABLE;
     }
 
     /**
      * Check if slot type is compatible with vehicle type
      */
     public boolean isCompatibleWith(VehicleType vehicleType) {
-        return slotType.isCompatibleWith(vehicleType);
+        return getSlotType().isCompatibleWith(vehicleType);
     }
 
     /**
      * Release the slot (mark as available)
      */
     public void release() {
-        this.occupied = false;
-        this.vehicleType = null;
-        this.status = "AVAILABLE";
-        this.lastUpdated = LocalDateTime.now();
+        setOccupied(false, null);
     }
 
     /**
      * Reserve the slot
      */
     public void reserve() {
-        this.status = "RESERVED";
-        this.lastUpdated = LocalDateTime.now();
+        setStatus("RESERVED");
+    }
+
+    /**
+     * Atomically claim this slot for a vehicle (AVAILABLE -> RESERVED).
+     * Only one caller can win the claim; it must then call confirmClaim()
+     * once the session is stored, or releaseClaim() if storing failed.
+     *
+     * @return true if this caller now holds the slot
+     */
+    public boolean tryClaim() {
+        if (!changeStatus(STATE_AVAILABLE, STATE_RESERVED)) {
+            return false;
+        }
+        store.setLastUpdated(index, System.currentTimeMillis());
+        notifyLot();
+        return true;
+    }
+
+    /**
+     * Turn a claim held by this caller into an occupied slot (RESERVED -> OCCUPIED)
+     *
+     * @return false if the claim was lost meanwhile (e.g. the slot was taken
+     *         out of service); the caller must then undo whatever it stored
+     */
+    public boolean confirmClaim(VehicleType vehicleType) {
+        if (!changeStatus(STATE_RESERVED, STATE_OCCUPIED | SlotStore.OCCUPIED_FLAG)) {
+            return false;
+        }
+        SlotStore current = store;
+        current.setVehicleType(index, vehicleType);
+        current.setLastUpdated(index, System.currentTimeMillis());
+        notifyLot();
+        return true;
+    }
+
+    /**
+     * Give back a claim that could not be completed (RESERVED -> AVAILABLE)
+     */
+    public void releaseClaim() {
+        if (changeStatus(STATE_RESERVED, STATE_AVAILABLE)) {
+            SlotStore current = store;
+            current.setVehicleType(index, null);
+            current.setLastUpdated(index, System.currentTimeMillis());
+            notifyLot();
+        }
+    }
+
+    /**
+     * Mark an available slot occupied because a sensor detected a vehicle
+     * (AVAILABLE -> OCCUPIED, no vehicle type)
+     *
+     * @return false if the slot was not available
+     */
+    public boolean occupyBySensor() {
+        if (!changeStatus(STATE_AVAILABLE, STATE_OCCUPIED | SlotStore.OCCUPIED_FLAG)) {
+            return false;
+        }
+        store.setLastUpdated(index, System.currentTimeMillis());
+        notifyLot();
+        return true;
+    }
+
+    /**
+     * Free a slot that only a sensor had marked occupied. Slots held by a
+     * parking session (which have a vehicle type) are left alone.
+     *
+     * @return true if the slot was freed
+     */
+    public boolean releaseBySensor() {
+        if (getVehicleType() != null
+                || !changeStatus(STATE_OCCUPIED | SlotStore.OCCUPIED_FLAG, STATE_AVAILABLE)) {
+            return false;
+        }
+        store.setLastUpdated(index, System.currentTimeMillis());
+        notifyLot();
+        return true;
+    }
+
+    /**
+     * True if the slot is occupied by a vehicle only a sensor knows about
+     */
+    public boolean isSensorOccupied() {
+        return store.status(index) == (STATE_OCCUPIED | SlotStore.OCCUPIED_FLAG) && getVehicleType() == null;
+    }
+
+    /**
+     * Current state as one of the STATE_* constants
+     */
+    public int getState() {
+        return stateOf(store.status(index));
+    }
+
+    /**
+     * Raw status byte from the store (STATE_* plus the occupied flag)
+     */
+    int getStatusByte() {
+        return store.status(index);
+    }
+
+    /**
+     * The STATE_* value of a status byte; a parked vehicle counts as occupied
+     * whatever the status says
+     */
+    static int stateOf(int status) {
+        return (status & SlotStore.OCCUPIED_FLAG) != 0 ? STATE_OCCUPIED : status & 0x3;
+    }
+
+    static int stateOf(String status) {
+        if (status == null || "AVAILABLE".equals(status)) {
+            return STATE_AVAILABLE;
+        }
+        if ("OCCUPIED".equals(status)) {
+            return STATE_OCCUPIED;
+        }
+        if ("RESERVED".equals(status)) {
+            return STATE_RESERVED;
+        }
+        return STATE_OUT_OF_SERVICE;
+    }
+
+    private static int statusOf(String status, boolean occupied) {
+        return stateOf(status) | (occupied ? SlotStore.OCCUPIED_FLAG : 0);
+    }
+
+    /**
+     * Position of this slot in its lot's slot list, or -1 if not in a lot
+     */
+    public int getIndex() {
+        return store.getLot() != null ? index : -1;
+    }
+
+    /**
+     * Point this slot at a position of a store
+     */
+    void attach(SlotStore store, int index) {
+        this.index = index;
+        this.store = store;
+    }
+
+    /**
+     * Compare-and-set the status byte from expect to update
+     *
+     * @return false if the status was not expect
+     */
+    private boolean changeStatus(int expect, int update) {
+        return changeStatus(status -> status == expect ? update : -1);
+    }
+
+    /**
+     * Replace the status byte with transition(current status) by
+     * compare-and-set, re-reading and retrying if it changed in between or the
+     * slot moved to another position
+     *
+     * @param transition the new status byte, or -1 to refuse the change
+     * @return false if the transition refused the status
+     */
+    private boolean changeStatus(IntUnaryOperator transition) {
+        while (true) {
+            SlotStore current = store;
+            int layout = current.layout();
+            int position = index;
+            int status = current.status(position);
+            int next = transition.applyAsInt(status);
+            if (next < 0) {
+                return false;
+            }
+            if (next == status
+                    || current.compareAndSetStatus(layout, position, status, next) == SlotStore.CAS_SET) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Status byte after a vehicle parks; a gate's claim (RESERVED) is refused
+     */
+    private static int occupied(int status) {
+        if (status == STATE_RESERVED) {
+            return -1;
+        }
+        int state = status & 0x3;
+        return (state == STATE_AVAILABLE ? STATE_OCCUPIED : state) | SlotStore.OCCUPIED_FLAG;
+    }
+
+    /**
+     * Status byte after the vehicle leaves; a gate's claim (RESERVED) is
+     * refused and an out-of-service slot stays out of service
+     */
+    private static int vacated(int status) {
+        if (status == STATE_RESERVED) {
+            return -1;
+        }
+        int state = status & 0x3;
+        return state == STATE_OCCUPIED ? STATE_AVAILABLE : state;
+    }
+
+    /**
+     * Keep the owning lot's free-slot bitmaps in step with this slot
+     */
+    private void notifyLot() {
+        SlotStore current = store;
+        if (current.getLot() != null) {
+            current.getLot().slotChanged(index);
+        }
     }
 
     @Override
     public String toString() {
         return String.format("ParkingSlot{id='%s', number=%d, type=%s, occupied=%b, status='%s'}",
-                slotId, slotNumber, slotType, occupied, status);
+                getSlotId(), getSlotNumber(), getSlotType(), isOccupied(), getStatus());
     }
 
     @Override
@@ -176,12 +420,13 @@ public class ParkingSlot {
             return true;
         if (obj == null || getClass() != obj.getClass())
             return false;
-        ParkingSlot that = (ParkingSlot) obj;
-        return slotId != null && slotId.equals(that.slotId);
+        String slotId = getSlotId();
+        return slotId != null && slotId.equals(((ParkingSlot) obj).getSlotId());
     }
 
     @Override
     public int hashCode() {
+        String slotId = getSlotId();
         return slotId != null ? slotId.hashCode() : 0;
     }
 }
@@ -0,0 +1,60 @@
+package com.parkinglotmanager.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * One change to a parking session, as recorded in the SessionChange table.
+ * changeId increases with every change, so a reader can ask for everything
+ * after the last ID it has seen.
+ */
+public class SessionChange {
+    private final long changeId;          // Maps to changeID (BIGINT)
+    private final int sessionId;          // Maps to sessionID (INT)
+    private final String changeType;      // Maps to changeType: INSERT, UPDATE or DELETE
+    private final LocalDateTime changeTime;
+    private final VehicleSession session; // Current row, or null if it has been deleted
+
+    public SessionChange(long changeId, int sessionId, String changeType, LocalDateTime changeTime,
+            VehicleSession session) {
+        this.changeId = changeId;
+        this.sessionId = sessionId;
+        this.changeType = changeType;
+        this.changeTime = changeTime;
+        this.session = session;
+    }
+
+    public long getChangeId() {
+        return changeId;
+    }
+
+    public int getSessionId() {
+        return sessionId;
+    }
+
+    public String getChangeType() {
+        return changeType;
+    }
+
+    public LocalDateTime getChangeTime() {
+        return changeTime;
+    }
+
+    /**
+     * The session as it is now (not as it was at this change), or null if deleted
+     */
+    public VehicleSession getSession() {
+        return session;
+    }
+
+    /**
+     * True if the session is still parked after this change
+     */
+    public boolean isActive() {
+        return session != null && session.isActive();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SessionChange{id=%d, session=%d, type=%s}", changeId, sessionId, changeType);
+    }
+}
@@ -0,0 +1,38 @@
+package com.parkinglotmanager.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Position in a session listing ordered by (entryTime, sessionID).
+ * The next page starts right after this session, so pages stay stable while
+ * new sessions are added and each page is an index range, however deep.
+ */
+public final class SessionCursor {
+    private final LocalDateTime entryTime;
+    private final int sessionId;
+
+    public SessionCursor(LocalDateTime entryTime, int sessionId) {
+        this.entryTime = entryTime;
+        this.sessionId = sessionId;
+    }
+
+    /**
+     * Cursor positioned on the given session
+     */
+    public static SessionCursor of(VehicleSession session) {
+        return new SessionCursor(session.getEntryTime(), session.getId());
+    }
+
+    public LocalDateTime getEntryTime() {
+        return entryTime;
+    }
+
+    public int getSessionId() {
+        return sessionId;
+    }
+
+    @Override
+    public String toString() {
+        return entryTime + "/" + sessionId;
+    }
+}
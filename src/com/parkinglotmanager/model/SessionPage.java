@@ -0,0 +1,31 @@
+package com.parkinglotmanager.model;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated session listing
+ */
+public class SessionPage {
+    private final List<VehicleSession> sessions;
+    private final SessionCursor nextCursor; // null on the last page
+
+    public SessionPage(List<VehicleSession> sessions, SessionCursor nextCursor) {
+        this.sessions = sessions;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<VehicleSession> getSessions() {
+        return sessions;
+    }
+
+    /**
+     * Cursor to pass for the following page, or null if this is the last one
+     */
+    public SessionCursor getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,257 @@
+package com.parkinglotmanager.model;
+
+import com.parkinglotmanager.enums.SlotType;
+import com.parkinglotmanager.enums.VehicleType;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Free-slot bitmaps for one parking lot, one long[] word array per SlotType.
+ * Bit i is set when the slot at list position i is of that type and available.
+ *
+ * Lookups never allocate: they scan 64 slots per word, so even a 1,250-slot
+ * structure is at most 20 words per slot type.
+ */
+public class SlotAllocator {
+
+    private static final SlotType[] SLOT_TYPES = SlotType.values();
+
+    // Slot types each vehicle type may use, indexed by VehicleType ordinal
+    private static final SlotType[][] COMPATIBLE = new SlotType[VehicleType.values().length][];
+
+    static {
+        for (VehicleType vehicleType : VehicleType.values()) {
+            int count = 0;
+            SlotType[] matches = new SlotType[SLOT_TYPES.length];
+            for (SlotType slotType : SLOT_TYPES) {
+                if (slotType.isCompatibleWith(vehicleType)) {
+                    matches[count++] = slotType;
+                }
+            }
+            COMPATIBLE[vehicleType.ordinal()] = Arrays.copyOf(matches, count);
+        }
+    }
+
+    private final long[][] freeBits = new long[SLOT_TYPES.length][];
+    private final int[] freeCounts = new int[SLOT_TYPES.length];
+    private byte[] typeAt = new byte[0];
+    private int size;
+
+    public SlotAllocator() {
+        for (int t = 0; t < SLOT_TYPES.length; t++) {
+            freeBits[t] = new long[0];
+        }
+    }
+
+    /**
+     * Slot types a vehicle type may park in
+     */
+    public static SlotType[] compatibleSlotTypes(VehicleType vehicleType) {
+        return COMPATIBLE[vehicleType.ordinal()];
+    }
+
+    /**
+     * Make room for slot positions [0, newSize) - only called when slots are added.
+     */
+    public synchronized void ensureCapacity(int newSize) {
+        if (newSize <= size) {
+            return;
+        }
+        int words = (newSize + 63) >>> 6;
+        for (int t = 0; t < SLOT_TYPES.length; t++) {
+            if (freeBits[t].length < words) {
+                // Grow geometrically so adding slots one at a time stays linear
+                freeBits[t] = Arrays.copyOf(freeBits[t], Math.max(words, freeBits[t].length * 2));
+            }
+        }
+        if (typeAt.length < newSize) {
+            typeAt = Arrays.copyOf(typeAt, Math.max(newSize, typeAt.length * 2));
+        }
+        size = newSize;
+    }
+
+    /**
+     * Forget every slot (used when the lot's slot list is rebuilt).
+     */
+    public synchronized void clear() {
+        for (int t = 0; t < SLOT_TYPES.length; t++) {
+            Arrays.fill(freeBits[t], 0L);
+            freeCounts[t] = 0;
+        }
+        size = 0;
+    }
+
+    /**
+     * Record the current type and availability of the slot at a position.
+     */
+    public synchronized void update(int index, SlotType type, boolean free) {
+        ensureCapacity(index + 1);
+        int oldType = typeAt[index];
+        int newType = type.ordinal();
+        if (oldType != newType) {
+            clearBit(oldType, index);
+            typeAt[index] = (byte) newType;
+        }
+        if (free) {
+            setBit(newType, index);
+        } else {
+            clearBit(newType, index);
+        }
+    }
+
+    public synchronized int countFree(SlotType type) {
+        return freeCounts[type.ordinal()];
+    }
+
+    public synchronized int countFree() {
+        int total = 0;
+        for (int count : freeCounts) {
+            total += count;
+        }
+        return total;
+    }
+
+    public synchronized int countFreeCompatible(VehicleType vehicleType) {
+        int total = 0;
+        for (SlotType type : COMPATIBLE[vehicleType.ordinal()]) {
+            total += freeCounts[type.ordinal()];
+        }
+        return total;
+    }
+
+    /**
+     * Lowest free position of the given slot type at or after from, or -1
+     */
+    public synchronized int nextFree(SlotType type, int from) {
+        return nextSetBit(freeBits[type.ordinal()], from);
+    }
+
+    /**
+     * Lowest free position compatible with the vehicle type, or -1 if full
+     */
+    public synchronized int firstFree(VehicleType vehicleType) {
+        return nextFree(vehicleType, 0);
+    }
+
+    /**
+     * Lowest free position compatible with the vehicle type at or after from, or -1
+     */
+    public synchronized int nextFree(VehicleType vehicleType, int from) {
+        int best = -1;
+        for (SlotType type : COMPATIBLE[vehicleType.ordinal()]) {
+            int candidate = nextSetBit(freeBits[type.ordinal()], from);
+            if (candidate >= 0 && (best < 0 || candidate < best)) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * A free compatible position chosen from a random starting point, or -1 if full
+     */
+    public synchronized int randomFree(VehicleType vehicleType, Random random) {
+        if (size == 0) {
+            return -1;
+        }
+        int start = random.nextInt(size);
+        int best = -1;
+        // First free at or after start (any compatible type), wrapping to 0
+        for (SlotType type : COMPATIBLE[vehicleType.ordinal()]) {
+            int candidate = nextSetBit(freeBits[type.ordinal()], start);
+            if (candidate >= 0 && (best < 0 || candidate < best)) {
+                best = candidate;
+            }
+        }
+        return best >= 0 ? best : firstFree(vehicleType);
+    }
+
+    /**
+     * Free compatible position closest to target (ties go to the lower position), or -1
+     */
+    public synchronized int nearestFree(VehicleType vehicleType, int target) {
+        if (size == 0) {
+            return -1;
+        }
+        int clamped = Math.max(0, Math.min(target, size - 1));
+        int best = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        for (SlotType type : COMPATIBLE[vehicleType.ordinal()]) {
+            long[] words = freeBits[type.ordinal()];
+            int below = prevSetBit(words, clamped);
+            int above = nextSetBit(words, clamped);
+            if (below >= 0 && (clamped - below < bestDistance
+                    || (clamped - below == bestDistance && below < best))) {
+                best = below;
+                bestDistance = clamped - below;
+            }
+            if (above >= 0 && above - clamped < bestDistance) {
+                best = above;
+                bestDistance = above - clamped;
+            }
+        }
+        return best;
+    }
+
+    private void setBit(int type, int index) {
+        long mask = 1L << index;
+        long[] words = freeBits[type];
+        int w = index >>> 6;
+        if ((words[w] & mask) == 0) {
+            words[w] |= mask;
+            freeCounts[type]++;
+        }
+    }
+
+    private void clearBit(int type, int index) {
+        long mask = 1L << index;
+        long[] words = freeBits[type];
+        int w = index >>> 6;
+        if (w < words.length && (words[w] & mask) != 0) {
+            words[w] &= ~mask;
+            freeCounts[type]--;
+        }
+    }
+
+    private int nextSetBit(long[] words, int from) {
+        if (from < 0) {
+            from = 0;
+        }
+        int w = from >>> 6;
+        if (w >= words.length) {
+            return -1;
+        }
+        long word = words[w] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                int index = (w << 6) + Long.numberOfTrailingZeros(word);
+                return index < size ? index : -1;
+            }
+            if (++w == words.length) {
+                return -1;
+            }
+            word = words[w];
+        }
+    }
+
+    private int prevSetBit(long[] words, int from) {
+        if (from < 0 || words.length == 0) {
+            return -1;
+        }
+        int w = from >>> 6;
+        if (w >= words.length) {
+            w = words.length - 1;
+            from = (w << 6) + 63;
+        }
+        long word = words[w] & (-1L >>> (63 - (from & 63)));
+        while (true) {
+            if (word != 0) {
+                return (w << 6) + 63 - Long.numberOfLeadingZeros(word);
+            }
+            if (w-- == 0) {
+                return -1;
+            }
+            word = words[w];
+        }
+    }
+}
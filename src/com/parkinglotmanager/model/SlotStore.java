@@ -0,0 +1,538 @@
+package com.parkinglotmanager.model;
+
+import com.parkinglotmanager.enums.SlotType;
+import com.parkinglotmanager.enums.VehicleType;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Slot state for one lot kept as parallel primitive arrays (one entry per
+ * slot position) instead of one object per slot, so a lot of several hundred
+ * thousand slots costs a few megabytes. ParkingSlot objects are views of one
+ * position, created on first use and cached so the same slot always comes
+ * back as the same object.
+ *
+ * Per slot: number (int), slot type and vehicle type (one byte each), last
+ * update in epoch millis and a status byte. Status bytes are packed four to
+ * an int of an AtomicIntegerArray so claims can still compare-and-set them.
+ * Slot IDs are built from the lot ID and slot number on first use and then
+ * cached by position (slots added with an ID in another format keep that
+ * ID instead).
+ *
+ * Slots are added and removed under the store's lock; per-slot fields are
+ * written without it, like the fields of the old slot objects were. Status
+ * changes never take the lock: when the status array is replaced (growth,
+ * removal) the old one is frozen first, so a compare-and-set racing with the
+ * swap fails and is retried on the new array instead of being lost, and a
+ * removal bumps the layout so callers holding a shifted position look it up
+ * again.
+ */
+final class SlotStore {
+
+    // Status byte: the ParkingSlot.STATE_* value, plus OCCUPIED_FLAG when a vehicle is parked
+    static final int OCCUPIED_FLAG = 0x4;
+
+    // compareAndSetStatus results
+    static final int CAS_SET = 1;
+    static final int CAS_FAILED = 0;
+    static final int CAS_MOVED = -1;
+
+    // Set in every word of a status array that is being replaced
+    private static final int FROZEN = 0x80000000;
+    private static final int STATUS_MASK = 0x7F;
+
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final SlotType[] SLOT_TYPES = SlotType.values();
+    private static final VehicleType[] VEHICLE_TYPES = VehicleType.values();
+
+    private final ParkingLot lot; // null for a detached slot's one-slot store
+    private volatile String lotId;
+
+    private volatile int size;
+    private int[] numbers;
+    private byte[] slotTypes;
+    private byte[] vehicleTypes; // VehicleType ordinal + 1, 0 when empty
+    private long[] lastUpdated;
+    private volatile AtomicIntegerArray statuses;
+    // Bumped whenever positions shift or slots leave the store
+    private volatile int layout;
+    private ParkingSlot[] views;
+
+    // Open-addressing slot number -> position + 1 (0 = empty), rebuilt on removal
+    private int[] numberIndex;
+    // IDs that do not follow lotId-SLOT-nnn, by position; null until one is added
+    private String[] customIds;
+    private Map<String, Integer> positionsByCustomId;
+    // Standard IDs built so far, by position, for one generation of numbers,
+    // positions and lot ID; the generation is bumped after any of them change
+    private volatile IdCache idCache;
+    private volatile int idGeneration;
+
+    SlotStore(ParkingLot lot, String lotId, int capacity) {
+        this.lot = lot;
+        this.lotId = lotId;
+        int initial = Math.max(capacity, 1);
+        numbers = new int[initial];
+        slotTypes = new byte[initial];
+        vehicleTypes = new byte[initial];
+        lastUpdated = new long[initial];
+        statuses = new AtomicIntegerArray((initial + 3) >>> 2);
+        views = new ParkingSlot[initial];
+        numberIndex = new int[tableSizeFor(initial)];
+    }
+
+    /**
+     * The standard ID of a slot, e.g. LOT-001-SLOT-004
+     */
+    static String slotId(String lotId, int number) {
+        if (number < 0) {
+            return lotId + "-" + String.format("SLOT-%03d", number);
+        }
+        String digits = Integer.toString(number);
+        StringBuilder id = new StringBuilder(lotId.length() + 9 + digits.length()).append(lotId).append("-SLOT-");
+        for (int i = digits.length(); i < 3; i++) {
+            id.append('0');
+        }
+        return id.append(digits).toString();
+    }
+
+    ParkingLot getLot() {
+        return lot;
+    }
+
+    String getLotId() {
+        return lotId;
+    }
+
+    void setLotId(String lotId) {
+        this.lotId = lotId;
+        idGeneration++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Append a slot and return its position, or -1 if the number or ID is taken
+     */
+    synchronized int add(String slotId, int number, SlotType slotType, int status, VehicleType vehicleType,
+            long updatedMillis) {
+        if (indexOfNumber(number) >= 0 || (slotId != null && indexOf(slotId) >= 0)) {
+            return -1;
+        }
+        int index = size;
+        ensureCapacity(index + 1);
+        numbers[index] = number;
+        slotTypes[index] = (byte) slotType.ordinal();
+        vehicleTypes[index] = vehicleType != null ? (byte) (vehicleType.ordinal() + 1) : 0;
+        lastUpdated[index] = updatedMillis;
+        setStatus(statuses, index, status);
+        if (slotId != null && !isDerived(slotId, number)) {
+            setCustomId(index, slotId);
+        }
+        insertNumber(index);
+        size = index + 1; // Publishes the writes above to readers that check size first
+        return index;
+    }
+
+    /**
+     * Drop the slot at a position; later positions shift down by one. The
+     * removed slot's view moves to a one-slot store of its own, out of
+     * service so that a claim still held on it cannot be confirmed.
+     */
+    synchronized void remove(int index) {
+        AtomicIntegerArray old = statuses;
+        freeze(old);
+        SlotStore removed = copyOut(index);
+        setStatus(removed.statuses, 0, ParkingSlot.STATE_OUT_OF_SERVICE | (status(old, index) & OCCUPIED_FLAG));
+        view(index).attach(removed, 0);
+        int tail = size - index - 1;
+        System.arraycopy(numbers, index + 1, numbers, index, tail);
+        System.arraycopy(slotTypes, index + 1, slotTypes, index, tail);
+        System.arraycopy(vehicleTypes, index + 1, vehicleTypes, index, tail);
+        System.arraycopy(lastUpdated, index + 1, lastUpdated, index, tail);
+        System.arraycopy(views, index + 1, views, index, tail);
+        AtomicIntegerArray shifted = new AtomicIntegerArray(old.length());
+        for (int i = 0, to = 0; i < size; i++) {
+            if (i != index) {
+                setStatus(shifted, to++, status(old, i));
+            }
+        }
+        if (customIds != null) {
+            System.arraycopy(customIds, index + 1, customIds, index, tail);
+            customIds[size - 1] = null;
+        }
+        views[size - 1] = null;
+        size--;
+        for (int i = index; i < size; i++) {
+            if (views[i] != null) {
+                views[i].attach(this, i);
+            }
+        }
+        rebuildIndexes();
+        idGeneration++;
+        layout++;
+        statuses = shifted;
+    }
+
+    /**
+     * Move every slot out to a one-slot store of its own (the lot is
+     * replacing its slots). This store is left frozen.
+     */
+    synchronized void detachAll() {
+        freeze(statuses);
+        for (int i = size - 1; i >= 0; i--) {
+            view(i).attach(copyOut(i), 0);
+        }
+        layout++;
+    }
+
+    /**
+     * The cached view of a position, creating it on first use
+     */
+    ParkingSlot view(int index) {
+        ParkingSlot view = views[index];
+        if (view != null) {
+            return view;
+        }
+        synchronized (this) {
+            if (views[index] == null) {
+                views[index] = new ParkingSlot(this, index);
+            }
+            return views[index];
+        }
+    }
+
+    /**
+     * Make an existing object the view of a position (used when a detached slot joins a lot)
+     */
+    synchronized void setView(int index, ParkingSlot view) {
+        views[index] = view;
+    }
+
+    /**
+     * Copy one position into a new one-slot store for a slot leaving its lot
+     */
+    SlotStore copyOut(int index) {
+        SlotStore copy = new SlotStore(null, lotId, 1);
+        copy.add(getSlotId(index), numbers[index], getSlotType(index), status(index), getVehicleType(index),
+                lastUpdated[index]);
+        return copy;
+    }
+
+    // Per-slot fields
+
+    String getSlotId(int index) {
+        String[] custom = customIds;
+        String id = custom != null ? custom[index] : null;
+        if (id != null) {
+            return id;
+        }
+        int generation = idGeneration; // Read first: an ID built from later data only lands in a dead cache
+        String prefix = lotId;
+        if (prefix == null) {
+            return null;
+        }
+        IdCache cache = idCache;
+        if (cache == null || cache.generation != generation) {
+            cache = new IdCache(generation, numbers.length);
+            idCache = cache;
+        }
+        String[] ids = cache.ids;
+        id = index < ids.length ? ids[index] : null;
+        if (id == null) {
+            id = slotId(prefix, numbers[index]);
+            if (index < ids.length) {
+                ids[index] = id;
+            }
+        }
+        return id;
+    }
+
+    synchronized void setSlotId(int index, String slotId) {
+        setCustomId(index, isDerived(slotId, numbers[index]) ? null : slotId);
+    }
+
+    int getNumber(int index) {
+        return numbers[index];
+    }
+
+    /**
+     * Renumber a slot; its ID stays what it was
+     */
+    synchronized void setNumber(int index, int number) {
+        String id = getSlotId(index);
+        numbers[index] = number;
+        setCustomId(index, isDerived(id, number) ? null : id);
+        rebuildIndexes();
+        idGeneration++;
+    }
+
+    SlotType getSlotType(int index) {
+        return SLOT_TYPES[slotTypes[index]];
+    }
+
+    void setSlotType(int index, SlotType slotType) {
+        slotTypes[index] = (byte) slotType.ordinal();
+    }
+
+    VehicleType getVehicleType(int index) {
+        int code = vehicleTypes[index];
+        return code != 0 ? VEHICLE_TYPES[code - 1] : null;
+    }
+
+    void setVehicleType(int index, VehicleType vehicleType) {
+        vehicleTypes[index] = vehicleType != null ? (byte) (vehicleType.ordinal() + 1) : 0;
+    }
+
+    LocalDateTime getLastUpdated(int index) {
+        long millis = lastUpdated[index];
+        return millis != NO_TIME ? LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault())
+                : null;
+    }
+
+    void setLastUpdated(int index, long millis) {
+        lastUpdated[index] = millis;
+    }
+
+    static long toMillis(LocalDateTime time) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : NO_TIME;
+    }
+
+    int status(int index) {
+        return status(statuses, index);
+    }
+
+    /**
+     * Current layout; pass it to compareAndSetStatus together with a position
+     * read after it
+     */
+    int layout() {
+        return layout;
+    }
+
+    /**
+     * Compare-and-set one status byte, retrying if only a neighbouring byte
+     * changed or the status array is being replaced.
+     *
+     * @return CAS_SET, CAS_FAILED if the status was not expect, or CAS_MOVED if
+     *         positions changed since layout was read (look the position up again)
+     */
+    int compareAndSetStatus(int layout, int index, int expect, int update) {
+        int word = index >>> 2;
+        int shift = (index & 3) << 3;
+        while (true) {
+            AtomicIntegerArray words = statuses;
+            if (this.layout != layout) {
+                return CAS_MOVED;
+            }
+            int current = words.get(word);
+            if ((current & FROZEN) != 0) {
+                Thread.yield(); // Being copied; the new array is published shortly
+                continue;
+            }
+            if (((current >>> shift) & STATUS_MASK) != expect) {
+                return CAS_FAILED;
+            }
+            int next = (current & ~(0xFF << shift)) | (update << shift);
+            if (words.compareAndSet(word, current, next)) {
+                return CAS_SET;
+            }
+        }
+    }
+
+    private static int status(AtomicIntegerArray words, int index) {
+        return (words.get(index >>> 2) >>> ((index & 3) << 3)) & STATUS_MASK;
+    }
+
+    /**
+     * Write a status byte of a position no other thread can see yet
+     */
+    private static void setStatus(AtomicIntegerArray words, int index, int status) {
+        int word = index >>> 2;
+        int shift = (index & 3) << 3;
+        while (true) {
+            int current = words.get(word);
+            int next = (current & ~(0xFF << shift)) | (status << shift);
+            if (current == next || words.compareAndSet(word, current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Number of slots of a type, counted from the type bytes
+     */
+    int countType(SlotType slotType) {
+        int count = 0;
+        byte code = (byte) slotType.ordinal();
+        for (int i = 0, n = size; i < n; i++) {
+            if (slotTypes[i] == code) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Lookups
+
+    /**
+     * Position of a slot number, or -1
+     */
+    int indexOfNumber(int number) {
+        int[] table = numberIndex;
+        int mask = table.length - 1;
+        for (int t = hash(number) & mask; table[t] != 0; t = (t + 1) & mask) {
+            int index = table[t] - 1;
+            if (numbers[index] == number) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Position of a slot ID, or -1. Standard IDs are parsed back to their
+     * number; others come from the custom ID map.
+     */
+    int indexOf(String slotId) {
+        String prefix = lotId;
+        if (prefix != null && slotId.startsWith(prefix) && slotId.startsWith("-SLOT-", prefix.length())) {
+            int number;
+            try {
+                number = Integer.parseInt(slotId.substring(prefix.length() + 6));
+            } catch (NumberFormatException e) {
+                number = -1;
+            }
+            int index = number >= 0 ? indexOfNumber(number) : -1;
+            if (index >= 0 && slotId.equals(getSlotId(index))) {
+                return index;
+            }
+        }
+        Map<String, Integer> custom = positionsByCustomId;
+        Integer index = custom != null ? custom.get(slotId) : null;
+        return index != null ? index : -1;
+    }
+
+    private boolean isDerived(String slotId, int number) {
+        return slotId == null || (lotId != null && slotId.equals(slotId(lotId, number)));
+    }
+
+    private void setCustomId(int index, String slotId) {
+        if (slotId == null && customIds == null) {
+            return;
+        }
+        if (customIds == null) {
+            customIds = new String[numbers.length];
+            positionsByCustomId = new HashMap<>();
+        }
+        if (customIds[index] != null) {
+            positionsByCustomId.remove(customIds[index]);
+        }
+        customIds[index] = slotId;
+        if (slotId != null) {
+            positionsByCustomId.put(slotId, index);
+        }
+    }
+
+    private void insertNumber(int index) {
+        if ((size + 1) * 2 > numberIndex.length) {
+            numberIndex = new int[numberIndex.length * 2];
+            for (int i = 0; i < size; i++) {
+                putNumber(numberIndex, i);
+            }
+        }
+        putNumber(numberIndex, index);
+    }
+
+    private void putNumber(int[] table, int index) {
+        int mask = table.length - 1;
+        int t = hash(numbers[index]) & mask;
+        while (table[t] != 0) {
+            t = (t + 1) & mask;
+        }
+        table[t] = index + 1;
+    }
+
+    private void rebuildIndexes() {
+        int[] table = new int[tableSizeFor(size)];
+        for (int i = 0; i < size; i++) {
+            putNumber(table, i);
+        }
+        numberIndex = table;
+        if (customIds != null) {
+            positionsByCustomId.clear();
+            for (int i = 0; i < size; i++) {
+                if (customIds[i] != null) {
+                    positionsByCustomId.put(customIds[i], i);
+                }
+            }
+        }
+    }
+
+    private void ensureCapacity(int needed) {
+        if (numbers.length >= needed) {
+            return;
+        }
+        int capacity = Math.max(needed, numbers.length + (numbers.length >> 1));
+        numbers = Arrays.copyOf(numbers, capacity);
+        slotTypes = Arrays.copyOf(slotTypes, capacity);
+        vehicleTypes = Arrays.copyOf(vehicleTypes, capacity);
+        lastUpdated = Arrays.copyOf(lastUpdated, capacity);
+        views = Arrays.copyOf(views, capacity);
+        if (customIds != null) {
+            customIds = Arrays.copyOf(customIds, capacity);
+        }
+        idGeneration++;
+        AtomicIntegerArray old = statuses;
+        freeze(old);
+        AtomicIntegerArray grown = new AtomicIntegerArray((capacity + 3) >>> 2);
+        for (int i = 0; i < old.length(); i++) {
+            grown.set(i, old.get(i) & ~FROZEN);
+        }
+        statuses = grown;
+    }
+
+    /**
+     * Mark every word of a status array that is about to be replaced, so
+     * compare-and-sets on it wait for the new array instead of being lost
+     */
+    private static void freeze(AtomicIntegerArray words) {
+        for (int w = 0; w < words.length(); w++) {
+            int current;
+            do {
+                current = words.get(w);
+            } while ((current & FROZEN) == 0 && !words.compareAndSet(w, current, current | FROZEN));
+        }
+    }
+
+    private static final class IdCache {
+        private final int generation;
+        private final String[] ids;
+
+        private IdCache(int generation, int capacity) {
+            this.generation = generation;
+            this.ids = new String[capacity];
+        }
+    }
+
+    // At most half full so probes stay short
+    private static int tableSizeFor(int entries) {
+        int size = 16;
+        while (size < entries * 2) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    private static int hash(int number) {
+        int h = number * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -1,13 +1,9 @@
 
 package com.parkinglotmanager.model;
 
-import java.security.SecureRandom;
 import java.time.LocalDateTime;
-import java.util.Arrays;
-import java.util.Base64;
 
-import javax.crypto.SecretKeyFactory;
-import javax.crypto.spec.PBEKeySpec;
+import com.parkinglotmanager.util.PasswordHasher;
 
 /**
  * Base User class representing system users in the parking lot management
@@ -102,22 +98,19 @@ public class User {
         return passwordHash;
     }
 
+    /**
+     * Replace the stored hash with one that is already computed
+     */
+    public void setPasswordHash(String passwordHash) {
+        this.passwordHash = passwordHash;
+    }
+
     public void setpassword(String password) throws Exception {
         this.passwordHash = hashingPassword(password);
     }
 
     private String hashingPassword(String password) throws Exception {
-        int iterations = 65536;
-        int keyLength = 256;
-
-        byte[] salt = new byte[16];
-        SecureRandom.getInstanceStrong().nextBytes(salt);
-
-        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, keyLength);
-        SecretKeyFactory skf = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
-        byte[] hash = skf.generateSecret(spec).getEncoded();
-
-        return Base64.getEncoder().encodeToString(salt) + ":" + Base64.getEncoder().encodeToString(hash);
+        return PasswordHasher.hash(password);
     }
 
     public LocalDateTime getCreatedAt() {
@@ -137,27 +130,11 @@ public class User {
     }
 
     /**
-     * Authenticate user with provided password
-     * Note: In production, use proper password hashing (BCrypt, Argon2, etc.)
+     * Authenticate user with provided password. Runs the full PBKDF2 hash on
+     * the calling thread; logins should go through AuthenticationService.
      */
     public boolean authenticate(String password) throws Exception {
-        try {
-            String[] parts = passwordHash.split(":");
-            byte[] salt = Base64.getDecoder().decode(parts[0]);
-            byte[] storedHash = Base64.getDecoder().decode(parts[1]);
-
-            int iterations = 65536;
-            int keyLength = 256;
-
-            PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, keyLength);
-            SecretKeyFactory skf = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
-            byte[] verifyHash = skf.generateSecret(spec).getEncoded();
-
-            return Arrays.equals(storedHash, verifyHash);
-        } catch (Exception e) {
-            System.err.println("error");
-            return false;
-        }
+        return passwordHash != null && PasswordHasher.verify(password, passwordHash);
     }
 
     /**
@@ -14,6 +14,7 @@ public class UserReport {
     private int reportedAvailable;
     private int confidence;
     private String comments;
+    private int fullness = -1; // Percent full (0-100) as stored in ParkingReport; -1 until known
 
     /**
      * Constructor for creating a new user report
@@ -100,6 +101,18 @@ public class UserReport {
         this.comments = comments;
     }
 
+    /**
+     * How full the reporter said the lot is, 0-100, or -1 if not yet worked
+     * out from the lot's capacity
+     */
+    public int getFullness() {
+        return fullness;
+    }
+
+    public void setFullness(int fullness) {
+        this.fullness = fullness;
+    }
+
     @Override
     public String toString() {
         return String.format("UserReport{id='%s', lot='%s', available=%d, confidence=%d%%}",
@@ -0,0 +1,140 @@
+package com.parkinglotmanager.test;
+
+import com.parkinglotmanager.dao.LogDAO;
+import com.parkinglotmanager.dao.LotDAO;
+import com.parkinglotmanager.dao.OccupancyRollup;
+import com.parkinglotmanager.dao.OccupancyRollupDAO;
+import com.parkinglotmanager.dao.ParkingDAO;
+import com.parkinglotmanager.dao.SessionChangeFeed;
+import com.parkinglotmanager.dao.UserDAO;
+import com.parkinglotmanager.dao.VehicleDAO;
+import com.parkinglotmanager.dao.VehicleSessionDAO;
+import com.parkinglotmanager.enums.LotType;
+import com.parkinglotmanager.enums.SlotType;
+import com.parkinglotmanager.enums.VehicleMake;
+import com.parkinglotmanager.enums.VehicleType;
+import com.parkinglotmanager.model.LogEntry;
+import com.parkinglotmanager.model.OccupancyHour;
+import com.parkinglotmanager.model.ParkingLot;
+import com.parkinglotmanager.model.VehicleSession;
+import com.parkinglotmanager.util.DatabaseConnection;
+import java.io.File;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Smoke run of the embedded profile against a real H2 database: creates the
+ * schema in a fresh file and drives the main DAOs through it.
+ *
+ * Needs the H2 driver jar on the classpath, e.g.
+ * java -cp "build:mysql-connector-j-9.4.0.jar:h2-2.2.224.jar" com.parkinglotmanager.test.EmbeddedProfileTest
+ *
+ * Uses a throwaway database under the system temp directory unless
+ * EMBEDDED_DB_PATH is given with -D.
+ */
+public class EmbeddedProfileTest {
+
+    private static int failures;
+
+    public static void main(String[] args) {
+        System.out.println("=== Embedded Profile Smoke Test ===\n");
+
+        // Must be set before DatabaseConnection loads its configuration
+        System.setProperty("DB_PROFILE", "embedded");
+        if (System.getProperty("EMBEDDED_DB_PATH") == null) {
+            File dir = new File(System.getProperty("java.io.tmpdir"), "parking-smoke-" + System.nanoTime());
+            System.setProperty("EMBEDDED_DB_PATH", new File(dir, "parking").getAbsolutePath());
+        }
+        System.setProperty("WRITE_BEHIND_ENABLED", "false");
+
+        check("Embedded profile selected", DatabaseConnection.isEmbedded());
+        check("Schema created", DatabaseConnection.initializeDatabase());
+        check("Connection valid", DatabaseConnection.testConnection());
+
+        UserDAO userDAO = new UserDAO();
+        int userId = userDAO.registerUser("smoke", "smoke@example.com", "not-a-real-hash", false);
+        check("User registered (id " + userId + ")", userId > 0);
+        check("User read back", userDAO.getUserById(userId) != null);
+
+        ParkingLot lot = new ParkingLot("LOT-001", "Smoke Lot", "Nowhere", LotType.STRUCTURE);
+        lot.addSlot(1, SlotType.CAR);
+        lot.addSlot(2, SlotType.CAR);
+
+        VehicleSessionDAO sessionDAO = new VehicleSessionDAO();
+        ParkingDAO parkingDAO = new ParkingDAO(sessionDAO, new VehicleDAO());
+        VehicleSession first = parkingDAO.parkVehicle(lot, "SMK-001", VehicleType.CAR, VehicleMake.TOYOTA, userId);
+        VehicleSession second = parkingDAO.parkVehicle(lot, "SMK-002", VehicleType.CAR, VehicleMake.HONDA, userId);
+        check("Two vehicles parked", first != null && second != null && first.getId() > 0 && second.getId() > 0);
+        check("Lot full afterwards",
+                parkingDAO.parkVehicle(lot, "SMK-003", VehicleType.CAR, null, userId) == null);
+        check("Active sessions loaded", sessionDAO.getActiveSessions().size() == 2);
+
+        check("First vehicle exited", first != null && parkingDAO.exitVehicle(first, 5.0, Arrays.asList(lot)));
+        check("Exited session closed in database",
+                first != null && sessionDAO.getSessionById(first.getId()).getExitTime() != null);
+        check("Today's completed count", sessionDAO.getTodayCompletedCount() == 1);
+        check("Today's revenue (date functions)", sessionDAO.getTodayRevenue() >= 0);
+        check("Second exit via batch", second != null && Collections.singletonList(second)
+                .equals(parkingDAO.exitVehicles(Collections.singletonList(second), 5.0, Arrays.asList(lot))));
+
+        // DATETIME keeps whole seconds (rounded), so let the stored times pass before rolling up
+        pause(1100);
+        LocalDateTime hour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        OccupancyRollup rollup = OccupancyRollup.getInstance();
+        check("Rollup backfill (upsert)", rollup.backfill(hour.minusHours(1), hour.plusHours(1), 24) >= 0);
+        List<OccupancyHour> hours = new OccupancyRollupDAO().getHourly("LOT-001", hour, hour.plusHours(1));
+        check("Rollup row read back", hours != null && !hours.isEmpty() && hours.get(0).getArrivals() == 2);
+
+        long[] streamed = { 0 };
+        sessionDAO.streamSessions(hour.minusHours(1), hour.plusHours(1), s -> streamed[0]++);
+        check("Sessions streamed", streamed[0] == 2);
+
+        check("Audit lines written", new LogDAO().insertLogs(Arrays.asList(
+                new LogEntry("smoke", "first", userId), new LogEntry("smoke", "second", null))) == 2);
+        LotDAO lotDAO = new LotDAO();
+        int lots = lotDAO.getAllLots().size();
+        check("Lot added and listed", addLot() && lotDAO.getAllLots().size() == lots + 1);
+
+        check("Change feed reported off", !SessionChangeFeed.isAvailable());
+
+        DatabaseConnection.shutdown();
+        System.out.println();
+        if (failures == 0) {
+            System.out.println("=== Embedded profile works ===");
+        } else {
+            System.out.println("=== " + failures + " check(s) failed ===");
+            System.exit(1);
+        }
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean addLot() {
+        try (Connection conn = DatabaseConnection.getConnection();
+                Statement stmt = conn.createStatement()) {
+            return stmt.executeUpdate("INSERT INTO Lot (lotName, capacity, status) VALUES ('Smoke Lot', 2, 'Available')") == 1;
+        } catch (SQLException e) {
+            System.err.println("Adding lot failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static void check(String what, boolean ok) {
+        System.out.println((ok ? "[OK] " : "[FAIL] ") + what);
+        if (!ok) {
+            failures++;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.parkinglotmanager.test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import com.parkinglotmanager.export.ColumnarTableReader;
+import com.parkinglotmanager.export.CsvTableWriter;
+import com.parkinglotmanager.export.ExportFormat;
+import com.parkinglotmanager.export.HistoryExporter;
+import com.parkinglotmanager.export.TableWriter;
+
+/**
+ * Export parking history from the command line. Arguments are NAME=value:
+ *
+ * DATASET  sessions, revenue or occupancy (default sessions)
+ * FROM, TO date (2025-11-01) or date-time (2025-11-01T06:00); default last month
+ * LOT      one lot ID, e.g. LOT-001 (default all lots)
+ * FORMAT   csv or columnar (default csv)
+ * GZIP     true to gzip the output (default false)
+ * OUT      output file (default e.g. sessions_2025-11-01_2025-12-01.csv)
+ *
+ * READ=file prints a columnar export (gzipped or not) as CSV instead.
+ */
+public class ExportHistory {
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                System.err.println("Ignoring argument (expected NAME=value): " + arg);
+                continue;
+            }
+            options.put(arg.substring(0, eq).toUpperCase(), arg.substring(eq + 1));
+        }
+
+        if (options.containsKey("READ")) {
+            printAsCsv(new File(options.get("READ")));
+            return;
+        }
+
+        LocalDate firstOfMonth = LocalDate.now().withDayOfMonth(1);
+        HistoryExporter.Dataset dataset = HistoryExporter.Dataset.valueOf(
+                options.getOrDefault("DATASET", "sessions").toUpperCase());
+        LocalDateTime from = parseTime(options.get("FROM"), firstOfMonth.minusMonths(1));
+        LocalDateTime to = parseTime(options.get("TO"), firstOfMonth);
+        String lotId = options.get("LOT");
+        ExportFormat format = ExportFormat.valueOf(options.getOrDefault("FORMAT", "csv").toUpperCase());
+        boolean gzip = Boolean.parseBoolean(options.getOrDefault("GZIP", "false"));
+        File out = new File(options.getOrDefault("OUT",
+                HistoryExporter.fileName(dataset, format, from, to, lotId, gzip)));
+
+        System.out.println("=== Exporting " + dataset.name().toLowerCase() + " from " + from + " to " + to
+                + (lotId != null ? " for " + lotId : "") + " ===");
+        long started = System.nanoTime();
+        try {
+            long rows = new HistoryExporter().export(dataset, format, from, to, lotId, gzip, out);
+            System.out.printf("[OK] %d rows written to %s (%d KB) in %d ms%n", rows, out.getPath(),
+                    out.length() / 1024, (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException e) {
+            System.out.println("[FAIL] " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static LocalDateTime parseTime(String value, LocalDate defaultDate) {
+        if (value == null) {
+            return defaultDate.atStartOfDay();
+        }
+        return value.contains("T") ? LocalDateTime.parse(value) : LocalDate.parse(value).atStartOfDay();
+    }
+
+    private static void printAsCsv(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        if (file.getName().endsWith(".gz")) {
+            in = new GZIPInputStream(in, 1 << 16);
+        }
+        try (ColumnarTableReader reader = new ColumnarTableReader(in);
+                TableWriter writer = new CsvTableWriter(System.out, reader.getColumnNames(),
+                        reader.getColumnTypes())) {
+            Object[] row;
+            while ((row = reader.next()) != null) {
+                writer.writeRow(row);
+            }
+        }
+    }
+}
@@ -0,0 +1,562 @@
+package com.parkinglotmanager.test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.parkinglotmanager.dao.ParkingDAO;
+import com.parkinglotmanager.dao.RevenueLedger;
+import com.parkinglotmanager.dao.SessionWriteBehind;
+import com.parkinglotmanager.dao.VehicleDAO;
+import com.parkinglotmanager.dao.VehicleSessionDAO;
+import com.parkinglotmanager.enums.VehicleMake;
+import com.parkinglotmanager.enums.VehicleType;
+import com.parkinglotmanager.model.CampusLots;
+import com.parkinglotmanager.model.ParkingLot;
+import com.parkinglotmanager.model.ParkingSlot;
+import com.parkinglotmanager.model.VehicleSession;
+import com.parkinglotmanager.util.DatabaseConnection;
+
+/**
+ * Headless load generator for sizing hardware.
+ *
+ * Replays an open arrival process against ParkingDAO on N worker threads:
+ * arrivals are Poisson, dwell times lognormal, and each lot has its own mix
+ * of vehicle types. Simulated time can be compressed with SPEEDUP (60 runs a
+ * simulated hour in one minute). Latency is measured from the moment an event
+ * was due, so a saturated run shows up as queueing delay instead of quietly
+ * lowering the offered rate.
+ *
+ * Settings are read from config.properties as LOADGEN_<NAME> and can be
+ * overridden on the command line as NAME=value, e.g.
+ *
+ *   java -cp "build;mysql-connector-j-9.4.0.jar" com.parkinglotmanager.test.LoadGenerator
+ *        ARRIVALS_PER_HOUR=8000 DURATION_MIN=60 SPEEDUP=60 THREADS=8
+ *
+ * Per-lot mixes use LOADGEN_MIX_<lotId>, e.g. LOADGEN_MIX_LOT-001=CAR:90,EV:10.
+ */
+public class LoadGenerator {
+
+    private final Map<String, String> overrides;
+
+    private final double arrivalsPerHour;
+    private final double durationMinutes;
+    private final double speedup;
+    private final int threads;
+    private final double dwellMedianMinutes;
+    private final double dwellSigma;
+    private final int userId;
+    private final double hourlyRate;
+    private final boolean cleanup;
+    private final int flushWaitSeconds;
+    private final Random random;
+
+    private final List<ParkingLot> lots;
+    private final double[] lotWeights;
+    private final Map<String, VehicleMix> mixes = new HashMap<>();
+    private final ParkingDAO parkingDAO;
+
+    private final DelayQueue<Event> queue = new DelayQueue<>();
+    private volatile boolean arrivalsDone;
+    private long startNanos;
+    private long endNanos;
+
+    private final LatencyHistogram parkService = new LatencyHistogram();
+    private final LatencyHistogram parkResponse = new LatencyHistogram();
+    private final LatencyHistogram exitService = new LatencyHistogram();
+    private final LatencyHistogram exitResponse = new LatencyHistogram();
+    private final AtomicLong offered = new AtomicLong();
+    private final AtomicLong parked = new AtomicLong();
+    private final AtomicLong lotFull = new AtomicLong();
+    private final AtomicLong parkFailed = new AtomicLong();
+    private final AtomicLong exited = new AtomicLong();
+    private final AtomicLong exitFailed = new AtomicLong();
+    private final AtomicLong plateCounter = new AtomicLong();
+
+    public LoadGenerator(Map<String, String> overrides) {
+        this.overrides = overrides;
+        this.arrivalsPerHour = getDouble("ARRIVALS_PER_HOUR", 8000);
+        this.durationMinutes = getDouble("DURATION_MIN", 60);
+        this.speedup = Math.max(0.001, getDouble("SPEEDUP", 60));
+        this.threads = Math.max(1, (int) getDouble("THREADS", 8));
+        this.dwellMedianMinutes = getDouble("DWELL_MEDIAN_MIN", 120);
+        this.dwellSigma = getDouble("DWELL_SIGMA", 0.8);
+        this.userId = (int) getDouble("USER_ID", 1);
+        this.hourlyRate = getDouble("HOURLY_RATE", 5.0);
+        this.cleanup = Boolean.parseBoolean(get("CLEANUP", "true"));
+        this.flushWaitSeconds = (int) getDouble("FLUSH_WAIT_SEC", 60);
+        String seed = get("SEED", "");
+        this.random = seed.isEmpty() ? new Random() : new Random(Long.parseLong(seed));
+
+        this.lots = CampusLots.create();
+        this.lotWeights = new double[lots.size()];
+        VehicleMix defaultMix = VehicleMix.parse(get("MIX", "CAR:85,MOTORCYCLE:5,EV:7,TRUCK:3"));
+        double cumulative = 0;
+        for (int i = 0; i < lots.size(); i++) {
+            ParkingLot lot = lots.get(i);
+            // Arrivals are spread over lots in proportion to their capacity
+            cumulative += lot.getTotalSpaces();
+            lotWeights[i] = cumulative;
+            String lotMix = get("MIX_" + lot.getLotId(), "");
+            mixes.put(lot.getLotId(), lotMix.isEmpty() ? defaultMix : VehicleMix.parse(lotMix));
+        }
+
+        this.parkingDAO = new ParkingDAO(new VehicleSessionDAO(), new VehicleDAO());
+        RevenueLedger.getInstance().setLots(lots);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> overrides = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                System.err.println("Ignoring argument (expected NAME=value): " + arg);
+                continue;
+            }
+            overrides.put(arg.substring(0, eq).toUpperCase(), arg.substring(eq + 1));
+        }
+        new LoadGenerator(overrides).run();
+    }
+
+    public void run() throws InterruptedException {
+        System.out.println("=== Parking load generator ===");
+        System.out.printf("Arrivals: %.0f/hour for %.0f simulated minutes, speedup x%.1f (%.1f arrivals/s wall)%n",
+                arrivalsPerHour, durationMinutes, speedup, arrivalsPerHour / 3600.0 * speedup);
+        System.out.printf("Dwell: lognormal, median %.0f min, sigma %.2f; %d worker threads; %d lots, %d slots%n",
+                dwellMedianMinutes, dwellSigma, threads, lots.size(), (long) lotWeights[lotWeights.length - 1]);
+        System.out.println("Write-behind: " + (SessionWriteBehind.isEnabled() ? "on" : "off"));
+        System.out.println();
+
+        startNanos = System.nanoTime();
+        endNanos = startNanos + toWallNanos(durationMinutes);
+
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(this::workLoop, "loadgen-worker-" + (i + 1));
+            worker.start();
+            workers.add(worker);
+        }
+        Thread arrivals = new Thread(this::generateArrivals, "loadgen-arrivals");
+        arrivals.start();
+
+        long nextReport = startNanos + TimeUnit.SECONDS.toNanos(10);
+        long lastOps = 0;
+        while (arrivals.isAlive() || System.nanoTime() < endNanos) {
+            Thread.sleep(200);
+            long now = System.nanoTime();
+            if (now >= nextReport) {
+                long ops = parked.get() + exited.get();
+                System.out.printf("[%5.0fs] parked %d, exited %d, occupied %d, %.0f ops/s, backlog %d%n",
+                        (now - startNanos) / 1e9, parked.get(), exited.get(), parked.get() - exited.get(),
+                        (ops - lastOps) / 10.0, overdueEvents(now));
+                lastOps = ops;
+                nextReport += TimeUnit.SECONDS.toNanos(10);
+            }
+        }
+        arrivals.join();
+        // Workers finish the overdue backlog before they stop
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long runNanos = System.nanoTime() - startNanos;
+
+        List<VehicleSession> remaining = new ArrayList<>();
+        for (Event event : queue) {
+            if (event.session != null) {
+                remaining.add(event.session);
+            }
+        }
+        queue.clear();
+
+        printReport(runNanos, remaining.size());
+
+        if (cleanup && !remaining.isEmpty()) {
+            long start = System.nanoTime();
+            List<VehicleSession> exited = parkingDAO.exitVehicles(remaining, hourlyRate, lots);
+            System.out.printf("Cleanup: exited %d still-parked vehicles in %.1f ms%n",
+                    exited != null ? exited.size() : -1, (System.nanoTime() - start) / 1e6);
+        }
+        waitForWriteBehind();
+        System.exit(0);
+    }
+
+    /**
+     * Puts Poisson arrivals on the queue as they fall due, until the run ends.
+     */
+    private void generateArrivals() {
+        double ratePerWallNano = arrivalsPerHour / 3600.0 * speedup / 1e9;
+        double next = startNanos;
+        try {
+            while (true) {
+                // Exponential inter-arrival gaps give a Poisson process
+                next += -Math.log(1.0 - random.nextDouble()) / ratePerWallNano;
+                long due = (long) next;
+                if (due >= endNanos) {
+                    break;
+                }
+                long wait = due - System.nanoTime();
+                if (wait > TimeUnit.MILLISECONDS.toNanos(20)) {
+                    TimeUnit.NANOSECONDS.sleep(wait - TimeUnit.MILLISECONDS.toNanos(10));
+                }
+                int lotIndex = pickLot();
+                ParkingLot lot = lots.get(lotIndex);
+                VehicleType type = mixes.get(lot.getLotId()).pick(random);
+                queue.put(new Event(due, lot, type, null));
+                offered.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            arrivalsDone = true;
+        }
+    }
+
+    private void workLoop() {
+        while (true) {
+            Event event;
+            try {
+                event = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (event == null) {
+                if (arrivalsDone && System.nanoTime() >= endNanos) {
+                    return;
+                }
+                continue;
+            }
+            if (event.dueNanos >= endNanos) {
+                // Departure after the end of the run: leave it for cleanup
+                queue.put(event);
+                if (arrivalsDone) {
+                    return;
+                }
+                continue;
+            }
+            try {
+                if (event.session == null) {
+                    park(event);
+                } else {
+                    exit(event);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Simulation event failed: " + e.getMessage());
+                (event.session == null ? parkFailed : exitFailed).incrementAndGet();
+            }
+        }
+    }
+
+    private void park(Event event) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        VehicleMake[] makes = VehicleMake.values();
+        VehicleMake make = makes[rnd.nextInt(makes.length)];
+
+        long start = System.nanoTime();
+        VehicleSession session = parkingDAO.parkVehicle(event.lot, nextPlate(), event.vehicleType, make, userId);
+        long end = System.nanoTime();
+        parkService.record(end - start);
+        parkResponse.record(end - event.dueNanos);
+
+        if (session == null) {
+            if (event.lot.getAvailableSpacesFor(event.vehicleType) == 0) {
+                lotFull.incrementAndGet();
+            } else {
+                parkFailed.incrementAndGet();
+            }
+            return;
+        }
+        parked.incrementAndGet();
+
+        double dwellMinutes = dwellMedianMinutes * Math.exp(dwellSigma * rnd.nextGaussian());
+        queue.put(new Event(end + toWallNanos(dwellMinutes), event.lot, event.vehicleType, session,
+                dwellMinutes));
+    }
+
+    private void exit(Event event) {
+        VehicleSession session = event.session;
+        // Fee from the simulated stay, rounded up to whole hours like calculateFee
+        double fee = Math.max(1, Math.ceil(event.dwellMinutes / 60.0)) * hourlyRate;
+
+        long start = System.nanoTime();
+        ParkingSlot slot = event.lot.getSlotById(session.getSlotId());
+        if (slot != null) {
+            slot.setOccupied(false, null);
+        }
+        boolean completed = parkingDAO.completeSession(session, fee);
+        long end = System.nanoTime();
+        exitService.record(end - start);
+        exitResponse.record(end - event.dueNanos);
+
+        (completed ? exited : exitFailed).incrementAndGet();
+    }
+
+    private void printReport(long runNanos, int stillParked) {
+        double seconds = runNanos / 1e9;
+        System.out.println();
+        System.out.println("=== Results ===");
+        System.out.printf("Wall time: %.1f s (%.1f simulated minutes)%n", seconds,
+                seconds * speedup / 60.0);
+        System.out.printf("Arrivals offered: %d, parked: %d, lot full: %d, failed: %d%n",
+                offered.get(), parked.get(), lotFull.get(), parkFailed.get());
+        System.out.printf("Exits: %d, failed: %d, still parked at end: %d%n",
+                exited.get(), exitFailed.get(), stillParked);
+        System.out.printf("Throughput: %.1f parks/s, %.1f ops/s (sustains %.0f arrivals/hour in real time)%n",
+                parked.get() / seconds, (parked.get() + exited.get()) / seconds,
+                parked.get() / seconds * 3600.0);
+        System.out.printf("Revenue ledger: $%.2f from %d completed sessions today%n",
+                RevenueLedger.getInstance().getTodayRevenue(), RevenueLedger.getInstance().getTodayCompletedCount());
+        System.out.println();
+        System.out.println("Latency (ms)          count      p50      p90      p99    p99.9      max");
+        printLatency("park  service", parkService);
+        printLatency("park  response", parkResponse);
+        printLatency("exit  service", exitService);
+        printLatency("exit  response", exitResponse);
+        System.out.println("(service = DAO call only; response = from when the event was due)");
+        System.out.println();
+    }
+
+    private static void printLatency(String label, LatencyHistogram histogram) {
+        System.out.printf("%-18s %9d %8.2f %8.2f %8.2f %8.2f %8.2f%n", label, histogram.getCount(),
+                histogram.percentileMillis(50), histogram.percentileMillis(90), histogram.percentileMillis(99),
+                histogram.percentileMillis(99.9), histogram.maxMillis());
+    }
+
+    /**
+     * With write-behind on, parks and exits are only journaled; wait for the
+     * background writer to catch up so the database side is measured too.
+     */
+    private void waitForWriteBehind() {
+        if (!SessionWriteBehind.isEnabled()) {
+            return;
+        }
+        SessionWriteBehind writeBehind = SessionWriteBehind.getInstance();
+        int pending = writeBehind.getPendingCount();
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(flushWaitSeconds);
+        while (writeBehind.getPendingCount() > 0 && System.nanoTime() < deadline) {
+            writeBehind.flush();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        int left = writeBehind.getPendingCount();
+        System.out.printf("Write-behind: %d sessions pending at end of run, %d left after %.1f s%s%n",
+                pending, left, (System.nanoTime() - start) / 1e9,
+                left > 0 ? " (still in the journal)" : "");
+    }
+
+    private int overdueEvents(long now) {
+        int overdue = 0;
+        for (Event event : queue) {
+            if (event.dueNanos <= now) {
+                overdue++;
+            }
+        }
+        return overdue;
+    }
+
+    private int pickLot() {
+        double r = random.nextDouble() * lotWeights[lotWeights.length - 1];
+        for (int i = 0; i < lotWeights.length; i++) {
+            if (r < lotWeights[i]) {
+                return i;
+            }
+        }
+        return lotWeights.length - 1;
+    }
+
+    private String nextPlate() {
+        // LG + base-36 counter: unique within a run, fits the 20-character column
+        return "LG" + Long.toString(plateCounter.incrementAndGet(), 36).toUpperCase();
+    }
+
+    private long toWallNanos(double simulatedMinutes) {
+        return (long) (simulatedMinutes * 60e9 / speedup);
+    }
+
+    private String get(String name, String defaultValue) {
+        String value = overrides.get(name);
+        if (value != null) {
+            return value;
+        }
+        return DatabaseConnection.getProperty("LOADGEN_" + name, defaultValue);
+    }
+
+    private double getDouble(String name, double defaultValue) {
+        String value = get(name, null);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for " + name + ": " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * An arrival (session == null) or departure, released by the queue when due
+     */
+    private static final class Event implements Delayed {
+        private final long dueNanos;
+        private final ParkingLot lot;
+        private final VehicleType vehicleType;
+        private final VehicleSession session;
+        private final double dwellMinutes;
+
+        private Event(long dueNanos, ParkingLot lot, VehicleType vehicleType, VehicleSession session) {
+            this(dueNanos, lot, vehicleType, session, 0);
+        }
+
+        private Event(long dueNanos, ParkingLot lot, VehicleType vehicleType, VehicleSession session,
+                double dwellMinutes) {
+            this.dueNanos = dueNanos;
+            this.lot = lot;
+            this.vehicleType = vehicleType;
+            this.session = session;
+            this.dwellMinutes = dwellMinutes;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueNanos, ((Event) other).dueNanos);
+        }
+    }
+
+    /**
+     * Weighted choice of vehicle type, parsed from "CAR:85,EV:10,..."
+     */
+    private static final class VehicleMix {
+        private final VehicleType[] types;
+        private final double[] cumulative;
+
+        private VehicleMix(VehicleType[] types, double[] cumulative) {
+            this.types = types;
+            this.cumulative = cumulative;
+        }
+
+        static VehicleMix parse(String spec) {
+            List<VehicleType> types = new ArrayList<>();
+            List<Double> weights = new ArrayList<>();
+            for (String part : spec.split(",")) {
+                String[] kv = part.trim().split(":");
+                if (kv.length != 2) {
+                    continue;
+                }
+                try {
+                    types.add(VehicleType.valueOf(kv[0].trim().toUpperCase()));
+                    weights.add(Double.parseDouble(kv[1].trim()));
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Ignoring vehicle mix entry: " + part);
+                }
+            }
+            if (types.isEmpty()) {
+                types.add(VehicleType.CAR);
+                weights.add(1.0);
+            }
+            double[] cumulative = new double[types.size()];
+            double total = 0;
+            for (int i = 0; i < cumulative.length; i++) {
+                total += weights.get(i);
+                cumulative[i] = total;
+            }
+            return new VehicleMix(types.toArray(new VehicleType[0]), cumulative);
+        }
+
+        VehicleType pick(Random random) {
+            double r = random.nextDouble() * cumulative[cumulative.length - 1];
+            for (int i = 0; i < cumulative.length; i++) {
+                if (r < cumulative[i]) {
+                    return types[i];
+                }
+            }
+            return types[types.length - 1];
+        }
+    }
+
+    /**
+     * Lock-free latency histogram in microseconds, about 0.2% bucket precision.
+     * Values below 1024us get their own bucket; above that each power of two
+     * is split into 512 sub-buckets.
+     */
+    static final class LatencyHistogram {
+        private static final int SUB_BUCKETS = 512;
+        private static final int LINEAR_LIMIT = 1024;
+        private static final long MAX_VALUE = (1L << 40) - 1;
+        private static final int BUCKETS = LINEAR_LIMIT + (40 - 10) * SUB_BUCKETS;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long nanos) {
+            long micros = Math.min(MAX_VALUE, Math.max(0, nanos / 1000));
+            counts.incrementAndGet(index(micros));
+            count.incrementAndGet();
+            long currentMax;
+            while (micros > (currentMax = max.get()) && !max.compareAndSet(currentMax, micros)) {
+                // Retry until max is at least this value
+            }
+        }
+
+        long getCount() {
+            return count.get();
+        }
+
+        double percentileMillis(double percentile) {
+            long total = count.get();
+            if (total == 0) {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts.get(i);
+                if (seen >= target) {
+                    return Math.min(upperBound(i), max.get()) / 1000.0;
+                }
+            }
+            return maxMillis();
+        }
+
+        double maxMillis() {
+            return max.get() / 1000.0;
+        }
+
+        static int index(long micros) {
+            if (micros < LINEAR_LIMIT) {
+                return (int) micros;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(micros);
+            int shift = exponent - 9;
+            return LINEAR_LIMIT + (exponent - 10) * SUB_BUCKETS + (int) ((micros >>> shift) - SUB_BUCKETS);
+        }
+
+        static long upperBound(int index) {
+            if (index < LINEAR_LIMIT) {
+                return index;
+            }
+            int k = index - LINEAR_LIMIT;
+            int exponent = k / SUB_BUCKETS + 10;
+            long sub = k % SUB_BUCKETS + SUB_BUCKETS;
+            return ((sub + 1) << (exponent - 9)) - 1;
+        }
+    }
+}
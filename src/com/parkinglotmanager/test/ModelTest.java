@@ -1,10 +1,14 @@
 package com.parkinglotmanager.test;
 
+import com.parkinglotmanager.dao.SessionWriteBehind;
 import com.parkinglotmanager.enums.LotType;
 import com.parkinglotmanager.enums.SensorType;
 import com.parkinglotmanager.enums.SlotType;
 import com.parkinglotmanager.enums.VehicleMake;
 import com.parkinglotmanager.enums.VehicleType;
+import com.parkinglotmanager.export.ColumnType;
+import com.parkinglotmanager.export.ColumnarTableReader;
+import com.parkinglotmanager.export.ColumnarTableWriter;
 import com.parkinglotmanager.model.Admin;
 import com.parkinglotmanager.model.Client;
 import com.parkinglotmanager.model.OccupancyReport;
@@ -12,16 +16,47 @@ import com.parkinglotmanager.model.ParkingLot;
 import com.parkinglotmanager.model.ParkingSlot;
 import com.parkinglotmanager.model.Sensor;
 import com.parkinglotmanager.model.SensorReading;
+import com.parkinglotmanager.model.SlotAllocator;
 import com.parkinglotmanager.model.UserReport;
 import com.parkinglotmanager.model.VehicleSession;
+import com.parkinglotmanager.util.RingBuffer;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Simple test class to verify new model classes work correctly
+ * Simple test class to verify new model classes work correctly.
+ * Needs no database; exits with status 1 if a check fails.
  */
 public class ModelTest {
+
+    private static int failures;
+
     public static void main(String[] args) {
         System.out.println("=== Parking Lot Manager System - Model Test ===\n");
 
+        // Keep everything away from a real database: the write-behind check
+        // replays sessions, and those flush to a throwaway embedded database
+        // (or fail harmlessly without the H2 driver)
+        System.setProperty("DB_PROFILE", "embedded");
+        System.setProperty("EMBEDDED_DB_PATH", new File(System.getProperty("java.io.tmpdir"),
+                "parking-model-test-" + System.nanoTime() + File.separator + "parking").getAbsolutePath());
+
         // Test ParkingLot
         ParkingLot lot = new ParkingLot("LOT-001", "Structure 1", "123 Main St", LotType.STRUCTURE);
         System.out.println("Created: " + lot);
@@ -30,6 +65,10 @@ public class ModelTest {
         ParkingSlot slot = new ParkingSlot("LOT-001-001", "LOT-001", 1, SlotType.CAR);
         lot.addSlot(slot);
         System.out.println("Created: " + slot);
+        check("Lookup by ID finds slot", lot.getSlotById("LOT-001-001") == slot);
+        check("Lookup by number finds slot", lot.getSlotByNumber(1) == slot);
+        check("Unknown ID finds nothing", lot.getSlotById("LOT-001-999") == null);
+        check("Unknown number finds nothing", lot.getSlotByNumber(999) == null);
 
         // Test User
         try {
@@ -71,11 +110,307 @@ public class ModelTest {
             System.out.println("Created: " + reading);
             System.out.println("  Is Reliable: " + reading.isReliable());
 
-            System.out.println("\n=== All Model Classes Working! ===");
-            
         } catch (Exception e) {
             System.err.println("bad user");
         }
 
+        try {
+            testSlotAllocator();
+            testConcurrentClaims();
+            testSlotStoreGrowthAndRemoval();
+            testRingBuffer();
+            testColumnarRoundTrip();
+            testJournalReplay();
+        } catch (Exception e) {
+            check("No exception (" + e + ")", false);
+            e.printStackTrace();
+        }
+
+        System.out.println();
+        if (failures == 0) {
+            System.out.println("=== All Model Classes Working! ===");
+        } else {
+            System.out.println("=== " + failures + " check(s) failed ===");
+            System.exit(1);
+        }
+    }
+
+    // Free slot searches over the allocator's bitmaps
+    private static void testSlotAllocator() {
+        System.out.println("\n--- Slot allocator ---");
+        SlotAllocator allocator = new SlotAllocator();
+        // 0: motorcycle, 1-9: car (1-3 taken), 7 is EV
+        allocator.update(0, SlotType.MOTORCYCLE, true);
+        for (int i = 1; i < 10; i++) {
+            allocator.update(i, i == 7 ? SlotType.EV : SlotType.CAR, i > 3);
+        }
+        check("First free car slot", allocator.firstFree(VehicleType.CAR) == 4);
+        check("First free motorcycle slot", allocator.firstFree(VehicleType.MOTORCYCLE) == 0);
+        check("No slot for a truck", allocator.firstFree(VehicleType.TRUCK) == -1);
+        check("Nearest free car slot skips the motorcycle slot", allocator.nearestFree(VehicleType.CAR, 2) == 4);
+        check("Nearest free car slot skips the EV slot", allocator.nearestFree(VehicleType.CAR, 7) == 6);
+        check("Nearest free EV slot", allocator.nearestFree(VehicleType.EV, 7) == 7);
+
+        boolean compatible = true;
+        Set<Integer> seen = new HashSet<>();
+        for (int seed = 0; seed < 100; seed++) {
+            int index = allocator.randomFree(VehicleType.CAR, new Random(seed));
+            compatible &= index >= 4 && index != 7;
+            seen.add(index);
+        }
+        check("Random free car slot is free and compatible", compatible);
+        check("Random free car slot varies", seen.size() > 1);
+
+        for (int i = 4; i < 10; i++) {
+            allocator.update(i, i == 7 ? SlotType.EV : SlotType.CAR, false);
+        }
+        check("Full for cars", allocator.firstFree(VehicleType.CAR) == -1
+                && allocator.randomFree(VehicleType.CAR, new Random(1)) == -1
+                && allocator.nearestFree(VehicleType.CAR, 5) == -1);
+
+        ParkingLot lot = new ParkingLot("LOT-A", "Allocator", "Here", LotType.STRUCTURE);
+        for (int number = 1; number <= 5; number++) {
+            lot.addSlot(number, SlotType.CAR);
+        }
+        lot.getSlotByNumber(1).setOccupied(true, VehicleType.CAR);
+        lot.getSlotByNumber(3).setOccupied(true, VehicleType.CAR);
+        check("Lot finds first available slot", lot.findFirstAvailableSlot(VehicleType.CAR) == lot.getSlotByNumber(2));
+        check("Lot finds nearest available slot", lot.findNearestAvailableSlot(VehicleType.CAR, 3) == lot.getSlotByNumber(2));
+        check("Lot finds a random available slot", lot.findRandomAvailableSlot(VehicleType.CAR, new Random(7)).isAvailable());
+    }
+
+    // Many threads claiming from one lot: every slot goes to exactly one caller
+    private static void testConcurrentClaims() throws InterruptedException {
+        System.out.println("\n--- Concurrent claims ---");
+        int slots = 200;
+        int threads = 8;
+        ParkingLot lot = new ParkingLot("LOT-C", "Claims", "Here", LotType.STRUCTURE);
+        for (int number = 1; number <= slots; number++) {
+            lot.addSlot(number, SlotType.CAR);
+        }
+        Set<ParkingSlot> claimed = ConcurrentHashMap.newKeySet();
+        AtomicInteger claims = new AtomicInteger();
+        runConcurrently(threads, () -> {
+            ParkingSlot slot;
+            while ((slot = lot.claimAvailableSlot(VehicleType.CAR)) != null) {
+                claims.incrementAndGet();
+                claimed.add(slot);
+            }
+        });
+        check("Every slot claimed once", claims.get() == slots && claimed.size() == slots);
+        check("No space left after claims", lot.getAvailableSpaces() == 0);
+
+        // Half are confirmed, half released, from all threads at once
+        List<ParkingSlot> held = new ArrayList<>(claimed);
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger lost = new AtomicInteger();
+        runConcurrently(threads, () -> {
+            int i;
+            while ((i = next.getAndIncrement()) < held.size()) {
+                ParkingSlot slot = held.get(i);
+                if (slot.getSlotNumber() % 2 == 0) {
+                    if (!slot.confirmClaim(VehicleType.CAR)) {
+                        lost.incrementAndGet();
+                    }
+                } else {
+                    slot.releaseClaim();
+                }
+            }
+        });
+        check("Every claim confirmed", lost.get() == 0);
+        check("Released claims available again", lot.getAvailableSpaces() == slots / 2);
+        check("Confirmed slot occupied", lot.getSlotByNumber(2).getState() == ParkingSlot.STATE_OCCUPIED);
+        check("Second claim on a taken slot fails", !lot.getSlotByNumber(2).tryClaim());
+
+        ParkingSlot removed = lot.claimAvailableSlot(VehicleType.CAR);
+        check("Claim lost when its slot is removed", removed != null && lot.removeSlot(removed)
+                && !removed.confirmClaim(VehicleType.CAR) && removed.getState() == ParkingSlot.STATE_OUT_OF_SERVICE);
+    }
+
+    // Slots added past the store's capacity and removed from the middle
+    private static void testSlotStoreGrowthAndRemoval() {
+        System.out.println("\n--- Slot store growth and removal ---");
+        ParkingLot lot = new ParkingLot("LOT-G", "Growth", "Here", LotType.STRUCTURE);
+        lot.addSlot(1, SlotType.CAR);
+        ParkingSlot first = lot.getSlotByNumber(1);
+        for (int number = 2; number <= 300; number++) {
+            lot.addSlot(number, number % 10 == 0 ? SlotType.EV : SlotType.CAR);
+        }
+        check("All slots added", lot.getTotalSpaces() == 300);
+        check("Slot from before growth still live", lot.getSlotByNumber(1) == first
+                && first.setOccupied(true, VehicleType.CAR) && lot.getAvailableSpaces() == 299);
+        check("Slot ID built from lot and number",
+                ParkingLot.slotId("LOT-G", 150).equals(lot.getSlotByNumber(150).getSlotId()));
+        check("Slot found by ID", lot.getSlotById(ParkingLot.slotId("LOT-G", 150)) == lot.getSlotByNumber(150));
+
+        ParkingSlot later = lot.getSlotByNumber(100);
+        later.setOccupied(true, VehicleType.EV);
+        ParkingSlot removed = lot.getSlotByNumber(50);
+        check("Slot removed", lot.removeSlot(removed) && lot.getTotalSpaces() == 299);
+        check("Removed slot gone from lookups", lot.getSlotByNumber(50) == null
+                && lot.getSlotById(ParkingLot.slotId("LOT-G", 50)) == null);
+        check("Removed slot keeps its values", removed.getSlotNumber() == 50 && removed.getType() == SlotType.EV);
+        check("Later slot shifted down", later.getIndex() == 98 && lot.getSlotByNumber(100) == later
+                && later.isOccupied() && later.getVehicleType() == VehicleType.EV);
+        check("Free count after removal", lot.getAvailableSpaces() == 297);
+        check("Removing twice fails", !lot.removeSlot(removed));
+    }
+
+    // Several producers and one consumer through the audit/sensor buffer
+    private static void testRingBuffer() throws InterruptedException {
+        System.out.println("\n--- Ring buffer ---");
+        int producers = 4;
+        int perProducer = 50000;
+        RingBuffer<long[]> buffer = new RingBuffer<>(1000);
+        check("Capacity rounded to a power of two", buffer.capacity() == 1024);
+
+        long[] lastSeen = new long[producers];
+        Arrays.fill(lastSeen, -1);
+        boolean[] inOrder = { true };
+        long[] received = { 0 };
+        AtomicInteger producerIds = new AtomicInteger();
+        Thread consumer = new Thread(() -> {
+            while (received[0] < (long) producers * perProducer) {
+                int got = buffer.drainTo(item -> {
+                    int producer = (int) item[0];
+                    inOrder[0] &= item[1] == lastSeen[producer] + 1;
+                    lastSeen[producer] = item[1];
+                    received[0]++;
+                }, 256);
+                if (got == 0) {
+                    Thread.yield();
+                }
+            }
+        }, "ring-buffer-consumer");
+        consumer.start();
+        runConcurrently(producers, () -> {
+            int producer = producerIds.getAndIncrement();
+            for (long i = 0; i < perProducer; i++) {
+                long[] item = { producer, i };
+                while (!buffer.offer(item)) {
+                    Thread.yield();
+                }
+            }
+        });
+        consumer.join(10000);
+        check("Every item received", !consumer.isAlive() && received[0] == (long) producers * perProducer);
+        check("Each producer's items in order", inOrder[0]);
+        check("Buffer empty afterwards", buffer.size() == 0 && buffer.poll() == null);
+
+        RingBuffer<String> small = new RingBuffer<>(2);
+        check("Full buffer rejects", small.offer("a") && small.offer("b") && !small.offer("c")
+                && small.getRejectedCount() == 1);
+        check("Polled in order", "a".equals(small.poll()) && "b".equals(small.poll()));
+    }
+
+    // Export format: several row groups, every type, nulls in every column
+    private static void testColumnarRoundTrip() throws IOException {
+        System.out.println("\n--- Columnar export ---");
+        String[] names = { "id", "count", "fee", "entryTime", "plate" };
+        ColumnType[] types = { ColumnType.INT, ColumnType.LONG, ColumnType.DECIMAL, ColumnType.TIMESTAMP,
+                ColumnType.STRING };
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 8, 0);
+        int rows = 20000;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ColumnarTableWriter writer = new ColumnarTableWriter(bytes, names, types);
+        for (int i = 0; i < rows; i++) {
+            writer.writeRow(row(i, start));
+        }
+        check("Rows counted", writer.getRowCount() == rows);
+        writer.close();
+
+        ColumnarTableReader reader = new ColumnarTableReader(new ByteArrayInputStream(bytes.toByteArray()));
+        check("Column names read back", Arrays.equals(reader.getColumnNames(), names));
+        check("Column types read back", Arrays.equals(reader.getColumnTypes(), types));
+        int read = 0;
+        int mismatched = 0;
+        Object[] values;
+        while ((values = reader.next()) != null) {
+            Object[] expected = row(read, start);
+            for (int c = 0; c < values.length; c++) {
+                boolean same = expected[c] instanceof BigDecimal
+                        ? values[c] instanceof BigDecimal && ((BigDecimal) values[c]).compareTo((BigDecimal) expected[c]) == 0
+                        : expected[c] == null ? values[c] == null : expected[c].equals(values[c]);
+                if (!same) {
+                    mismatched++;
+                }
+            }
+            read++;
+        }
+        reader.close();
+        check("All rows read back", read == rows);
+        check("Values and nulls match", mismatched == 0);
+    }
+
+    private static Object[] row(int i, LocalDateTime start) {
+        return new Object[] {
+                i % 7 == 0 ? null : i,
+                i % 11 == 0 ? null : (long) i << 33,
+                i % 5 == 0 ? null : BigDecimal.valueOf(i * 25L, 2),
+                i % 3 == 0 ? null : start.plusSeconds(i * 61L),
+                i % 4 == 0 ? null : "P-" + (i % 50) };
+    }
+
+    // A journal left by an earlier run is replayed and compacted on startup
+    private static void testJournalReplay() throws IOException {
+        System.out.println("\n--- Write-behind journal ---");
+        File dir = Files.createTempDirectory("parking-journal").toFile();
+        File journal = new File(dir, "journal.log");
+        String entry = LocalDateTime.of(2024, 1, 1, 8, 0).toString();
+        String exit = LocalDateTime.of(2024, 1, 1, 10, 30).toString();
+        Files.write(journal.toPath(), Arrays.asList(
+                line("P", "-1", "AAA-111", "CAR", "TOYOTA", "1", "LOT-001-001", entry, "1"),
+                line("P", "-2", "BBB-222", "CAR", "", "1", "LOT-001-002", entry, "0"),
+                line("P", "-3", "CCC-333", "EV", "", "1", "LOT-001-003", entry, "0"),
+                line("A", "-1", "101"),             // inserted, still parked: nothing owed
+                line("X", "-2", exit, "7.5", "PAID"), // not inserted yet: insert and exit owed
+                line("D", "-3"),                    // cancelled
+                line("X", "55", exit, "3.0", "PAID"), // already in the database: exit owed
+                "X	56	torn"),                     // half-written last line
+                StandardCharsets.UTF_8);
+
+        System.setProperty("WRITE_BEHIND_JOURNAL", journal.getAbsolutePath());
+        System.setProperty("WRITE_BEHIND_FLUSH_INTERVAL_MS", "3600000");
+
+        SessionWriteBehind writeBehind = SessionWriteBehind.getInstance();
+        check("Owed sessions restored", writeBehind.getPendingCount() == 2);
+        List<String> lines = Files.readAllLines(journal.toPath(), StandardCharsets.UTF_8);
+        Collections.sort(lines);
+        check("Journal compacted to what is owed", lines.size() == 3
+                && lines.get(0).startsWith(line("P", "-2", "BBB-222"))
+                && lines.get(1).startsWith(line("X", "-2", exit, "7.5"))
+                && lines.get(2).startsWith(line("X", "55", exit, "3.0")));
+    }
+
+    private static String line(String... fields) {
+        return String.join("\t", fields);
+    }
+
+    private static void runConcurrently(int threads, Runnable task) throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(() -> {
+                try {
+                    ready.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                task.run();
+            }, "model-test-" + i);
+            workers[i].start();
+        }
+        ready.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private static void check(String what, boolean ok) {
+        System.out.println((ok ? "[OK] " : "[FAIL] ") + what);
+        if (!ok) {
+            failures++;
+        }
     }
 }
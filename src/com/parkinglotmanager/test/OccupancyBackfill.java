@@ -0,0 +1,43 @@
+package com.parkinglotmanager.test;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import com.parkinglotmanager.dao.OccupancyRollup;
+import com.parkinglotmanager.dao.VehicleSessionDAO;
+import com.parkinglotmanager.util.DatabaseConnection;
+
+/**
+ * Fill the OccupancyHourly rollup table from existing VehicleSession rows.
+ *
+ * Arguments (all optional): FROM TO CHUNK_HOURS, e.g.
+ * 2025-09-01T00:00 2025-12-01T00:00 24. FROM defaults to the first session,
+ * TO to now. Re-running a range overwrites it.
+ */
+public class OccupancyBackfill {
+
+    public static void main(String[] args) {
+        LocalDateTime from = args.length > 0 ? LocalDateTime.parse(args[0])
+                : new VehicleSessionDAO().getEarliestEntryTime();
+        LocalDateTime to = args.length > 1 ? LocalDateTime.parse(args[1])
+                : LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).plusHours(1);
+        int chunkHours = args.length > 2 ? Integer.parseInt(args[2])
+                : DatabaseConnection.getIntProperty("ROLLUP_CHUNK_HOURS", 24);
+
+        if (from == null) {
+            System.out.println("No sessions to roll up.");
+            return;
+        }
+
+        System.out.println("=== Rolling up occupancy from " + from + " to " + to + " (" + chunkHours + "h chunks) ===");
+        long started = System.nanoTime();
+        int rows = OccupancyRollup.getInstance().backfill(from, to, chunkHours);
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+        if (rows < 0) {
+            System.out.println("[FAIL] Backfill stopped after an error; re-run to retry the remaining range");
+            System.exit(1);
+        }
+        System.out.println("[OK] " + rows + " lot-hours written in " + elapsedMs + " ms");
+    }
+}
@@ -0,0 +1,141 @@
+package com.parkinglotmanager.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import com.parkinglotmanager.dao.SensorIngest;
+import com.parkinglotmanager.enums.SensorType;
+import com.parkinglotmanager.model.CampusLots;
+import com.parkinglotmanager.model.ParkingLot;
+import com.parkinglotmanager.model.ParkingSlot;
+import com.parkinglotmanager.model.Sensor;
+import com.parkinglotmanager.model.SensorReading;
+
+/**
+ * Drives SensorIngest with synthetic loop-detector readings: one sensor per
+ * slot of every campus lot, PRODUCERS threads submitting RATE readings per
+ * second between them for SECONDS. Each simulated vehicle stays a few
+ * seconds to a minute, and a few readings are noisy. Reports the rate
+ * accepted, readings dropped, backlog, slot updates and readings saved.
+ *
+ *   java -cp "build;mysql-connector-j-9.4.0.jar" com.parkinglotmanager.test.SensorLoadTest
+ *        RATE=50000 SECONDS=30 PRODUCERS=8
+ *
+ * Other SENSOR_* settings can be given the same way (SENSOR_PERSIST=NONE
+ * runs without a database).
+ */
+public class SensorLoadTest {
+
+    public static void main(String[] args) throws InterruptedException {
+        int rate = 50000;
+        int seconds = 30;
+        int producers = 8;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                System.err.println("Ignoring argument (expected NAME=value): " + arg);
+                continue;
+            }
+            String name = arg.substring(0, eq).toUpperCase();
+            String value = arg.substring(eq + 1);
+            if (name.equals("RATE")) {
+                rate = Integer.parseInt(value);
+            } else if (name.equals("SECONDS")) {
+                seconds = Integer.parseInt(value);
+            } else if (name.equals("PRODUCERS")) {
+                producers = Integer.parseInt(value);
+            } else {
+                System.setProperty(name, value); // SENSOR_* settings
+            }
+        }
+
+        SensorIngest ingest = SensorIngest.getInstance();
+        List<String> sensorIds = new ArrayList<>();
+        for (ParkingLot lot : CampusLots.create()) {
+            for (ParkingSlot slot : lot.getSlots()) {
+                Sensor sensor = new Sensor(slot.getSlotId() + "-LOOP", lot.getLotId(), slot.getSlotId(),
+                        SensorType.LOOP);
+                ingest.register(sensor, slot);
+                sensorIds.add(sensor.getSensorId());
+            }
+        }
+        ingest.start();
+
+        System.out.println("=== Sensor ingest load test ===");
+        System.out.printf("%d sensors, %d readings/s from %d producers for %d s%n",
+                sensorIds.size(), rate, producers, seconds);
+
+        AtomicLong offered = new AtomicLong();
+        long endNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int first = p;
+            int count = producers;
+            double perThread = rate / (double) producers;
+            Thread t = new Thread(() -> produce(ingest, sensorIds, first, count, perThread, endNanos, offered),
+                    "sensor-producer-" + p);
+            threads.add(t);
+            t.start();
+        }
+
+        long start = System.nanoTime();
+        int maxBacklog = 0;
+        while (System.nanoTime() < endNanos) {
+            Thread.sleep(100);
+            maxBacklog = Math.max(maxBacklog, ingest.getBacklog());
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        ingest.stop(30000);
+
+        long dropped = ingest.getDroppedCount();
+        System.out.printf("Offered:      %d (%.0f/s)%n", offered.get(), offered.get() / elapsed);
+        System.out.printf("Processed:    %d (%.0f/s)%n", ingest.getProcessedCount(),
+                ingest.getProcessedCount() / elapsed);
+        System.out.printf("Dropped:      %d (%.3f%%)%n", dropped, 100.0 * dropped / Math.max(1, offered.get()));
+        System.out.printf("Max backlog:  %d%n", maxBacklog);
+        System.out.printf("Slot updates: %d%n", ingest.getSlotUpdateCount());
+        System.out.printf("Saved:        %d (not saved: %d)%n", ingest.getSavedCount(), ingest.getUnsavedCount());
+    }
+
+    /**
+     * Round-robin over this thread's share of the sensors at a steady rate.
+     * Each sensor sees a vehicle for a random 5-60 s, then none for as long.
+     */
+    private static void produce(SensorIngest ingest, List<String> sensorIds, int first, int step,
+            double perSecond, long endNanos, AtomicLong offered) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int mine = (sensorIds.size() - first + step - 1) / step;
+        boolean[] occupied = new boolean[mine];
+        long[] flipAt = new long[mine];
+        long intervalNanos = (long) (1e9 / perSecond);
+        long next = System.nanoTime();
+        int i = 0;
+        while (next < endNanos) {
+            long now = System.nanoTime();
+            if (now < next) {
+                if (next - now > 50000) {
+                    LockSupport.parkNanos(next - now);
+                }
+                continue;
+            }
+            if (now >= flipAt[i]) {
+                occupied[i] = !occupied[i];
+                flipAt[i] = now + TimeUnit.SECONDS.toNanos(5 + random.nextInt(56));
+            }
+            boolean noisy = random.nextInt(50) == 0;
+            SensorReading reading = new SensorReading(sensorIds.get(first + i * step),
+                    noisy != occupied[i], noisy ? 0.5f : 0.95f);
+            ingest.submit(reading);
+            offered.incrementAndGet();
+            i = (i + 1) % mine;
+            next += intervalNanos;
+        }
+    }
+}
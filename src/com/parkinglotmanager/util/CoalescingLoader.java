@@ -0,0 +1,91 @@
+package com.parkinglotmanager.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * A background load that is requested repeatedly (timer ticks, refresh buttons)
+ * but must never pile up. At most one load runs at a time; requests arriving
+ * while one is in flight collapse into a single follow-up load, and the next
+ * load does not start until the previous result has been published on the EDT.
+ *
+ * The loader runs on the DataAccessExecutor; a null result is not published.
+ */
+public class CoalescingLoader<T> {
+
+    private static final int IDLE = 0;
+    private static final int RUNNING = 1;
+    private static final int RUNNING_AND_REQUESTED = 2;
+
+    private final Callable<T> loader;
+    private final Consumer<T> publisher;
+    private final AtomicInteger state = new AtomicInteger(IDLE);
+
+    public CoalescingLoader(Callable<T> loader, Consumer<T> publisher) {
+        this.loader = loader;
+        this.publisher = publisher;
+    }
+
+    /**
+     * Ask for a fresh load. Returns immediately; safe to call from any thread.
+     */
+    public void request() {
+        while (true) {
+            int current = state.get();
+            if (current == IDLE) {
+                if (state.compareAndSet(IDLE, RUNNING)) {
+                    DataAccessExecutor.execute(this::load);
+                    return;
+                }
+            } else if (current == RUNNING) {
+                if (state.compareAndSet(RUNNING, RUNNING_AND_REQUESTED)) {
+                    return;
+                }
+            } else {
+                return; // A follow-up load is already queued
+            }
+        }
+    }
+
+    /**
+     * True while a load is running or its result is waiting to be published.
+     */
+    public boolean isBusy() {
+        return state.get() != IDLE;
+    }
+
+    private void load() {
+        T result = null;
+        try {
+            result = loader.call();
+        } catch (Exception e) {
+            System.err.println("Background load failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        if (result == null) {
+            finish();
+            return;
+        }
+        T published = result;
+        SwingUtilities.invokeLater(() -> {
+            try {
+                publisher.accept(published);
+            } finally {
+                finish();
+            }
+        });
+    }
+
+    private void finish() {
+        if (state.compareAndSet(RUNNING, IDLE)) {
+            return;
+        }
+        // Requested again while we were busy: run one more load
+        state.set(RUNNING);
+        DataAccessExecutor.execute(this::load);
+    }
+}
@@ -0,0 +1,288 @@
+package com.parkinglotmanager.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Small bounded JDBC connection pool used behind DatabaseConnection.getConnection().
+ * Connections handed out are proxies: calling close() returns the physical
+ * connection to the pool instead of closing it, so existing try-with-resources
+ * DAO code works unchanged.
+ */
+public class ConnectionPool {
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final long borrowTimeoutMillis;
+    private final long leakThresholdMillis;
+    private final int validationTimeoutSeconds;
+
+    // One permit per connection that may exist (idle or borrowed)
+    private final Semaphore permits;
+    // Most recently returned connection is reused first (keeps the hot set small)
+    private final LinkedBlockingDeque<PooledEntry> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledEntry> borrowed = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    public ConnectionPool(String url, String user, String password, int minSize, int maxSize,
+            long idleTimeoutMillis, long borrowTimeoutMillis, long leakThresholdMillis,
+            int validationTimeoutSeconds) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = Math.max(1, maxSize);
+        this.minSize = Math.max(0, Math.min(minSize, this.maxSize));
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.validationTimeoutSeconds = Math.max(1, validationTimeoutSeconds);
+        this.permits = new Semaphore(this.maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        this.housekeeper.scheduleWithFixedDelay(this::housekeep, 5, 5, TimeUnit.SECONDS);
+
+        prefill();
+    }
+
+    /**
+     * Borrow a connection, waiting up to the borrow timeout if the pool is exhausted.
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is shut down");
+        }
+
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("Timed out after " + borrowTimeoutMillis
+                        + "ms waiting for a database connection (pool size " + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            PooledEntry entry;
+            while ((entry = idle.pollFirst()) != null) {
+                if (isUsable(entry.physical)) {
+                    break;
+                }
+                closeQuietly(entry.physical);
+            }
+            if (entry == null) {
+                entry = new PooledEntry(DriverManager.getConnection(url, user, password));
+            }
+
+            entry.borrowedAt = System.currentTimeMillis();
+            entry.borrowSite = leakThresholdMillis > 0 ? new Throwable("Connection borrowed here") : null;
+            entry.leakReported = false;
+            borrowed.add(entry);
+            return entry.newProxy();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Return a connection to the idle set. Called from the proxy's close().
+     */
+    private void release(PooledEntry entry) {
+        borrowed.remove(entry);
+        try {
+            if (closed || entry.physical.isClosed()) {
+                closeQuietly(entry.physical);
+                return;
+            }
+            // Undo anything a caller may have left behind
+            if (!entry.physical.getAutoCommit()) {
+                entry.physical.rollback();
+                entry.physical.setAutoCommit(true);
+            }
+            entry.returnedAt = System.currentTimeMillis();
+            idle.offerFirst(entry);
+        } catch (SQLException e) {
+            closeQuietly(entry.physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Close every pooled connection and stop the housekeeping thread.
+     */
+    public void shutdown() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            closeQuietly(entry.physical);
+        }
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getActiveCount() {
+        return borrowed.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    private boolean isUsable(Connection conn) {
+        try {
+            return !conn.isClosed() && conn.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void prefill() {
+        for (int i = 0; i < minSize; i++) {
+            try {
+                PooledEntry entry = new PooledEntry(DriverManager.getConnection(url, user, password));
+                entry.returnedAt = System.currentTimeMillis();
+                idle.offerLast(entry);
+            } catch (SQLException e) {
+                // Database not reachable yet - connections will be opened on demand
+                System.err.println("Connection pool prefill stopped: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Evict connections idle past the timeout (keeping minSize) and report leaks.
+     */
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+
+        if (idleTimeoutMillis > 0) {
+            Iterator<PooledEntry> it = idle.descendingIterator();
+            while (it.hasNext() && idle.size() + borrowed.size() > minSize) {
+                PooledEntry entry = it.next();
+                if (now - entry.returnedAt > idleTimeoutMillis && idle.remove(entry)) {
+                    closeQuietly(entry.physical);
+                }
+            }
+        }
+
+        if (leakThresholdMillis > 0) {
+            for (PooledEntry entry : borrowed) {
+                if (!entry.leakReported && now - entry.borrowedAt > leakThresholdMillis) {
+                    entry.leakReported = true;
+                    System.err.println("[WARN] Possible connection leak: connection held for "
+                            + (now - entry.borrowedAt) + "ms");
+                    if (entry.borrowSite != null) {
+                        entry.borrowSite.printStackTrace();
+                    }
+                }
+            }
+        }
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            // Ignore
+        }
+    }
+
+    /**
+     * A physical connection plus the bookkeeping the pool needs for it.
+     */
+    private final class PooledEntry {
+        private final Connection physical;
+        private volatile long borrowedAt;
+        private volatile long returnedAt;
+        private volatile Throwable borrowSite;
+        private volatile boolean leakReported;
+
+        private PooledEntry(Connection physical) {
+            this.physical = physical;
+        }
+
+        private Connection newProxy() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class },
+                    new Handler(this));
+        }
+    }
+
+    /**
+     * Forwards every call to the physical connection except close()/isClosed(),
+     * which apply to this logical handle only.
+     */
+    private final class Handler implements InvocationHandler {
+        private final PooledEntry entry;
+        private boolean released;
+
+        private Handler(PooledEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (method.getDeclaringClass() == Object.class) {
+                // Identity of the proxy, not the shared physical connection; works after close too
+                switch (name) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return "PooledConnection@" + Integer.toHexString(System.identityHashCode(proxy))
+                                + (released ? " (returned)" : "");
+                }
+            }
+            if ("close".equals(name)) {
+                if (!released) {
+                    released = true;
+                    release(entry);
+                }
+                return null;
+            }
+            if ("isClosed".equals(name)) {
+                return released || entry.physical.isClosed();
+            }
+            if (released) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            try {
+                return method.invoke(entry.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
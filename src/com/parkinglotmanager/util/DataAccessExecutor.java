@@ -0,0 +1,80 @@
+package com.parkinglotmanager.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs database work off the Swing event dispatch thread.
+ * Results are handed back to the EDT with SwingUtilities.invokeLater, so GUI
+ * code never blocks on a query and never touches components from a worker.
+ *
+ * The pool size comes from DATA_ACCESS_THREADS in config.properties (default 4);
+ * threads are daemons and time out when idle.
+ */
+public final class DataAccessExecutor {
+
+    private static final ThreadPoolExecutor EXECUTOR;
+
+    static {
+        int threads = Math.max(1, DatabaseConnection.getIntProperty("DATA_ACCESS_THREADS", 4));
+        AtomicInteger counter = new AtomicInteger();
+        EXECUTOR = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), r -> {
+                    Thread t = new Thread(r, "data-access-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    private DataAccessExecutor() {
+    }
+
+    /**
+     * Run a task in the background; nothing is published.
+     */
+    public static void execute(Runnable task) {
+        EXECUTOR.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                System.err.println("Background task failed: " + e.getMessage());
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Run a task in the background and pass its result to onResult on the EDT.
+     */
+    public static <T> void submit(Callable<T> task, Consumer<T> onResult) {
+        submit(task, onResult, null);
+    }
+
+    /**
+     * Run a task in the background and pass its result to onResult on the EDT.
+     * If the task throws, onError (when given) is called on the EDT instead.
+     */
+    public static <T> void submit(Callable<T> task, Consumer<T> onResult, Consumer<Exception> onError) {
+        EXECUTOR.execute(() -> {
+            T result;
+            try {
+                result = task.call();
+            } catch (Exception e) {
+                System.err.println("Background task failed: " + e.getMessage());
+                e.printStackTrace();
+                if (onError != null) {
+                    SwingUtilities.invokeLater(() -> onError.accept(e));
+                }
+                return;
+            }
+            SwingUtilities.invokeLater(() -> onResult.accept(result));
+        });
+    }
+}
@@ -8,21 +8,45 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Properties;
 
 public class DatabaseConnection {
 
     private static final String CONFIG_FILE = "config.properties";
     // Defaults
-    private static String dbUrl = "jdbc:mysql://localhost:3306/parking_lot_manager_db";
+    private static String dbUrl = "jdbc:mysql://localhost:3306/parking_lot_manager_db?rewriteBatchedStatements=true";
     private static String dbUser = "root";
     private static String dbPassword = "password";
     private static String dbName = "parking_lot_manager_db";
     private static String dbHost = "localhost";
     private static String dbPort = "3306";
 
+    // Connection pool settings (overridable in config.properties)
+    private static boolean poolEnabled = true;
+    private static int poolMinSize = 2;
+    private static int poolMaxSize = 10;
+    private static long poolIdleTimeoutMs = 300000;
+    private static long poolBorrowTimeoutMs = 5000;
+    private static long poolLeakThresholdMs = 60000;
+    private static int poolValidationTimeoutSec = 2;
+    private static volatile ConnectionPool pool;
+    // Run by shutdown() before the pool closes, last registered first; guarded by the class lock
+    private static final Deque<Runnable> drainTasks = new ArrayDeque<>();
+    private static boolean shutdownHookAdded;
+
+    // Storage profile: "mysql" (central server) or "embedded" (local H2 file, schema applied on first use)
+    private static String dbProfile = "mysql";
+    private static SqlDialect dialect = SqlDialect.MYSQL;
+    private static String schemaFile = "database/database_setup_v2.sql";
+    private static volatile boolean schemaReady;
+    // Everything read from config.properties, for settings owned by other classes
+    private static final Properties settings = new Properties();
+
     static {
         loadConfiguration();
+        configureProfile();
     }
 
     private static void loadConfiguration() {
@@ -59,6 +83,7 @@ public class DatabaseConnection {
             }
 
             props.load(input);
+            settings.putAll(props);
 
             dbHost = props.getProperty("DB_HOST", "localhost");
             dbPort = props.getProperty("DB_PORT", "3306");
@@ -66,13 +91,23 @@ public class DatabaseConnection {
             dbUser = props.getProperty("DB_USER", "root");
             dbPassword = props.getProperty("DB_PASSWORD", "");
 
+            poolEnabled = Boolean.parseBoolean(props.getProperty("DB_POOL_ENABLED", "true"));
+            poolMinSize = Integer.parseInt(props.getProperty("DB_POOL_MIN_SIZE", "2").trim());
+            poolMaxSize = Integer.parseInt(props.getProperty("DB_POOL_MAX_SIZE", "10").trim());
+            poolIdleTimeoutMs = Long.parseLong(props.getProperty("DB_POOL_IDLE_TIMEOUT_MS", "300000").trim());
+            poolBorrowTimeoutMs = Long.parseLong(props.getProperty("DB_POOL_BORROW_TIMEOUT_MS", "5000").trim());
+            poolLeakThresholdMs = Long.parseLong(props.getProperty("DB_POOL_LEAK_THRESHOLD_MS", "60000").trim());
+            poolValidationTimeoutSec = Integer.parseInt(props.getProperty("DB_POOL_VALIDATION_TIMEOUT_SEC", "2").trim());
+
             // Construct URL dynamically
-            dbUrl = String.format("jdbc:mysql://%s:%s/%s?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true",
+            // rewriteBatchedStatements turns JDBC batches into multi-row statements
+            dbUrl = String.format("jdbc:mysql://%s:%s/%s?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true"
+                    + "&rewriteBatchedStatements=true",
                     dbHost, dbPort, dbName);
 
             System.out.println("[OK] Configuration loaded: " + dbUser + "@" + dbHost + ":" + dbPort + "/" + dbName);
 
-        } catch (IOException e) {
+        } catch (IOException | NumberFormatException e) {
             System.err.println("Error loading config. Using defaults.");
             e.printStackTrace();
         } finally {
@@ -86,12 +121,172 @@ public class DatabaseConnection {
         }
     }
 
+    /**
+     * Point the connection settings at the embedded database when
+     * DB_PROFILE=embedded. Needs the H2 driver jar on the classpath.
+     */
+    private static void configureProfile() {
+        dbProfile = getProperty("DB_PROFILE", "mysql").toLowerCase();
+        if (!"embedded".equals(dbProfile)) {
+            return;
+        }
+
+        dialect = SqlDialect.H2;
+        String path = getProperty("EMBEDDED_DB_PATH", "data/parking");
+        if (!new java.io.File(path).isAbsolute() && !path.startsWith(".")) {
+            path = "./" + path; // H2 wants relative paths spelled out
+        }
+        // MySQL mode keeps the DAOs' SQL working; USER is a keyword in H2 but a table name here
+        dbUrl = "jdbc:h2:" + path + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE"
+                + ";NON_KEYWORDS=USER";
+        dbUser = getProperty("EMBEDDED_DB_USER", "sa");
+        dbPassword = getProperty("EMBEDDED_DB_PASSWORD", "");
+        dbName = path;
+        schemaFile = getProperty("EMBEDDED_DB_SCHEMA", schemaFile);
+        System.out.println("[OK] Using embedded database: " + path);
+        try {
+            Class.forName("org.h2.Driver");
+        } catch (ClassNotFoundException e) {
+            System.err.println("DB_PROFILE=embedded needs the H2 driver on the classpath "
+                    + "(put h2-*.jar next to the MySQL connector); every query will fail without it.");
+        }
+    }
+
+    public static boolean isEmbedded() {
+        return dialect == SqlDialect.H2;
+    }
+
+    /**
+     * SQL dialect of the configured database, for the few statements that differ
+     */
+    public static SqlDialect getDialect() {
+        return dialect;
+    }
+
+    /**
+     * Read a setting from config.properties, or the default if it is not set.
+     * A -DKEY=value system property takes precedence over the file.
+     */
+    public static String getProperty(String key, String defaultValue) {
+        String value = System.getProperty(key, settings.getProperty(key));
+        return value != null ? value.trim() : defaultValue;
+    }
+
+    public static int getIntProperty(String key, int defaultValue) {
+        try {
+            return Integer.parseInt(getProperty(key, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for " + key + " in " + CONFIG_FILE + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public static boolean getBooleanProperty(String key, boolean defaultValue) {
+        return Boolean.parseBoolean(getProperty(key, String.valueOf(defaultValue)));
+    }
+
+    /**
+     * Get a connection from the pool (or a direct connection if pooling is disabled).
+     * Callers must close() it; for pooled connections that returns it to the pool.
+     */
     public static Connection getConnection() throws SQLException {
         // FIX 3: Removed Class.forName (unnecessary)
-        return DriverManager.getConnection(dbUrl, dbUser, dbPassword);
+        if (isEmbedded() && !schemaReady) {
+            ensureEmbeddedSchema();
+        }
+        if (!poolEnabled) {
+            return DriverManager.getConnection(dbUrl, dbUser, dbPassword);
+        }
+        return getPool().borrow();
+    }
+
+    private static ConnectionPool getPool() {
+        ConnectionPool p = pool;
+        if (p == null) {
+            synchronized (DatabaseConnection.class) {
+                p = pool;
+                if (p == null) {
+                    p = new ConnectionPool(dbUrl, dbUser, dbPassword, poolMinSize, poolMaxSize,
+                            poolIdleTimeoutMs, poolBorrowTimeoutMs, poolLeakThresholdMs,
+                            poolValidationTimeoutSec);
+                    addShutdownHook();
+                    pool = p;
+                }
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Have shutdown() (and so JVM exit) run a task before the pool closes, so
+     * a background writer can save what it still holds. Tasks run one at a
+     * time, the last registered first, so a writer that others log through
+     * registers early and drains last.
+     */
+    public static void runBeforeShutdown(Runnable task) {
+        synchronized (DatabaseConnection.class) {
+            drainTasks.push(task);
+            addShutdownHook();
+        }
+    }
+
+    /**
+     * Drain the writers registered with runBeforeShutdown, then close all
+     * pooled connections. Runs on JVM exit; safe to call more than once.
+     */
+    public static void shutdown() {
+        while (true) {
+            Runnable task;
+            synchronized (DatabaseConnection.class) {
+                task = drainTasks.poll();
+            }
+            if (task == null) {
+                break;
+            }
+            try {
+                task.run(); // Without the lock: the task still needs connections
+            } catch (RuntimeException e) {
+                System.err.println("Shutdown task failed: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+        synchronized (DatabaseConnection.class) {
+            if (pool != null) {
+                pool.shutdown();
+                pool = null;
+            }
+        }
+    }
+
+    // One hook, so writers are drained before the pool closes rather than alongside it
+    private static void addShutdownHook() {
+        if (!shutdownHookAdded) {
+            shutdownHookAdded = true;
+            Runtime.getRuntime().addShutdownHook(new Thread(DatabaseConnection::shutdown, "db-shutdown"));
+        }
+    }
+
+    /**
+     * Create the embedded database's tables on first use
+     */
+    private static synchronized boolean ensureEmbeddedSchema() throws SQLException {
+        if (!schemaReady) {
+            try (Connection conn = DriverManager.getConnection(dbUrl, dbUser, dbPassword)) {
+                schemaReady = SchemaInitializer.applyIfMissing(conn, schemaFile, dialect);
+            }
+        }
+        return schemaReady;
     }
 
     public static boolean initializeDatabase() {
+        if (isEmbedded()) {
+            try {
+                return ensureEmbeddedSchema();
+            } catch (SQLException e) {
+                System.err.println("Database initialization failed: " + e.getMessage());
+                return false;
+            }
+        }
         try {
             // FIX 2: Use the loaded variables, not hardcoded localhost
             String baseUrl = String.format(
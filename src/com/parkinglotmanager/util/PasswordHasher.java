@@ -0,0 +1,115 @@
+package com.parkinglotmanager.util;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * PBKDF2-HMAC-SHA256 password hashes, stored as "iterations:salt:hash"
+ * (salt and hash in Base64). Hashes from before the work factor was stored
+ * are "salt:hash" and used 65,536 iterations; they still verify.
+ *
+ * New hashes use AUTH_HASH_ITERATIONS from config.properties. Raising it
+ * makes needsRehash() true for older hashes, so they are upgraded the next
+ * time their user logs in.
+ */
+public final class PasswordHasher {
+
+    public static final int LEGACY_ITERATIONS = 65536;
+    private static final int KEY_LENGTH = 256;
+    private static final int SALT_BYTES = 16;
+
+    // Never blocks for entropy, unlike SecureRandom.getInstanceStrong()
+    private static final SecureRandom RANDOM = createRandom();
+
+    private PasswordHasher() {
+    }
+
+    /**
+     * Work factor for new hashes
+     */
+    public static int getIterations() {
+        return Math.max(10000, DatabaseConnection.getIntProperty("AUTH_HASH_ITERATIONS", LEGACY_ITERATIONS));
+    }
+
+    /**
+     * Hash a password with a fresh salt and the configured work factor
+     */
+    public static String hash(String password) throws GeneralSecurityException {
+        return hash(password, getIterations());
+    }
+
+    public static String hash(String password, int iterations) throws GeneralSecurityException {
+        byte[] salt = randomBytes(SALT_BYTES);
+        byte[] hash = pbkdf2(password, salt, iterations);
+        return iterations + ":" + Base64.getEncoder().encodeToString(salt) + ":"
+                + Base64.getEncoder().encodeToString(hash);
+    }
+
+    /**
+     * Check a password against a stored hash (either format); false if the hash is malformed
+     */
+    public static boolean verify(String password, String storedHash) {
+        try {
+            String[] parts = storedHash.split(":");
+            int iterations = parts.length == 3 ? Integer.parseInt(parts[0]) : LEGACY_ITERATIONS;
+            byte[] salt = Base64.getDecoder().decode(parts[parts.length - 2]);
+            byte[] expected = Base64.getDecoder().decode(parts[parts.length - 1]);
+            return MessageDigest.isEqual(expected, pbkdf2(password, salt, iterations));
+        } catch (GeneralSecurityException | RuntimeException e) {
+            System.err.println("Could not verify password hash: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Work factor a stored hash was made with
+     */
+    public static int iterationsOf(String storedHash) {
+        String[] parts = storedHash.split(":");
+        try {
+            return parts.length == 3 ? Integer.parseInt(parts[0]) : LEGACY_ITERATIONS;
+        } catch (NumberFormatException e) {
+            return LEGACY_ITERATIONS;
+        }
+    }
+
+    /**
+     * True if a stored hash is weaker than the configured work factor
+     */
+    public static boolean needsRehash(String storedHash) {
+        return iterationsOf(storedHash) < getIterations();
+    }
+
+    /**
+     * Random bytes from the shared non-blocking generator
+     */
+    public static byte[] randomBytes(int count) {
+        byte[] bytes = new byte[count];
+        RANDOM.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) throws GeneralSecurityException {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, KEY_LENGTH);
+        try {
+            return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    // The DRBG algorithm (Java 9+) where available, else the platform's default non-blocking generator
+    private static SecureRandom createRandom() {
+        try {
+            return SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+}
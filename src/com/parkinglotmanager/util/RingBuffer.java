@@ -0,0 +1,126 @@
+package com.parkinglotmanager.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free queue for many producers and one consumer.
+ *
+ * Each cell carries a sequence number saying whose turn it is: a producer
+ * claims a position with one CAS on the tail and publishes its element by
+ * advancing the cell's sequence; the consumer takes cells in order once they
+ * are published. offer() never blocks or waits - it returns false when the
+ * buffer is full, and the caller decides whether to drop or retry.
+ *
+ * Only one thread at a time may call drainTo()/poll().
+ */
+public final class RingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    public RingBuffer(int capacity) {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        mask = size - 1;
+        elements = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Add an element if there is room. Safe from any number of threads.
+     *
+     * @return false (and counts a rejection) if the buffer is full
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+        long position = tail.get();
+        while (true) {
+            int cell = (int) position & mask;
+            long difference = sequences.get(cell) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(cell, element);
+                    sequences.lazySet(cell, position + 1); // Publishes the element to the consumer
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // The consumer has not freed this cell yet: a full lap behind
+                rejected.incrementAndGet();
+                return false;
+            } else {
+                position = tail.get(); // Another producer took this position
+            }
+        }
+    }
+
+    /**
+     * Take the oldest element, or null if none is published yet. Consumer thread only.
+     */
+    public E poll() {
+        long position = head.get();
+        int cell = (int) position & mask;
+        if (sequences.get(cell) != position + 1) {
+            return null;
+        }
+        E element = elements.get(cell);
+        elements.lazySet(cell, null);
+        sequences.lazySet(cell, position + mask + 1); // Free the cell for the next lap
+        head.lazySet(position + 1);
+        return element;
+    }
+
+    /**
+     * Pass up to max published elements to action, oldest first. Consumer thread only.
+     *
+     * @return number of elements passed
+     */
+    public int drainTo(Consumer<? super E> action, int max) {
+        int count = 0;
+        E element;
+        while (count < max && (element = poll()) != null) {
+            action.accept(element);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Approximate number of elements waiting
+     */
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, mask + 1L));
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Number of offers turned away because the buffer was full
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+}
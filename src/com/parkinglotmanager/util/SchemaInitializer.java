@@ -0,0 +1,124 @@
+package com.parkinglotmanager.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates the tables of an empty database from database/database_setup_v2.sql,
+ * rewriting each statement for the target dialect first. Used by the embedded
+ * profile so a fresh kiosk or test box needs no manual setup.
+ */
+public final class SchemaInitializer {
+
+    private SchemaInitializer() {
+    }
+
+    /**
+     * Apply the schema file unless the VehicleSession table already exists.
+     *
+     * @return true if the schema is in place afterwards
+     */
+    public static boolean applyIfMissing(Connection conn, String schemaFile, SqlDialect dialect) {
+        if (tableExists(conn, "VehicleSession")) {
+            return true;
+        }
+
+        Path path = Paths.get(schemaFile);
+        if (!Files.exists(path)) {
+            path = Paths.get("..", schemaFile); // Same fallback as config.properties
+        }
+        String script;
+        try {
+            script = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.err.println("Cannot read schema file " + schemaFile + ": " + e.getMessage());
+            return false;
+        }
+
+        int applied = 0;
+        int failed = 0;
+        try (Statement stmt = conn.createStatement()) {
+            for (String statement : splitStatements(script)) {
+                String sql = dialect.translateSchemaStatement(statement);
+                if (sql == null) {
+                    continue;
+                }
+                try {
+                    stmt.execute(sql);
+                    applied++;
+                } catch (SQLException e) {
+                    failed++;
+                    System.err.println("Schema statement failed: " + e.getMessage());
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error applying schema: " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+
+        System.out.println("[OK] Applied " + applied + " schema statements from " + path
+                + (failed > 0 ? " (" + failed + " failed)" : ""));
+        return tableExists(conn, "VehicleSession");
+    }
+
+    private static boolean tableExists(Connection conn, String table) {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeQuery("SELECT 1 FROM " + table + " WHERE 1 = 0").close();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Split a script on semicolons, dropping -- comments. Semicolons and
+     * dashes inside quoted strings are left alone.
+     */
+    static List<String> splitStatements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inString = false;
+
+        for (int i = 0; i < script.length(); i++) {
+            char c = script.charAt(i);
+            if (inString) {
+                current.append(c);
+                if (c == '\'') {
+                    inString = false;
+                }
+            } else if (c == '\'') {
+                inString = true;
+                current.append(c);
+            } else if (c == '-' && i + 1 < script.length() && script.charAt(i + 1) == '-') {
+                // Comment: skip to end of line
+                while (i < script.length() && script.charAt(i) != '\n') {
+                    i++;
+                }
+                current.append('\n');
+            } else if (c == ';') {
+                addStatement(statements, current);
+            } else {
+                current.append(c);
+            }
+        }
+        addStatement(statements, current);
+        return statements;
+    }
+
+    private static void addStatement(List<String> statements, StringBuilder current) {
+        String statement = current.toString().trim();
+        if (!statement.isEmpty()) {
+            statements.add(statement);
+        }
+        current.setLength(0);
+    }
+}
@@ -0,0 +1,93 @@
+package com.parkinglotmanager.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * The few SQL differences between the central MySQL server and the embedded
+ * H2 database (DB_PROFILE=embedded). H2 runs in MySQL mode, so only the
+ * statements below need a second spelling; everything else is shared.
+ */
+public enum SqlDialect {
+    MYSQL,
+    H2;
+
+    // Table options after the closing parenthesis, e.g. ") ENGINE=InnoDB DEFAULT CHARSET=..."
+    private static final Pattern TABLE_OPTIONS = Pattern.compile("\\)\\s*ENGINE\\s*=.*$",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    /**
+     * Today's date, e.g. for "DATE(exitTime) = CURDATE()"
+     */
+    public String currentDate() {
+        return this == MYSQL ? "CURDATE()" : "CURRENT_DATE";
+    }
+
+    /**
+     * The date part of a DATETIME column or expression
+     */
+    public String dateOf(String expression) {
+        return this == MYSQL ? "DATE(" + expression + ")" : "CAST(" + expression + " AS DATE)";
+    }
+
+    /**
+     * Fetch size that makes the driver stream a result set row by row instead
+     * of reading it all into memory. MySQL Connector/J only streams with
+     * Integer.MIN_VALUE on a forward-only, read-only statement; H2 reads
+     * results lazily in batches of the fetch size.
+     */
+    public int streamingFetchSize() {
+        return this == MYSQL ? Integer.MIN_VALUE : 1000;
+    }
+
+    /**
+     * An insert-or-update statement with one ? per column, in the given order.
+     * Rows are matched on keyColumns (a primary or unique key); the other
+     * columns are overwritten when the row already exists.
+     */
+    public String upsert(String table, String[] columns, String... keyColumns) {
+        String columnList = String.join(", ", columns);
+        String placeholders = String.join(", ", Collections.nCopies(columns.length, "?"));
+
+        if (this == H2) {
+            return "MERGE INTO " + table + " (" + columnList + ") KEY (" + String.join(", ", keyColumns)
+                    + ") VALUES (" + placeholders + ")";
+        }
+
+        List<String> keys = Arrays.asList(keyColumns);
+        List<String> updates = new ArrayList<>();
+        for (String column : columns) {
+            if (!keys.contains(column)) {
+                updates.add(column + " = VALUES(" + column + ")");
+            }
+        }
+        return "INSERT INTO " + table + " (" + columnList + ") VALUES (" + placeholders + ") "
+                + "ON DUPLICATE KEY UPDATE " + String.join(", ", updates);
+    }
+
+    /**
+     * Rewrite one statement of database_setup_v2.sql for this database.
+     *
+     * @return the statement to run, or null to skip it
+     */
+    public String translateSchemaStatement(String sql) {
+        if (this == MYSQL) {
+            return sql;
+        }
+        String upper = sql.trim().toUpperCase(Locale.ROOT);
+        if (upper.startsWith("CREATE DATABASE") || upper.startsWith("USE ") || upper.startsWith("SHOW ")
+                || upper.startsWith("SELECT ")) {
+            return null; // The embedded database is the file itself; reporting queries are not needed
+        }
+        if (upper.startsWith("CREATE TRIGGER") || upper.startsWith("DROP TRIGGER")) {
+            return null; // H2 triggers are Java classes; the change feed only matters with several consoles
+        }
+        // Backticks would make identifiers case-sensitive; the DAOs use them unquoted
+        String translated = sql.replace("`", "");
+        return TABLE_OPTIONS.matcher(translated).replaceFirst(")");
+    }
+}